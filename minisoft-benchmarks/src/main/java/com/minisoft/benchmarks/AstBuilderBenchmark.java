@@ -0,0 +1,34 @@
+package com.minisoft.benchmarks;
+
+import com.minisoft.MiniSoftParser;
+import com.minisoft.ast.AstBuilder;
+import com.minisoft.ast.Program;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the lowering of a parsed program into the abstract syntax tree the later phases run on.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Xss64m"})
+@State(Scope.Benchmark)
+public class AstBuilderBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int lines;
+
+    private MiniSoftParser.ProgramContext tree;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        tree = BenchmarkInputs.parse(SyntheticPrograms.generate(lines));
+    }
+
+    @Benchmark
+    public Program lower() {
+        return new AstBuilder().build(tree);
+    }
+}
@@ -0,0 +1,78 @@
+package com.minisoft.benchmarks;
+
+import com.minisoft.BatchCompiler;
+import com.minisoft.CompilationResult;
+import com.minisoft.CompilerOptions;
+import com.minisoft.MiniSoftCompiler;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures the throughput of a batch of source files compiled through the command line pipeline (reading,
+ * parsing, lowering and all checks) with a growing number of parallel jobs. Output is discarded.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class BatchCompilerBenchmark {
+    /**
+     * Number of files in the batch, each about 1000 lines long
+     */
+    @Param({"64"})
+    public int files;
+
+    @Param({"1", "2", "4", "8"})
+    public int jobs;
+
+    private Path directory;
+    private List<Path> sourceFiles;
+    private BatchCompiler compiler;
+    private PrintStream discard;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("minisoft-batch");
+        sourceFiles = new ArrayList<>(files);
+        String source = SyntheticPrograms.generate(1000);
+        for (int i = 0; i < files; i++) {
+            Path file = directory.resolve("program" + i + ".ms");
+            Files.write(file, source.getBytes(StandardCharsets.UTF_8));
+            sourceFiles.add(file);
+        }
+        CompilerOptions options = CompilerOptions.parse(new String[] {"--headless", sourceFiles.get(0).toString()});
+        compiler = new BatchCompiler(new MiniSoftCompiler(options), jobs);
+        discard = new PrintStream(OutputStream.nullOutputStream());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public List<CompilationResult> compile() {
+        List<CompilationResult> results = compiler.compile(sourceFiles, discard, discard);
+        for (CompilationResult result : results) {
+            if (!result.isSuccess()) {
+                throw new IllegalStateException("Generated program failed to compile: " + result.getStatus());
+            }
+        }
+        return results;
+    }
+}
@@ -0,0 +1,85 @@
+package com.minisoft.benchmarks;
+
+import com.minisoft.FusedAnalyzer;
+import com.minisoft.MappedCharStream;
+import com.minisoft.MiniSoftParser;
+import com.minisoft.TableLexer;
+import com.minisoft.ast.AstBuilder;
+import com.minisoft.ast.AstWalker;
+import com.minisoft.ast.Program;
+import com.minisoft.diagnostics.DiagnosticSink;
+import com.minisoft.symbol.SymbolTable;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ListTokenSource;
+import org.antlr.v4.runtime.Token;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Helpers that run the compiler phases preceding the one being measured.
+ * Each helper fails loudly if the generated input does not pass the phase cleanly,
+ * so a benchmark never silently measures error recovery.
+ */
+final class BenchmarkInputs {
+    private BenchmarkInputs() {
+    }
+
+    /**
+     * Tokenizes a source text with the compiler's default lexer and returns all tokens, including EOF
+     */
+    static List<Token> lex(String source) {
+        TableLexer lexer = new TableLexer(new MappedCharStream(
+                ByteBuffer.wrap(source.getBytes(StandardCharsets.UTF_8)), "<string>"));
+        List<Token> tokens = new ArrayList<>();
+        Token token;
+        do {
+            token = lexer.nextToken();
+            tokens.add(token);
+        } while (token.getType() != Token.EOF);
+        return tokens;
+    }
+
+    /**
+     * Creates a parser reading from already lexed tokens
+     */
+    static MiniSoftParser parser(List<Token> tokens) {
+        MiniSoftParser parser = new MiniSoftParser(new CommonTokenStream(new ListTokenSource(tokens)));
+        parser.removeErrorListeners();
+        return parser;
+    }
+
+    /**
+     * Parses a source text into a program tree
+     */
+    static MiniSoftParser.ProgramContext parse(String source) {
+        MiniSoftParser parser = parser(lex(source));
+        MiniSoftParser.ProgramContext tree = parser.program();
+        if (parser.getNumberOfSyntaxErrors() > 0) {
+            throw new IllegalStateException("Generated program has syntax errors");
+        }
+        return tree;
+    }
+
+    /**
+     * Parses a source text and lowers it to an abstract syntax tree
+     */
+    static Program lower(String source) {
+        return new AstBuilder().build(parse(source));
+    }
+
+    /**
+     * Builds the symbol table of a lowered program
+     */
+    static SymbolTable buildSymbolTable(Program program) {
+        FusedAnalyzer analyzer = new FusedAnalyzer(DiagnosticSink.printingTo(System.err));
+        AstWalker.DEFAULT.walk(analyzer, program);
+        analyzer.reportTypeErrors();
+        if (analyzer.hasSymbolErrors() || analyzer.hasTypeErrors()) {
+            throw new IllegalStateException("Generated program has semantic errors");
+        }
+        return analyzer.getSymbolTable();
+    }
+}
@@ -0,0 +1,43 @@
+package com.minisoft.benchmarks;
+
+import com.minisoft.ast.Program;
+import com.minisoft.optimizer.ConstantFacts;
+import com.minisoft.optimizer.ConstantPropagation;
+import com.minisoft.symbol.SymbolTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ConstantPropagation} over a lowered program whose symbol table has already been built:
+ * building the control flow graph, solving it and recording the constant expressions.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Xss64m"})
+@State(Scope.Benchmark)
+public class ConstantPropagationBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int lines;
+
+    private Program program;
+    private SymbolTable symbolTable;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        program = BenchmarkInputs.lower(SyntheticPrograms.generate(lines));
+        symbolTable = BenchmarkInputs.buildSymbolTable(program);
+    }
+
+    @Benchmark
+    public ConstantFacts analyze() {
+        ConstantPropagation analysis = new ConstantPropagation(symbolTable);
+        ConstantFacts facts = analysis.analyze(program);
+        if (analysis.hasErrors()) {
+            throw new IllegalStateException("Generated program has proven runtime errors");
+        }
+        return facts;
+    }
+}
@@ -0,0 +1,82 @@
+package com.minisoft.benchmarks;
+
+import com.minisoft.ParserFactory;
+import com.minisoft.daemon.CompileDaemon;
+import com.minisoft.daemon.DaemonClient;
+import com.minisoft.daemon.DaemonToken;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the round trip of compiling a small file through a running compile daemon, from sending the command
+ * line to receiving the exit status. The daemon runs in the benchmark's JVM; output is discarded.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class DaemonBenchmark {
+    @Param({"100"})
+    public int lines;
+
+    private Path sourceFile;
+    private Path tokenFile;
+    private CompileDaemon daemon;
+    private Thread server;
+    private DaemonClient client;
+    private List<String> args;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        sourceFile = Files.createTempFile("minisoft-daemon", ".ms");
+        Files.write(sourceFile, SyntheticPrograms.generate(lines).getBytes(StandardCharsets.UTF_8));
+        args = Collections.singletonList(sourceFile.toString());
+
+        ParserFactory parserFactory = new ParserFactory();
+        parserFactory.warmUp();
+        tokenFile = Files.createTempDirectory("minisoft-daemon").resolve("daemon.token");
+        daemon = new CompileDaemon(parserFactory, 1, DaemonToken.create(tokenFile));
+        ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        server = new Thread(() -> {
+            try {
+                daemon.serve(serverSocket);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        server.start();
+        client = new DaemonClient(serverSocket.getLocalPort(), tokenFile);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, InterruptedException {
+        daemon.stop();
+        server.join();
+        Files.delete(sourceFile);
+        Files.delete(tokenFile);
+        Files.delete(tokenFile.getParent());
+    }
+
+    @Benchmark
+    public int compile() throws IOException {
+        DaemonClient.Response response = client.compile(args, sourceFile.getParent(),
+                                                         OutputStream.nullOutputStream(),
+                                                         OutputStream.nullOutputStream());
+        if (response.getExitStatus() != 0) {
+            throw new IllegalStateException("Generated program failed to compile");
+        }
+        return response.getReports().size();
+    }
+}
@@ -0,0 +1,58 @@
+package com.minisoft.benchmarks;
+
+import com.minisoft.MiniSoftParser;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.atn.DecisionInfo;
+import org.antlr.v4.runtime.atn.PredictionMode;
+
+import java.util.List;
+
+/**
+ * Prints the prediction statistics of every parser decision made while parsing a synthetic program with full
+ * LL prediction: how often the decision was made, the tokens SLL prediction looked ahead in total and at most,
+ * how often it fell back to full-context LL prediction, and the context sensitivities and ambiguities found.
+ * Complements the timings of {@link ParserBenchmark}; run it with
+ * {@code java -cp benchmarks.jar com.minisoft.benchmarks.DecisionReport [lines]}.
+ */
+public final class DecisionReport {
+    private DecisionReport() {
+    }
+
+    public static void main(String[] args) {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        List<Token> tokens = BenchmarkInputs.lex(SyntheticPrograms.generate(lines));
+        MiniSoftParser parser = BenchmarkInputs.parser(tokens);
+        parser.setProfile(true);
+        parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+        parser.program();
+        if (parser.getNumberOfSyntaxErrors() > 0) {
+            throw new IllegalStateException("Generated program has syntax errors");
+        }
+
+        System.out.printf("%-28s %8s %12s %12s %8s %12s %12s %12s%n", "Decision", "", "Invocations",
+                          "SLL look", "SLL max", "LL fallback", "Sensitivity", "Ambiguity");
+        long invocations = 0;
+        long lookahead = 0;
+        long fallbacks = 0;
+        long sensitivities = 0;
+        long ambiguities = 0;
+        for (DecisionInfo info : parser.getParseInfo().getDecisionInfo()) {
+            if (info.invocations == 0) {
+                continue;
+            }
+            int rule = parser.getATN().decisionToState.get(info.decision).ruleIndex;
+            System.out.printf("%-28s %8d %12d %12d %8d %12d %12d %12d%n", parser.getRuleNames()[rule],
+                              info.decision, info.invocations, info.SLL_TotalLook, info.SLL_MaxLook,
+                              info.LL_Fallback, info.contextSensitivities.size(), info.ambiguities.size());
+            invocations += info.invocations;
+            lookahead += info.SLL_TotalLook;
+            fallbacks += info.LL_Fallback;
+            sensitivities += info.contextSensitivities.size();
+            ambiguities += info.ambiguities.size();
+        }
+        System.out.printf("%-28s %8s %12d %12d %8s %12d %12d %12d%n", "Total", "", invocations, lookahead, "",
+                          fallbacks, sensitivities, ambiguities);
+        System.out.printf("%d tokens, %.2f tokens looked ahead per decision%n", tokens.size(),
+                          (double) lookahead / invocations);
+    }
+}
@@ -0,0 +1,91 @@
+package com.minisoft.benchmarks;
+
+import com.minisoft.ast.Program;
+import com.minisoft.interpreter.Interpreter;
+import com.minisoft.jvm.JvmCompiler;
+import com.minisoft.jvm.JvmProgram;
+import com.minisoft.symbol.SymbolTable;
+import com.minisoft.vm.VmCompiler;
+import com.minisoft.vm.VmProgram;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the run time of a loop-heavy program on the tree-walking interpreter, the register VM and as
+ * generated JVM bytecode. Compilation happens once per trial, so only execution is measured; output is discarded.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Xss64m"})
+@State(Scope.Benchmark)
+public class ExecutionBenchmark {
+    private static final String PROGRAM =
+            "MainPrgm Loops;\n" +
+            "Var\n" +
+            "    let i, j, sum, n: Int;\n" +
+            "    let acc: Float;\n" +
+            "    let A: [Int; 100];\n" +
+            "    let M: [Float; 100];\n" +
+            "BeginPg\n" +
+            "{\n" +
+            "    sum := 0;\n" +
+            "    acc := 0.0;\n" +
+            "    for i from 1 to %d step 1 {\n" +
+            "        for j from 0 to 99 step 1 {\n" +
+            "            A[j] := A[j] + i * j;\n" +
+            "            M[j] := M[j] + (A[j] - j) / 3.0;\n" +
+            "            if (A[j] > 1000000 AND j != 0) then {\n" +
+            "                A[j] := A[j] / j;\n" +
+            "            }\n" +
+            "            sum := sum + A[j] - j * 2;\n" +
+            "        }\n" +
+            "        n := i;\n" +
+            "        do {\n" +
+            "            acc := acc + n * 0.5;\n" +
+            "            n := n - 7;\n" +
+            "        } while (n > 0);\n" +
+            "    }\n" +
+            "    output(\"sum\", sum, acc, M[99]);\n" +
+            "}\n" +
+            "EndPg;\n";
+
+    /**
+     * Number of iterations of the outer loop; each runs 100 inner iterations
+     */
+    @Param({"1000", "10000"})
+    public int iterations;
+
+    private Program program;
+    private SymbolTable symbolTable;
+    private VmProgram vmProgram;
+    private JvmProgram jvmProgram;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        program = BenchmarkInputs.lower(String.format(PROGRAM, iterations));
+        symbolTable = BenchmarkInputs.buildSymbolTable(program);
+        vmProgram = new VmCompiler(symbolTable).compile(program);
+        String className = JvmCompiler.classNameOf(program);
+        jvmProgram = JvmProgram.load(className, new JvmCompiler(symbolTable).compile(program, className, null));
+    }
+
+    @Benchmark
+    public void interpreter() {
+        new Interpreter(symbolTable).run(program, InputStream.nullInputStream(), OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void vm() {
+        vmProgram.run(InputStream.nullInputStream(), OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void jvm() {
+        jvmProgram.run(InputStream.nullInputStream(), OutputStream.nullOutputStream());
+    }
+}
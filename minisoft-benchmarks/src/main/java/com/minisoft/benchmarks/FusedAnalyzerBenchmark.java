@@ -0,0 +1,70 @@
+package com.minisoft.benchmarks;
+
+import com.minisoft.FusedAnalyzer;
+import com.minisoft.ast.AstBaseListener;
+import com.minisoft.ast.AstWalker;
+import com.minisoft.ast.Node;
+import com.minisoft.ast.Program;
+import com.minisoft.diagnostics.DiagnosticSink;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares semantic analysis as two {@link AstWalker} passes, {@link SymbolTableBuilder} then
+ * {@link SemanticAnalyzer}, with the single pass of {@link FusedAnalyzer} over the same lowered program, flat or with
+ * expressions and if statements nested {@code depth} levels deep. Run with the GC profiler, as the benchmark jar
+ * does, the bytes allocated per operation divided by the node count printed at setup are the bytes allocated per
+ * node; the only allocations {@link FusedAnalyzer} is expected to make are the symbol table and the
+ * one-byte-per-expression type array of each program.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Xss64m"})
+@State(Scope.Benchmark)
+public class FusedAnalyzerBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int lines;
+
+    @Param({"1", "64"})
+    public int depth;
+
+    private Program program;
+    private DiagnosticSink diagnostics;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        program = BenchmarkInputs.lower(SyntheticPrograms.generate(lines, depth));
+        diagnostics = DiagnosticSink.printingTo(new PrintStream(OutputStream.nullOutputStream()));
+
+        long[] nodes = new long[1];
+        AstWalker.DEFAULT.walk(new AstBaseListener() {
+            @Override
+            public void enterEveryNode(Node node) {
+                nodes[0]++;
+            }
+        }, program);
+        System.out.println(nodes[0] + " nodes, " + program.getExpressionCount() + " expressions");
+    }
+
+    @Benchmark
+    public boolean separate() {
+        SymbolTableBuilder builder = new SymbolTableBuilder(diagnostics);
+        AstWalker.DEFAULT.walk(builder, program);
+        SemanticAnalyzer analyzer = new SemanticAnalyzer(builder.getSymbolTable(), diagnostics);
+        AstWalker.DEFAULT.walk(analyzer, program);
+        return builder.hasErrors() || analyzer.hasErrors();
+    }
+
+    @Benchmark
+    public boolean fused() {
+        FusedAnalyzer analyzer = new FusedAnalyzer(diagnostics);
+        AstWalker.DEFAULT.walk(analyzer, program);
+        analyzer.reportTypeErrors();
+        return analyzer.hasSymbolErrors() || analyzer.hasTypeErrors();
+    }
+}
@@ -0,0 +1,75 @@
+package com.minisoft.benchmarks;
+
+import com.minisoft.MappedCharStream;
+import com.minisoft.MiniSoftLexer;
+import com.minisoft.TableLexer;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.Token;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures tokenization of a whole program with the generated {@link MiniSoftLexer} and with the hand-written
+ * {@link TableLexer}, reading the source from memory or from a memory-mapped file as the compiler does. The
+ * generated lexer reads a string in memory, as ANTLR does by default; the table lexer reads its UTF-8 bytes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Xss64m"})
+@State(Scope.Benchmark)
+public class LexerBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int lines;
+
+    @Param({"string", "mapped"})
+    public String input;
+
+    private String source;
+    private byte[] sourceBytes;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        source = SyntheticPrograms.generate(lines);
+        sourceBytes = source.getBytes(StandardCharsets.UTF_8);
+        file = Files.createTempFile("minisoft-lexer", ".ms");
+        Files.write(file, sourceBytes);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.delete(file);
+    }
+
+    @Benchmark
+    public int tokenize() throws IOException {
+        CharStream stream = "mapped".equals(input) ? MappedCharStream.map(file) : CharStreams.fromString(source);
+        MiniSoftLexer lexer = new MiniSoftLexer(stream);
+        int count = 0;
+        while (lexer.nextToken().getType() != Token.EOF) {
+            count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int tokenizeTable() throws IOException {
+        MappedCharStream stream = "mapped".equals(input) ? MappedCharStream.map(file)
+                : new MappedCharStream(ByteBuffer.wrap(sourceBytes), "<string>");
+        TableLexer lexer = new TableLexer(stream);
+        int count = 0;
+        while (lexer.nextToken().getType() != Token.EOF) {
+            count++;
+        }
+        return count;
+    }
+}
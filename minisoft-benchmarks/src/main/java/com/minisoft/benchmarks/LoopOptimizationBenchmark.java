@@ -0,0 +1,107 @@
+package com.minisoft.benchmarks;
+
+import com.minisoft.ast.Program;
+import com.minisoft.interpreter.Interpreter;
+import com.minisoft.jvm.JvmCompiler;
+import com.minisoft.jvm.JvmProgram;
+import com.minisoft.optimizer.ConstantFacts;
+import com.minisoft.optimizer.ConstantPropagation;
+import com.minisoft.optimizer.LoopFacts;
+import com.minisoft.optimizer.LoopOptimizer;
+import com.minisoft.symbol.SymbolTable;
+import com.minisoft.vm.VmCompiler;
+import com.minisoft.vm.VmProgram;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the run time of loop nests at the optimization levels of {@code -O}: 0 without any, 1 with constant
+ * folding and 2 also with {@link LoopOptimizer}, on each backend. The sizes of the nest are counted up in loops first,
+ * so constant propagation cannot fold the products and bounds that loop optimization then moves or reduces.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Xss64m"})
+@State(Scope.Benchmark)
+public class LoopOptimizationBenchmark {
+    private static final String PROGRAM =
+            "MainPrgm Nests;\n" +
+            "Var\n" +
+            "    let r, i, j, n, sum: Int;\n" +
+            "    let x, y: Float;\n" +
+            "    let A: [Int; 10000];\n" +
+            "    let F: [Float; 100];\n" +
+            "BeginPg\n" +
+            "{\n" +
+            "    n := 0;\n" +
+            "    x := 0.0;\n" +
+            "    for i from 1 to 100 step 1 {\n" +
+            "        n := n + 1;\n" +
+            "        x := x + 0.25;\n" +
+            "    }\n" +
+            "    y := x / 50.0;\n" +
+            "    sum := 0;\n" +
+            "    for r from 1 to %d step 1 {\n" +
+            "        for i from 0 to n - 1 step 1 {\n" +
+            "            for j from 0 to n - 1 step 1 {\n" +
+            "                A[i * n + j] := A[i * n + j] + j * r;\n" +
+            "                F[j] := F[j] + x * y + i;\n" +
+            "                sum := sum + A[i * n + j] / 3 - n * n;\n" +
+            "            }\n" +
+            "        }\n" +
+            "    }\n" +
+            "    output(\"sum\", sum, F[99]);\n" +
+            "}\n" +
+            "EndPg;\n";
+
+    /**
+     * Number of iterations of the outer loop; each runs 10000 inner iterations
+     */
+    @Param({"10", "100"})
+    public int iterations;
+
+    @Param({"0", "1", "2"})
+    public int level;
+
+    private Program program;
+    private SymbolTable symbolTable;
+    private ConstantFacts constants;
+    private LoopFacts loops;
+    private VmProgram vmProgram;
+    private JvmProgram jvmProgram;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        program = BenchmarkInputs.lower(String.format(PROGRAM, iterations));
+        symbolTable = BenchmarkInputs.buildSymbolTable(program);
+        constants = level >= 1 ? new ConstantPropagation(symbolTable).analyze(program) : ConstantFacts.NONE;
+        loops = level >= 2 ? new LoopOptimizer(symbolTable, constants).optimize(program) : LoopFacts.NONE;
+        System.out.println(loops.getHoistedCount() + " invariant expressions moved, "
+                + loops.getReducedCount() + " products reduced");
+        vmProgram = new VmCompiler(symbolTable, constants, loops).compile(program);
+        String className = JvmCompiler.classNameOf(program);
+        jvmProgram = JvmProgram.load(className,
+                new JvmCompiler(symbolTable, constants, loops).compile(program, className, null));
+    }
+
+    @Benchmark
+    public void interpreter() {
+        new Interpreter(symbolTable, constants, loops)
+                .run(program, InputStream.nullInputStream(), OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void vm() {
+        vmProgram.run(InputStream.nullInputStream(), OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void jvm() {
+        jvmProgram.run(InputStream.nullInputStream(), OutputStream.nullOutputStream());
+    }
+}
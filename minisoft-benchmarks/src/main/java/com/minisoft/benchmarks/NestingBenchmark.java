@@ -0,0 +1,76 @@
+package com.minisoft.benchmarks;
+
+import com.minisoft.CompilationResult;
+import com.minisoft.CompilerOptions;
+import com.minisoft.MiniSoftCompiler;
+import com.minisoft.NestingLimit;
+import com.minisoft.ast.AstBaseListener;
+import com.minisoft.ast.AstWalker;
+import com.minisoft.ast.Node;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures checking programs of the same length whose expressions and if statements are nested deeper and deeper.
+ * At depth 1022 the arguments of the innermost output statement are 1024 levels deep, within the block of the
+ * program, 1022 if statements and its own parentheses, a quarter of {@link NestingLimit#DEFAULT_MAX_DEPTH}. The
+ * compiler runs every file on a thread sized for the nesting limit, so a run also shows that no phase overflows it;
+ * the time divided by the node count printed at setup is the time per node, which stays flat as the nesting deepens.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+// Counting the nodes at setup lowers the program on the benchmark thread, which needs the larger stack
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Xss64m"})
+@State(Scope.Benchmark)
+public class NestingBenchmark {
+    @Param({"10000"})
+    public int lines;
+
+    @Param({"1", "16", "64", "254", "1022"})
+    public int depth;
+
+    private Path sourceFile;
+    private MiniSoftCompiler compiler;
+    private PrintStream discard;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        String source = SyntheticPrograms.generate(lines, depth);
+        sourceFile = Files.createTempFile("minisoft-nesting", ".ms");
+        Files.write(sourceFile, source.getBytes(StandardCharsets.UTF_8));
+        compiler = new MiniSoftCompiler(CompilerOptions.parse(new String[] {"--headless", sourceFile.toString()}));
+        discard = new PrintStream(OutputStream.nullOutputStream());
+
+        long[] nodes = new long[1];
+        AstWalker.DEFAULT.walk(new AstBaseListener() {
+            @Override
+            public void enterEveryNode(Node node) {
+                nodes[0]++;
+            }
+        }, BenchmarkInputs.lower(source));
+        System.out.println(nodes[0] + " nodes");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(sourceFile);
+    }
+
+    @Benchmark
+    public CompilationResult check() {
+        CompilationResult result = compiler.compile(sourceFile, discard, discard);
+        if (!result.isSuccess()) {
+            throw new IllegalStateException("Generated program failed to compile: " + result.getStatus());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,41 @@
+package com.minisoft.benchmarks;
+
+import com.minisoft.MiniSoftParser;
+import com.minisoft.ParseDriver;
+import org.antlr.v4.runtime.Token;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link MiniSoftParser#program()} on pre-lexed tokens, both with the default full LL
+ * prediction and through the two-stage {@link ParseDriver} used by the compiler.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Xss64m"})
+@State(Scope.Benchmark)
+public class ParserBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int lines;
+
+    private List<Token> tokens;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        tokens = BenchmarkInputs.lex(SyntheticPrograms.generate(lines));
+    }
+
+    @Benchmark
+    public MiniSoftParser.ProgramContext parseLL() {
+        return BenchmarkInputs.parser(tokens).program();
+    }
+
+    @Benchmark
+    public MiniSoftParser.ProgramContext parseTwoStage() {
+        return new ParseDriver(BenchmarkInputs.parser(tokens)).parseProgram();
+    }
+}
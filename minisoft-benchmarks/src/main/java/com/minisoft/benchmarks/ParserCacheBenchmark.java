@@ -0,0 +1,60 @@
+package com.minisoft.benchmarks;
+
+import com.minisoft.MiniSoftLexer;
+import com.minisoft.MiniSoftParser;
+import com.minisoft.ParseDriver;
+import com.minisoft.ParserFactory;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the first parse of a program with a parser cache that is empty, warmed from the bundled samples,
+ * or already filled by parsing the same program. A new factory is set up before every invocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class ParserCacheBenchmark {
+    @Param({"cold", "warm", "hot"})
+    public String cache;
+
+    @Param({"100"})
+    public int lines;
+
+    private String source;
+    private ParserFactory factory;
+
+    @Setup(Level.Trial)
+    public void setUpSource() {
+        source = SyntheticPrograms.generate(lines);
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpFactory() {
+        factory = new ParserFactory();
+        if ("warm".equals(cache)) {
+            factory.warmUp();
+        } else if ("hot".equals(cache)) {
+            parse();
+        }
+    }
+
+    @Benchmark
+    public MiniSoftParser.ProgramContext parse() {
+        MiniSoftLexer lexer = factory.createLexer(CharStreams.fromString(source));
+        lexer.removeErrorListeners();
+        MiniSoftParser parser = factory.createParser(new CommonTokenStream(lexer));
+        parser.removeErrorListeners();
+        MiniSoftParser.ProgramContext tree = new ParseDriver(parser).parseProgram();
+        if (parser.getNumberOfSyntaxErrors() > 0) {
+            throw new IllegalStateException("Generated program has syntax errors");
+        }
+        return tree;
+    }
+}
@@ -0,0 +1,66 @@
+package com.minisoft.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entry point of the benchmark jar.
+ * Runs the selected JMH benchmarks with the GC profiler attached and converts the raw
+ * per-invocation scores into lines per second and bytes allocated per source line.
+ * Accepts the usual JMH command line options, e.g. {@code -p lines=1000,100000 Parser}.
+ * Benchmarks without a {@code lines} parameter only appear in the regular JMH summary.
+ */
+public final class PhaseReport {
+    private PhaseReport() {
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        Options options = new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        Collection<RunResult> results = new Runner(options).run();
+
+        System.out.println();
+        System.out.printf("%-50s %10s %16s %16s%n", "Benchmark", "Lines", "Lines/s", "Bytes/line");
+        for (RunResult runResult : results) {
+            String benchmark = runResult.getParams().getBenchmark();
+            String linesParam = runResult.getParams().getParam("lines");
+            if (linesParam == null) {
+                // Not a per-phase benchmark (e.g. execution); JMH's own summary covers it
+                continue;
+            }
+            int lines = SyntheticPrograms.actualLines(Integer.parseInt(linesParam));
+
+            Result<?> primary = runResult.getPrimaryResult();
+            double secondsPerOp = primary.getScore() * secondsPer(runResult.getParams().getTimeUnit());
+            double linesPerSecond = lines / secondsPerOp;
+
+            Result<?> allocation = runResult.getSecondaryResults().get("gc.alloc.rate.norm");
+            String bytesPerLine = allocation == null ? "n/a" : String.format("%.1f", allocation.getScore() / lines);
+
+            System.out.printf("%-50s %10d %16.0f %16s%n", shortName(benchmark), lines, linesPerSecond, bytesPerLine);
+        }
+    }
+
+    private static double secondsPer(TimeUnit unit) {
+        return unit.toNanos(1) / 1e9;
+    }
+
+    private static String shortName(String benchmark) {
+        String prefix = PhaseReport.class.getPackage().getName() + ".";
+        return benchmark.startsWith(prefix) ? benchmark.substring(prefix.length()) : benchmark;
+    }
+}
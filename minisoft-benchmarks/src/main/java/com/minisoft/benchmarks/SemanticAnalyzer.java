@@ -0,0 +1,209 @@
+package com.minisoft.benchmarks;
+
+import com.minisoft.FusedAnalyzer;
+import com.minisoft.ast.ArrayElement;
+import com.minisoft.ast.Assignment;
+import com.minisoft.ast.AstBaseListener;
+import com.minisoft.ast.Binary;
+import com.minisoft.ast.Expression;
+import com.minisoft.ast.Group;
+import com.minisoft.ast.Identifier;
+import com.minisoft.ast.Literal;
+import com.minisoft.ast.Logical;
+import com.minisoft.ast.Node;
+import com.minisoft.ast.Not;
+import com.minisoft.ast.Operator;
+import com.minisoft.ast.Program;
+import com.minisoft.diagnostics.DiagnosticCode;
+import com.minisoft.diagnostics.DiagnosticSink;
+import com.minisoft.symbol.DataType;
+import com.minisoft.symbol.SymbolEntity;
+import com.minisoft.symbol.SymbolTable;
+
+/**
+ * The second of the two passes semantic analysis made before {@link FusedAnalyzer}: infers the type of every
+ * expression from the symbol table {@link SymbolTableBuilder} built, and checks operands, assignments and conditions.
+ * Types are kept as {@link DataType#code() codes} in a byte array indexed by {@link Expression#getId() expression id}.
+ */
+class SemanticAnalyzer extends AstBaseListener {
+    private SymbolTable symbolTable;
+    private boolean hasErrors;
+    private byte[] expressionTypes; // To track types of expressions, 0 where none is known
+    private final DiagnosticSink diagnostics;
+
+    /**
+     * Creates a semantic analyzer that reports errors to the given sink
+     */
+    SemanticAnalyzer(SymbolTable symbolTable, DiagnosticSink diagnostics) {
+        this.symbolTable = symbolTable;
+        this.hasErrors = false;
+        this.expressionTypes = new byte[0];
+        this.diagnostics = diagnostics;
+    }
+
+    /**
+     * Returns whether any semantic errors were detected
+     */
+    public boolean hasErrors() {
+        return hasErrors;
+    }
+
+    /**
+     * Allocates the type of every expression of the program
+     */
+    @Override
+    public void enterProgram(Program program) {
+        expressionTypes = new byte[program.getExpressionCount()];
+    }
+
+    /**
+     * Determines the types of literals
+     */
+    @Override
+    public void exitLiteral(Literal literal) {
+        setType(literal, literal.isFloat() ? DataType.FLOAT : DataType.INT);
+    }
+
+    /**
+     * Determines the types of identifiers
+     */
+    @Override
+    public void exitIdentifier(Identifier identifier) {
+        setType(identifier, typeOfSymbol(identifier.getName()));
+    }
+
+    /**
+     * Determines the types of array elements
+     */
+    @Override
+    public void exitArrayElement(ArrayElement element) {
+        setType(element, typeOfSymbol(element.getName()));
+    }
+
+    /**
+     * Propagates the type of a parenthesized expression
+     */
+    @Override
+    public void exitGroup(Group group) {
+        DataType exprType = typeOf(group.getExpression());
+        setType(group, exprType != null ? exprType : DataType.UNKNOWN);
+    }
+
+    /**
+     * Validates logical negation (NOT) expressions
+     */
+    @Override
+    public void exitNot(Not not) {
+        // Logical negation always results in a boolean (Int)
+        setType(not, DataType.INT);
+        
+        // Check that the negated expression is a boolean
+        DataType exprType = typeOf(not.getOperand());
+        if (exprType != null && exprType != DataType.INT) {
+            reportSemanticError(not, DiagnosticCode.NON_BOOLEAN_NOT, exprType);
+        }
+    }
+
+    /**
+     * Validates logical AND and OR expressions
+     */
+    @Override
+    public void exitLogical(Logical logical) {
+        setType(logical, DataType.INT);
+        String name = logical.getOperator() == Operator.AND ? "AND" : "OR";
+        
+        // Check all operands are boolean compatible
+        for (Expression operand : logical.getOperands()) {
+            DataType exprType = typeOf(operand);
+            if (exprType != null && exprType != DataType.INT) {
+                reportSemanticError(logical, DiagnosticCode.NON_BOOLEAN_LOGICAL, name, exprType);
+            }
+        }
+    }
+
+    /**
+     * Validates comparisons and determines the types of comparisons and arithmetic operations
+     */
+    @Override
+    public void exitBinary(Binary binary) {
+        DataType leftType = typeOf(binary.getLeft());
+        DataType rightType = typeOf(binary.getRight());
+
+        if (binary.getOperator().isComparison()) {
+            setType(binary, DataType.INT); // Boolean result (0 or 1)
+            
+            // Check type compatibility between operands
+            if (leftType != null && rightType != null &&
+                leftType != rightType && 
+                !(leftType == DataType.INT && rightType == DataType.FLOAT) && 
+                !(leftType == DataType.FLOAT && rightType == DataType.INT)) {
+                reportSemanticError(binary, DiagnosticCode.COMPARISON_TYPE_MISMATCH, leftType, rightType);
+            }
+        } else {
+            // If any operand is Float, result is Float
+            setType(binary, leftType == DataType.FLOAT || rightType == DataType.FLOAT ? DataType.FLOAT : DataType.INT);
+        }
+    }
+
+    /**
+     * Validates assignment statements for type compatibility
+     */
+    @Override
+    public void exitAssignment(Assignment assignment) {
+        SymbolEntity entity = symbolTable.lookupSymbol(assignment.getName());
+        
+        if (entity != null) {
+            DataType valueType = typeOf(assignment.getValue());
+            
+            // Check type compatibility
+            if (valueType != null && entity.getDataType() != valueType) {
+                // Special case: Int can be assigned to Float
+                if (!(entity.getDataType() == DataType.FLOAT && valueType == DataType.INT)) {
+                    reportSemanticError(assignment, DiagnosticCode.ASSIGNMENT_TYPE_MISMATCH, valueType, entity.getDataType());
+                }
+            }
+        }
+    }
+
+    /**
+     * Validates condition expressions are boolean compatible
+     */
+    @Override
+    public void exitCondition(Expression condition) {
+        DataType condType = typeOf(condition);
+        
+        // Validate condition is boolean compatible
+        if (condType != null && condType != DataType.INT) {
+            reportSemanticError(condition, DiagnosticCode.NON_BOOLEAN_CONDITION, condType);
+        }
+    }
+
+    /**
+     * Returns the type of a declared identifier, or unknown if it is not declared
+     */
+    private DataType typeOfSymbol(String identifier) {
+        SymbolEntity entity = symbolTable.lookupSymbol(identifier);
+        // An undeclared identifier was already reported by SymbolTableBuilder
+        return entity != null ? entity.getDataType() : DataType.UNKNOWN;
+    }
+
+    /**
+     * Returns the type recorded for an expression, or null if there is none
+     */
+    private DataType typeOf(Expression expression) {
+        byte code = expressionTypes[expression.getId()];
+        return code != 0 ? DataType.ofCode(code) : null;
+    }
+
+    private void setType(Expression expression, DataType type) {
+        expressionTypes[expression.getId()] = type.code();
+    }
+
+    /**
+     * Reports a semantic error with location information
+     */
+    private void reportSemanticError(Node node, DiagnosticCode code, Object... arguments) {
+        diagnostics.report(code, node.getLine(), node.getColumn(), arguments);
+        hasErrors = true;
+    }
+}
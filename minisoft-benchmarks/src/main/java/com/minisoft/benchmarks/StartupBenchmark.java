@@ -0,0 +1,88 @@
+package com.minisoft.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cold start of the compiler: the time for {@code java -jar} to start a new JVM, compile the example
+ * sample and exit. It compares the default jar with dependencies, which bundles the whole ANTLR tool, with the
+ * runtime-only jar of the {@code dist} profile, alone and with the class data sharing archive made by its training
+ * run. Build both first with {@code mvn package} and {@code mvn -Pdist package}; the jars are looked for in
+ * {@code ../target}, or the directory given with {@code -p directory=...}, and started with the JDK running the
+ * benchmark, which must be the one that wrote the archive.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 20)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+    @Param({"../target"})
+    public String directory;
+
+    @Param({"jar-with-dependencies", "runtime", "runtime+cds"})
+    public String distribution;
+
+    private Path sourceFile;
+    private List<String> command;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        sourceFile = Files.createTempFile("minisoft-startup", ".ms");
+        try (InputStream in = StartupBenchmark.class.getResourceAsStream("/samples/example.ms")) {
+            Files.copy(in, sourceFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        Path target = Paths.get(directory);
+        command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        if (distribution.equals("runtime+cds")) {
+            command.add("-XX:SharedArchiveFile=" + find(target, "-runtime.jsa"));
+            // Fail rather than silently measure a start without the archive
+            command.add("-Xshare:on");
+        }
+        command.add("-jar");
+        command.add(find(target, distribution.equals("jar-with-dependencies")
+                ? "-jar-with-dependencies.jar" : "-runtime.jar").toString());
+        command.add("--headless");
+        command.add(sourceFile.toString());
+    }
+
+    private static Path find(Path directory, String suffix) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "minisoft-compiler-*" + suffix)) {
+            for (Path file : files) {
+                return file;
+            }
+        }
+        throw new IllegalStateException("No minisoft-compiler-*" + suffix + " in " + directory.toAbsolutePath());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(sourceFile);
+    }
+
+    @Benchmark
+    public int start() throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        int status = process.waitFor();
+        if (status != 0) {
+            throw new IllegalStateException(String.join(" ", command) + " exited with status " + status);
+        }
+        return status;
+    }
+}
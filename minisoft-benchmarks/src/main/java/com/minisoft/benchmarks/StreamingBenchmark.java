@@ -0,0 +1,61 @@
+package com.minisoft.benchmarks;
+
+import com.minisoft.CompilationResult;
+import com.minisoft.CompilerOptions;
+import com.minisoft.MiniSoftCompiler;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures checking a source file with a buffered token stream and a whole syntax tree, and with --stream,
+ * which checks it one top-level instruction at a time. The streaming runs also fit in a heap that does not
+ * grow with the file, e.g. with {@code -jvmArgsAppend -Xmx64m}. Output is discarded.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class StreamingBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int lines;
+
+    @Param({"false", "true"})
+    public boolean stream;
+
+    private Path sourceFile;
+    private MiniSoftCompiler compiler;
+    private PrintStream discard;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        sourceFile = Files.createTempFile("minisoft-stream", ".ms");
+        Files.write(sourceFile, SyntheticPrograms.generate(lines).getBytes(StandardCharsets.UTF_8));
+        String[] args = stream ? new String[] {"--headless", "--stream", sourceFile.toString()}
+                : new String[] {"--headless", sourceFile.toString()};
+        compiler = new MiniSoftCompiler(CompilerOptions.parse(args));
+        discard = new PrintStream(OutputStream.nullOutputStream());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(sourceFile);
+    }
+
+    @Benchmark
+    public CompilationResult check() {
+        CompilationResult result = compiler.compile(sourceFile, discard, discard);
+        if (!result.isSuccess()) {
+            throw new IllegalStateException("Generated program failed to compile: " + result.getStatus());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,289 @@
+package com.minisoft.benchmarks;
+
+import com.minisoft.FusedAnalyzer;
+import com.minisoft.ast.ArrayElement;
+import com.minisoft.ast.Assignment;
+import com.minisoft.ast.AstBaseListener;
+import com.minisoft.ast.ConstantDeclaration;
+import com.minisoft.ast.Expression;
+import com.minisoft.ast.ForLoop;
+import com.minisoft.ast.Identifier;
+import com.minisoft.ast.InputStatement;
+import com.minisoft.ast.Literal;
+import com.minisoft.ast.Node;
+import com.minisoft.ast.VariableDeclaration;
+import com.minisoft.diagnostics.DiagnosticCode;
+import com.minisoft.diagnostics.DiagnosticSink;
+import com.minisoft.symbol.DataType;
+import com.minisoft.symbol.EntityKind;
+import com.minisoft.symbol.SymbolEntity;
+import com.minisoft.symbol.SymbolTable;
+
+/**
+ * The first of the two passes semantic analysis made before {@link FusedAnalyzer}: collects declarations into the
+ * symbol table and checks identifiers, literals and single-identifier values. Kept unchanged as the baseline of
+ * {@link FusedAnalyzerBenchmark}, with {@link SemanticAnalyzer}.
+ */
+class SymbolTableBuilder extends AstBaseListener {
+    private SymbolTable symbolTable;
+    private boolean hasErrors;
+    private final DiagnosticSink diagnostics;
+
+    /**
+     * Creates a builder that reports errors to the given sink
+     */
+    SymbolTableBuilder(DiagnosticSink diagnostics) {
+        this.symbolTable = new SymbolTable();
+        this.hasErrors = false;
+        this.diagnostics = diagnostics;
+    }
+
+    /**
+     * Returns the constructed symbol table
+     */
+    public SymbolTable getSymbolTable() {
+        return symbolTable;
+    }
+
+    /**
+     * Returns whether any semantic errors were detected during symbol table building
+     */
+    public boolean hasErrors() {
+        return hasErrors;
+    }
+
+    /**
+     * Processes variable declarations and adds them to the symbol table
+     */
+    @Override
+    public void enterVariableDeclaration(VariableDeclaration declaration) {
+        DataType type = declaration.getType();
+        
+        // Extract the identifiers from the ID list
+        for (String identifier : declaration.getNames()) {
+            // Check for double declaration
+            if (symbolTable.symbolExists(identifier)) {
+                reportSemanticError(declaration, DiagnosticCode.DOUBLE_VARIABLE_DECLARATION, identifier);
+                continue;
+            }
+            
+            // Handle array declarations
+            if (declaration.isArray()) {
+                int arraySize = 0;
+                try {
+                    arraySize = Integer.parseInt(declaration.getArraySize());
+                    if (arraySize <= 0) {
+                        reportSemanticError(declaration, DiagnosticCode.NON_POSITIVE_ARRAY_SIZE, identifier);
+                        continue;
+                    }
+                } catch (NumberFormatException e) {
+                    reportSemanticError(declaration, DiagnosticCode.INVALID_ARRAY_SIZE, identifier);
+                    continue;
+                }
+                
+                SymbolEntity entity = new SymbolEntity(identifier, type, EntityKind.ARRAY, 
+                                                    declaration.getLine(), declaration.getColumn());
+                entity.setArraySize(arraySize);
+                symbolTable.addSymbol(entity);
+            } else {
+                SymbolEntity entity = new SymbolEntity(identifier, type, EntityKind.VARIABLE, 
+                                                    declaration.getLine(), declaration.getColumn());
+                symbolTable.addSymbol(entity);
+            }
+        }
+    }
+
+    /**
+     * Processes constant declarations and adds them to the symbol table
+     */
+    @Override
+    public void enterConstantDeclaration(ConstantDeclaration declaration) {
+        String identifier = declaration.getName();
+        DataType type = declaration.getType();
+        
+        // Check for double declaration
+        if (symbolTable.symbolExists(identifier)) {
+            reportSemanticError(declaration, DiagnosticCode.DOUBLE_CONSTANT_DECLARATION, identifier);
+            return;
+        }
+        
+        SymbolEntity entity = new SymbolEntity(identifier, type, EntityKind.CONSTANT, 
+                                            declaration.getLine(), declaration.getColumn());
+        
+        // Parse and set the value
+        boolean negative = declaration.isNegative();
+        try {
+            if (!declaration.isFloatValue()) {
+                int value = Integer.parseInt(declaration.getDigits());
+                entity.setValue(negative ? -value : value);
+                if (type != DataType.INT) {
+                    reportSemanticError(declaration, DiagnosticCode.INT_VALUE_FOR_NON_INT_CONSTANT, identifier);
+                }
+            } else {
+                float value = Float.parseFloat(declaration.getDigits());
+                entity.setValue(negative ? -value : value);
+                if (type != DataType.FLOAT) {
+                    reportSemanticError(declaration, DiagnosticCode.FLOAT_VALUE_FOR_NON_FLOAT_CONSTANT, identifier);
+                }
+            }
+        } catch (NumberFormatException e) {
+            reportSemanticError(declaration, DiagnosticCode.INVALID_CONSTANT_VALUE, identifier);
+        }
+        
+        symbolTable.addSymbol(entity);
+    }
+
+    /**
+     * Validates that an Int literal fits in 32 bits
+     */
+    @Override
+    public void enterLiteral(Literal literal) {
+        if (!literal.isValid()) {
+            reportSemanticError(literal, DiagnosticCode.INT_LITERAL_OUT_OF_RANGE);
+        }
+    }
+
+    /**
+     * Validates variable uses
+     */
+    @Override
+    public void enterIdentifier(Identifier identifier) {
+        if (symbolTable.lookupSymbol(identifier.getName()) == null) {
+            reportSemanticError(identifier, DiagnosticCode.UNDECLARED_IDENTIFIER, identifier.getName());
+        }
+    }
+
+    /**
+     * Validates array accesses
+     */
+    @Override
+    public void enterArrayElement(ArrayElement element) {
+        String identifier = element.getName();
+        SymbolEntity entity = symbolTable.lookupSymbol(identifier);
+        
+        // Check if identifier exists
+        if (entity == null) {
+            reportSemanticError(element, DiagnosticCode.UNDECLARED_IDENTIFIER, identifier);
+            return;
+        }
+        
+        // Check if it's an array
+        if (entity.getKind() != EntityKind.ARRAY) {
+            reportSemanticError(element, DiagnosticCode.INDEXED_NON_ARRAY, identifier);
+        }
+    }
+
+    /**
+     * Validates assignment statements and checks for type compatibility
+     */
+    @Override
+    public void enterAssignment(Assignment assignment) {
+        String identifier = assignment.getName();
+        SymbolEntity entity = symbolTable.lookupSymbol(identifier);
+        
+        // Check for undeclared identifier
+        if (entity == null) {
+            reportSemanticError(assignment, DiagnosticCode.UNDECLARED_IDENTIFIER, identifier);
+            return;
+        }
+        
+        // Check for constant modification
+        if (entity.getKind() == EntityKind.CONSTANT) {
+            reportSemanticError(assignment, DiagnosticCode.CONSTANT_ASSIGNMENT, identifier);
+        }
+        
+        // Check for array access
+        boolean isArrayAccess = assignment.getIndex() != null;
+        
+        if (isArrayAccess && entity.getKind() != EntityKind.ARRAY) {
+            reportSemanticError(assignment, DiagnosticCode.INDEXED_NON_ARRAY, identifier);
+        } else if (!isArrayAccess && entity.getKind() == EntityKind.ARRAY) {
+            reportSemanticError(assignment, DiagnosticCode.MISSING_ARRAY_INDEX, identifier);
+        }
+        
+        // Check right side expression
+        checkExpression(assignment.getValue(), entity.getDataType(), assignment);
+    }
+
+    /**
+     * Validates for loop expressions are integers
+     */
+    @Override
+    public void enterForLoop(ForLoop loop) {
+        String identifier = loop.getVariable();
+        SymbolEntity entity = symbolTable.lookupSymbol(identifier);
+        
+        // Check if loop variable exists
+        if (entity == null) {
+            reportSemanticError(loop, DiagnosticCode.UNDECLARED_LOOP_VARIABLE, identifier);
+            return;
+        }
+        
+        // Check if loop variable is an integer
+        if (entity.getDataType() != DataType.INT) {
+            reportSemanticError(loop, DiagnosticCode.NON_INT_LOOP_VARIABLE, entity.getDataType());
+            return;
+        }
+        
+        // Check all loop control expressions (from, to, step) are integers
+        checkExpression(loop.getFrom(), DataType.INT, loop);
+        checkExpression(loop.getTo(), DataType.INT, loop);
+        checkExpression(loop.getStep(), DataType.INT, loop);
+    }
+    
+    /**
+     * Validates the input statement target is a valid variable
+     */
+    @Override
+    public void enterInputStatement(InputStatement statement) {
+        String identifier = statement.getName();
+        SymbolEntity entity = symbolTable.lookupSymbol(identifier);
+        
+        // Check if identifier exists
+        if (entity == null) {
+            reportSemanticError(statement, DiagnosticCode.UNDECLARED_IDENTIFIER, identifier);
+            return;
+        }
+        
+        // Check if it's a constant (cannot be modified)
+        if (entity.getKind() == EntityKind.CONSTANT) {
+            reportSemanticError(statement, DiagnosticCode.CONSTANT_INPUT, identifier);
+        }
+        
+        // Check if it's an array (requires index)
+        if (entity.getKind() == EntityKind.ARRAY) {
+            reportSemanticError(statement, DiagnosticCode.ARRAY_INPUT, identifier);
+        }
+    }
+    
+    // Helper methods for semantic analysis
+    
+    /**
+     * Validates expression types against expected types. Only a single variable or literal is checked here;
+     * the types of other expressions are checked by the semantic analyzer.
+     */
+    private void checkExpression(Expression expr, DataType expectedType, Node errorNode) {
+        // Check type of variable
+        if (expr instanceof Identifier) {
+            SymbolEntity entity = symbolTable.lookupSymbol(((Identifier) expr).getName());
+            if (entity != null && entity.getDataType() != expectedType) {
+                // Special case: Int can be used where Float is expected (implicit conversion)
+                if (!(entity.getDataType() == DataType.INT && expectedType == DataType.FLOAT)) {
+                    reportSemanticError(errorNode, DiagnosticCode.TYPE_MISMATCH, expectedType, entity.getDataType());
+                }
+            }
+        }
+        // Check type of constant; an Int can be used where a Float is expected
+        else if (expr instanceof Literal && ((Literal) expr).isFloat() && expectedType == DataType.INT) {
+            reportSemanticError(errorNode, DiagnosticCode.TYPE_MISMATCH, DataType.INT, DataType.FLOAT);
+        }
+    }
+
+    /**
+     * Reports a semantic error with location information
+     */
+    private void reportSemanticError(Node node, DiagnosticCode code, Object... arguments) {
+        diagnostics.report(code, node.getLine(), node.getColumn(), arguments);
+        hasErrors = true;
+    }
+}
@@ -0,0 +1,138 @@
+package com.minisoft.benchmarks;
+
+/**
+ * Generator for large, semantically valid MiniSoft programs used as benchmark inputs.
+ * The body repeats a block built from the constructs of the bundled sample programs
+ * (assignments, array accesses, mixed-type arithmetic, if-else, do-while, for, output and comments)
+ * until the requested number of lines is reached.
+ */
+public final class SyntheticPrograms {
+    private static final String HEADER =
+            "MainPrgm Synthetic;\n" +
+            "Var\n" +
+            "    <! - Declarations copied from the samples - !>\n" +
+            "    let x, y, z, i: Int;\n" +
+            "    let a, b: Float;\n" +
+            "    let A, B: [Int; 10];\n" +
+            "    let M: [Float; 5];\n" +
+            "    @define Const Software: Int = 91;\n" +
+            "    @define Const PI: Float = 3.14159;\n" +
+            "BeginPg\n" +
+            "{\n";
+
+    private static final String FOOTER =
+            "}\n" +
+            "EndPg;\n";
+
+    private static final String[] BLOCK = {
+            "    x := 5;",
+            "    y := (x + 3) * 2;",
+            "    A[9] := y - x;",
+            "    B[0] := A[9] / 3 + Software;",
+            "    a := x + 2.5;",
+            "    b := (a - PI) * 2.0;",
+            "    M[4] := a + b;",
+            "    {-- Ceci est un commentaire sur une ligne --}",
+            "    if (x > 3 AND y != 0) then {",
+            "        output(\"x is greater than 3\", x);",
+            "    } else {",
+            "        output(\"x is not greater than 3\", x);",
+            "    }",
+            "    if (x < y OR (z > 0 AND !(a > b))) then {",
+            "        z := z + 1;",
+            "    }",
+            "    do {",
+            "        x := x - 1;",
+            "    } while (x > 0);",
+            "    for i from 1 to 11 step 2 {",
+            "        output(i);",
+            "    }",
+    };
+
+    private static final int FIXED_LINES = countLines(HEADER) + countLines(FOOTER);
+
+    private SyntheticPrograms() {
+    }
+
+    /**
+     * Generates a program of approximately the given number of lines.
+     * The result never has fewer lines than requested and exceeds it by less than one block.
+     *
+     * @param lines The target number of source lines
+     * @return The MiniSoft source text
+     */
+    public static String generate(int lines) {
+        int blocks = blocksFor(lines);
+        StringBuilder sb = new StringBuilder((HEADER.length() + FOOTER.length()) + blocks * 600);
+        sb.append(HEADER);
+        for (int block = 0; block < blocks; block++) {
+            for (String line : BLOCK) {
+                sb.append(line).append('\n');
+            }
+        }
+        sb.append(FOOTER);
+        return sb.toString();
+    }
+
+    /**
+     * Generates a program like {@link #generate(int)}, with the same number of lines, where the first assignment of
+     * every block is an expression nested the given number of parentheses deep and the first if statement is nested
+     * that many if statements deep, each written on one line
+     *
+     * @param lines The target number of source lines
+     * @param depth The nesting depth, 1 for the program of {@link #generate(int)}
+     * @return The MiniSoft source text
+     */
+    public static String generate(int lines, int depth) {
+        if (depth <= 1) {
+            return generate(lines);
+        }
+        StringBuilder expression = new StringBuilder("x");
+        for (int i = 1; i < depth; i++) {
+            expression.insert(0, '(').append(i % 2 == 0 ? " + 1)" : " * 2)");
+        }
+        StringBuilder conditions = new StringBuilder();
+        StringBuilder closing = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            conditions.append("if (x > ").append(i).append(" AND y != 0) then { ");
+            closing.append(" }");
+        }
+        String[] block = BLOCK.clone();
+        block[0] = "    x := " + expression + ";";
+        block[8] = "    " + conditions + "output(\"x is greater than 3\", x);" + closing + " if (x > 3) then {";
+
+        int blocks = blocksFor(lines);
+        StringBuilder sb = new StringBuilder(HEADER);
+        for (int i = 0; i < blocks; i++) {
+            for (String line : block) {
+                sb.append(line).append('\n');
+            }
+        }
+        sb.append(FOOTER);
+        return sb.toString();
+    }
+
+    /**
+     * Returns the exact number of lines {@link #generate(int)} produces for a target, without generating it
+     */
+    public static int actualLines(int lines) {
+        return FIXED_LINES + blocksFor(lines) * BLOCK.length;
+    }
+
+    private static int blocksFor(int lines) {
+        return Math.max(1, (lines - FIXED_LINES + BLOCK.length - 1) / BLOCK.length);
+    }
+
+    /**
+     * Counts the lines of a source text
+     */
+    public static int countLines(String source) {
+        int lines = 0;
+        for (int i = 0; i < source.length(); i++) {
+            if (source.charAt(i) == '\n') {
+                lines++;
+            }
+        }
+        return lines;
+    }
+}
@@ -11,6 +11,29 @@
  */
 grammar MiniSoft;
 
+@parser::members {
+private int nodeCount;
+
+/**
+ * Returns the number of parse tree nodes created since the parser was last reset
+ */
+public int getNodeCount() {
+    return nodeCount;
+}
+
+@Override
+public void enterRule(ParserRuleContext localctx, int state, int ruleIndex) {
+    nodeCount++;
+    super.enterRule(localctx, state, ruleIndex);
+}
+
+@Override
+public void reset() {
+    super.reset();
+    nodeCount = 0;
+}
+}
+
 // Parser Rules
 
 /**
@@ -35,11 +58,10 @@ declarations
     ;
 
 /**
- * Variable declaration syntax
+ * Variable declaration syntax, for variables and arrays
  */
 variableDeclaration
-    : LET idList COLON type SEMI
-    | LET idList COLON LBRACK type SEMI INT RBRACK SEMI
+    : LET idList COLON ( type | LBRACK type SEMI INT RBRACK ) SEMI
     ;
 
 /**
@@ -112,12 +134,11 @@ negationExpression
     ;
 
 /**
- * Expression with comparison operations
+ * Expression with at most one comparison operation. A parenthesized condition is a primary expression, so the
+ * parser decides between the two forms after the first operand instead of scanning ahead for an operator.
  */
 comparisonExpression
-    : additiveExpression comparisonOperator additiveExpression
-    | LPAREN logicalOrExpression RPAREN 
-    | additiveExpression 
+    : additiveExpression ( comparisonOperator additiveExpression )?
     ;
 
 /**
@@ -142,7 +163,7 @@ primaryExpression
     | ID
     | ID LBRACK expression RBRACK // Array access
     | LPAREN expression RPAREN    // Parentheses for grouping
-     ;
+    ;
 
 /**
  * Comparison operator types
@@ -0,0 +1,119 @@
+package com.minisoft;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Compiles a list of source files, in parallel when more than one job is allowed.
+ * Every file is compiled by its own task on a pool of {@code jobs} threads, with its own lexer, parser, listeners
+ * and output buffers. The threads have the stack the nesting limit needs, so files are compiled directly on them. Buffered output is printed in the order the files were given, each file as soon
+ * as it and all files before it are done, so the output is the same as that of a sequential run.
+ */
+public class BatchCompiler {
+    private final MiniSoftCompiler compiler;
+    private final int jobs;
+
+    /**
+     * Creates a batch compiler
+     *
+     * @param jobs The number of files compiled at the same time; 1 compiles them one by one, printing directly
+     */
+    public BatchCompiler(MiniSoftCompiler compiler, int jobs) {
+        this.compiler = compiler;
+        this.jobs = jobs;
+    }
+
+    /**
+     * Compiles the given files, printing a header before each one when there are several
+     *
+     * @return The outcome of every file, in the order the files were given
+     */
+    public List<CompilationResult> compile(List<Path> sourceFiles, PrintStream out, PrintStream err) {
+        boolean headers = sourceFiles.size() > 1;
+        List<CompilationResult> results = new ArrayList<>(sourceFiles.size());
+
+        if (jobs <= 1 || sourceFiles.size() <= 1) {
+            for (Path sourceFile : sourceFiles) {
+                if (headers) {
+                    out.println(header(sourceFile));
+                }
+                results.add(compiler.compile(sourceFile, out, err));
+            }
+            return results;
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(jobs, CompilerThread.factory("minisoft-batch",
+                                                                                          compiler.stackSize()));
+        try {
+            List<Future<BufferedCompilation>> tasks = new ArrayList<>(sourceFiles.size());
+            for (Path sourceFile : sourceFiles) {
+                tasks.add(pool.submit(() -> compileBuffered(sourceFile, headers)));
+            }
+            for (Future<BufferedCompilation> task : tasks) {
+                BufferedCompilation compilation = join(task);
+                compilation.out.writeTo(out);
+                out.flush();
+                compilation.err.writeTo(err);
+                err.flush();
+                results.add(compilation.result);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot write compiler output", e);
+        } finally {
+            pool.shutdownNow();
+        }
+        return results;
+    }
+
+    private BufferedCompilation compileBuffered(Path sourceFile, boolean header) {
+        BufferedCompilation compilation = new BufferedCompilation();
+        PrintStream out = new PrintStream(compilation.out);
+        PrintStream err = new PrintStream(compilation.err);
+        if (header) {
+            out.println(header(sourceFile));
+        }
+        compilation.result = compiler.compile(sourceFile, out, err);
+        out.flush();
+        err.flush();
+        return compilation;
+    }
+
+    private static <T> T join(Future<T> task) {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while compiling", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private static String header(Path sourceFile) {
+        return "=== " + sourceFile + " ===";
+    }
+
+    /**
+     * The outcome and the output of one file compiled on the pool
+     */
+    private static final class BufferedCompilation {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final ByteArrayOutputStream err = new ByteArrayOutputStream();
+        CompilationResult result;
+    }
+}
@@ -0,0 +1,90 @@
+package com.minisoft;
+
+import com.minisoft.profile.CompilationProfile;
+import com.minisoft.symbol.SymbolTable;
+import org.antlr.v4.runtime.atn.PredictionMode;
+
+import java.nio.file.Path;
+
+/**
+ * Outcome of compiling a single MiniSoft source file.
+ */
+public class CompilationResult {
+    /**
+     * Phase in which a compilation or execution stopped
+     */
+    public enum Status {
+        SUCCESS,
+        IO_ERROR,
+        SYNTAX_ERROR,
+        SEMANTIC_ERROR,
+        CODEGEN_ERROR,
+        RUNTIME_ERROR
+    }
+
+    private final Path sourceFile;
+    private final Status status;
+    private final PredictionMode parseMode;
+    private final SymbolTable symbolTable;
+    private final long elapsedNanos;
+    private final CompilationProfile profile;
+
+    public CompilationResult(Path sourceFile, Status status, PredictionMode parseMode,
+                             SymbolTable symbolTable, long elapsedNanos) {
+        this(sourceFile, status, parseMode, symbolTable, elapsedNanos, null);
+    }
+
+    public CompilationResult(Path sourceFile, Status status, PredictionMode parseMode,
+                             SymbolTable symbolTable, long elapsedNanos, CompilationProfile profile) {
+        this.sourceFile = sourceFile;
+        this.status = status;
+        this.parseMode = parseMode;
+        this.symbolTable = symbolTable;
+        this.elapsedNanos = elapsedNanos;
+        this.profile = profile;
+    }
+
+    /**
+     * Returns this result with the profile of the compilation
+     */
+    public CompilationResult withProfile(CompilationProfile profile) {
+        return new CompilationResult(sourceFile, status, parseMode, symbolTable, elapsedNanos, profile);
+    }
+
+    public Path getSourceFile() {
+        return sourceFile;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns the prediction mode the parse succeeded with (SLL or LL), or null if the file was not parsed
+     */
+    public PredictionMode getParseMode() {
+        return parseMode;
+    }
+
+    /**
+     * Returns the symbol table, or null if compilation stopped before it was built
+     */
+    public SymbolTable getSymbolTable() {
+        return symbolTable;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Returns the measurements taken with --profile, or null if the compilation was not profiled
+     */
+    public CompilationProfile getProfile() {
+        return profile;
+    }
+
+    public boolean isSuccess() {
+        return status == Status.SUCCESS;
+    }
+}
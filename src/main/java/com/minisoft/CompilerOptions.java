@@ -0,0 +1,543 @@
+package com.minisoft;
+
+import com.minisoft.diagnostics.DiagnosticSink;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Command line options for the MiniSoft compiler.
+ * Parses the arguments given to {@link Main} into the list of source files and the selected modes.
+ */
+public class CompilerOptions {
+    /**
+     * Execution engine used by --run
+     */
+    public enum Backend {
+        INTERPRETER,
+        VM,
+        JVM
+    }
+
+    /**
+     * Format diagnostics are printed in
+     */
+    public enum DiagnosticFormat {
+        TEXT,
+        JSON
+    }
+
+    /**
+     * Lexer that splits source files into tokens
+     */
+    public enum LexerKind {
+        /** The hand-written {@link TableLexer} */
+        TABLE,
+        /** The {@link MiniSoftLexer} generated by ANTLR */
+        ANTLR
+    }
+
+    private final List<Path> sourceFiles;
+    private boolean gui;
+    private boolean guiExplicit;
+    private boolean help;
+    private boolean verbose;
+    private boolean run;
+    private Backend backend = Backend.INTERPRETER;
+    private Path classOutputDirectory;
+    private Path jarOutputDirectory;
+    private Path irOutputDirectory;
+    private boolean printIr;
+    private int jobs = 1;
+    private boolean warmUp;
+    private int maxDfaStates = Integer.MAX_VALUE;
+    private Path cacheDirectory;
+    private long cacheSize = 64L * 1024 * 1024;
+    private boolean stream;
+    private DiagnosticFormat diagnosticFormat = DiagnosticFormat.TEXT;
+    private int maxDiagnostics = DiagnosticSink.DEFAULT_LIMIT;
+    private Path profileFile;
+    private LexerKind lexer = LexerKind.ANTLR;
+    private int optimizationLevel = 1;
+    private int maxNesting = NestingLimit.DEFAULT_MAX_DEPTH;
+
+    private CompilerOptions() {
+        this.sourceFiles = new ArrayList<>();
+    }
+
+    /**
+     * Parses command line arguments.
+     *
+     * @param args The raw arguments passed to the compiler
+     * @return The parsed options
+     * @throws IllegalArgumentException if an option is unknown or no source file is given
+     */
+    public static CompilerOptions parse(String[] args) {
+        return parse(args, null);
+    }
+
+    /**
+     * Parses command line arguments given in another working directory, such as the one of a daemon client.
+     *
+     * @param args             The raw arguments passed to the compiler
+     * @param workingDirectory The directory relative paths are resolved against, or null for the current one
+     * @return The parsed options
+     * @throws IllegalArgumentException if an option is unknown or no source file is given
+     */
+    public static CompilerOptions parse(String[] args, Path workingDirectory) {
+        CompilerOptions options = new CompilerOptions();
+
+        for (String arg : args) {
+            // Options with a value are written as --name=value
+            String name = arg;
+            String value = null;
+            int separator = arg.indexOf('=');
+            if (arg.startsWith("--") && separator > 0) {
+                name = arg.substring(0, separator);
+                value = arg.substring(separator + 1);
+            }
+
+            switch (name) {
+                case "--gui":
+                    options.gui = true;
+                    options.guiExplicit = true;
+                    break;
+                case "--headless":
+                    options.gui = false;
+                    options.guiExplicit = true;
+                    break;
+                case "--run":
+                    options.run = true;
+                    break;
+                case "--backend":
+                    options.backend = parseBackend(requireValue(name, value));
+                    break;
+                case "--emit-class":
+                    options.classOutputDirectory = resolve(workingDirectory, requireValue(name, value));
+                    break;
+                case "--emit-jar":
+                    options.jarOutputDirectory = resolve(workingDirectory, requireValue(name, value));
+                    break;
+                case "--emit-ir":
+                    options.irOutputDirectory = resolve(workingDirectory, requireValue(name, value));
+                    break;
+                case "--print-ir":
+                    options.printIr = true;
+                    break;
+                case "--jobs":
+                    options.jobs = parseJobs(requireValue(name, value));
+                    break;
+                case "--warm-up":
+                    options.warmUp = true;
+                    break;
+                case "--max-dfa-states":
+                    options.maxDfaStates = parseMaxDfaStates(requireValue(name, value));
+                    break;
+                case "--cache":
+                    options.cacheDirectory = resolve(workingDirectory, requireValue(name, value));
+                    break;
+                case "--cache-size":
+                    options.cacheSize = parseCacheSize(requireValue(name, value));
+                    break;
+                case "--stream":
+                    options.stream = true;
+                    break;
+                case "--diagnostics":
+                    options.diagnosticFormat = parseDiagnosticFormat(requireValue(name, value));
+                    break;
+                case "--max-diagnostics":
+                    options.maxDiagnostics = parseMaxDiagnostics(requireValue(name, value));
+                    break;
+                case "--profile":
+                    options.profileFile = resolve(workingDirectory, requireValue(name, value));
+                    break;
+                case "--lexer":
+                    options.lexer = parseLexer(requireValue(name, value));
+                    break;
+                case "--max-nesting":
+                    options.maxNesting = parseMaxNesting(requireValue(name, value));
+                    break;
+                case "-O0":
+                case "-O1":
+                case "-O2":
+                    options.optimizationLevel = name.charAt(2) - '0';
+                    break;
+                case "-v":
+                case "--verbose":
+                    options.verbose = true;
+                    break;
+                case "-h":
+                case "--help":
+                    options.help = true;
+                    break;
+                default:
+                    if (arg.startsWith("-")) {
+                        throw new IllegalArgumentException("Unknown option: " + arg);
+                    }
+                    options.sourceFiles.add(resolve(workingDirectory, arg));
+            }
+        }
+
+        if (!options.help && options.sourceFiles.isEmpty()) {
+            throw new IllegalArgumentException("No source file given");
+        }
+
+        // Programs run with --run share standard input, and viewers would open in any order
+        if (options.jobs > 1 && (options.run || options.gui)) {
+            throw new IllegalArgumentException("--jobs cannot be combined with --run or --gui");
+        }
+
+        // A streamed program is only checked: its statements are gone by the end of the parse
+        if (options.stream && (options.run || (options.gui && options.guiExplicit) || options.isIrNeeded()
+                || options.classOutputDirectory != null || options.jarOutputDirectory != null)) {
+            throw new IllegalArgumentException(
+                    "--stream cannot be combined with --run, --gui, --emit-class, --emit-jar, --emit-ir or --print-ir");
+        }
+
+        // The phases of a streamed program run interleaved, one instruction at a time
+        if (options.stream && options.profileFile != null) {
+            throw new IllegalArgumentException("--stream cannot be combined with --profile");
+        }
+
+        // The runtime-only distribution leaves out the ANTLR tool, which holds the parse tree viewer
+        if (options.gui && options.guiExplicit && !isViewerAvailable()) {
+            throw new IllegalArgumentException("--gui needs the parse tree viewer, which this build does not include");
+        }
+
+        // Without an explicit switch the parse tree viewer is only opened for a single file, and not with --cache,
+        // whose results would otherwise never be used
+        if (!options.guiExplicit) {
+            options.gui = options.sourceFiles.size() == 1 && options.jobs == 1 && !options.stream
+                          && options.cacheDirectory == null && isViewerAvailable();
+        }
+
+        return options;
+    }
+
+    private static Path resolve(Path workingDirectory, String path) {
+        return workingDirectory == null ? Paths.get(path) : workingDirectory.resolve(path);
+    }
+
+    private static String requireValue(String name, String value) {
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Option " + name + " requires a value: " + name + "=<value>");
+        }
+        return value;
+    }
+
+    private static long parseCacheSize(String value) {
+        long megabytes;
+        try {
+            megabytes = Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cache size: " + value);
+        }
+        if (megabytes < 1) {
+            throw new IllegalArgumentException("Invalid cache size: " + value);
+        }
+        return megabytes * 1024 * 1024;
+    }
+
+    private static int parseMaxDiagnostics(String value) {
+        int diagnostics;
+        try {
+            diagnostics = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number of diagnostics: " + value);
+        }
+        if (diagnostics < 1) {
+            throw new IllegalArgumentException("Invalid number of diagnostics: " + value);
+        }
+        return diagnostics;
+    }
+
+    private static DiagnosticFormat parseDiagnosticFormat(String value) {
+        switch (value) {
+            case "text":
+                return DiagnosticFormat.TEXT;
+            case "json":
+                return DiagnosticFormat.JSON;
+            default:
+                throw new IllegalArgumentException("Unknown diagnostic format: " + value);
+        }
+    }
+
+    private static LexerKind parseLexer(String value) {
+        switch (value) {
+            case "table":
+                return LexerKind.TABLE;
+            case "antlr":
+                return LexerKind.ANTLR;
+            default:
+                throw new IllegalArgumentException("Unknown lexer: " + value);
+        }
+    }
+
+    private static int parseMaxNesting(String value) {
+        int depth;
+        try {
+            depth = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid nesting depth: " + value);
+        }
+        if (depth < 1 || depth > NestingLimit.UPPER_LIMIT) {
+            throw new IllegalArgumentException("Invalid nesting depth: " + value);
+        }
+        return depth;
+    }
+
+    private static int parseMaxDfaStates(String value) {
+        int states;
+        try {
+            states = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number of DFA states: " + value);
+        }
+        if (states < 1) {
+            throw new IllegalArgumentException("Invalid number of DFA states: " + value);
+        }
+        return states;
+    }
+
+    private static int parseJobs(String value) {
+        int jobs;
+        try {
+            jobs = "max".equals(value) ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number of jobs: " + value);
+        }
+        if (jobs < 1) {
+            throw new IllegalArgumentException("Invalid number of jobs: " + value);
+        }
+        return jobs;
+    }
+
+    private static Backend parseBackend(String value) {
+        switch (value) {
+            case "interpreter":
+                return Backend.INTERPRETER;
+            case "vm":
+                return Backend.VM;
+            case "jvm":
+                return Backend.JVM;
+            default:
+                throw new IllegalArgumentException("Unknown backend: " + value);
+        }
+    }
+
+    /**
+     * Returns whether the classes of the parse tree viewer are on the class path, without loading them
+     */
+    private static boolean isViewerAvailable() {
+        return CompilerOptions.class.getClassLoader().getResource("org/antlr/v4/gui/Trees.class") != null;
+    }
+
+    /**
+     * Returns the usage text printed for --help and for invalid arguments
+     */
+    public static String usage() {
+        return "Usage: java -jar minisoft-compiler.jar [options] <source-file>...\n"
+                + "Options:\n"
+                + "  --headless             Never open the parse tree viewer (default for several files or with --cache)\n"
+                + "  --gui                  Open the parse tree viewer for every compiled file\n"
+                + "  --run                  Execute each program that compiled successfully\n"
+                + "  --backend=<b>          Execution engine for --run: interpreter (default), vm or jvm\n"
+                + "  --emit-class=<dir>     Write each compiled program as a JVM class file to <dir>\n"
+                + "  --emit-jar=<dir>       Write each compiled program as an executable jar to <dir>\n"
+                + "  --emit-ir=<dir>        Write the quadruples of each compiled program to <dir>/<name>.msq\n"
+                + "  --print-ir             Print the quadruples of each compiled program\n"
+                + "  --jobs=<n>             Compile up to <n> files in parallel, or one per processor with max (default 1)\n"
+                + "  --warm-up              Fill the parser cache from the bundled samples before compiling\n"
+                + "  --max-dfa-states=<n>   Empty the parser cache when it grows beyond <n> states (default unbounded)\n"
+                + "  --cache=<dir>          Reuse the results of unchanged files from <dir>, and store new ones there\n"
+                + "  --cache-size=<mb>      Delete the least recently used results beyond <mb> megabytes (default 64)\n"
+                + "  --stream               Check each program one instruction at a time in constant memory, without running it\n"
+                + "  --diagnostics=<f>      Print diagnostics as text (default) or as JSON lines with json\n"
+                + "  --max-diagnostics=<n>  Print at most <n> diagnostics per file (default " + DiagnosticSink.DEFAULT_LIMIT + ")\n"
+                + "  --profile=<file>       Write the time, allocation and size of every compiler phase to <file> as JSON\n"
+                + "  --lexer=<l>            Split source files into tokens with the generated antlr lexer (default) or the hand-written table lexer\n"
+                + "  --max-nesting=<n>      Reject programs nested more than <n> levels deep (default " + NestingLimit.DEFAULT_MAX_DEPTH + ")\n"
+                + "  -O<n>                  Optimize nothing with 0, fold constants with 1 (default), also optimize loops with 2\n"
+                + "  -v, --verbose          Report the parser prediction mode (SLL or full LL) and syntax tree size for each file\n"
+                + "  -h, --help             Print this help and exit";
+    }
+
+    /**
+     * Returns the source files to compile, in the order they were given
+     */
+    public List<Path> getSourceFiles() {
+        return Collections.unmodifiableList(sourceFiles);
+    }
+
+    /**
+     * Returns whether the parse tree viewer should be opened
+     */
+    public boolean isGui() {
+        return gui;
+    }
+
+    /**
+     * Returns whether only the usage text was requested
+     */
+    public boolean isHelp() {
+        return help;
+    }
+
+    /**
+     * Returns whether per-file progress details should be printed
+     */
+    public boolean isVerbose() {
+        return verbose;
+    }
+
+    /**
+     * Returns whether successfully compiled programs should be executed
+     */
+    public boolean isRun() {
+        return run;
+    }
+
+    /**
+     * Returns the execution engine used by --run
+     */
+    public Backend getBackend() {
+        return backend;
+    }
+
+    /**
+     * Returns the directory generated class files are written to, or null
+     */
+    public Path getClassOutputDirectory() {
+        return classOutputDirectory;
+    }
+
+    /**
+     * Returns the directory generated jars are written to, or null
+     */
+    public Path getJarOutputDirectory() {
+        return jarOutputDirectory;
+    }
+
+    /**
+     * Returns the directory quadruple files are written to, or null
+     */
+    public Path getIrOutputDirectory() {
+        return irOutputDirectory;
+    }
+
+    /**
+     * Returns whether the quadruples of each program should be printed
+     */
+    public boolean isPrintIr() {
+        return printIr;
+    }
+
+    /**
+     * Returns whether quadruples are generated, either to print them or to write them out
+     */
+    public boolean isIrNeeded() {
+        return printIr || irOutputDirectory != null;
+    }
+
+    /**
+     * Returns whether programs are compiled to JVM bytecode, either to run them or to write them out
+     */
+    public boolean isJvmCodeNeeded() {
+        return (run && backend == Backend.JVM) || classOutputDirectory != null || jarOutputDirectory != null;
+    }
+
+    /**
+     * Returns the number of files compiled in parallel
+     */
+    public int getJobs() {
+        return jobs;
+    }
+
+    /**
+     * Returns whether the parser cache is filled from the bundled samples before compiling
+     */
+    public boolean isWarmUp() {
+        return warmUp;
+    }
+
+    /**
+     * Returns the number of parser cache states above which the cache is emptied
+     */
+    public int getMaxDfaStates() {
+        return maxDfaStates;
+    }
+
+    /**
+     * Returns the directory compilation results are cached in, or null
+     */
+    public Path getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    /**
+     * Returns the size in bytes the result cache is trimmed to after a run
+     */
+    public long getCacheSize() {
+        return cacheSize;
+    }
+
+    /**
+     * Returns whether programs are checked while they are parsed, one top-level instruction at a time
+     */
+    public boolean isStream() {
+        return stream;
+    }
+
+    /**
+     * Returns the format diagnostics are printed in
+     */
+    public DiagnosticFormat getDiagnosticFormat() {
+        return diagnosticFormat;
+    }
+
+    /**
+     * Returns the number of diagnostics printed per file; the rest are only counted
+     */
+    public int getMaxDiagnostics() {
+        return maxDiagnostics;
+    }
+
+    /**
+     * Returns the file the profile of the compiled files is written to, or null if they are not profiled
+     */
+    public Path getProfileFile() {
+        return profileFile;
+    }
+
+    /**
+     * Returns the lexer source files are split into tokens with
+     */
+    public LexerKind getLexer() {
+        return lexer;
+    }
+
+    /**
+     * Returns the optimization level: 0 for none, 1 to fold constant expressions and drop branches that are never
+     * taken, 2 to also optimize loops
+     */
+    public int getOptimizationLevel() {
+        return optimizationLevel;
+    }
+
+    /**
+     * Returns the deepest nesting of blocks, parentheses, brackets and ! operators a program may have
+     */
+    public int getMaxNesting() {
+        return maxNesting;
+    }
+
+    /**
+     * Returns whether several files are compiled in one run
+     */
+    public boolean isBatch() {
+        return sourceFiles.size() > 1;
+    }
+}
@@ -0,0 +1,35 @@
+package com.minisoft;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A thread with a stack large enough to compile files nested up to a limit, given by
+ * {@link NestingLimit#stackSizeFor}. Files are compiled directly on such a thread, and handed to a pool of them from
+ * any other thread.
+ */
+final class CompilerThread extends Thread {
+    private final long stackSize;
+
+    private CompilerThread(Runnable task, String name, long stackSize) {
+        super(null, task, name, stackSize);
+        this.stackSize = stackSize;
+        setDaemon(true);
+    }
+
+    /**
+     * Returns a factory of daemon threads with the given stack size, numbered after the given name
+     */
+    static ThreadFactory factory(String name, long stackSize) {
+        AtomicInteger count = new AtomicInteger();
+        return task -> new CompilerThread(task, name + "-" + count.incrementAndGet(), stackSize);
+    }
+
+    /**
+     * Returns whether the current thread is a compiler thread with at least the given stack size
+     */
+    static boolean currentFits(long stackSize) {
+        Thread current = Thread.currentThread();
+        return current instanceof CompilerThread && ((CompilerThread) current).stackSize >= stackSize;
+    }
+}
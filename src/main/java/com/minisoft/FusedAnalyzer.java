@@ -0,0 +1,468 @@
+package com.minisoft;
+
+import com.minisoft.ast.ArrayElement;
+import com.minisoft.ast.Assignment;
+import com.minisoft.ast.AstBaseListener;
+import com.minisoft.ast.AstWalker;
+import com.minisoft.ast.Binary;
+import com.minisoft.ast.ConstantDeclaration;
+import com.minisoft.ast.Expression;
+import com.minisoft.ast.ForLoop;
+import com.minisoft.ast.Group;
+import com.minisoft.ast.Identifier;
+import com.minisoft.ast.InputStatement;
+import com.minisoft.ast.Literal;
+import com.minisoft.ast.Logical;
+import com.minisoft.ast.Node;
+import com.minisoft.ast.Not;
+import com.minisoft.ast.Operator;
+import com.minisoft.ast.Program;
+import com.minisoft.ast.Statement;
+import com.minisoft.ast.VariableDeclaration;
+import com.minisoft.diagnostics.Diagnostic;
+import com.minisoft.diagnostics.DiagnosticCode;
+import com.minisoft.diagnostics.DiagnosticSink;
+import com.minisoft.symbol.DataType;
+import com.minisoft.symbol.EntityKind;
+import com.minisoft.symbol.SymbolEntity;
+import com.minisoft.symbol.SymbolTable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Semantic analysis in a single walk of the syntax tree: building the symbol table and type checking in one
+ * listener. Declarations fill the symbol table, and every identifier is looked up once, both to check it and to give
+ * its expression a type, so the type of every expression is known when the expression is left.
+ * <p>
+ * Two kinds of errors are reported. Symbol errors, such as undeclared identifiers and double declarations, are
+ * reported as they are found. Type errors are only meaningful for a program without symbol errors, so they are held
+ * back until {@link #reportTypeErrors()} and dropped at the first symbol error. The start, bound and step of a for
+ * loop, and array indexes, are checked to be Int whatever expression they are, not only when they are a single
+ * identifier or literal.
+ */
+public class FusedAnalyzer extends AstBaseListener {
+    private final SymbolTable symbolTable = new SymbolTable();
+    private final DiagnosticSink diagnostics;
+    private boolean hasSymbolErrors;
+    private int typeErrorCount;
+    private final List<Diagnostic> pendingTypeErrors = new ArrayList<>();
+    private byte[] expressionTypes = new byte[0]; // Types of expressions by id, 0 where none is known
+
+    // The symbol assigned by the assignment being walked, or null if it is undeclared; assignments do not nest
+    private SymbolEntity assignmentTarget;
+
+    /**
+     * Creates an analyzer that reports errors to the given sink
+     */
+    public FusedAnalyzer(DiagnosticSink diagnostics) {
+        this.diagnostics = diagnostics;
+    }
+
+    /**
+     * Returns the constructed symbol table
+     */
+    public SymbolTable getSymbolTable() {
+        return symbolTable;
+    }
+
+    /**
+     * Returns whether symbol errors were found, such as undeclared identifiers and invalid declarations
+     */
+    public boolean hasSymbolErrors() {
+        return hasSymbolErrors;
+    }
+
+    /**
+     * Returns whether type errors were found in a program without symbol errors
+     */
+    public boolean hasTypeErrors() {
+        return typeErrorCount > 0;
+    }
+
+    /**
+     * Reports the type errors held back so far, unless symbol errors were found
+     */
+    public void reportTypeErrors() {
+        for (Diagnostic error : pendingTypeErrors) {
+            diagnostics.report(error);
+        }
+        pendingTypeErrors.clear();
+    }
+
+    /**
+     * Checks one statement of a program read statement by statement, whose expressions are numbered from 0
+     *
+     * @param expressionCount The number of expressions in the statement; every expression id is smaller
+     */
+    public void analyze(Statement statement, int expressionCount) {
+        if (expressionTypes.length < expressionCount) {
+            expressionTypes = new byte[expressionCount];
+        } else {
+            Arrays.fill(expressionTypes, 0, expressionCount, (byte) 0);
+        }
+        AstWalker.DEFAULT.walk(this, statement);
+    }
+
+    /**
+     * Allocates the type of every expression of the program
+     */
+    @Override
+    public void enterProgram(Program program) {
+        expressionTypes = new byte[program.getExpressionCount()];
+    }
+
+    // Declarations
+
+    /**
+     * Adds declared variables and arrays to the symbol table
+     */
+    @Override
+    public void enterVariableDeclaration(VariableDeclaration declaration) {
+        DataType type = declaration.getType();
+        for (String identifier : declaration.getNames()) {
+            if (symbolTable.symbolExists(identifier)) {
+                reportSymbolError(declaration, DiagnosticCode.DOUBLE_VARIABLE_DECLARATION, identifier);
+                continue;
+            }
+
+            if (declaration.isArray()) {
+                int arraySize;
+                try {
+                    arraySize = Integer.parseInt(declaration.getArraySize());
+                } catch (NumberFormatException e) {
+                    reportSymbolError(declaration, DiagnosticCode.INVALID_ARRAY_SIZE, identifier);
+                    continue;
+                }
+                if (arraySize <= 0) {
+                    reportSymbolError(declaration, DiagnosticCode.NON_POSITIVE_ARRAY_SIZE, identifier);
+                    continue;
+                }
+                SymbolEntity entity = new SymbolEntity(identifier, type, EntityKind.ARRAY,
+                                                       declaration.getLine(), declaration.getColumn());
+                entity.setArraySize(arraySize);
+                symbolTable.addSymbol(entity);
+            } else {
+                symbolTable.addSymbol(new SymbolEntity(identifier, type, EntityKind.VARIABLE,
+                                                       declaration.getLine(), declaration.getColumn()));
+            }
+        }
+    }
+
+    /**
+     * Adds a declared constant and its value to the symbol table
+     */
+    @Override
+    public void enterConstantDeclaration(ConstantDeclaration declaration) {
+        String identifier = declaration.getName();
+        DataType type = declaration.getType();
+        if (symbolTable.symbolExists(identifier)) {
+            reportSymbolError(declaration, DiagnosticCode.DOUBLE_CONSTANT_DECLARATION, identifier);
+            return;
+        }
+
+        SymbolEntity entity = new SymbolEntity(identifier, type, EntityKind.CONSTANT,
+                                               declaration.getLine(), declaration.getColumn());
+        boolean negative = declaration.isNegative();
+        try {
+            if (!declaration.isFloatValue()) {
+                int value = Integer.parseInt(declaration.getDigits());
+                entity.setValue(negative ? -value : value);
+                if (type != DataType.INT) {
+                    reportSymbolError(declaration, DiagnosticCode.INT_VALUE_FOR_NON_INT_CONSTANT, identifier);
+                }
+            } else {
+                float value = Float.parseFloat(declaration.getDigits());
+                entity.setValue(negative ? -value : value);
+                if (type != DataType.FLOAT) {
+                    reportSymbolError(declaration, DiagnosticCode.FLOAT_VALUE_FOR_NON_FLOAT_CONSTANT, identifier);
+                }
+            }
+        } catch (NumberFormatException e) {
+            reportSymbolError(declaration, DiagnosticCode.INVALID_CONSTANT_VALUE, identifier);
+        }
+        symbolTable.addSymbol(entity);
+    }
+
+    // Statements
+
+    /**
+     * Checks the target of an assignment, and its value if it is a single identifier or literal
+     */
+    @Override
+    public void enterAssignment(Assignment assignment) {
+        String identifier = assignment.getName();
+        SymbolEntity entity = symbolTable.lookupSymbol(identifier);
+        assignmentTarget = entity;
+        if (entity == null) {
+            reportSymbolError(assignment, DiagnosticCode.UNDECLARED_IDENTIFIER, identifier);
+            return;
+        }
+
+        if (entity.getKind() == EntityKind.CONSTANT) {
+            reportSymbolError(assignment, DiagnosticCode.CONSTANT_ASSIGNMENT, identifier);
+        }
+        boolean isArrayAccess = assignment.getIndex() != null;
+        if (isArrayAccess && entity.getKind() != EntityKind.ARRAY) {
+            reportSymbolError(assignment, DiagnosticCode.INDEXED_NON_ARRAY, identifier);
+        } else if (!isArrayAccess && entity.getKind() == EntityKind.ARRAY) {
+            reportSymbolError(assignment, DiagnosticCode.MISSING_ARRAY_INDEX, identifier);
+        }
+        if (isArrayAccess) {
+            checkPrimary(assignment.getIndex(), DataType.INT, assignment);
+        }
+        checkPrimary(assignment.getValue(), entity.getDataType(), assignment);
+    }
+
+    /**
+     * Checks that the index of the target is not a Float, and that the type of the assigned value fits the target
+     */
+    @Override
+    public void exitAssignment(Assignment assignment) {
+        SymbolEntity entity = assignmentTarget;
+        if (entity == null) {
+            return;
+        }
+        if (assignment.getIndex() != null) {
+            checkInferred(assignment.getIndex(), assignment);
+        }
+        DataType valueType = typeOf(assignment.getValue());
+        // An Int can be assigned to a Float
+        if (valueType != null && entity.getDataType() != valueType
+                && !(entity.getDataType() == DataType.FLOAT && valueType == DataType.INT)) {
+            reportTypeError(assignment, DiagnosticCode.ASSIGNMENT_TYPE_MISMATCH, valueType, entity.getDataType());
+        }
+    }
+
+    /**
+     * Checks the loop variable, and the start, bound and step if they are single identifiers or literals
+     */
+    @Override
+    public void enterForLoop(ForLoop loop) {
+        SymbolEntity entity = loopVariable(loop);
+        if (entity == null) {
+            return;
+        }
+        checkPrimary(loop.getFrom(), DataType.INT, loop);
+        checkPrimary(loop.getTo(), DataType.INT, loop);
+        checkPrimary(loop.getStep(), DataType.INT, loop);
+    }
+
+    /**
+     * Checks that the start, bound and step of a loop are Int when they are not single identifiers or literals
+     */
+    @Override
+    public void exitForLoop(ForLoop loop) {
+        SymbolEntity entity = symbolTable.lookupSymbol(loop.getVariable());
+        if (entity == null || entity.getDataType() != DataType.INT) {
+            return;
+        }
+        checkInferred(loop.getFrom(), loop);
+        checkInferred(loop.getTo(), loop);
+        checkInferred(loop.getStep(), loop);
+    }
+
+    /**
+     * Checks that an expression used as an Int, other than a single identifier or literal, is not a Float
+     */
+    private void checkInferred(Expression expression, Node errorNode) {
+        if (!(expression instanceof Identifier || expression instanceof Literal)
+                && typeOf(expression) == DataType.FLOAT) {
+            reportTypeError(errorNode, DiagnosticCode.TYPE_MISMATCH, DataType.INT, DataType.FLOAT);
+        }
+    }
+
+    /**
+     * Looks up and checks the variable of a for loop
+     *
+     * @return The variable, or null if it is undeclared or not an Int
+     */
+    private SymbolEntity loopVariable(ForLoop loop) {
+        String identifier = loop.getVariable();
+        SymbolEntity entity = symbolTable.lookupSymbol(identifier);
+        if (entity == null) {
+            reportSymbolError(loop, DiagnosticCode.UNDECLARED_LOOP_VARIABLE, identifier);
+            return null;
+        }
+        if (entity.getDataType() != DataType.INT) {
+            reportSymbolError(loop, DiagnosticCode.NON_INT_LOOP_VARIABLE, entity.getDataType());
+            return null;
+        }
+        return entity;
+    }
+
+    /**
+     * Checks that the target of an input statement is a variable
+     */
+    @Override
+    public void enterInputStatement(InputStatement statement) {
+        String identifier = statement.getName();
+        SymbolEntity entity = symbolTable.lookupSymbol(identifier);
+        if (entity == null) {
+            reportSymbolError(statement, DiagnosticCode.UNDECLARED_IDENTIFIER, identifier);
+            return;
+        }
+        if (entity.getKind() == EntityKind.CONSTANT) {
+            reportSymbolError(statement, DiagnosticCode.CONSTANT_INPUT, identifier);
+        }
+        if (entity.getKind() == EntityKind.ARRAY) {
+            reportSymbolError(statement, DiagnosticCode.ARRAY_INPUT, identifier);
+        }
+    }
+
+    /**
+     * Checks that a condition is boolean compatible
+     */
+    @Override
+    public void exitCondition(Expression condition) {
+        DataType type = typeOf(condition);
+        if (type != null && type != DataType.INT) {
+            reportTypeError(condition, DiagnosticCode.NON_BOOLEAN_CONDITION, type);
+        }
+    }
+
+    // Expressions
+
+    /**
+     * Checks that an Int literal fits in 32 bits and gives the literal its type
+     */
+    @Override
+    public void enterLiteral(Literal literal) {
+        if (!literal.isValid()) {
+            reportSymbolError(literal, DiagnosticCode.INT_LITERAL_OUT_OF_RANGE);
+        }
+        setType(literal, literal.isFloat() ? DataType.FLOAT : DataType.INT);
+    }
+
+    /**
+     * Checks that an identifier is declared and not an array, and gives it the type of its symbol
+     */
+    @Override
+    public void enterIdentifier(Identifier identifier) {
+        SymbolEntity entity = symbolTable.lookupSymbol(identifier.getName());
+        if (entity == null) {
+            reportSymbolError(identifier, DiagnosticCode.UNDECLARED_IDENTIFIER, identifier.getName());
+        } else if (entity.getKind() == EntityKind.ARRAY) {
+            reportSymbolError(identifier, DiagnosticCode.MISSING_ARRAY_INDEX, identifier.getName());
+        }
+        setType(identifier, entity != null ? entity.getDataType() : DataType.UNKNOWN);
+    }
+
+    /**
+     * Checks that an indexed identifier is a declared array and its index, if it is a single identifier or literal,
+     * is not a Float, and gives the element the type of the array
+     */
+    @Override
+    public void enterArrayElement(ArrayElement element) {
+        String identifier = element.getName();
+        SymbolEntity entity = symbolTable.lookupSymbol(identifier);
+        if (entity == null) {
+            reportSymbolError(element, DiagnosticCode.UNDECLARED_IDENTIFIER, identifier);
+            setType(element, DataType.UNKNOWN);
+            return;
+        }
+        if (entity.getKind() != EntityKind.ARRAY) {
+            reportSymbolError(element, DiagnosticCode.INDEXED_NON_ARRAY, identifier);
+        }
+        checkPrimary(element.getIndex(), DataType.INT, element);
+        setType(element, entity.getDataType());
+    }
+
+    /**
+     * Checks that the index of an element is not a Float when it is not a single identifier or literal
+     */
+    @Override
+    public void exitArrayElement(ArrayElement element) {
+        checkInferred(element.getIndex(), element);
+    }
+
+    @Override
+    public void exitGroup(Group group) {
+        DataType type = typeOf(group.getExpression());
+        setType(group, type != null ? type : DataType.UNKNOWN);
+    }
+
+    @Override
+    public void exitNot(Not not) {
+        setType(not, DataType.INT);
+        DataType type = typeOf(not.getOperand());
+        if (type != null && type != DataType.INT) {
+            reportTypeError(not, DiagnosticCode.NON_BOOLEAN_NOT, type);
+        }
+    }
+
+    @Override
+    public void exitLogical(Logical logical) {
+        setType(logical, DataType.INT);
+        String name = logical.getOperator() == Operator.AND ? "AND" : "OR";
+        for (Expression operand : logical.getOperands()) {
+            DataType type = typeOf(operand);
+            if (type != null && type != DataType.INT) {
+                reportTypeError(logical, DiagnosticCode.NON_BOOLEAN_LOGICAL, name, type);
+            }
+        }
+    }
+
+    @Override
+    public void exitBinary(Binary binary) {
+        DataType leftType = typeOf(binary.getLeft());
+        DataType rightType = typeOf(binary.getRight());
+        if (binary.getOperator().isComparison()) {
+            // A comparison is a boolean (Int); an Int and a Float can be compared
+            setType(binary, DataType.INT);
+            if (leftType != null && rightType != null && leftType != rightType
+                    && !(leftType == DataType.INT && rightType == DataType.FLOAT)
+                    && !(leftType == DataType.FLOAT && rightType == DataType.INT)) {
+                reportTypeError(binary, DiagnosticCode.COMPARISON_TYPE_MISMATCH, leftType, rightType);
+            }
+        } else {
+            setType(binary, leftType == DataType.FLOAT || rightType == DataType.FLOAT ? DataType.FLOAT : DataType.INT);
+        }
+    }
+
+    // Helpers
+
+    /**
+     * Checks the type of a value that is a single identifier or literal against the type it is used as. An Int
+     * can be used where a Float is expected; other values are checked once their type is inferred.
+     */
+    private void checkPrimary(Expression expression, DataType expectedType, Node errorNode) {
+        if (expression instanceof Identifier) {
+            SymbolEntity entity = symbolTable.lookupSymbol(((Identifier) expression).getName());
+            if (entity != null && entity.getDataType() != expectedType
+                    && !(entity.getDataType() == DataType.INT && expectedType == DataType.FLOAT)) {
+                reportSymbolError(errorNode, DiagnosticCode.TYPE_MISMATCH, expectedType, entity.getDataType());
+            }
+        } else if (expression instanceof Literal && ((Literal) expression).isFloat() && expectedType == DataType.INT) {
+            reportSymbolError(errorNode, DiagnosticCode.TYPE_MISMATCH, DataType.INT, DataType.FLOAT);
+        }
+    }
+
+    /**
+     * Returns the type recorded for an expression, or null if there is none
+     */
+    private DataType typeOf(Expression expression) {
+        byte code = expressionTypes[expression.getId()];
+        return code != 0 ? DataType.ofCode(code) : null;
+    }
+
+    private void setType(Expression expression, DataType type) {
+        expressionTypes[expression.getId()] = type.code();
+    }
+
+    private void reportSymbolError(Node node, DiagnosticCode code, Object... arguments) {
+        diagnostics.report(code, node.getLine(), node.getColumn(), arguments);
+        if (!hasSymbolErrors) {
+            hasSymbolErrors = true;
+            pendingTypeErrors.clear();
+        }
+    }
+
+    private void reportTypeError(Node node, DiagnosticCode code, Object... arguments) {
+        if (!hasSymbolErrors) {
+            pendingTypeErrors.add(new Diagnostic(code, node.getLine(), node.getColumn(), arguments));
+            typeErrorCount++;
+        }
+    }
+}
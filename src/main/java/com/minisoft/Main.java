@@ -1,120 +1,117 @@
 package com.minisoft;
 
-import com.minisoft.symbol.SymbolTable;
-import org.antlr.v4.runtime.*;
-import org.antlr.v4.runtime.tree.ParseTree;
-import org.antlr.v4.runtime.tree.ParseTreeWalker;
-import org.antlr.v4.gui.Trees;
-import javax.swing.JFrame;
-import javax.swing.JPanel;
+import com.minisoft.profile.ProfileReport;
+import org.antlr.v4.runtime.atn.PredictionMode;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.io.PrintStream;
+import java.util.List;
 
 /**
  * Main compiler class for MiniSoft language.
- * Orchestrates the compilation process including lexical, syntax, and semantic analysis.
+ * Parses the command line and compiles every given source file in the same JVM,
+ * then prints a summary and exits with a non-zero status if any file failed.
  */
 public class Main {
     public static void main(String[] args) {
-        if (args.length != 1) {
-            System.err.println("Usage: java -jar minisoft-compiler.jar <source-file>");
+        CompilerOptions options;
+        try {
+            options = CompilerOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(CompilerOptions.usage());
             System.exit(1);
+            return;
+        }
+
+        if (options.isHelp()) {
+            System.out.println(CompilerOptions.usage());
+            return;
         }
-        
-        String sourceFilePath = args[0];
-        
+
+        MiniSoftCompiler fileCompiler = new MiniSoftCompiler(options);
+        if (options.isWarmUp()) {
+            fileCompiler.getParserFactory().warmUp();
+        }
+        BatchCompiler compiler = new BatchCompiler(fileCompiler, options.getJobs());
+        long startTime = System.nanoTime();
+        List<CompilationResult> results = compiler.compile(options.getSourceFiles(), System.out, System.err);
+        int status = summarize(options, fileCompiler, results, System.nanoTime() - startTime, System.out);
+        writeProfile(options, results, System.err);
         try {
-            String sourceCode = new String(Files.readAllBytes(Paths.get(sourceFilePath)));
-            
-            // Lexical analysis phase
-            MiniSoftLexer lexer = new MiniSoftLexer(CharStreams.fromString(sourceCode));
-            lexer.removeErrorListeners();
-            lexer.addErrorListener(new BaseErrorListener() {
-                @Override
-                public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, 
-                                       int line, int charPositionInLine, String msg, RecognitionException e) {
-                    System.err.println("[Lexical Error] Line " + line + ":" + charPositionInLine + " - " + msg);
-                }
-            });
-            
-            CommonTokenStream tokens = new CommonTokenStream(lexer);
-            
-            // Syntax analysis phase
-            MiniSoftParser parser = new MiniSoftParser(tokens);
-            parser.removeErrorListeners();
-            parser.addErrorListener(new BaseErrorListener() {
-                @Override
-                public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, 
-                                       int line, int charPositionInLine, String msg, RecognitionException e) {
-                    System.err.println("[Syntax Error] Line " + line + ":" + charPositionInLine + 
-                                      " - " + msg);
-                }
-            });
-            
-            // Parse the input and generate the parse tree
-            ParseTree tree = parser.program();
-            
-            // Display the parse tree in a GUI window
-            showParseTreeFrame(parser, tree, "MiniSoft Parse Tree");
-            
-            if (parser.getNumberOfSyntaxErrors() > 0) {
-                System.err.println("Compilation failed with " + parser.getNumberOfSyntaxErrors() + " syntax errors.");
-                System.exit(1);
+            fileCompiler.trimResultCache();
+        } catch (IOException e) {
+            System.err.println("Cannot trim the result cache: " + e.getMessage());
+        }
+
+        // On success the JVM stays alive while a parse tree viewer is still open
+        if (status != 0) {
+            System.exit(status);
+        }
+    }
+
+    /**
+     * Prints the summary of a batch run and, when verbose, the parser and result cache statistics
+     *
+     * @return The exit status of the run: 0 if every file compiled, 1 otherwise
+     */
+    public static int summarize(CompilerOptions options, MiniSoftCompiler compiler, List<CompilationResult> results,
+                                long elapsedNanos, PrintStream out) {
+        int failed = 0;
+        int fullLLParses = 0;
+        for (CompilationResult result : results) {
+            if (!result.isSuccess()) {
+                failed++;
             }
-            
-            // Symbol table building phase - first pass of semantic analysis
-            SymbolTableBuilder symbolTableBuilder = new SymbolTableBuilder();
-            ParseTreeWalker walker = new ParseTreeWalker();
-            walker.walk(symbolTableBuilder, tree);
-            
-            SymbolTable symbolTable = symbolTableBuilder.getSymbolTable();
-            
-            if (symbolTableBuilder.hasErrors()) {
-                System.err.println("Compilation failed with semantic errors in symbol table building phase.");
-                symbolTable.displaySymbolTable();
-                System.exit(1);
+            if (result.getParseMode() == PredictionMode.LL) {
+                fullLLParses++;
             }
-            
-            // Semantic analysis phase - type checking and validation
-            SemanticAnalyzer semanticAnalyzer = new SemanticAnalyzer(symbolTable);
-            walker.walk(semanticAnalyzer, tree);
-            
-            // Show compilation results
-            if (!semanticAnalyzer.hasErrors()) {
-                System.out.println("Compilation successful!");
-                System.out.println("Semantic analysis completed with no errors.");
-                symbolTable.displaySymbolTable();
-            } else {
-                System.err.println("Compilation failed with semantic errors during type checking.");
-                symbolTable.displaySymbolTable();
-                System.exit(1);
+        }
+
+        if (options.isBatch()) {
+            printSummary(results.size(), failed, fullLLParses, elapsedNanos, out);
+        }
+        if (options.isVerbose()) {
+            out.println("Parser cache: " + compiler.getParserFactory().getStatistics()
+                    .describe(options.getLexer() == CompilerOptions.LexerKind.ANTLR));
+            ResultCache resultCache = compiler.getResultCache();
+            if (resultCache != null) {
+                out.println("Result cache: " + resultCache.getHits() + " files reused, " +
+                            resultCache.getMisses() + " compiled");
             }
-            
+        }
+        return failed > 0 ? 1 : 0;
+    }
+
+    /**
+     * Writes the profiles of the compiled files to the file given with --profile, if any
+     */
+    public static void writeProfile(CompilerOptions options, List<CompilationResult> results, PrintStream err) {
+        if (options.getProfileFile() == null) {
+            return;
+        }
+        ProfileReport report = new ProfileReport();
+        for (CompilationResult result : results) {
+            if (result.getProfile() != null) {
+                report.add(result.getSourceFile().toString(), result.getStatus().name(),
+                           result.getParseMode() == null ? null : result.getParseMode().name(),
+                           result.getElapsedNanos(), result.getProfile());
+            }
+        }
+        try {
+            report.write(options.getProfileFile());
         } catch (IOException e) {
-            System.err.println("Error reading source file: " + e.getMessage());
-            System.exit(1);
+            err.println("Cannot write the profile: " + e.getMessage());
         }
     }
-    
+
     /**
-     * Displays the parse tree in a GUI window for visualization
-     * 
-     * @param parser The parser that generated the tree
-     * @param tree The parse tree to display
-     * @param title The title for the window
+     * Prints the number of succeeded and failed files of a batch run and how many needed a full LL parse
      */
-    private static void showParseTreeFrame(Parser parser, ParseTree tree, String title) {
-        JFrame frame = new JFrame(title);
-        JPanel panel = new JPanel();
-        
-        // Create the visualization and add it to the panel
-        Trees.inspect(tree, parser);
-        
-        frame.add(panel);
-        frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
-        frame.setSize(800, 600);
-        frame.setVisible(true);
+    private static void printSummary(int total, int failed, int fullLLParses, long elapsedNanos, PrintStream out) {
+        out.println();
+        out.println("Compiled " + total + " files: " + (total - failed) + " succeeded, " +
+                    failed + " failed (" + (elapsedNanos / 1_000_000) + " ms)");
+        out.println("Parsing fell back from SLL to full LL prediction for " + fullLLParses + " files.");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,279 @@
+package com.minisoft;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.misc.Interval;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A {@link CharStream} over a memory-mapped UTF-8 file, decoding code points as the lexer reads them instead of
+ * copying the whole file into a string and a code point array first. The file is scanned once up front to count
+ * its code points; files with non-ASCII characters also record the byte offset of every
+ * {@value #CHECKPOINT_INTERVAL}th code point, so that token text anywhere in the file can be decoded without
+ * scanning from the start. Invalid UTF-8 is read as U+FFFD, as {@link org.antlr.v4.runtime.CharStreams} does.
+ * <p>
+ * The mapping is released when the stream is garbage collected, and the file must not change while it is read.
+ */
+public class MappedCharStream implements CharStream {
+    private static final int CHECKPOINT_SHIFT = 6;
+    private static final int CHECKPOINT_INTERVAL = 1 << CHECKPOINT_SHIFT;
+    private static final int REPLACEMENT = 0xFFFD;
+
+    private final ByteBuffer bytes;
+    private final String sourceName;
+    private final int size;
+    /** Byte offset of every CHECKPOINT_INTERVAL-th code point, or null if every code point is one byte */
+    private final int[] checkpoints;
+
+    // Current position, as a code point index and the byte offset of that code point
+    private int index;
+    private int offset;
+
+    /**
+     * Maps a file for reading
+     *
+     * @throws IOException if the file cannot be read or is 2 GB or larger
+     */
+    public static MappedCharStream map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length >= Integer.MAX_VALUE) {
+                throw new IOException("File too large: " + length + " bytes");
+            }
+            return new MappedCharStream(channel.map(FileChannel.MapMode.READ_ONLY, 0, length), file.toString());
+        }
+    }
+
+    /**
+     * Creates a stream over the remaining bytes of a buffer, which must not change while it is read
+     */
+    public MappedCharStream(ByteBuffer buffer, String sourceName) {
+        this.bytes = buffer.slice();
+        this.sourceName = sourceName;
+
+        int limit = bytes.limit();
+        // Test eight bytes at a time for a set high bit, then find the first non-ASCII byte one at a time
+        int ascii = 0;
+        while (ascii + Long.BYTES <= limit && (bytes.getLong(ascii) & 0x8080808080808080L) == 0) {
+            ascii += Long.BYTES;
+        }
+        while (ascii < limit && bytes.get(ascii) >= 0) {
+            ascii++;
+        }
+        if (ascii == limit) {
+            size = limit;
+            checkpoints = null;
+            return;
+        }
+
+        // The ASCII prefix maps code points to bytes one to one; decode the rest to count its code points
+        int count = ascii;
+        int position = ascii;
+        int[] marks = new int[(limit >> CHECKPOINT_SHIFT) + 1];
+        for (int i = 0; i <= ascii >> CHECKPOINT_SHIFT; i++) {
+            marks[i] = i << CHECKPOINT_SHIFT;
+        }
+        while (position < limit) {
+            position += sequenceLength(position);
+            count++;
+            if ((count & (CHECKPOINT_INTERVAL - 1)) == 0) {
+                marks[count >> CHECKPOINT_SHIFT] = position;
+            }
+        }
+        size = count;
+        int[] trimmed = new int[(count >> CHECKPOINT_SHIFT) + 1];
+        System.arraycopy(marks, 0, trimmed, 0, trimmed.length);
+        checkpoints = trimmed;
+    }
+
+    /**
+     * Returns a read-only view of the bytes of the file, for example to hash it
+     */
+    public ByteBuffer getBytes() {
+        return bytes.asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns the number of bytes of a sequence starting with the given byte, 0 if no sequence starts with it
+     */
+    private static int expectedLength(int lead) {
+        if (lead < 0x80) {
+            return 1;
+        } else if (lead >= 0xC2 && lead <= 0xDF) {
+            return 2;
+        } else if (lead >= 0xE0 && lead <= 0xEF) {
+            return 3;
+        } else if (lead >= 0xF0 && lead <= 0xF4) {
+            return 4;
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the number of bytes read as the code point at a byte offset. Like the JDK decoder, an invalid
+     * sequence is read as one U+FFFD spanning its longest valid prefix, or its first byte.
+     */
+    private int sequenceLength(int position) {
+        return sequenceLength(bytes, position);
+    }
+
+    /**
+     * Returns the number of bytes of a buffer read as the code point at a byte offset, for readers of the bytes
+     * of a stream that must count code points as the stream does
+     */
+    static int sequenceLength(ByteBuffer bytes, int position) {
+        int lead = bytes.get(position) & 0xFF;
+        int length = expectedLength(lead);
+        if (length <= 1) {
+            return 1;
+        }
+        for (int i = 1; i < length; i++) {
+            if (position + i >= bytes.limit()) {
+                return i;
+            }
+            int next = bytes.get(position + i) & 0xFF;
+            // The second byte also excludes overlong forms and values beyond U+10FFFF
+            int min = 0x80;
+            int max = 0xBF;
+            if (i == 1) {
+                if (lead == 0xE0) {
+                    min = 0xA0;
+                } else if (lead == 0xF0) {
+                    min = 0x90;
+                } else if (lead == 0xF4) {
+                    max = 0x8F;
+                }
+            }
+            if (next < min || next > max) {
+                return i;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Decodes the code point at a byte offset
+     */
+    private int codePointAt(int position) {
+        int lead = bytes.get(position) & 0xFF;
+        int length = expectedLength(lead);
+        if (length == 1) {
+            return lead;
+        }
+        if (length == 0 || sequenceLength(position) < length) {
+            return REPLACEMENT;
+        }
+        int codePoint = lead & (0xFF >> (length + 1));
+        for (int i = 1; i < length; i++) {
+            codePoint = (codePoint << 6) | (bytes.get(position + i) & 0x3F);
+        }
+        // An encoded surrogate is well-formed but not a character
+        return codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE ? REPLACEMENT : codePoint;
+    }
+
+    /**
+     * Returns the byte offset of the code point with the given index, which may be the size of the stream
+     */
+    private int offsetOf(int codePointIndex) {
+        if (checkpoints == null) {
+            return codePointIndex;
+        }
+        int from;
+        int position;
+        if (codePointIndex >= index && codePointIndex - index < CHECKPOINT_INTERVAL) {
+            from = index;
+            position = offset;
+        } else {
+            from = codePointIndex & -CHECKPOINT_INTERVAL;
+            position = checkpoints[codePointIndex >> CHECKPOINT_SHIFT];
+        }
+        for (; from < codePointIndex; from++) {
+            position += sequenceLength(position);
+        }
+        return position;
+    }
+
+    @Override
+    public void consume() {
+        if (index >= size) {
+            throw new IllegalStateException("cannot consume EOF");
+        }
+        offset += checkpoints == null ? 1 : sequenceLength(offset);
+        index++;
+    }
+
+    @Override
+    public int LA(int i) {
+        if (i == 1) {
+            if (index >= size) {
+                return IntStream.EOF;
+            }
+            return checkpoints == null ? bytes.get(offset) : codePointAt(offset);
+        }
+        if (i == 0) {
+            return 0;
+        }
+        int target = i > 0 ? index + i - 1 : index + i;
+        if (target < 0 || target >= size) {
+            return IntStream.EOF;
+        }
+        return codePointAt(offsetOf(target));
+    }
+
+    @Override
+    public int mark() {
+        return -1;
+    }
+
+    @Override
+    public void release(int marker) {
+    }
+
+    @Override
+    public int index() {
+        return index;
+    }
+
+    @Override
+    public void seek(int index) {
+        int target = Math.max(0, Math.min(index, size));
+        offset = offsetOf(target);
+        this.index = target;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String getSourceName() {
+        return sourceName;
+    }
+
+    @Override
+    public String getText(Interval interval) {
+        int start = Math.max(interval.a, 0);
+        int stop = Math.min(interval.b, size - 1);
+        if (start > stop) {
+            return "";
+        }
+        int position = offsetOf(start);
+        StringBuilder text = new StringBuilder(stop - start + 1);
+        for (int i = start; i <= stop; i++) {
+            text.appendCodePoint(codePointAt(position));
+            position += sequenceLength(position);
+        }
+        return text.toString();
+    }
+
+    @Override
+    public String toString() {
+        return getText(Interval.of(0, size - 1));
+    }
+}
@@ -0,0 +1,648 @@
+package com.minisoft;
+
+import com.minisoft.ast.AstBaseListener;
+import com.minisoft.ast.AstBuilder;
+import com.minisoft.ast.AstWalker;
+import com.minisoft.ast.Node;
+import com.minisoft.ast.Program;
+import com.minisoft.diagnostics.DiagnosticCode;
+import com.minisoft.diagnostics.DiagnosticPrinter;
+import com.minisoft.diagnostics.DiagnosticSink;
+import com.minisoft.diagnostics.JsonDiagnosticPrinter;
+import com.minisoft.diagnostics.TextDiagnosticPrinter;
+import com.minisoft.interpreter.Interpreter;
+import com.minisoft.ir.IntermediateCode;
+import com.minisoft.ir.IrFile;
+import com.minisoft.ir.IrGenerator;
+import com.minisoft.jvm.ClassFiles;
+import com.minisoft.jvm.JvmCompiler;
+import com.minisoft.jvm.JvmProgram;
+import com.minisoft.optimizer.ConstantFacts;
+import com.minisoft.optimizer.ConstantPropagation;
+import com.minisoft.optimizer.LoopFacts;
+import com.minisoft.optimizer.LoopOptimizer;
+import com.minisoft.profile.CompilationProfile;
+import com.minisoft.runtime.MiniSoftRuntimeException;
+import com.minisoft.symbol.SymbolTable;
+import com.minisoft.vm.VmCompiler;
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compiler pipeline for a single MiniSoft source file.
+ * Runs lexical, syntax, and semantic analysis, optionally executes the program, and reports the outcome as a {@link CompilationResult}
+ * instead of exiting, so that many files can be compiled in one JVM.
+ */
+public class MiniSoftCompiler {
+    // Pools of compiler threads for files compiled from other threads, by stack size; idle threads time out
+    private static final ConcurrentMap<Long, ExecutorService> COMPILER_POOLS = new ConcurrentHashMap<>();
+    private static final long IDLE_THREAD_SECONDS = 30;
+
+    private final CompilerOptions options;
+    private final ParserFactory parserFactory;
+    private final ResultCache resultCache;
+
+    /**
+     * Creates a compiler using the given options and a parser cache of its own
+     */
+    public MiniSoftCompiler(CompilerOptions options) {
+        this(options, new ParserFactory(options.getMaxDfaStates()));
+    }
+
+    /**
+     * Creates a compiler using the given options, creating its lexers and parsers with the given factory
+     */
+    public MiniSoftCompiler(CompilerOptions options, ParserFactory parserFactory) {
+        this.options = options;
+        this.parserFactory = parserFactory;
+        this.resultCache = options.getCacheDirectory() == null ? null
+                : new ResultCache(options.getCacheDirectory(), options.getCacheSize());
+    }
+
+    /**
+     * Returns the factory the lexers and parsers of this compiler come from
+     */
+    public ParserFactory getParserFactory() {
+        return parserFactory;
+    }
+
+    /**
+     * Returns the cache of compilation results, or null if results are not cached
+     */
+    public ResultCache getResultCache() {
+        return resultCache;
+    }
+
+    /**
+     * Compiles one source file, printing diagnostics and the symbol table as it goes
+     *
+     * @param sourceFile The MiniSoft source file to compile
+     * @return The outcome of the compilation
+     */
+    public CompilationResult compile(Path sourceFile) {
+        return compile(sourceFile, System.out, System.err);
+    }
+
+    /**
+     * Compiles one source file, printing its output and the output of the program to {@code out} and diagnostics
+     * to {@code err}. A compiler only holds its options and its thread-safe parser factory, so several files can
+     * be compiled concurrently as long as they print to different streams.
+     *
+     * @param sourceFile The MiniSoft source file to compile
+     * @return The outcome of the compilation
+     */
+    public CompilationResult compile(Path sourceFile, PrintStream out, PrintStream err) {
+        // The parser and the later phases recurse into nested blocks and expressions, so the file is compiled on a
+        // thread whose stack fits the deepest nesting the limit lets through
+        long stackSize = stackSize();
+        if (CompilerThread.currentFits(stackSize)) {
+            return compileFile(sourceFile, out, err);
+        }
+        Future<CompilationResult> result = compilerPool(stackSize).submit(() -> compileFile(sourceFile, out, err));
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while compiling", e);
+        } catch (ExecutionException e) {
+            Throwable failure = e.getCause();
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            }
+            if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+            throw new IllegalStateException(failure);
+        }
+    }
+
+    /**
+     * Returns the stack size of a thread that can compile files with the nesting limit of this compiler
+     */
+    long stackSize() {
+        return NestingLimit.stackSizeFor(options.getMaxNesting());
+    }
+
+    /**
+     * Returns the shared pool of compiler threads with the given stack size, one per processor at most
+     */
+    private static ExecutorService compilerPool(long stackSize) {
+        return COMPILER_POOLS.computeIfAbsent(stackSize, size -> {
+            int threads = Runtime.getRuntime().availableProcessors();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, IDLE_THREAD_SECONDS, TimeUnit.SECONDS,
+                                                             new LinkedBlockingQueue<>(),
+                                                             CompilerThread.factory("minisoft-compiler", size));
+            pool.allowCoreThreadTimeOut(true);
+            return pool;
+        });
+    }
+
+    private CompilationResult compileFile(Path sourceFile, PrintStream out, PrintStream err) {
+        long startTime = System.nanoTime();
+
+        MappedCharStream source;
+        try {
+            source = MappedCharStream.map(sourceFile);
+        } catch (IOException e) {
+            err.println("Error reading source file: " + e.getMessage());
+            return result(sourceFile, CompilationResult.Status.IO_ERROR, null, null, startTime);
+        }
+
+        // Running a program or showing its parse tree cannot be replayed, class files are not cached, and a
+        // profile measures the phases of an actual compilation
+        if (options.getProfileFile() != null) {
+            CompilationProfile profile = new CompilationProfile();
+            CompilationResult result = compile(sourceFile, source, out, err, null, profile, startTime);
+            profile.endPhase();
+            return result.withProfile(profile);
+        }
+        if (resultCache == null || options.isRun() || options.isGui() || options.getClassOutputDirectory() != null
+                || options.getJarOutputDirectory() != null) {
+            return compile(sourceFile, source, out, err, null, CompilationProfile.DISABLED, startTime);
+        }
+
+        String key = resultCache.key(cachedOptions(), sourceFile, source.getBytes());
+        ResultCache.Entry entry = resultCache.load(key);
+        if (entry != null) {
+            return replay(sourceFile, entry, out, err, startTime);
+        }
+
+        ResultCache.Transcript transcript = new ResultCache.Transcript();
+        Path[] irFile = new Path[1];
+        CompilationResult result = compile(sourceFile, source, transcript.record(out, false),
+                                           transcript.record(err, true), irFile, CompilationProfile.DISABLED,
+                                           startTime);
+        try {
+            byte[] ir = irFile[0] == null ? null : Files.readAllBytes(irFile[0]);
+            resultCache.store(key, new ResultCache.Entry(result.getStatus(), result.getParseMode(), transcript,
+                                                         result.getSymbolTable(),
+                                                         ir == null ? null : irFile[0].getFileName().toString(), ir));
+        } catch (IOException e) {
+            err.println("Cannot cache the result of " + sourceFile + ": " + e.getMessage());
+        }
+        return result;
+    }
+
+    /**
+     * Describes the options that change what compiling a file prints or writes, for the result cache key
+     */
+    private String cachedOptions() {
+        return "verbose=" + options.isVerbose() + ",print-ir=" + options.isPrintIr() +
+               ",emit-ir=" + options.getIrOutputDirectory() + ",stream=" + options.isStream() +
+               ",diagnostics=" + options.getDiagnosticFormat() + ",max-diagnostics=" + options.getMaxDiagnostics() +
+               ",optimization=" + options.getOptimizationLevel() + ",max-nesting=" + options.getMaxNesting() +
+               ",lexer=" + options.getLexer();
+    }
+
+    /**
+     * Prints the output of a cached compilation again and rewrites its quadruple file
+     */
+    private CompilationResult replay(Path sourceFile, ResultCache.Entry entry, PrintStream out, PrintStream err,
+                                     long startTime) {
+        entry.replay(out, err);
+        if (entry.getIr() != null) {
+            try {
+                Files.createDirectories(options.getIrOutputDirectory());
+                Files.write(options.getIrOutputDirectory().resolve(entry.getIrFileName()), entry.getIr());
+            } catch (IOException e) {
+                err.println("Intermediate code generation failed: " + e);
+                return result(sourceFile, CompilationResult.Status.CODEGEN_ERROR, entry.getParseMode(),
+                              entry.getSymbolTable(), startTime);
+            }
+        }
+        if (options.isVerbose()) {
+            out.println("Reused the cached result of " + sourceFile + ".");
+        }
+        return result(sourceFile, entry.getStatus(), entry.getParseMode(), entry.getSymbolTable(), startTime);
+    }
+
+    /**
+     * Deletes the least recently used cached results beyond the size of the cache, if results are cached
+     */
+    public void trimResultCache() throws IOException {
+        if (resultCache != null) {
+            resultCache.trim();
+        }
+    }
+
+    /**
+     * Compiles the content of a source file
+     *
+     * @param writtenIrFile Receives the path of the quadruple file written with --emit-ir, or null
+     * @param profile       Measures the phases of the compilation
+     */
+    private CompilationResult compile(Path sourceFile, MappedCharStream source, PrintStream out, PrintStream err,
+                                      Path[] writtenIrFile, CompilationProfile profile, long startTime) {
+        DiagnosticSink diagnostics = createDiagnosticSink(sourceFile, err);
+        if (options.isStream()) {
+            return checkStreaming(sourceFile, source, out, err, diagnostics, startTime);
+        }
+        Parse parse = parse(sourceFile, source, out, err, diagnostics, profile);
+        PredictionMode parseMode = parse.mode;
+        if (parse.program == null) {
+            err.println("Compilation failed with " + parse.syntaxErrors + " syntax errors.");
+            return result(sourceFile, CompilationResult.Status.SYNTAX_ERROR, parseMode, null, startTime);
+        }
+        Program program = parse.program;
+
+        // Semantic analysis phase - builds the symbol table and type checks the program in one walk
+        profile.startPhase("semantic analysis");
+        FusedAnalyzer analyzer = new FusedAnalyzer(diagnostics);
+        AstWalker.DEFAULT.walk(analyzer, program);
+        profile.endPhase();
+
+        SymbolTable symbolTable = analyzer.getSymbolTable();
+        profile.setSymbolCount(symbolTable.size());
+
+        // Constant propagation phase - proves runtime errors and finds the expressions code generation can fold.
+        // It runs even if declarations are wrong, so that these errors are reported along with the others.
+        profile.startPhase("constant propagation");
+        ConstantPropagation constantPropagation = new ConstantPropagation(symbolTable, diagnostics);
+        ConstantFacts constants = constantPropagation.analyze(program);
+        profile.endPhase();
+        diagnostics.flush();
+
+        if (analyzer.hasSymbolErrors()) {
+            err.println("Compilation failed with semantic errors in symbol table building phase.");
+            symbolTable.displaySymbolTable(out);
+            return result(sourceFile, CompilationResult.Status.SEMANTIC_ERROR, parseMode, symbolTable, startTime);
+        }
+
+        // Type errors are reported after those of constant propagation, as when types were checked in a second pass
+        analyzer.reportTypeErrors();
+        diagnostics.flush();
+
+        // Show compilation results
+        if (analyzer.hasTypeErrors()) {
+            err.println("Compilation failed with semantic errors during type checking.");
+            symbolTable.displaySymbolTable(out);
+            return result(sourceFile, CompilationResult.Status.SEMANTIC_ERROR, parseMode, symbolTable, startTime);
+        }
+
+        if (constantPropagation.hasErrors()) {
+            err.println("Compilation failed with semantic errors during constant propagation.");
+            symbolTable.displaySymbolTable(out);
+            return result(sourceFile, CompilationResult.Status.SEMANTIC_ERROR, parseMode, symbolTable, startTime);
+        }
+
+        out.println("Compilation successful!");
+        out.println("Semantic analysis completed with no errors.");
+        symbolTable.displaySymbolTable(out);
+
+        // Level 0 folds nothing, although constant propagation ran to report the errors it proves
+        if (options.getOptimizationLevel() == 0) {
+            constants = ConstantFacts.NONE;
+        }
+
+        // Loop optimization phase - moves invariant code out of loops and reduces products to induction variables
+        LoopFacts loops = LoopFacts.NONE;
+        if (options.getOptimizationLevel() >= 2) {
+            profile.startPhase("loop optimization");
+            loops = new LoopOptimizer(symbolTable, constants).optimize(program);
+            profile.endPhase();
+            if (options.isVerbose()) {
+                out.println("Moved " + loops.getHoistedCount() + " invariant expressions out of loops and replaced " +
+                            loops.getReducedCount() + " products by induction variables.");
+            }
+        }
+
+        String className = JvmCompiler.classNameOf(program);
+
+        // Intermediate code generation phase - only when quadruples are printed or written out
+        if (options.isIrNeeded()) {
+            profile.startPhase("intermediate code");
+            try {
+                IntermediateCode intermediateCode = new IrGenerator(symbolTable, constants).generate(program);
+                if (options.isPrintIr()) {
+                    out.println("Quadruples:");
+                    out.print(intermediateCode);
+                }
+                if (options.getIrOutputDirectory() != null) {
+                    Files.createDirectories(options.getIrOutputDirectory());
+                    Path irFile = options.getIrOutputDirectory().resolve(className + IrFile.EXTENSION);
+                    IrFile.write(intermediateCode, irFile);
+                    out.println("Wrote " + irFile);
+                    if (writtenIrFile != null) {
+                        writtenIrFile[0] = irFile;
+                    }
+                }
+            } catch (RuntimeException | IOException e) {
+                err.println("Intermediate code generation failed: " + e);
+                return result(sourceFile, CompilationResult.Status.CODEGEN_ERROR, parseMode, symbolTable, startTime);
+            }
+            profile.endPhase();
+        }
+
+        // Code generation phase - only when bytecode is run or written out
+        JvmProgram jvmProgram = null;
+        if (options.isJvmCodeNeeded()) {
+            profile.startPhase("code generation");
+            try {
+                byte[] classFile = new JvmCompiler(symbolTable, constants, loops).compile(program, className, sourceFile.getFileName().toString());
+                // Loading verifies the class, so a class the JVM rejects fails here rather than when it runs
+                if (options.isRun() && options.getBackend() == CompilerOptions.Backend.JVM) {
+                    jvmProgram = JvmProgram.load(className, classFile);
+                }
+                writeClassFiles(className, classFile, out);
+            } catch (RuntimeException | IOException | LinkageError e) {
+                err.println("Code generation failed: " + e);
+                return result(sourceFile, CompilationResult.Status.CODEGEN_ERROR, parseMode, symbolTable, startTime);
+            }
+            profile.endPhase();
+        }
+
+        // Execution phase - only when requested
+        if (options.isRun()) {
+            profile.startPhase("execution");
+            if (!execute(program, symbolTable, constants, loops, jvmProgram, out, diagnostics)) {
+                return result(sourceFile, CompilationResult.Status.RUNTIME_ERROR, parseMode, symbolTable, startTime);
+            }
+            profile.endPhase();
+        }
+        return result(sourceFile, CompilationResult.Status.SUCCESS, parseMode, symbolTable, startTime);
+    }
+
+    /**
+     * Lexes and parses a source file and lowers its parse tree to an abstract syntax tree.
+     * The tokens and the parse tree are only reachable from this method, so they can be collected
+     * before the analyses run. When profiled, the whole file is lexed before it is parsed, so that the two phases
+     * are measured apart and lexical errors are all reported before syntax errors. A program nested deeper than
+     * the nesting limit is reported as a syntax error and not parsed any further.
+     */
+    private Parse parse(Path sourceFile, MappedCharStream source, PrintStream out, PrintStream err,
+                        DiagnosticSink diagnostics, CompilationProfile profile) {
+        // Lexical analysis phase
+        CommonTokenStream tokens = new CommonTokenStream(createLexer(source, new LexicalErrors(diagnostics)));
+        MiniSoftParser parser = createParser(tokens, diagnostics);
+        ParseDriver parseDriver = new ParseDriver(parser);
+        MiniSoftParser.ProgramContext tree;
+        try {
+            if (profile.isEnabled()) {
+                profile.startPhase("lexing");
+                tokens.fill();
+                profile.endPhase();
+                profile.setTokenCount(tokens.size());
+
+                // Replaces the parser cache's interpreter with one that times every decision, on the same DFA
+                parser.setProfile(true);
+            }
+
+            // Syntax analysis phase - parse the input and generate the parse tree, trying SLL prediction before
+            // full LL
+            profile.startPhase("parsing");
+            tree = parseDriver.parseProgram();
+            profile.endPhase();
+        } catch (NestingLimit.TooDeepException e) {
+            profile.endPhase();
+            diagnostics.report(DiagnosticCode.NESTING_TOO_DEEP, e.getLine(), e.getColumn(), e.getMaxDepth());
+            diagnostics.flush();
+            Parse parse = new Parse(parseDriver.getPredictionMode());
+            parse.syntaxErrors = parser.getNumberOfSyntaxErrors() + 1;
+            return parse;
+        }
+        profile.recordDecisions(parser);
+        profile.setParseTreeNodeCount(parser.getNodeCount());
+        diagnostics.flush();
+        Parse parse = new Parse(parseDriver.getPredictionMode());
+        if (options.isVerbose()) {
+            out.println("Parsed " + sourceFile + " with " + parse.mode + " prediction.");
+        }
+
+        // Display the parse tree in a GUI window only when requested
+        if (options.isGui() && !ParseTreeViewer.show(parser, tree, "MiniSoft Parse Tree - " + sourceFile.getFileName())) {
+            err.println("No display available, parse tree viewer skipped.");
+        }
+
+        parse.syntaxErrors = parser.getNumberOfSyntaxErrors();
+        if (parse.syntaxErrors > 0) {
+            return parse;
+        }
+
+        // Lowering phase - the later phases only need the abstract syntax tree
+        profile.startPhase("lowering");
+        parse.program = new AstBuilder().build(tree);
+        profile.endPhase();
+        if (profile.isEnabled()) {
+            profile.setSyntaxTreeNodeCount(countNodes(parse.program));
+        }
+        if (options.isVerbose()) {
+            out.println("Lowered " + parser.getNodeCount() + " parse tree nodes to " +
+                               countNodes(parse.program) + " syntax tree nodes.");
+        }
+        return parse;
+    }
+
+    private DiagnosticSink createDiagnosticSink(Path sourceFile, PrintStream err) {
+        DiagnosticPrinter printer = options.getDiagnosticFormat() == CompilerOptions.DiagnosticFormat.JSON
+                ? new JsonDiagnosticPrinter(err, sourceFile.toString()) : new TextDiagnosticPrinter(err);
+        return new DiagnosticSink(printer, options.getMaxDiagnostics());
+    }
+
+    /**
+     * Creates the lexer selected by the options, reading the source from its start, behind the nesting limit
+     */
+    private TokenSource createLexer(MappedCharStream source, LexicalErrors errors) {
+        if (options.getLexer() == CompilerOptions.LexerKind.TABLE) {
+            TableLexer lexer = new TableLexer(source);
+            lexer.setErrorListener(errors);
+            return new NestingLimit(lexer, options.getMaxNesting());
+        }
+        source.seek(0);
+        MiniSoftLexer lexer = parserFactory.createLexer(source);
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(errors);
+        return new NestingLimit(lexer, options.getMaxNesting());
+    }
+
+    private MiniSoftParser createParser(TokenStream tokens, DiagnosticSink diagnostics) {
+        MiniSoftParser parser = parserFactory.createParser(tokens);
+        parser.removeErrorListeners();
+        parser.addErrorListener(new BaseErrorListener() {
+            @Override
+            public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol,
+                                   int line, int charPositionInLine, String msg, RecognitionException e) {
+                diagnostics.report(DiagnosticCode.SYNTAX_ERROR, line, charPositionInLine, msg);
+            }
+        });
+        return parser;
+    }
+
+    /**
+     * Checks the content of a source file while parsing it, one top-level instruction at a time, so that memory
+     * use stays flat however long the file is. Tokens are read through an unbuffered stream, which cannot be
+     * rewound, so when the SLL parse fails the file itself is read again from the start with full LL prediction,
+     * as {@link ParseDriver} does with a buffered stream.
+     */
+    private CompilationResult checkStreaming(Path sourceFile, MappedCharStream source, PrintStream out, PrintStream err,
+                                             DiagnosticSink diagnostics, long startTime) {
+        LexicalErrors lexicalErrors = new LexicalErrors(diagnostics);
+        StreamingChecker checker = new StreamingChecker(diagnostics);
+
+        // Stage 1: SLL prediction, giving up at the first syntax error without reporting it
+        MiniSoftParser parser = createParser(new UnbufferedTokenStream<>(createLexer(source, lexicalErrors)), diagnostics);
+        parser.removeErrorListeners();
+        parser.setErrorHandler(new BailErrorStrategy());
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        checker.attach(parser);
+        PredictionMode parseMode = PredictionMode.SLL;
+        try {
+            try {
+                parser.program();
+            } catch (ParseCancellationException e) {
+                // Stage 2: read the file again with full LL prediction; what was reported is not reported twice
+                lexicalErrors.restart();
+                parser = createParser(new UnbufferedTokenStream<>(createLexer(source, lexicalErrors)), diagnostics);
+                parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+                checker.attach(parser);
+                parseMode = PredictionMode.LL;
+                parser.program();
+            }
+        } catch (NestingLimit.TooDeepException e) {
+            diagnostics.report(DiagnosticCode.NESTING_TOO_DEEP, e.getLine(), e.getColumn(), e.getMaxDepth());
+            diagnostics.flush();
+            err.println("Compilation failed with " + (parser.getNumberOfSyntaxErrors() + 1) + " syntax errors.");
+            return result(sourceFile, CompilationResult.Status.SYNTAX_ERROR, parseMode, null, startTime);
+        }
+        diagnostics.flush();
+        if (options.isVerbose()) {
+            out.println("Parsed " + sourceFile + " with " + parseMode + " prediction, checking " +
+                        checker.getStatementCount() + " instructions as they were read.");
+        }
+
+        if (parser.getNumberOfSyntaxErrors() > 0) {
+            err.println("Compilation failed with " + parser.getNumberOfSyntaxErrors() + " syntax errors.");
+            return result(sourceFile, CompilationResult.Status.SYNTAX_ERROR, parseMode, null, startTime);
+        }
+        SymbolTable symbolTable = checker.getSymbolTable();
+        if (checker.hasSymbolErrors()) {
+            err.println("Compilation failed with semantic errors in symbol table building phase.");
+            symbolTable.displaySymbolTable(out);
+            return result(sourceFile, CompilationResult.Status.SEMANTIC_ERROR, parseMode, symbolTable, startTime);
+        }
+        if (checker.hasTypeErrors()) {
+            err.println("Compilation failed with semantic errors during type checking.");
+            symbolTable.displaySymbolTable(out);
+            return result(sourceFile, CompilationResult.Status.SEMANTIC_ERROR, parseMode, symbolTable, startTime);
+        }
+        if (checker.hasConstantErrors()) {
+            err.println("Compilation failed with semantic errors during constant propagation.");
+            symbolTable.displaySymbolTable(out);
+            return result(sourceFile, CompilationResult.Status.SEMANTIC_ERROR, parseMode, symbolTable, startTime);
+        }
+
+        out.println("Compilation successful!");
+        out.println("Semantic analysis completed with no errors.");
+        symbolTable.displaySymbolTable(out);
+        return result(sourceFile, CompilationResult.Status.SUCCESS, parseMode, symbolTable, startTime);
+    }
+
+    private static int countNodes(Program program) {
+        int[] count = new int[1];
+        AstWalker.DEFAULT.walk(new AstBaseListener() {
+            @Override
+            public void enterEveryNode(Node node) {
+                count[0]++;
+            }
+        }, program);
+        return count[0];
+    }
+
+    private void writeClassFiles(String className, byte[] classFile, PrintStream out) throws IOException {
+        if (options.getClassOutputDirectory() != null) {
+            Path written = ClassFiles.writeClass(options.getClassOutputDirectory(), className, classFile);
+            out.println("Wrote " + written);
+        }
+        if (options.getJarOutputDirectory() != null) {
+            Path jarFile = options.getJarOutputDirectory().resolve(className + ".jar");
+            ClassFiles.writeJar(jarFile, className, classFile);
+            out.println("Wrote " + jarFile);
+        }
+    }
+
+    /**
+     * Runs a checked program with the selected backend
+     *
+     * @param jvmProgram The loaded program when the backend is the JVM
+     * @return false if the program stopped with a runtime error
+     */
+    private boolean execute(Program program, SymbolTable symbolTable, ConstantFacts constants, LoopFacts loops,
+                            JvmProgram jvmProgram, PrintStream out, DiagnosticSink diagnostics) {
+        try {
+            if (options.getBackend() == CompilerOptions.Backend.JVM) {
+                jvmProgram.run(System.in, out);
+            } else if (options.getBackend() == CompilerOptions.Backend.VM) {
+                new VmCompiler(symbolTable, constants, loops).compile(program).run(System.in, out);
+            } else {
+                new Interpreter(symbolTable, constants, loops).run(program, System.in, out);
+            }
+            return true;
+        } catch (MiniSoftRuntimeException e) {
+            diagnostics.report(DiagnosticCode.RUNTIME_ERROR, e.getLine(), -1, e.getMessage());
+            diagnostics.flush();
+            return false;
+        }
+    }
+
+    /**
+     * Reports lexical errors, except those already reported by an earlier read of the same file
+     */
+    private static final class LexicalErrors extends BaseErrorListener {
+        private final DiagnosticSink diagnostics;
+        private int count;
+        private int reported;
+
+        LexicalErrors(DiagnosticSink diagnostics) {
+            this.diagnostics = diagnostics;
+        }
+
+        /**
+         * Starts another read of the file
+         */
+        void restart() {
+            reported = Math.max(reported, count);
+            count = 0;
+        }
+
+        @Override
+        public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol,
+                                int line, int charPositionInLine, String msg, RecognitionException e) {
+            if (++count > reported) {
+                diagnostics.report(DiagnosticCode.LEXICAL_ERROR, line, charPositionInLine, msg);
+            }
+        }
+    }
+
+    /**
+     * The outcome of parsing a source file
+     */
+    private static final class Parse {
+        final PredictionMode mode;
+        int syntaxErrors;
+        // The lowered program, or null if it has syntax errors
+        Program program;
+
+        Parse(PredictionMode mode) {
+            this.mode = mode;
+        }
+    }
+
+    private static CompilationResult result(Path sourceFile, CompilationResult.Status status, PredictionMode parseMode,
+                                            SymbolTable symbolTable, long startTime) {
+        return new CompilationResult(sourceFile, status, parseMode, symbolTable, System.nanoTime() - startTime);
+    }
+}
@@ -0,0 +1,189 @@
+package com.minisoft;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenFactory;
+import org.antlr.v4.runtime.TokenSource;
+
+/**
+ * Passes the tokens of a lexer on to the parser, stopping with a {@link TooDeepException} at the first token
+ * nested deeper than a limit, {@link #DEFAULT_MAX_DEPTH} levels unless set with {@code --max-nesting}, before the
+ * parser recurses into it. The parser and the phases after it recurse at least once per level, so that a few hundred
+ * nested parentheses would overflow a default thread stack; files are therefore compiled on a thread whose stack
+ * size, given by {@link #stackSizeFor}, keeps every phase within it up to the limit.
+ * <p>
+ * The depth of a token is the number of blocks, parentheses and brackets open around it, plus the number of
+ * {@code !} operators it is an operand of. A {@code !} applies up to the next {@code AND}, {@code OR}, comma or
+ * semicolon at its own level, or to the end of the parentheses or brackets it is in.
+ */
+public class NestingLimit implements TokenSource {
+    /** The deepest nesting a program may have unless another limit is given */
+    public static final int DEFAULT_MAX_DEPTH = 4096;
+    /** The largest limit that may be set */
+    public static final int UPPER_LIMIT = 100_000;
+
+    // The stack a compilation needs besides its nesting, and the most any phase needs per level
+    private static final long BASE_STACK_SIZE = 4L * 1024 * 1024;
+    private static final long STACK_SIZE_PER_LEVEL = 4 * 1024;
+
+    private final TokenSource lexer;
+    private final int maxDepth;
+    // The number of ! operators applying at the top level and within each open block, parenthesis or bracket
+    private final int[] negations;
+    private int open;
+    private int depth;
+    private boolean exceeded;
+
+    /**
+     * Creates a limit of {@link #DEFAULT_MAX_DEPTH} levels
+     */
+    public NestingLimit(TokenSource lexer) {
+        this(lexer, DEFAULT_MAX_DEPTH);
+    }
+
+    /**
+     * Creates a limit of the given number of levels
+     */
+    public NestingLimit(TokenSource lexer, int maxDepth) {
+        this.lexer = lexer;
+        this.maxDepth = maxDepth;
+        this.negations = new int[maxDepth + 1];
+    }
+
+    /**
+     * Returns the stack size of a thread that compiles and runs programs nested up to the given depth
+     */
+    public static long stackSizeFor(int maxDepth) {
+        return BASE_STACK_SIZE + maxDepth * STACK_SIZE_PER_LEVEL;
+    }
+
+    @Override
+    public Token nextToken() {
+        Token token = lexer.nextToken();
+        switch (token.getType()) {
+            case MiniSoftLexer.LBRACE:
+                // A block starts after the expressions of its statement
+                endNegations();
+                enter(token);
+                open++;
+                break;
+            case MiniSoftLexer.LPAREN:
+            case MiniSoftLexer.LBRACK:
+                enter(token);
+                open++;
+                break;
+            case MiniSoftLexer.RBRACE:
+            case MiniSoftLexer.RPAREN:
+            case MiniSoftLexer.RBRACK:
+                // An unbalanced closing token is a syntax error the parser reports
+                if (open > 0) {
+                    endNegations();
+                    open--;
+                    depth--;
+                }
+                break;
+            case MiniSoftLexer.NOT:
+                enter(token);
+                negations[open]++;
+                break;
+            case MiniSoftLexer.AND:
+            case MiniSoftLexer.OR:
+            case MiniSoftLexer.COMMA:
+            case MiniSoftLexer.SEMI:
+                endNegations();
+                break;
+            default:
+        }
+        return token;
+    }
+
+    private void enter(Token token) {
+        if (++depth > maxDepth) {
+            exceeded = true;
+            throw new TooDeepException(token, maxDepth);
+        }
+    }
+
+    private void endNegations() {
+        depth -= negations[open];
+        negations[open] = 0;
+    }
+
+    /**
+     * Returns whether the limit was exceeded. The parser then leaves its rules by the exception, possibly while
+     * entering one, so its parse listeners are called with incomplete contexts they should not act on.
+     */
+    public boolean isExceeded() {
+        return exceeded;
+    }
+
+    @Override
+    public int getLine() {
+        return lexer.getLine();
+    }
+
+    @Override
+    public int getCharPositionInLine() {
+        return lexer.getCharPositionInLine();
+    }
+
+    @Override
+    public CharStream getInputStream() {
+        return lexer.getInputStream();
+    }
+
+    @Override
+    public String getSourceName() {
+        return lexer.getSourceName();
+    }
+
+    @Override
+    public void setTokenFactory(TokenFactory<?> factory) {
+        lexer.setTokenFactory(factory);
+    }
+
+    @Override
+    public TokenFactory<?> getTokenFactory() {
+        return lexer.getTokenFactory();
+    }
+
+    /**
+     * Raised at the first token of a program nested deeper than the limit
+     */
+    public static class TooDeepException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int line;
+        private final int column;
+        private final int maxDepth;
+
+        TooDeepException(Token token, int maxDepth) {
+            // Thrown from deep in the parser, where a stack trace would be long and of no use
+            super("Nesting deeper than " + maxDepth + " levels", null, false, false);
+            this.line = token.getLine();
+            this.column = token.getCharPositionInLine();
+            this.maxDepth = maxDepth;
+        }
+
+        /**
+         * Returns the limit the token exceeded
+         */
+        public int getMaxDepth() {
+            return maxDepth;
+        }
+
+        /**
+         * Returns the line of the token, starting at 1
+         */
+        public int getLine() {
+            return line;
+        }
+
+        /**
+         * Returns the position of the token within its line, starting at 0
+         */
+        public int getColumn() {
+            return column;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.minisoft;
+
+import org.antlr.v4.runtime.ANTLRErrorListener;
+import org.antlr.v4.runtime.ANTLRErrorStrategy;
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Two-stage parse driver for MiniSoft programs.
+ * First parses with the fast SLL prediction mode and a bailing error strategy; only if that fails
+ * is the input rewound and parsed again with full LL prediction and the parser's own error
+ * listeners and recovery. Syntactically valid programs almost always succeed in the first stage,
+ * and invalid ones get exactly the diagnostics a plain LL parse would produce.
+ */
+public class ParseDriver {
+    private final MiniSoftParser parser;
+    private PredictionMode predictionMode;
+
+    /**
+     * Creates a driver for a parser whose error listeners and error strategy are already configured
+     */
+    public ParseDriver(MiniSoftParser parser) {
+        this.parser = parser;
+    }
+
+    /**
+     * Parses a complete program, falling back to full LL prediction when SLL fails
+     *
+     * @return The parse tree of the program
+     */
+    public MiniSoftParser.ProgramContext parseProgram() {
+        List<ANTLRErrorListener> listeners = new ArrayList<>(parser.getErrorListeners());
+        ANTLRErrorStrategy errorHandler = parser.getErrorHandler();
+
+        // Stage 1: SLL prediction, giving up at the first syntax error without reporting it
+        parser.removeErrorListeners();
+        parser.setErrorHandler(new BailErrorStrategy());
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        try {
+            MiniSoftParser.ProgramContext tree = parser.program();
+            predictionMode = PredictionMode.SLL;
+            return tree;
+        } catch (ParseCancellationException e) {
+            // Stage 2: rewind and parse again with full LL prediction and normal error reporting
+            parser.reset();
+            restore(listeners, errorHandler);
+            parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+            MiniSoftParser.ProgramContext tree = parser.program();
+            predictionMode = PredictionMode.LL;
+            return tree;
+        } finally {
+            restore(listeners, errorHandler);
+        }
+    }
+
+    /**
+     * Returns the prediction mode of the stage that produced the last tree, or null before parsing
+     */
+    public PredictionMode getPredictionMode() {
+        return predictionMode;
+    }
+
+    private void restore(List<ANTLRErrorListener> listeners, ANTLRErrorStrategy errorHandler) {
+        parser.removeErrorListeners();
+        for (ANTLRErrorListener listener : listeners) {
+            parser.addErrorListener(listener);
+        }
+        parser.setErrorHandler(errorHandler);
+    }
+}
@@ -0,0 +1,44 @@
+package com.minisoft;
+
+import org.antlr.v4.gui.Trees;
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import java.awt.HeadlessException;
+import javax.swing.JFrame;
+import javax.swing.JPanel;
+
+/**
+ * Swing viewer for MiniSoft parse trees.
+ * Kept apart from the compiler pipeline so that AWT and Swing are only loaded when the viewer is requested.
+ */
+final class ParseTreeViewer {
+    private ParseTreeViewer() {
+    }
+
+    /**
+     * Displays the parse tree in a GUI window for visualization
+     *
+     * @param parser The parser that generated the tree
+     * @param tree The parse tree to display
+     * @param title The title for the window
+     * @return false if no display is available
+     */
+    static boolean show(Parser parser, ParseTree tree, String title) {
+        try {
+            JFrame frame = new JFrame(title);
+            JPanel panel = new JPanel();
+
+            // Create the visualization and add it to the panel
+            Trees.inspect(tree, parser);
+
+            frame.add(panel);
+            frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+            frame.setSize(800, 600);
+            frame.setVisible(true);
+            return true;
+        } catch (HeadlessException e) {
+            return false;
+        }
+    }
+}
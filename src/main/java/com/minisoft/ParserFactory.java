@@ -0,0 +1,328 @@
+package com.minisoft;
+
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.TokenStream;
+import org.antlr.v4.runtime.atn.ATN;
+import org.antlr.v4.runtime.atn.LexerATNSimulator;
+import org.antlr.v4.runtime.atn.ParserATNSimulator;
+import org.antlr.v4.runtime.atn.PredictionContextCache;
+import org.antlr.v4.runtime.dfa.DFA;
+import org.antlr.v4.runtime.dfa.DFAState;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Creates lexers and parsers that share a managed DFA cache instead of the static caches of the generated
+ * classes. ANTLR fills its DFA during the first parses of a JVM, so the cache can be warmed up front from the
+ * sample programs bundled with the compiler; it never shrinks on its own, so once it holds more states than a
+ * configured bound it is replaced by an empty one (warmed again if the old one was). Lexers and parsers created
+ * before a reset keep using the old cache until they are discarded.
+ * <p>
+ * The factory and its lexers and parsers can be used from any number of threads, each lexer and parser by one
+ * thread at a time. The factory counts predictions answered by the DFA alone as cache hits.
+ */
+public class ParserFactory {
+    /** Sample programs parsed by {@link #warmUp()}, from the samples directory on the class path */
+    private static final String[] WARM_UP_SAMPLES = {
+            "example.ms", "valid_test.ms", "semantic_errors.ms", "syntax_errors.ms", "lexical_errors.ms"
+    };
+
+    private final int maxStates;
+    private volatile Cache cache = new Cache();
+    private volatile boolean warm;
+
+    private final LongAdder parserPredictions = new LongAdder();
+    private final LongAdder parserMisses = new LongAdder();
+    private final LongAdder lexerMatches = new LongAdder();
+    private final LongAdder lexerMisses = new LongAdder();
+    private final LongAdder resets = new LongAdder();
+
+    /**
+     * Creates a factory whose cache is never reset
+     */
+    public ParserFactory() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a factory that resets its cache when it holds more than the given number of DFA states
+     */
+    public ParserFactory(int maxStates) {
+        this.maxStates = maxStates;
+    }
+
+    /**
+     * Creates a lexer for the input; it reports errors to the console until its listeners are replaced
+     */
+    public MiniSoftLexer createLexer(CharStream input) {
+        return createLexer(input, currentCache());
+    }
+
+    private MiniSoftLexer createLexer(CharStream input, Cache cache) {
+        MiniSoftLexer lexer = new MiniSoftLexer(input);
+        lexer.setInterpreter(new CountingLexerSimulator(lexer, cache));
+        return lexer;
+    }
+
+    /**
+     * Creates a parser reading the tokens; it reports errors to the console until its listeners are replaced
+     */
+    public MiniSoftParser createParser(TokenStream tokens) {
+        return createParser(tokens, currentCache());
+    }
+
+    private MiniSoftParser createParser(TokenStream tokens, Cache cache) {
+        MiniSoftParser parser = new MiniSoftParser(tokens);
+        parser.setInterpreter(new CountingParserSimulator(parser, cache));
+        return parser;
+    }
+
+    /**
+     * Parses the bundled sample programs, without reporting their errors, so that the first real compilations
+     * find the common predictions already in the cache
+     */
+    public synchronized void warmUp() {
+        warmUp(cache);
+        warm = true;
+    }
+
+    private void warmUp(Cache target) {
+        for (String sample : WARM_UP_SAMPLES) {
+            try (InputStream input = ParserFactory.class.getResourceAsStream("/samples/" + sample)) {
+                if (input != null) {
+                    warmUp(CharStreams.fromStream(input), target);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read sample " + sample, e);
+            }
+        }
+        target.warmStates = target.stateCount();
+    }
+
+    private void warmUp(CharStream input, Cache target) {
+        MiniSoftLexer lexer = createLexer(input, target);
+        lexer.removeErrorListeners();
+        MiniSoftParser parser = createParser(new CommonTokenStream(lexer), target);
+        parser.removeErrorListeners();
+        parser.addErrorListener(new BaseErrorListener());
+        new ParseDriver(parser).parseProgram();
+    }
+
+    /**
+     * Replaces the cache by an empty one, warmed from the samples if {@link #warmUp()} was called before
+     */
+    public synchronized void reset() {
+        Cache fresh = new Cache();
+        if (warm) {
+            warmUp(fresh);
+        }
+        cache = fresh;
+        resets.increment();
+    }
+
+    /**
+     * Returns the cache, first resetting it (and warming the new one) if it has grown beyond the bound.
+     * A warmed cache is never reset for holding less than the warm-up put in it, so a bound below that size
+     * does not make every parse start over.
+     */
+    private Cache currentCache() {
+        Cache current = cache;
+        if (maxStates != Integer.MAX_VALUE && current.stateCount() > Math.max(maxStates, current.warmStates)) {
+            synchronized (this) {
+                if (cache == current) {
+                    reset();
+                }
+                current = cache;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Returns the current size and hit counts of the cache
+     */
+    public Statistics getStatistics() {
+        Cache current = cache;
+        return new Statistics(Cache.stateCount(current.parserDfa), Cache.stateCount(current.lexerDfa),
+                              parserPredictions.sum(), parserMisses.sum(), lexerMatches.sum(), lexerMisses.sum(),
+                              resets.sum());
+    }
+
+    /**
+     * One generation of DFA caches; a reset starts a new one
+     */
+    private static final class Cache {
+        final DFA[] parserDfa = newDfa(MiniSoftParser._ATN);
+        final PredictionContextCache parserContexts = new PredictionContextCache();
+        final DFA[] lexerDfa = newDfa(MiniSoftLexer._ATN);
+        final PredictionContextCache lexerContexts = new PredictionContextCache();
+        /** Number of states after the warm-up, 0 if the cache was not warmed */
+        volatile int warmStates;
+
+        private static DFA[] newDfa(ATN atn) {
+            DFA[] dfa = new DFA[atn.getNumberOfDecisions()];
+            for (int i = 0; i < dfa.length; i++) {
+                dfa[i] = new DFA(atn.getDecisionState(i), i);
+            }
+            return dfa;
+        }
+
+        int stateCount() {
+            return stateCount(parserDfa) + stateCount(lexerDfa);
+        }
+
+        static int stateCount(DFA[] dfa) {
+            int count = 0;
+            for (DFA decision : dfa) {
+                // The map is only modified while locked, and a slightly stale size is good enough here
+                count += decision.states.size();
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Counts predictions and the ones that had to extend the DFA through ATN simulation
+     */
+    private final class CountingParserSimulator extends ParserATNSimulator {
+        private boolean missed;
+
+        CountingParserSimulator(MiniSoftParser parser, Cache cache) {
+            super(parser, MiniSoftParser._ATN, cache.parserDfa, cache.parserContexts);
+        }
+
+        @Override
+        public int adaptivePredict(TokenStream input, int decision, ParserRuleContext outerContext) {
+            missed = false;
+            int alternative = super.adaptivePredict(input, decision, outerContext);
+            parserPredictions.increment();
+            if (missed) {
+                parserMisses.increment();
+            }
+            return alternative;
+        }
+
+        @Override
+        protected DFAState computeTargetState(DFA dfa, DFAState previousD, int t) {
+            missed = true;
+            return super.computeTargetState(dfa, previousD, t);
+        }
+    }
+
+    /**
+     * Counts matched tokens and the ones that had to extend the DFA through ATN simulation
+     */
+    private final class CountingLexerSimulator extends LexerATNSimulator {
+        private boolean missed;
+
+        CountingLexerSimulator(MiniSoftLexer lexer, Cache cache) {
+            super(lexer, MiniSoftLexer._ATN, cache.lexerDfa, cache.lexerContexts);
+        }
+
+        @Override
+        public int match(CharStream input, int mode) {
+            missed = false;
+            int type = super.match(input, mode);
+            lexerMatches.increment();
+            if (missed) {
+                lexerMisses.increment();
+            }
+            return type;
+        }
+
+        @Override
+        protected DFAState computeTargetState(CharStream input, DFAState s, int t) {
+            missed = true;
+            return super.computeTargetState(input, s, t);
+        }
+    }
+
+    /**
+     * A snapshot of the cache size and of the hit counts since the factory was created
+     */
+    public static final class Statistics {
+        private final int parserStates;
+        private final int lexerStates;
+        private final long parserPredictions;
+        private final long parserMisses;
+        private final long lexerMatches;
+        private final long lexerMisses;
+        private final long resets;
+
+        Statistics(int parserStates, int lexerStates, long parserPredictions, long parserMisses,
+                   long lexerMatches, long lexerMisses, long resets) {
+            this.parserStates = parserStates;
+            this.lexerStates = lexerStates;
+            this.parserPredictions = parserPredictions;
+            this.parserMisses = parserMisses;
+            this.lexerMatches = lexerMatches;
+            this.lexerMisses = lexerMisses;
+            this.resets = resets;
+        }
+
+        public int getParserStates() {
+            return parserStates;
+        }
+
+        public int getLexerStates() {
+            return lexerStates;
+        }
+
+        public long getParserPredictions() {
+            return parserPredictions;
+        }
+
+        /**
+         * Returns the share of parser predictions answered by the cache alone, 1 if there were none
+         */
+        public double getParserHitRate() {
+            return hitRate(parserPredictions, parserMisses);
+        }
+
+        public long getLexerMatches() {
+            return lexerMatches;
+        }
+
+        /**
+         * Returns the share of tokens matched by the cache alone, 1 if there were none
+         */
+        public double getLexerHitRate() {
+            return hitRate(lexerMatches, lexerMisses);
+        }
+
+        public long getResets() {
+            return resets;
+        }
+
+        private static double hitRate(long lookups, long misses) {
+            return lookups == 0 ? 1.0 : (double) (lookups - misses) / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return describe(true);
+        }
+
+        /**
+         * Describes the cache, with or without the figures of the generated lexer, which say nothing about files
+         * read by {@link TableLexer}
+         */
+        public String describe(boolean lexer) {
+            if (!lexer) {
+                return String.format("%d parser DFA states, parser hit rate %.2f%% of %d predictions, %d resets",
+                                     parserStates, 100 * getParserHitRate(), parserPredictions, resets);
+            }
+            return String.format("%d parser and %d lexer DFA states, parser hit rate %.2f%% of %d predictions, " +
+                                 "lexer hit rate %.2f%% of %d tokens, %d resets",
+                                 parserStates, lexerStates, 100 * getParserHitRate(), parserPredictions,
+                                 100 * getLexerHitRate(), lexerMatches, resets);
+        }
+    }
+}
@@ -0,0 +1,371 @@
+package com.minisoft;
+
+import com.minisoft.symbol.SymbolTable;
+import org.antlr.v4.runtime.atn.PredictionMode;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * On-disk cache of compilation results, so that a file whose content has not changed since it was last compiled
+ * is not lexed, parsed or analyzed again.
+ * Entries are keyed by a SHA-256 hash of the compiler build, the options that change the output, the path of the
+ * file and its content. An entry holds everything needed to replay the compilation: the status and parse mode,
+ * the output and diagnostics in the order they were printed, the symbol table and the quadruple file written
+ * with --emit-ir. The cache is bounded in size: {@link #trim()} deletes the least recently used entries, using
+ * file modification times, which are updated on every hit.
+ * <p>
+ * Entries are written to a temporary file and moved in place, so several processes or threads can share a
+ * cache directory; a damaged or unreadable entry counts as a miss.
+ */
+public class ResultCache {
+    public static final String EXTENSION = ".msc";
+
+    // "MSC1"
+    private static final int MAGIC = 0x4D534331;
+    private static final int VERSION = 1;
+
+    /** Identifies the build of the compiler, so that a new build never reads results written by an old one */
+    private static final String COMPILER_VERSION = compilerVersion();
+
+    private final Path directory;
+    private final long maxBytes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates a cache stored in the given directory, which is created when the first entry is stored
+     *
+     * @param maxBytes The total size of entries {@link #trim()} shrinks the cache to
+     */
+    public ResultCache(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    private static String compilerVersion() {
+        Properties properties = new Properties();
+        try (InputStream input = ResultCache.class.getResourceAsStream("/minisoft.properties")) {
+            if (input != null) {
+                properties.load(input);
+            }
+        } catch (IOException e) {
+            // Without a version the cache only tells builds apart by their options
+        }
+        return properties.getProperty("version", "unknown") + "+" + properties.getProperty("build", "unknown");
+    }
+
+    /**
+     * Returns the key of a compilation
+     *
+     * @param options A description of the options that change the output of the compilation
+     */
+    public String key(String options, Path sourceFile, ByteBuffer source) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        for (String part : new String[] {COMPILER_VERSION, options, sourceFile.toString()}) {
+            digest.update(part.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        digest.update(source);
+
+        StringBuilder key = new StringBuilder(64);
+        for (byte b : digest.digest()) {
+            key.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return key.toString();
+    }
+
+    /**
+     * Returns the entry stored under the key and marks it as recently used, or null if there is none
+     */
+    public Entry load(String key) {
+        Path file = directory.resolve(key + EXTENSION);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            Entry entry = Entry.read(in);
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            hits.increment();
+            return entry;
+        } catch (IOException | RuntimeException e) {
+            // Missing, being replaced, or damaged: compile the file again
+            misses.increment();
+            return null;
+        }
+    }
+
+    /**
+     * Stores an entry under the key, replacing any previous one
+     */
+    public void store(String key, Entry entry) throws IOException {
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, key, ".tmp");
+        try {
+            OutputStream file = Files.newOutputStream(temporary);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+                entry.write(out);
+            }
+            Files.move(temporary, directory.resolve(key + EXTENSION),
+                       StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Deletes the least recently used entries until the cache holds at most its maximum size
+     */
+    public void trim() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        List<Path> entries = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> file.getFileName().toString().endsWith(EXTENSION)).forEach(entries::add);
+        }
+
+        List<CachedFile> cached = new ArrayList<>(entries.size());
+        long total = 0;
+        for (Path file : entries) {
+            try {
+                CachedFile entry = new CachedFile(file, Files.size(file), Files.getLastModifiedTime(file).toMillis());
+                cached.add(entry);
+                total += entry.size;
+            } catch (NoSuchFileException e) {
+                // Trimmed by another process
+            }
+        }
+        if (total <= maxBytes) {
+            return;
+        }
+
+        cached.sort(Comparator.comparingLong(entry -> entry.lastUsed));
+        for (CachedFile entry : cached) {
+            if (total <= maxBytes) {
+                break;
+            }
+            Files.deleteIfExists(entry.file);
+            total -= entry.size;
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private static final class CachedFile {
+        final Path file;
+        final long size;
+        final long lastUsed;
+
+        CachedFile(Path file, long size, long lastUsed) {
+            this.file = file;
+            this.size = size;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    /**
+     * The replayable outcome of one compilation:
+     * <pre>
+     * header       magic, version
+     * result       status, parse mode or ""
+     * transcript   int chunk count, then per chunk a boolean (true for the error stream), int length and bytes
+     * symbols      boolean, symbol table as written by {@link SymbolTable#write}
+     * ir           boolean, file name and int length and bytes of the quadruple file
+     * </pre>
+     */
+    public static final class Entry {
+        private final CompilationResult.Status status;
+        private final PredictionMode parseMode;
+        private final Transcript transcript;
+        private final SymbolTable symbolTable;
+        private final String irFileName;
+        private final byte[] ir;
+
+        public Entry(CompilationResult.Status status, PredictionMode parseMode, Transcript transcript,
+                     SymbolTable symbolTable, String irFileName, byte[] ir) {
+            this.status = status;
+            this.parseMode = parseMode;
+            this.transcript = transcript;
+            this.symbolTable = symbolTable;
+            this.irFileName = irFileName;
+            this.ir = ir;
+        }
+
+        public CompilationResult.Status getStatus() {
+            return status;
+        }
+
+        public PredictionMode getParseMode() {
+            return parseMode;
+        }
+
+        public SymbolTable getSymbolTable() {
+            return symbolTable;
+        }
+
+        /**
+         * Returns the name of the quadruple file written by the compilation, or null if none was
+         */
+        public String getIrFileName() {
+            return irFileName;
+        }
+
+        public byte[] getIr() {
+            return ir;
+        }
+
+        /**
+         * Prints the output and diagnostics of the compilation again, in the order they were printed
+         */
+        public void replay(PrintStream out, PrintStream err) {
+            transcript.replay(out, err);
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(status.name());
+            out.writeUTF(parseMode == null ? "" : parseMode.name());
+            transcript.write(out);
+            out.writeBoolean(symbolTable != null);
+            if (symbolTable != null) {
+                symbolTable.write(out);
+            }
+            out.writeBoolean(ir != null);
+            if (ir != null) {
+                out.writeUTF(irFileName);
+                out.writeInt(ir.length);
+                out.write(ir);
+            }
+        }
+
+        /**
+         * Reads an entry, or returns null if it was written by another version of the format
+         */
+        static Entry read(DataInputStream in) throws IOException {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            CompilationResult.Status status = CompilationResult.Status.valueOf(in.readUTF());
+            String mode = in.readUTF();
+            PredictionMode parseMode = mode.isEmpty() ? null : PredictionMode.valueOf(mode);
+            Transcript transcript = Transcript.read(in);
+            SymbolTable symbolTable = in.readBoolean() ? SymbolTable.read(in) : null;
+            String irFileName = null;
+            byte[] ir = null;
+            if (in.readBoolean()) {
+                irFileName = in.readUTF();
+                ir = new byte[in.readInt()];
+                in.readFully(ir);
+            }
+            return new Entry(status, parseMode, transcript, symbolTable, irFileName, ir);
+        }
+    }
+
+    /**
+     * Records what a compilation prints to its output and error streams while passing it through
+     */
+    public static final class Transcript {
+        private final List<ByteArrayOutputStream> chunks = new ArrayList<>();
+        private final List<Boolean> errors = new ArrayList<>();
+
+        /**
+         * Returns a stream printing to {@code out} and recording what it prints
+         */
+        public PrintStream record(PrintStream out, boolean error) {
+            return new PrintStream(new OutputStream() {
+                @Override
+                public void write(int b) {
+                    write(new byte[] {(byte) b}, 0, 1);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    out.write(b, off, len);
+                    add(b, off, len, error);
+                }
+
+                @Override
+                public void flush() {
+                    out.flush();
+                }
+            });
+        }
+
+        private synchronized void add(byte[] b, int off, int len, boolean error) {
+            // Consecutive writes to the same stream share a chunk, as println writes the line and the separator apart
+            int last = chunks.size() - 1;
+            if (last < 0 || errors.get(last) != error) {
+                chunks.add(new ByteArrayOutputStream());
+                errors.add(error);
+                last++;
+            }
+            chunks.get(last).write(b, off, len);
+        }
+
+        void replay(PrintStream out, PrintStream err) {
+            for (int i = 0; i < chunks.size(); i++) {
+                byte[] chunk = chunks.get(i).toByteArray();
+                (errors.get(i) ? err : out).write(chunk, 0, chunk.length);
+            }
+            out.flush();
+            err.flush();
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeInt(chunks.size());
+            for (int i = 0; i < chunks.size(); i++) {
+                out.writeBoolean(errors.get(i));
+                out.writeInt(chunks.get(i).size());
+                chunks.get(i).writeTo(out);
+            }
+        }
+
+        static Transcript read(DataInputStream in) throws IOException {
+            Transcript transcript = new Transcript();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                boolean error = in.readBoolean();
+                byte[] chunk = new byte[in.readInt()];
+                in.readFully(chunk);
+                transcript.add(chunk, 0, chunk.length, error);
+            }
+            return transcript;
+        }
+    }
+}
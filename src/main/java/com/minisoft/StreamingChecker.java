@@ -0,0 +1,146 @@
+package com.minisoft;
+
+import com.minisoft.ast.AstBuilder;
+import com.minisoft.ast.AstWalker;
+import com.minisoft.ast.Declaration;
+import com.minisoft.ast.Statement;
+import com.minisoft.diagnostics.DiagnosticSink;
+import com.minisoft.optimizer.ConstantPropagation;
+import com.minisoft.symbol.SymbolTable;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.TokenSource;
+import org.antlr.v4.runtime.tree.ErrorNode;
+
+/**
+ * Checks a program while it is being parsed, one top-level instruction at a time, so that the memory it needs
+ * does not grow with the length of the program. Registered as a parse listener, it lowers the declarations and
+ * every top-level instruction as soon as the parser leaves them, runs the semantic analysis on the syntax tree,
+ * and removes the instruction from the parse tree. Together with an unbuffered token stream, only the tokens and
+ * the tree of the instruction being parsed are held at any time.
+ * <p>
+ * The checks are those of a normal compilation, with three differences: errors are reported in the order the
+ * statements are read, so statements read before a syntax or declaration error have already been type checked;
+ * nothing is checked after the first syntax error; and constant propagation, which needs the control flow of the
+ * whole program, checks each top-level instruction on its own. Divisions by zero and array indexes out of bounds
+ * are then proven where the divisor or index is made of literals and constants, but not where it depends on the
+ * values of variables assigned by earlier instructions.
+ */
+public class StreamingChecker extends MiniSoftBaseListener {
+    private final AstBuilder astBuilder = new AstBuilder();
+    private final FusedAnalyzer analyzer;
+    private final DiagnosticSink diagnostics;
+    private ConstantPropagation constantPropagation;
+    private MiniSoftParser parser;
+    private boolean declarationsChecked;
+    private long statementCount;
+    private long checkedCount;
+
+    /**
+     * Creates a checker reporting errors to the given sink
+     */
+    public StreamingChecker(DiagnosticSink diagnostics) {
+        this.analyzer = new FusedAnalyzer(diagnostics);
+        this.diagnostics = diagnostics;
+    }
+
+    /**
+     * Checks the program read by a parser as it parses it. When the same program is read again by another parser,
+     * as after a failed SLL parse, the declarations and statements checked by the previous one are skipped.
+     */
+    public void attach(MiniSoftParser parser) {
+        this.parser = parser;
+        this.statementCount = 0;
+        parser.addParseListener(this);
+    }
+
+    @Override
+    public void exitDeclarations(MiniSoftParser.DeclarationsContext ctx) {
+        if (declarationsChecked || hasSyntaxErrors(ctx)) {
+            return;
+        }
+        declarationsChecked = true;
+        for (Declaration declaration : astBuilder.buildDeclarations(ctx)) {
+            AstWalker.DEFAULT.walk(analyzer, declaration);
+        }
+        constantPropagation = new ConstantPropagation(analyzer.getSymbolTable(), diagnostics);
+    }
+
+    @Override
+    public void exitInstruction(MiniSoftParser.InstructionContext ctx) {
+        // Instructions nested in a statement are checked with it
+        ParserRuleContext instructions = ctx.getParent();
+        if (!(instructions.getParent() instanceof MiniSoftParser.ProgramContext) || isNestingExceeded()) {
+            return;
+        }
+        instructions.removeLastChild();
+        statementCount++;
+        if (statementCount <= checkedCount || hasSyntaxErrors(ctx)) {
+            return;
+        }
+        checkedCount = statementCount;
+
+        Statement statement = astBuilder.buildStatement(ctx);
+        // Type errors are only reported while every identifier so far is declared properly, and after the errors
+        // constant propagation proves, as in a normal compilation
+        analyzer.analyze(statement, astBuilder.getExpressionCount());
+        constantPropagation.check(statement);
+        analyzer.reportTypeErrors();
+    }
+
+    /**
+     * Returns whether a rule just left or anything before it failed to parse. A bailing parse leaves a rule with
+     * its exception set and nothing reported.
+     */
+    private boolean hasSyntaxErrors(ParserRuleContext ctx) {
+        return ctx.exception != null || parser.getNumberOfSyntaxErrors() > 0 || isNestingExceeded();
+    }
+
+    /**
+     * Returns whether the parse is being abandoned because the program is nested too deeply
+     */
+    private boolean isNestingExceeded() {
+        TokenSource tokens = parser.getTokenStream().getTokenSource();
+        return tokens instanceof NestingLimit && ((NestingLimit) tokens).isExceeded();
+    }
+
+    @Override
+    public void visitErrorNode(ErrorNode node) {
+        // Tokens skipped while recovering from a syntax error are not kept either
+        ((ParserRuleContext) node.getParent()).removeLastChild();
+    }
+
+    /**
+     * Returns the symbol table built from the declarations
+     */
+    public SymbolTable getSymbolTable() {
+        return analyzer.getSymbolTable();
+    }
+
+    /**
+     * Returns whether errors in declarations or uses of identifiers were reported
+     */
+    public boolean hasSymbolErrors() {
+        return analyzer.hasSymbolErrors();
+    }
+
+    /**
+     * Returns whether type errors were reported
+     */
+    public boolean hasTypeErrors() {
+        return analyzer.hasTypeErrors();
+    }
+
+    /**
+     * Returns whether divisions by zero or array indexes out of bounds were proven
+     */
+    public boolean hasConstantErrors() {
+        return constantPropagation != null && constantPropagation.hasErrors();
+    }
+
+    /**
+     * Returns the number of top-level instructions read by the current parser so far
+     */
+    public long getStatementCount() {
+        return statementCount;
+    }
+}
@@ -0,0 +1,634 @@
+package com.minisoft;
+
+import org.antlr.v4.runtime.ANTLRErrorListener;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CommonTokenFactory;
+import org.antlr.v4.runtime.ConsoleErrorListener;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenFactory;
+import org.antlr.v4.runtime.TokenSource;
+import org.antlr.v4.runtime.misc.Interval;
+import org.antlr.v4.runtime.misc.Pair;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A hand-written lexer that scans the UTF-8 bytes of a {@link MappedCharStream} directly, producing the same
+ * tokens, positions and lexical errors as the generated {@link MiniSoftLexer} without simulating its ATN. The first
+ * byte of a token selects its rule through a table of byte classes; identifiers are told from keywords with a
+ * perfect hash of their first and last characters and length, and comments are skipped by searching for their
+ * closing sequence instead of running the non-greedy loops of the grammar. Identifiers and numbers carry their
+ * text, one string per distinct spelling shared by all its occurrences, so that reading it again allocates
+ * nothing; the text of other tokens is decoded from the stream only when asked for.
+ * <p>
+ * Like the generated lexer, it takes the longest match, falls back to the longest token accepted on the way when
+ * a longer one fails (an unclosed comment is read as {@code <} or <code>{</code>), and reports a character that
+ * starts no token as a "token recognition error" before skipping it. It reports errors to the console until its
+ * listener is replaced, and is used by one thread at a time.
+ */
+public class TableLexer implements TokenSource {
+    // Classes of the ASCII bytes; every other byte starts no token
+    private static final byte OTHER = 0;
+    private static final byte WHITESPACE = 1;
+    private static final byte LETTER = 2;
+    private static final byte DIGIT = 3;
+    private static final byte SINGLE = 4;
+    private static final byte EQUALS_SUFFIX = 5;
+    private static final byte QUOTE = 6;
+    private static final byte AT = 7;
+
+    private static final byte[] CLASSES = new byte[128];
+    /** The token of a byte on its own */
+    private static final int[] SINGLE_TYPES = new int[128];
+    /** The token of a byte followed by '=', for the bytes of class EQUALS_SUFFIX */
+    private static final int[] EQUALS_TYPES = new int[128];
+
+    /** Whether a byte may continue an identifier */
+    private static final boolean[] IDENTIFIER_PART = new boolean[128];
+
+    /** Size of the window of bytes copied out of the stream at a time */
+    private static final int WINDOW_SIZE = 1 << 16;
+    /** Bytes before the requested one kept in a refilled window, for the look-behind of strings and keywords */
+    private static final int WINDOW_LOOKBEHIND = 16;
+
+    private static final int KEYWORD_SLOTS = 32;
+    private static final int MAX_KEYWORD_LENGTH = 8;
+    private static final int INITIAL_SPELLING_SLOTS = 256;
+    private static final byte[][] KEYWORDS = new byte[KEYWORD_SLOTS][];
+    private static final int[] KEYWORD_TYPES = new int[KEYWORD_SLOTS];
+
+    private static final byte[] DEFINE = "@define".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SINGLE_LINE_COMMENT_START = "<! -".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SINGLE_LINE_COMMENT_END = "- !>".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] MULTI_LINE_COMMENT_START = "{--".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] MULTI_LINE_COMMENT_END = "--}".getBytes(StandardCharsets.US_ASCII);
+
+    static {
+        for (char c : " \t\r\n".toCharArray()) {
+            CLASSES[c] = WHITESPACE;
+        }
+        for (char c = 'a'; c <= 'z'; c++) {
+            CLASSES[c] = LETTER;
+            CLASSES[Character.toUpperCase(c)] = LETTER;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            CLASSES[c] = DIGIT;
+        }
+        for (int c = 0; c < 128; c++) {
+            IDENTIFIER_PART[c] = CLASSES[c] == LETTER || CLASSES[c] == DIGIT || c == '_';
+        }
+        single(';', MiniSoftLexer.SEMI);
+        single('[', MiniSoftLexer.LBRACK);
+        single(']', MiniSoftLexer.RBRACK);
+        single(',', MiniSoftLexer.COMMA);
+        single('(', MiniSoftLexer.LPAREN);
+        single(')', MiniSoftLexer.RPAREN);
+        single('+', MiniSoftLexer.PLUS);
+        single('-', MiniSoftLexer.MINUS);
+        single('*', MiniSoftLexer.MUL);
+        single('/', MiniSoftLexer.DIV);
+        single('{', MiniSoftLexer.LBRACE);
+        single('}', MiniSoftLexer.RBRACE);
+        equalsSuffix(':', MiniSoftLexer.COLON, MiniSoftLexer.VAR_ASSIGN);
+        equalsSuffix('=', MiniSoftLexer.ASSIGN, MiniSoftLexer.EQ);
+        equalsSuffix('!', MiniSoftLexer.NOT, MiniSoftLexer.NE);
+        equalsSuffix('>', MiniSoftLexer.GT, MiniSoftLexer.GE);
+        equalsSuffix('<', MiniSoftLexer.LT, MiniSoftLexer.LE);
+        CLASSES['"'] = QUOTE;
+        CLASSES['@'] = AT;
+
+        keyword("MainPrgm", MiniSoftLexer.MAIN_PRGM);
+        keyword("Var", MiniSoftLexer.VAR);
+        keyword("BeginPg", MiniSoftLexer.BEGIN_PG);
+        keyword("EndPg", MiniSoftLexer.END_PG);
+        keyword("let", MiniSoftLexer.LET);
+        keyword("Const", MiniSoftLexer.CONST);
+        keyword("Int", MiniSoftLexer.INT_TYPE);
+        keyword("Float", MiniSoftLexer.FLOAT_TYPE);
+        keyword("if", MiniSoftLexer.IF);
+        keyword("then", MiniSoftLexer.THEN);
+        keyword("else", MiniSoftLexer.ELSE);
+        keyword("do", MiniSoftLexer.DO);
+        keyword("while", MiniSoftLexer.WHILE);
+        keyword("for", MiniSoftLexer.FOR);
+        keyword("from", MiniSoftLexer.FROM);
+        keyword("to", MiniSoftLexer.TO);
+        keyword("step", MiniSoftLexer.STEP);
+        keyword("input", MiniSoftLexer.INPUT);
+        keyword("output", MiniSoftLexer.OUTPUT);
+        keyword("OR", MiniSoftLexer.OR);
+        keyword("AND", MiniSoftLexer.AND);
+    }
+
+    private static void single(char c, int type) {
+        CLASSES[c] = SINGLE;
+        SINGLE_TYPES[c] = type;
+    }
+
+    private static void equalsSuffix(char c, int type, int withEquals) {
+        CLASSES[c] = EQUALS_SUFFIX;
+        SINGLE_TYPES[c] = type;
+        EQUALS_TYPES[c] = withEquals;
+    }
+
+    private static void keyword(String text, int type) {
+        byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+        int slot = keywordHash(bytes[0], bytes[bytes.length - 1], bytes.length);
+        if (KEYWORDS[slot] != null) {
+            throw new IllegalStateException("Keywords " + text + " and " +
+                                            new String(KEYWORDS[slot], StandardCharsets.US_ASCII) + " collide");
+        }
+        KEYWORDS[slot] = bytes;
+        KEYWORD_TYPES[slot] = type;
+    }
+
+    /**
+     * The perfect hash of the keywords: no two of them have the same value
+     */
+    private static int keywordHash(int first, int last, int length) {
+        return (first * 17 + last * 4 + length) & (KEYWORD_SLOTS - 1);
+    }
+
+    private final MappedCharStream input;
+    private final ByteBuffer bytes;
+    private final int limit;
+    // The bytes from windowStart on, copied out of the stream in bulk since reading a byte array is much faster
+    // than reading a buffer one byte at a time; only this window is held, however long the file
+    private final byte[] window;
+    private int windowStart;
+    private int windowLength;
+    private final Pair<TokenSource, CharStream> source;
+    private TokenFactory<?> factory = CommonTokenFactory.DEFAULT;
+    private ANTLRErrorListener errorListener = ConsoleErrorListener.INSTANCE;
+
+    // Current position: byte offset, code point index, and line and column of that code point
+    private int offset;
+    private int index;
+    private int line = 1;
+    private int column;
+
+    // Byte offsets from which a search for the end of a comment already failed, so that a file full of unclosed
+    // comments is not searched to its end for each of them
+    private int singleLineCommentMissingFrom = Integer.MAX_VALUE;
+    private int multiLineCommentMissingFrom = Integer.MAX_VALUE;
+
+    // Distinct spellings of the identifiers and numbers read so far, in an open-addressing table at most half full
+    private int[] spellingHashes = new int[INITIAL_SPELLING_SLOTS];
+    private byte[][] spellingBytes = new byte[INITIAL_SPELLING_SLOTS][];
+    private String[] spellings = new String[INITIAL_SPELLING_SLOTS];
+    private int spellingCount;
+
+    /**
+     * Creates a lexer reading a stream from its first byte, whatever the position of the stream
+     */
+    public TableLexer(MappedCharStream input) {
+        this.input = input;
+        this.bytes = input.getBytes();
+        this.limit = bytes.limit();
+        this.window = new byte[Math.min(WINDOW_SIZE, limit)];
+        this.source = new Pair<>(this, input);
+    }
+
+    /**
+     * Replaces the listener lexical errors are reported to; the recognizer and offending symbol it receives are
+     * null
+     */
+    public void setErrorListener(ANTLRErrorListener errorListener) {
+        this.errorListener = errorListener;
+    }
+
+    @Override
+    public Token nextToken() {
+        while (offset < limit) {
+            int startIndex = index;
+            int startLine = line;
+            int startColumn = column;
+            int b = at(offset);
+            switch (b < 0 ? OTHER : CLASSES[b]) {
+                case WHITESPACE:
+                    skipWhitespace();
+                    continue;
+                case LETTER:
+                    return identifier(startIndex, startLine, startColumn);
+                case DIGIT:
+                    return number(startIndex, startLine, startColumn);
+                case SINGLE:
+                    if (b == '{' && startsWith(offset, MULTI_LINE_COMMENT_START)
+                            && skipComment(MULTI_LINE_COMMENT_START.length, MULTI_LINE_COMMENT_END, true)) {
+                        continue;
+                    }
+                    advance(1);
+                    return token(SINGLE_TYPES[b], startIndex, startLine, startColumn);
+                case EQUALS_SUFFIX:
+                    if (b == '<' && startsWith(offset, SINGLE_LINE_COMMENT_START)
+                            && skipComment(SINGLE_LINE_COMMENT_START.length, SINGLE_LINE_COMMENT_END, false)) {
+                        continue;
+                    }
+                    if (offset + 1 < limit && at(offset + 1) == '=') {
+                        advance(2);
+                        return token(EQUALS_TYPES[b], startIndex, startLine, startColumn);
+                    }
+                    advance(1);
+                    return token(SINGLE_TYPES[b], startIndex, startLine, startColumn);
+                case QUOTE:
+                    Token string = string(startIndex, startLine, startColumn);
+                    if (string != null) {
+                        return string;
+                    }
+                    continue;
+                case AT:
+                    int matched = 1;
+                    while (matched < DEFINE.length && offset + matched < limit
+                           && at(offset + matched) == DEFINE[matched]) {
+                        matched++;
+                    }
+                    if (matched == DEFINE.length) {
+                        advance(matched);
+                        return token(MiniSoftLexer.DEFINE, startIndex, startLine, startColumn);
+                    }
+                    recognitionError(offset + matched, startIndex, startLine, startColumn);
+                    continue;
+                default:
+                    recognitionError(offset, startIndex, startLine, startColumn);
+            }
+        }
+        return factory.create(source, Token.EOF, null, Token.DEFAULT_CHANNEL, index, index - 1, line, column);
+    }
+
+    private void skipWhitespace() {
+        // Whitespace is ASCII, so its bytes are its code points and columns
+        int position = offset;
+        int lineStart = offset - column;
+        boolean more = true;
+        while (more && position < limit) {
+            ensureWindow(position, 1);
+            byte[] bytesInWindow = window;
+            int base = windowStart;
+            int windowEnd = base + windowLength;
+            int b;
+            while (position < windowEnd && (b = bytesInWindow[position - base]) >= 0 && CLASSES[b] == WHITESPACE) {
+                position++;
+                if (b == '\n') {
+                    line++;
+                    lineStart = position;
+                }
+            }
+            more = position == windowEnd;
+        }
+        index += position - offset;
+        column = position - lineStart;
+        offset = position;
+    }
+
+    private Token identifier(int startIndex, int startLine, int startColumn) {
+        int start = offset;
+        int end = offset + 1;
+        boolean more = true;
+        while (more && end < limit) {
+            ensureWindow(end, 1);
+            byte[] bytesInWindow = window;
+            int base = windowStart;
+            int windowEnd = base + windowLength;
+            int b;
+            while (end < windowEnd && (b = bytesInWindow[end - base]) >= 0 && IDENTIFIER_PART[b]) {
+                end++;
+            }
+            more = end == windowEnd;
+        }
+        int length = end - start;
+        int type = MiniSoftLexer.ID;
+        if (length >= 2 && length <= MAX_KEYWORD_LENGTH) {
+            int slot = keywordHash(at(start), at(end - 1), length);
+            byte[] keyword = KEYWORDS[slot];
+            if (keyword != null && keyword.length == length && startsWith(start, keyword)) {
+                type = KEYWORD_TYPES[slot];
+            }
+        }
+        String text = type == MiniSoftLexer.ID ? spelling(start, end) : null;
+        advance(length);
+        return token(type, text, startIndex, startLine, startColumn);
+    }
+
+    private Token number(int startIndex, int startLine, int startColumn) {
+        int end = digitsEnd(offset);
+        int type = MiniSoftLexer.INT;
+        if (end + 1 < limit && at(end) == '.' && isDigit(at(end + 1))) {
+            end = digitsEnd(end + 1);
+            type = MiniSoftLexer.FLOAT;
+        }
+        String text = spelling(offset, end);
+        advance(end - offset);
+        return token(type, text, startIndex, startLine, startColumn);
+    }
+
+    private int digitsEnd(int from) {
+        while (from < limit && isDigit(at(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    private static boolean isDigit(int b) {
+        return b >= '0' && b <= '9';
+    }
+
+    /**
+     * Reads a string literal: a quote, then any characters but quotes and line breaks, where a quote preceded by
+     * a backslash does not end the literal but may, and a closing quote. Returns null, after reporting an error,
+     * when no closing quote comes before the end of the line.
+     */
+    private Token string(int startIndex, int startLine, int startColumn) {
+        int position = offset + 1;
+        int accepted = -1;
+        while (position < limit) {
+            int b = at(position);
+            if (b == '\n' || b == '\r') {
+                break;
+            }
+            if (b == '"') {
+                accepted = position + 1;
+                if (at(position - 1) != '\\') {
+                    break;
+                }
+            }
+            position += b >= 0 ? 1 : MappedCharStream.sequenceLength(bytes, position);
+        }
+        if (accepted < 0) {
+            recognitionError(position, startIndex, startLine, startColumn);
+            return null;
+        }
+        consumeTo(accepted);
+        return token(MiniSoftLexer.STRING, startIndex, startLine, startColumn);
+    }
+
+    /**
+     * Skips a comment whose opening sequence has the given length, if the closing sequence follows it. The code
+     * points and lines of the comment are counted while searching for its end, so that it is read only once.
+     *
+     * @param multiLine Whether the comment is a multi-line one, which selects the failed search to remember
+     * @return Whether the comment was skipped; if not, the opening sequence is read as tokens instead
+     */
+    private boolean skipComment(int openingLength, byte[] closing, boolean multiLine) {
+        int from = offset + openingLength;
+        if (from >= (multiLine ? multiLineCommentMissingFrom : singleLineCommentMissingFrom)) {
+            return false;
+        }
+        int last = limit - closing.length;
+        byte first = closing[0];
+        int codePoints = openingLength;
+        int newlines = 0;
+        // Code points up to the start of the last line of the comment
+        int lastLineStart = 0;
+        int position = from;
+        while (position <= last) {
+            // Search the window directly, up to the last offset where the whole closing sequence is in it
+            ensureWindow(position, closing.length);
+            byte[] bytesInWindow = window;
+            int base = windowStart;
+            int chunkLast = Math.min(last, base + windowLength - closing.length);
+            while (position <= chunkLast) {
+                int b = bytesInWindow[position - base];
+                if (b == first && matches(bytesInWindow, position - base, closing)) {
+                    codePoints += closing.length;
+                    offset = position + closing.length;
+                    index += codePoints;
+                    if (newlines > 0) {
+                        line += newlines;
+                        column = codePoints - lastLineStart;
+                    } else {
+                        column += codePoints;
+                    }
+                    return true;
+                }
+                codePoints++;
+                if (b == '\n') {
+                    newlines++;
+                    lastLineStart = codePoints;
+                }
+                position += b >= 0 ? 1 : MappedCharStream.sequenceLength(bytes, position);
+            }
+        }
+        if (multiLine) {
+            multiLineCommentMissingFrom = from;
+        } else {
+            singleLineCommentMissingFrom = from;
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether the bytes at a byte offset are an expected sequence
+     */
+    private boolean startsWith(int position, byte[] expected) {
+        if (position + expected.length > limit) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (at(position + i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reports the characters from the start of a token to the one at a byte offset, which starts no token or
+     * continues none, and skips them; at the end of the file, the characters up to it are reported
+     */
+    private void recognitionError(int failedAt, int startIndex, int startLine, int startColumn) {
+        consumeTo(failedAt);
+        if (offset < limit) {
+            consumeTo(offset + (at(offset) >= 0 ? 1 : MappedCharStream.sequenceLength(bytes, offset)));
+        }
+        String text = input.getText(Interval.of(startIndex, index - 1));
+        errorListener.syntaxError(null, null, startLine, startColumn,
+                                  "token recognition error at: '" + errorDisplay(text) + "'", null);
+    }
+
+    /**
+     * Shows line breaks and tabs escaped, as the generated lexer does
+     */
+    private static String errorDisplay(String text) {
+        StringBuilder display = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n') {
+                display.append("\\n");
+            } else if (c == '\t') {
+                display.append("\\t");
+            } else if (c == '\r') {
+                display.append("\\r");
+            } else {
+                display.append(c);
+            }
+        }
+        return display.toString();
+    }
+
+    /**
+     * Returns the text of the ASCII bytes between two offsets, the same string for every occurrence of the same
+     * bytes, or null for a token too long to fit in the window, whose text is then decoded when asked for
+     */
+    private String spelling(int start, int end) {
+        int length = end - start;
+        ensureWindow(start, length);
+        int from = start - windowStart;
+        if (from + length > windowLength) {
+            return null;
+        }
+        byte[] bytesInWindow = window;
+        int hash = 0;
+        for (int i = from; i < from + length; i++) {
+            hash = 31 * hash + bytesInWindow[i];
+        }
+        int mask = spellings.length - 1;
+        int slot = (hash ^ hash >>> 16) & mask;
+        for (String text = spellings[slot]; text != null; text = spellings[slot]) {
+            if (spellingHashes[slot] == hash && spellingBytes[slot].length == length
+                    && Arrays.equals(spellingBytes[slot], 0, length, bytesInWindow, from, from + length)) {
+                return text;
+            }
+            slot = (slot + 1) & mask;
+        }
+        String text = new String(bytesInWindow, from, length, StandardCharsets.ISO_8859_1);
+        spellingHashes[slot] = hash;
+        spellingBytes[slot] = Arrays.copyOfRange(bytesInWindow, from, from + length);
+        spellings[slot] = text;
+        if (++spellingCount * 2 > spellings.length) {
+            growSpellings();
+        }
+        return text;
+    }
+
+    private void growSpellings() {
+        int[] oldHashes = spellingHashes;
+        byte[][] oldBytes = spellingBytes;
+        String[] oldSpellings = spellings;
+        spellingHashes = new int[oldSpellings.length * 2];
+        spellingBytes = new byte[oldSpellings.length * 2][];
+        spellings = new String[oldSpellings.length * 2];
+        int mask = spellings.length - 1;
+        for (int i = 0; i < oldSpellings.length; i++) {
+            if (oldSpellings[i] != null) {
+                int hash = oldHashes[i];
+                int slot = (hash ^ hash >>> 16) & mask;
+                while (spellings[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                spellingHashes[slot] = hash;
+                spellingBytes[slot] = oldBytes[i];
+                spellings[slot] = oldSpellings[i];
+            }
+        }
+    }
+
+    /**
+     * Returns the byte at an offset below the limit
+     */
+    private int at(int position) {
+        int i = position - windowStart;
+        if (i >= 0 && i < windowLength) {
+            return window[i];
+        }
+        return refill(position);
+    }
+
+    /**
+     * Makes the window hold the given number of bytes from an offset, which must not go beyond the limit
+     */
+    private void ensureWindow(int position, int length) {
+        if (position < windowStart || position + length > windowStart + windowLength) {
+            refill(position);
+        }
+    }
+
+    /**
+     * Returns whether the bytes of an array at an index, whose first one is known to match, are an expected sequence
+     */
+    private static boolean matches(byte[] bytes, int position, byte[] expected) {
+        for (int i = 1; i < expected.length; i++) {
+            if (bytes[position + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Copies the bytes around an offset into the window and returns the one at the offset
+     */
+    private int refill(int position) {
+        windowStart = Math.max(0, Math.min(position - WINDOW_LOOKBEHIND, limit - window.length));
+        windowLength = window.length;
+        ByteBuffer source = bytes.duplicate();
+        source.position(windowStart);
+        source.get(window, 0, windowLength);
+        return window[position - windowStart];
+    }
+
+    /**
+     * Moves over ASCII characters other than line breaks
+     */
+    private void advance(int length) {
+        offset += length;
+        index += length;
+        column += length;
+    }
+
+    /**
+     * Moves to a byte offset, counting the code points and lines on the way
+     */
+    private void consumeTo(int target) {
+        while (offset < target) {
+            int b = at(offset);
+            if (b == '\n') {
+                line++;
+                column = 0;
+            } else {
+                column++;
+            }
+            offset += b >= 0 ? 1 : MappedCharStream.sequenceLength(bytes, offset);
+            index++;
+        }
+    }
+
+    private Token token(int type, int startIndex, int startLine, int startColumn) {
+        return token(type, null, startIndex, startLine, startColumn);
+    }
+
+    private Token token(int type, String text, int startIndex, int startLine, int startColumn) {
+        return factory.create(source, type, text, Token.DEFAULT_CHANNEL, startIndex, index - 1, startLine, startColumn);
+    }
+
+    @Override
+    public int getLine() {
+        return line;
+    }
+
+    @Override
+    public int getCharPositionInLine() {
+        return column;
+    }
+
+    @Override
+    public CharStream getInputStream() {
+        return input;
+    }
+
+    @Override
+    public String getSourceName() {
+        return input.getSourceName();
+    }
+
+    @Override
+    public void setTokenFactory(TokenFactory<?> factory) {
+        this.factory = factory;
+    }
+
+    @Override
+    public TokenFactory<?> getTokenFactory() {
+        return factory;
+    }
+}
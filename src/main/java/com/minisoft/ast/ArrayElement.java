@@ -0,0 +1,28 @@
+package com.minisoft.ast;
+
+/**
+ * An array access {@code name[index]}
+ */
+public final class ArrayElement extends Expression {
+    private final String name;
+    private final Expression index;
+
+    ArrayElement(int id, int line, int column, String name, Expression index) {
+        super(id, line, column);
+        this.name = name;
+        this.index = index;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Expression getIndex() {
+        return index;
+    }
+
+    @Override
+    public <R> R accept(ExpressionVisitor<R> visitor) {
+        return visitor.visitArrayElement(this);
+    }
+}
@@ -0,0 +1,37 @@
+package com.minisoft.ast;
+
+/**
+ * An assignment to a variable, {@code name := value;}, or to an array element, {@code name[index] := value;}
+ */
+public final class Assignment extends Statement {
+    private final String name;
+    private final Expression index;
+    private final Expression value;
+
+    Assignment(int line, int column, int tokenCount, String name, Expression index, Expression value) {
+        super(line, column, tokenCount);
+        this.name = name;
+        this.index = index;
+        this.value = value;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the index of the assigned array element, or null for an assignment to a variable
+     */
+    public Expression getIndex() {
+        return index;
+    }
+
+    public Expression getValue() {
+        return value;
+    }
+
+    @Override
+    public <R> R accept(StatementVisitor<R> visitor) {
+        return visitor.visitAssignment(this);
+    }
+}
@@ -0,0 +1,150 @@
+package com.minisoft.ast;
+
+/**
+ * An {@link AstListener} that ignores every event, to be extended by listeners interested in a few of them
+ */
+public class AstBaseListener implements AstListener {
+    @Override
+    public void enterProgram(Program program) {
+    }
+
+    @Override
+    public void exitProgram(Program program) {
+    }
+
+    @Override
+    public void enterVariableDeclaration(VariableDeclaration declaration) {
+    }
+
+    @Override
+    public void exitVariableDeclaration(VariableDeclaration declaration) {
+    }
+
+    @Override
+    public void enterConstantDeclaration(ConstantDeclaration declaration) {
+    }
+
+    @Override
+    public void exitConstantDeclaration(ConstantDeclaration declaration) {
+    }
+
+    @Override
+    public void enterAssignment(Assignment assignment) {
+    }
+
+    @Override
+    public void exitAssignment(Assignment assignment) {
+    }
+
+    @Override
+    public void enterIfStatement(IfStatement statement) {
+    }
+
+    @Override
+    public void exitIfStatement(IfStatement statement) {
+    }
+
+    @Override
+    public void enterDoWhileLoop(DoWhileLoop loop) {
+    }
+
+    @Override
+    public void exitDoWhileLoop(DoWhileLoop loop) {
+    }
+
+    @Override
+    public void enterForLoop(ForLoop loop) {
+    }
+
+    @Override
+    public void exitForLoop(ForLoop loop) {
+    }
+
+    @Override
+    public void enterInputStatement(InputStatement statement) {
+    }
+
+    @Override
+    public void exitInputStatement(InputStatement statement) {
+    }
+
+    @Override
+    public void enterOutputStatement(OutputStatement statement) {
+    }
+
+    @Override
+    public void exitOutputStatement(OutputStatement statement) {
+    }
+
+    @Override
+    public void enterCondition(Expression condition) {
+    }
+
+    @Override
+    public void exitCondition(Expression condition) {
+    }
+
+    @Override
+    public void enterLiteral(Literal literal) {
+    }
+
+    @Override
+    public void exitLiteral(Literal literal) {
+    }
+
+    @Override
+    public void enterIdentifier(Identifier identifier) {
+    }
+
+    @Override
+    public void exitIdentifier(Identifier identifier) {
+    }
+
+    @Override
+    public void enterArrayElement(ArrayElement element) {
+    }
+
+    @Override
+    public void exitArrayElement(ArrayElement element) {
+    }
+
+    @Override
+    public void enterGroup(Group group) {
+    }
+
+    @Override
+    public void exitGroup(Group group) {
+    }
+
+    @Override
+    public void enterNot(Not not) {
+    }
+
+    @Override
+    public void exitNot(Not not) {
+    }
+
+    @Override
+    public void enterLogical(Logical logical) {
+    }
+
+    @Override
+    public void exitLogical(Logical logical) {
+    }
+
+    @Override
+    public void enterBinary(Binary binary) {
+    }
+
+    @Override
+    public void exitBinary(Binary binary) {
+    }
+
+    @Override
+    public void enterEveryNode(Node node) {
+    }
+
+    @Override
+    public void exitEveryNode(Node node) {
+    }
+}
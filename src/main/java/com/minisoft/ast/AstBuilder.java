@@ -0,0 +1,349 @@
+package com.minisoft.ast;
+
+import com.minisoft.MiniSoftBaseVisitor;
+import com.minisoft.MiniSoftParser;
+import com.minisoft.symbol.DataType;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lowers a syntactically valid parse tree into an abstract syntax tree.
+ * The parse tree has one context per precedence level, so that a bare {@code x} is nested eight contexts deep
+ * and every context holds its tokens; the syntax tree keeps one node per operation with the position of its first
+ * token, numbers its expressions densely, and shares one string per identifier name. Nothing in it refers back
+ * to the parse tree, so the parse tree and its tokens can be discarded as soon as the program has been built.
+ * Lists of children are read by index rather than through the generated accessors, which copy them into a new
+ * list on every call, and each distinct Float literal is parsed once.
+ * An instance builds one program, or the declarations and statements of one program read statement by statement.
+ */
+public class AstBuilder extends MiniSoftBaseVisitor<Node> {
+    private final Map<String, String> names = new HashMap<>();
+    private final Map<String, Double> floatValues = new HashMap<>();
+    private int expressionCount;
+
+    /**
+     * Builds the syntax tree of a program
+     *
+     * @param tree The parse tree of a program without syntax errors
+     */
+    public Program build(MiniSoftParser.ProgramContext tree) {
+        return visitProgram(tree);
+    }
+
+    /**
+     * Builds the syntax trees of the declarations of a program, for analyses reading it one statement at a time
+     */
+    public List<Declaration> buildDeclarations(MiniSoftParser.DeclarationsContext tree) {
+        List<ParseTree> children = tree.children;
+        List<Declaration> declarations = new ArrayList<>(children == null ? 0 : children.size());
+        if (children != null) {
+            for (ParseTree child : children) {
+                declarations.add((Declaration) visit(child));
+            }
+        }
+        return declarations;
+    }
+
+    /**
+     * Builds the syntax tree of one top-level instruction, for analyses reading a program one statement at a
+     * time. The expressions of every such statement are numbered from 0, so {@link #getExpressionCount()}
+     * afterwards only counts the expressions of this statement.
+     */
+    public Statement buildStatement(MiniSoftParser.InstructionContext tree) {
+        expressionCount = 0;
+        return (Statement) visit(tree.getChild(0));
+    }
+
+    /**
+     * Returns the number of expressions built so far; every expression id is smaller
+     */
+    public int getExpressionCount() {
+        return expressionCount;
+    }
+
+    @Override
+    public Program visitProgram(MiniSoftParser.ProgramContext ctx) {
+        List<Declaration> declarations = buildDeclarations(ctx.declarations());
+        List<Statement> instructions = statements(ctx.instructions());
+        return new Program(ctx.start.getLine(), ctx.start.getCharPositionInLine(), name(ctx.ID()),
+                           declarations, instructions, expressionCount);
+    }
+
+    // Declarations
+
+    @Override
+    public Node visitVariableDeclaration(MiniSoftParser.VariableDeclarationContext ctx) {
+        // IDs separated by commas
+        MiniSoftParser.IdListContext ids = ctx.idList();
+        List<String> declared = new ArrayList<>((ids.getChildCount() + 1) / 2);
+        for (int i = 0; i < ids.getChildCount(); i += 2) {
+            declared.add(name((TerminalNode) ids.getChild(i)));
+        }
+        String arraySize = ctx.LBRACK() != null ? ctx.INT().getText() : null;
+        return new VariableDeclaration(ctx.start.getLine(), ctx.start.getCharPositionInLine(), dataTypeOf(ctx.type()),
+                                       declared, arraySize);
+    }
+
+    @Override
+    public Node visitConstantDeclaration(MiniSoftParser.ConstantDeclarationContext ctx) {
+        MiniSoftParser.ConstValueContext value = ctx.constValue();
+        // Signed values are written (+v) or (-v)
+        boolean negative = value.sign() != null && value.sign().MINUS() != null;
+        TerminalNode digits = value.INT() != null ? value.INT() : value.FLOAT();
+        return new ConstantDeclaration(ctx.start.getLine(), ctx.start.getCharPositionInLine(), dataTypeOf(ctx.type()),
+                                       name(ctx.ID()), negative, value.FLOAT() != null, digits.getText());
+    }
+
+    private static DataType dataTypeOf(MiniSoftParser.TypeContext ctx) {
+        return ctx.INT_TYPE() != null ? DataType.INT : DataType.FLOAT;
+    }
+
+    // Statements
+
+    private List<Statement> statements(MiniSoftParser.InstructionsContext ctx) {
+        int count = ctx.getChildCount();
+        if (count == 0) {
+            return Collections.emptyList();
+        }
+        List<Statement> statements = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            statements.add((Statement) visit(ctx.getChild(i).getChild(0)));
+        }
+        return statements;
+    }
+
+    @Override
+    public Node visitAssignment(MiniSoftParser.AssignmentContext ctx) {
+        Expression index = ctx.LBRACK() != null ? expression(ctx.expression(0)) : null;
+        Expression value = expression(ctx.expression(index != null ? 1 : 0));
+        return new Assignment(ctx.start.getLine(), ctx.start.getCharPositionInLine(), tokenCount(ctx),
+                              name(ctx.ID()), index, value);
+    }
+
+    @Override
+    public Node visitIfStatement(MiniSoftParser.IfStatementContext ctx) {
+        Expression condition = expression(ctx.condition());
+        List<Statement> thenBranch = statements(ctx.instructions(0));
+        List<Statement> elseBranch = ctx.ELSE() != null ? statements(ctx.instructions(1)) : null;
+        int elseLine = ctx.ELSE() != null ? ctx.ELSE().getSymbol().getLine() : 0;
+        return new IfStatement(ctx.start.getLine(), ctx.start.getCharPositionInLine(), tokenCount(ctx),
+                               condition, thenBranch, elseBranch, elseLine);
+    }
+
+    @Override
+    public Node visitDoWhileLoop(MiniSoftParser.DoWhileLoopContext ctx) {
+        List<Statement> body = statements(ctx.instructions());
+        return new DoWhileLoop(ctx.start.getLine(), ctx.start.getCharPositionInLine(), tokenCount(ctx),
+                               body, expression(ctx.condition()));
+    }
+
+    @Override
+    public Node visitForLoop(MiniSoftParser.ForLoopContext ctx) {
+        Expression from = expression(ctx.expression(0));
+        Expression to = expression(ctx.expression(1));
+        Expression step = expression(ctx.expression(2));
+        return new ForLoop(ctx.start.getLine(), ctx.start.getCharPositionInLine(), tokenCount(ctx),
+                           name(ctx.ID()), from, to, step, statements(ctx.instructions()));
+    }
+
+    @Override
+    public Node visitInputStatement(MiniSoftParser.InputStatementContext ctx) {
+        return new InputStatement(ctx.start.getLine(), ctx.start.getCharPositionInLine(), tokenCount(ctx),
+                                  name(ctx.ID()));
+    }
+
+    @Override
+    public Node visitOutputStatement(MiniSoftParser.OutputStatementContext ctx) {
+        // Arguments separated by commas
+        MiniSoftParser.OutputArgListContext args = ctx.outputArgList();
+        List<Node> arguments = new ArrayList<>((args.getChildCount() + 1) / 2);
+        for (int i = 0; i < args.getChildCount(); i += 2) {
+            MiniSoftParser.OutputArgContext arg = (MiniSoftParser.OutputArgContext) args.getChild(i);
+            if (arg.STRING() != null) {
+                Token string = arg.STRING().getSymbol();
+                arguments.add(new Text(string.getLine(), string.getCharPositionInLine(), unquote(string.getText())));
+            } else {
+                arguments.add(expression(arg.expression()));
+            }
+        }
+        return new OutputStatement(ctx.start.getLine(), ctx.start.getCharPositionInLine(), tokenCount(ctx), arguments);
+    }
+
+    private static int tokenCount(ParserRuleContext ctx) {
+        return ctx.stop.getTokenIndex() - ctx.start.getTokenIndex() + 1;
+    }
+
+    // Expressions
+
+    private Expression expression(ParseTree ctx) {
+        // A precedence level with a single operand only passes it on, so there are eight of them around every
+        // parenthesized expression; go down through them without recursing
+        while (ctx.getChildCount() == 1 && ctx.getChild(0) instanceof ParserRuleContext
+               && !(ctx instanceof MiniSoftParser.PrimaryExpressionContext)) {
+            ctx = ctx.getChild(0);
+        }
+        return (Expression) visit(ctx);
+    }
+
+    @Override
+    public Node visitCondition(MiniSoftParser.ConditionContext ctx) {
+        return visit(ctx.logicalOrExpression());
+    }
+
+    @Override
+    public Node visitExpression(MiniSoftParser.ExpressionContext ctx) {
+        return visit(ctx.logicalOrExpression());
+    }
+
+    @Override
+    public Node visitLogicalOrExpression(MiniSoftParser.LogicalOrExpressionContext ctx) {
+        return logical(ctx, Operator.OR);
+    }
+
+    @Override
+    public Node visitLogicalAndExpression(MiniSoftParser.LogicalAndExpressionContext ctx) {
+        return logical(ctx, Operator.AND);
+    }
+
+    /**
+     * Returns the single operand of a logical level, or one node for the whole chain of operands, whose children
+     * alternate between operands and operator tokens
+     */
+    private Expression logical(ParserRuleContext ctx, Operator operator) {
+        int count = ctx.getChildCount();
+        if (count == 1) {
+            return expression(ctx.getChild(0));
+        }
+        List<Expression> lowered = new ArrayList<>((count + 1) / 2);
+        for (int i = 0; i < count; i += 2) {
+            lowered.add(expression(ctx.getChild(i)));
+        }
+        return new Logical(expressionCount++, ctx.start.getLine(), ctx.start.getCharPositionInLine(), operator, lowered);
+    }
+
+    @Override
+    public Node visitNegationExpression(MiniSoftParser.NegationExpressionContext ctx) {
+        if (ctx.NOT() == null) {
+            return visit(ctx.comparisonExpression());
+        }
+        Expression operand = expression(ctx.negationExpression());
+        return new Not(expressionCount++, ctx.start.getLine(), ctx.start.getCharPositionInLine(), operand);
+    }
+
+    @Override
+    public Node visitComparisonExpression(MiniSoftParser.ComparisonExpressionContext ctx) {
+        Expression left = expression(ctx.additiveExpression(0));
+        if (ctx.comparisonOperator() == null) {
+            return left;
+        }
+        Expression right = expression(ctx.additiveExpression(1));
+        return new Binary(expressionCount++, ctx.start.getLine(), ctx.start.getCharPositionInLine(),
+                          operatorOf(ctx.comparisonOperator().getStart()), left, right);
+    }
+
+    @Override
+    public Node visitAdditiveExpression(MiniSoftParser.AdditiveExpressionContext ctx) {
+        return chain(ctx);
+    }
+
+    @Override
+    public Node visitMultiplicativeExpression(MiniSoftParser.MultiplicativeExpressionContext ctx) {
+        return chain(ctx);
+    }
+
+    /**
+     * Lowers an operator chain, whose children alternate between operands and operator tokens, nesting it to the left
+     */
+    private Expression chain(ParserRuleContext ctx) {
+        Expression result = expression(ctx.getChild(0));
+        for (int i = 1; i < ctx.getChildCount(); i += 2) {
+            Operator operator = operatorOf(((TerminalNode) ctx.getChild(i)).getSymbol());
+            Expression right = expression(ctx.getChild(i + 1));
+            result = new Binary(expressionCount++, ctx.start.getLine(), ctx.start.getCharPositionInLine(),
+                                operator, result, right);
+        }
+        return result;
+    }
+
+    @Override
+    public Node visitPrimaryExpression(MiniSoftParser.PrimaryExpressionContext ctx) {
+        if (ctx.constValue() != null) {
+            return literal(ctx.constValue());
+        }
+        if (ctx.ID() == null) {
+            return group(ctx, ctx.expression());
+        }
+        if (ctx.LBRACK() == null) {
+            return new Identifier(expressionCount++, ctx.start.getLine(), ctx.start.getCharPositionInLine(),
+                                  name(ctx.ID()));
+        }
+        Expression index = expression(ctx.expression());
+        return new ArrayElement(expressionCount++, ctx.start.getLine(), ctx.start.getCharPositionInLine(),
+                                name(ctx.ID()), index);
+    }
+
+    private Expression group(ParserRuleContext ctx, ParserRuleContext inner) {
+        Expression expression = expression(inner);
+        return new Group(expressionCount++, ctx.start.getLine(), ctx.start.getCharPositionInLine(), expression);
+    }
+
+    /**
+     * Decodes a literal, applying its sign. An Int literal out of range is kept as an invalid literal for
+     * semantic analysis to report.
+     */
+    private Literal literal(MiniSoftParser.ConstValueContext ctx) {
+        boolean negative = ctx.sign() != null && ctx.sign().MINUS() != null;
+        int line = ctx.start.getLine();
+        int column = ctx.start.getCharPositionInLine();
+        if (ctx.FLOAT() != null) {
+            double value = floatValues.computeIfAbsent(ctx.FLOAT().getText(), Double::valueOf);
+            return new Literal(expressionCount++, line, column, true, true, 0, negative ? -value : value);
+        }
+        try {
+            int value = Integer.parseInt(ctx.INT().getText());
+            return new Literal(expressionCount++, line, column, false, true, negative ? -value : value, 0.0);
+        } catch (NumberFormatException e) {
+            return new Literal(expressionCount++, line, column, false, false, 0, 0.0);
+        }
+    }
+
+    private static Operator operatorOf(Token token) {
+        switch (token.getType()) {
+            case MiniSoftParser.GT: return Operator.GT;
+            case MiniSoftParser.LT: return Operator.LT;
+            case MiniSoftParser.GE: return Operator.GE;
+            case MiniSoftParser.LE: return Operator.LE;
+            case MiniSoftParser.EQ: return Operator.EQ;
+            case MiniSoftParser.NE: return Operator.NE;
+            case MiniSoftParser.PLUS: return Operator.PLUS;
+            case MiniSoftParser.MINUS: return Operator.MINUS;
+            case MiniSoftParser.MUL: return Operator.MUL;
+            case MiniSoftParser.DIV: return Operator.DIV;
+            default: throw new IllegalArgumentException("Not an operator: " + token.getText());
+        }
+    }
+
+    // Names
+
+    /**
+     * Returns the text of an identifier, shared by all its occurrences
+     */
+    private String name(TerminalNode id) {
+        return names.computeIfAbsent(id.getText(), name -> name);
+    }
+
+    /**
+     * Strips the quotes of a string literal and resolves escaped quotes
+     */
+    private static String unquote(String literal) {
+        return literal.substring(1, literal.length() - 1).replace("\\\"", "\"");
+    }
+}
@@ -0,0 +1,86 @@
+package com.minisoft.ast;
+
+/**
+ * Listener for the nodes of an abstract syntax tree, called by {@link AstWalker} on entering and leaving
+ * every node in source order. The condition of an if statement or do-while loop is entered and left as a
+ * condition around the events of the expression itself.
+ */
+public interface AstListener {
+    /**
+     * Called before the specific enter method of every node
+     */
+    void enterEveryNode(Node node);
+
+    /**
+     * Called after the specific exit method of every node
+     */
+    void exitEveryNode(Node node);
+
+    void enterProgram(Program program);
+
+    void exitProgram(Program program);
+
+    void enterVariableDeclaration(VariableDeclaration declaration);
+
+    void exitVariableDeclaration(VariableDeclaration declaration);
+
+    void enterConstantDeclaration(ConstantDeclaration declaration);
+
+    void exitConstantDeclaration(ConstantDeclaration declaration);
+
+    void enterAssignment(Assignment assignment);
+
+    void exitAssignment(Assignment assignment);
+
+    void enterIfStatement(IfStatement statement);
+
+    void exitIfStatement(IfStatement statement);
+
+    void enterDoWhileLoop(DoWhileLoop loop);
+
+    void exitDoWhileLoop(DoWhileLoop loop);
+
+    void enterForLoop(ForLoop loop);
+
+    void exitForLoop(ForLoop loop);
+
+    void enterInputStatement(InputStatement statement);
+
+    void exitInputStatement(InputStatement statement);
+
+    void enterOutputStatement(OutputStatement statement);
+
+    void exitOutputStatement(OutputStatement statement);
+
+    void enterCondition(Expression condition);
+
+    void exitCondition(Expression condition);
+
+    void enterLiteral(Literal literal);
+
+    void exitLiteral(Literal literal);
+
+    void enterIdentifier(Identifier identifier);
+
+    void exitIdentifier(Identifier identifier);
+
+    void enterArrayElement(ArrayElement element);
+
+    void exitArrayElement(ArrayElement element);
+
+    void enterGroup(Group group);
+
+    void exitGroup(Group group);
+
+    void enterNot(Not not);
+
+    void exitNot(Not not);
+
+    void enterLogical(Logical logical);
+
+    void exitLogical(Logical logical);
+
+    void enterBinary(Binary binary);
+
+    void exitBinary(Binary binary);
+}
@@ -0,0 +1,387 @@
+package com.minisoft.ast;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Walks an abstract syntax tree depth-first, calling a listener on entering and leaving every node.
+ * Children are visited in source order: the index of an assignment before its value, the body of a do-while
+ * loop before its condition, and the start, bound and step of a for loop before its body.
+ * <p>
+ * The walk does not recurse: the nodes still to enter and leave are kept on an explicit stack, which grows with
+ * the depth of the tree on the heap, so that a walk never overflows the thread stack however deeply blocks and
+ * expressions are nested. A walker holds no state and can be shared by threads.
+ */
+public class AstWalker {
+    public static final AstWalker DEFAULT = new AstWalker();
+
+    /**
+     * Walks a whole program
+     */
+    public void walk(AstListener listener, Program program) {
+        listener.enterEveryNode(program);
+        listener.enterProgram(program);
+        Walk walk = new Walk(listener);
+        walk.push(Walk.LIST, program.getInstructions());
+        walk.push(Walk.LIST, program.getDeclarations());
+        walk.run();
+        listener.exitProgram(program);
+        listener.exitEveryNode(program);
+    }
+
+    /**
+     * Walks one declaration
+     */
+    public void walk(AstListener listener, Declaration declaration) {
+        new Walk(listener).enter(declaration);
+    }
+
+    /**
+     * Walks one statement and the statements and expressions nested in it
+     */
+    public void walk(AstListener listener, Statement statement) {
+        Walk walk = new Walk(listener);
+        walk.enter(statement);
+        walk.run();
+    }
+
+    /**
+     * One walk: entering a node calls the listener and pushes what remains to do for it, in reverse order, so that
+     * its children are walked before it is left
+     */
+    private static final class Walk implements StatementVisitor<Void>, ExpressionVisitor<Void> {
+        // What an entry of the stack stands for
+        static final byte NODE = 0;
+        static final byte LIST = 1;
+        static final byte CONDITION = 2;
+        static final byte EXIT = 3;
+        static final byte EXIT_CONDITION = 4;
+
+        private static final int INITIAL_CAPACITY = 16;
+
+        private final AstListener listener;
+        private final Exit exit;
+        private byte[] kinds = new byte[INITIAL_CAPACITY];
+        private Object[] items = new Object[INITIAL_CAPACITY];
+        // For a list, the index of the next node to enter
+        private int[] next = new int[INITIAL_CAPACITY];
+        private int size;
+
+        Walk(AstListener listener) {
+            this.listener = listener;
+            this.exit = new Exit(listener);
+        }
+
+        void push(byte kind, Object item) {
+            if (size == kinds.length) {
+                kinds = Arrays.copyOf(kinds, size * 2);
+                items = Arrays.copyOf(items, size * 2);
+                next = Arrays.copyOf(next, size * 2);
+            }
+            kinds[size] = kind;
+            items[size] = item;
+            next[size] = 0;
+            size++;
+        }
+
+        /**
+         * Takes entries off the stack until it is empty
+         */
+        void run() {
+            while (size > 0) {
+                int top = size - 1;
+                Object item = items[top];
+                switch (kinds[top]) {
+                    case LIST:
+                        List<?> list = (List<?>) item;
+                        int index = next[top];
+                        if (index == list.size()) {
+                            size--;
+                        } else {
+                            next[top] = index + 1;
+                            enter((Node) list.get(index));
+                        }
+                        break;
+                    case NODE:
+                        size--;
+                        enter((Node) item);
+                        break;
+                    case CONDITION:
+                        size--;
+                        listener.enterCondition((Expression) item);
+                        push(EXIT_CONDITION, item);
+                        ((Expression) item).accept(this);
+                        break;
+                    case EXIT:
+                        size--;
+                        if (item instanceof Expression) {
+                            ((Expression) item).accept(exit);
+                        } else {
+                            ((Statement) item).accept(exit);
+                        }
+                        break;
+                    default:
+                        size--;
+                        listener.exitCondition((Expression) item);
+                }
+            }
+        }
+
+        void enter(Node node) {
+            if (node instanceof Expression) {
+                ((Expression) node).accept(this);
+            } else if (node instanceof Statement) {
+                ((Statement) node).accept(this);
+            } else if (node instanceof Declaration) {
+                listener.enterEveryNode(node);
+                if (node instanceof VariableDeclaration) {
+                    listener.enterVariableDeclaration((VariableDeclaration) node);
+                    listener.exitVariableDeclaration((VariableDeclaration) node);
+                } else {
+                    listener.enterConstantDeclaration((ConstantDeclaration) node);
+                    listener.exitConstantDeclaration((ConstantDeclaration) node);
+                }
+                listener.exitEveryNode(node);
+            } else {
+                // The text of an output statement, which has no callbacks of its own
+                listener.enterEveryNode(node);
+                listener.exitEveryNode(node);
+            }
+        }
+
+        // Statements
+
+        @Override
+        public Void visitAssignment(Assignment assignment) {
+            listener.enterEveryNode(assignment);
+            listener.enterAssignment(assignment);
+            push(EXIT, assignment);
+            push(NODE, assignment.getValue());
+            if (assignment.getIndex() != null) {
+                push(NODE, assignment.getIndex());
+            }
+            return null;
+        }
+
+        @Override
+        public Void visitIf(IfStatement statement) {
+            listener.enterEveryNode(statement);
+            listener.enterIfStatement(statement);
+            push(EXIT, statement);
+            if (statement.getElseBranch() != null) {
+                push(LIST, statement.getElseBranch());
+            }
+            push(LIST, statement.getThenBranch());
+            push(CONDITION, statement.getCondition());
+            return null;
+        }
+
+        @Override
+        public Void visitDoWhile(DoWhileLoop loop) {
+            listener.enterEveryNode(loop);
+            listener.enterDoWhileLoop(loop);
+            push(EXIT, loop);
+            push(CONDITION, loop.getCondition());
+            push(LIST, loop.getBody());
+            return null;
+        }
+
+        @Override
+        public Void visitFor(ForLoop loop) {
+            listener.enterEveryNode(loop);
+            listener.enterForLoop(loop);
+            push(EXIT, loop);
+            push(LIST, loop.getBody());
+            push(NODE, loop.getStep());
+            push(NODE, loop.getTo());
+            push(NODE, loop.getFrom());
+            return null;
+        }
+
+        @Override
+        public Void visitInput(InputStatement statement) {
+            listener.enterEveryNode(statement);
+            listener.enterInputStatement(statement);
+            listener.exitInputStatement(statement);
+            listener.exitEveryNode(statement);
+            return null;
+        }
+
+        @Override
+        public Void visitOutput(OutputStatement statement) {
+            listener.enterEveryNode(statement);
+            listener.enterOutputStatement(statement);
+            push(EXIT, statement);
+            push(LIST, statement.getArguments());
+            return null;
+        }
+
+        // Expressions
+
+        @Override
+        public Void visitLiteral(Literal literal) {
+            listener.enterEveryNode(literal);
+            listener.enterLiteral(literal);
+            listener.exitLiteral(literal);
+            listener.exitEveryNode(literal);
+            return null;
+        }
+
+        @Override
+        public Void visitIdentifier(Identifier identifier) {
+            listener.enterEveryNode(identifier);
+            listener.enterIdentifier(identifier);
+            listener.exitIdentifier(identifier);
+            listener.exitEveryNode(identifier);
+            return null;
+        }
+
+        @Override
+        public Void visitArrayElement(ArrayElement element) {
+            listener.enterEveryNode(element);
+            listener.enterArrayElement(element);
+            push(EXIT, element);
+            push(NODE, element.getIndex());
+            return null;
+        }
+
+        @Override
+        public Void visitGroup(Group group) {
+            listener.enterEveryNode(group);
+            listener.enterGroup(group);
+            push(EXIT, group);
+            push(NODE, group.getExpression());
+            return null;
+        }
+
+        @Override
+        public Void visitNot(Not not) {
+            listener.enterEveryNode(not);
+            listener.enterNot(not);
+            push(EXIT, not);
+            push(NODE, not.getOperand());
+            return null;
+        }
+
+        @Override
+        public Void visitLogical(Logical logical) {
+            listener.enterEveryNode(logical);
+            listener.enterLogical(logical);
+            push(EXIT, logical);
+            push(LIST, logical.getOperands());
+            return null;
+        }
+
+        @Override
+        public Void visitBinary(Binary binary) {
+            listener.enterEveryNode(binary);
+            listener.enterBinary(binary);
+            push(EXIT, binary);
+            push(NODE, binary.getRight());
+            push(NODE, binary.getLeft());
+            return null;
+        }
+    }
+
+    /**
+     * Leaves a node whose children have all been walked
+     */
+    private static final class Exit implements StatementVisitor<Void>, ExpressionVisitor<Void> {
+        private final AstListener listener;
+
+        Exit(AstListener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public Void visitAssignment(Assignment assignment) {
+            listener.exitAssignment(assignment);
+            listener.exitEveryNode(assignment);
+            return null;
+        }
+
+        @Override
+        public Void visitIf(IfStatement statement) {
+            listener.exitIfStatement(statement);
+            listener.exitEveryNode(statement);
+            return null;
+        }
+
+        @Override
+        public Void visitDoWhile(DoWhileLoop loop) {
+            listener.exitDoWhileLoop(loop);
+            listener.exitEveryNode(loop);
+            return null;
+        }
+
+        @Override
+        public Void visitFor(ForLoop loop) {
+            listener.exitForLoop(loop);
+            listener.exitEveryNode(loop);
+            return null;
+        }
+
+        @Override
+        public Void visitInput(InputStatement statement) {
+            listener.exitInputStatement(statement);
+            listener.exitEveryNode(statement);
+            return null;
+        }
+
+        @Override
+        public Void visitOutput(OutputStatement statement) {
+            listener.exitOutputStatement(statement);
+            listener.exitEveryNode(statement);
+            return null;
+        }
+
+        @Override
+        public Void visitLiteral(Literal literal) {
+            listener.exitLiteral(literal);
+            listener.exitEveryNode(literal);
+            return null;
+        }
+
+        @Override
+        public Void visitIdentifier(Identifier identifier) {
+            listener.exitIdentifier(identifier);
+            listener.exitEveryNode(identifier);
+            return null;
+        }
+
+        @Override
+        public Void visitArrayElement(ArrayElement element) {
+            listener.exitArrayElement(element);
+            listener.exitEveryNode(element);
+            return null;
+        }
+
+        @Override
+        public Void visitGroup(Group group) {
+            listener.exitGroup(group);
+            listener.exitEveryNode(group);
+            return null;
+        }
+
+        @Override
+        public Void visitNot(Not not) {
+            listener.exitNot(not);
+            listener.exitEveryNode(not);
+            return null;
+        }
+
+        @Override
+        public Void visitLogical(Logical logical) {
+            listener.exitLogical(logical);
+            listener.exitEveryNode(logical);
+            return null;
+        }
+
+        @Override
+        public Void visitBinary(Binary binary) {
+            listener.exitBinary(binary);
+            listener.exitEveryNode(binary);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.minisoft.ast;
+
+/**
+ * A comparison or arithmetic operation. Operator chains such as {@code a - b + c} are nested to the left,
+ * so every node of a chain starts at the first operand of the chain.
+ */
+public final class Binary extends Expression {
+    private final Operator operator;
+    private final Expression left;
+    private final Expression right;
+
+    Binary(int id, int line, int column, Operator operator, Expression left, Expression right) {
+        super(id, line, column);
+        this.operator = operator;
+        this.left = left;
+        this.right = right;
+    }
+
+    public Operator getOperator() {
+        return operator;
+    }
+
+    public Expression getLeft() {
+        return left;
+    }
+
+    public Expression getRight() {
+        return right;
+    }
+
+    @Override
+    public <R> R accept(ExpressionVisitor<R> visitor) {
+        return visitor.visitBinary(this);
+    }
+}
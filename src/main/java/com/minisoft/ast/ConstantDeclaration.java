@@ -0,0 +1,48 @@
+package com.minisoft.ast;
+
+import com.minisoft.symbol.DataType;
+
+/**
+ * A constant declaration. The value is kept as written, so that semantic analysis decides how
+ * to parse and validate it.
+ */
+public final class ConstantDeclaration extends Declaration {
+    private final String name;
+    private final boolean negative;
+    private final boolean floatValue;
+    private final String digits;
+
+    ConstantDeclaration(int line, int column, DataType type, String name, boolean negative, boolean floatValue,
+                        String digits) {
+        super(line, column, type);
+        this.name = name;
+        this.negative = negative;
+        this.floatValue = floatValue;
+        this.digits = digits;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns whether the value is written with a minus sign
+     */
+    public boolean isNegative() {
+        return negative;
+    }
+
+    /**
+     * Returns whether the value is a Float literal
+     */
+    public boolean isFloatValue() {
+        return floatValue;
+    }
+
+    /**
+     * Returns the digits of the value without its sign
+     */
+    public String getDigits() {
+        return digits;
+    }
+}
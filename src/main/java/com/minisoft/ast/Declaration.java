@@ -0,0 +1,22 @@
+package com.minisoft.ast;
+
+import com.minisoft.symbol.DataType;
+
+/**
+ * A variable, array or constant declaration
+ */
+public abstract class Declaration extends Node {
+    private final DataType type;
+
+    protected Declaration(int line, int column, DataType type) {
+        super(line, column);
+        this.type = type;
+    }
+
+    /**
+     * Returns the declared type, the element type for arrays
+     */
+    public DataType getType() {
+        return type;
+    }
+}
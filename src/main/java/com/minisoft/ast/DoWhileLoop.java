@@ -0,0 +1,30 @@
+package com.minisoft.ast;
+
+import java.util.List;
+
+/**
+ * A do-while loop, whose body runs before the condition is first tested
+ */
+public final class DoWhileLoop extends Statement {
+    private final List<Statement> body;
+    private final Expression condition;
+
+    DoWhileLoop(int line, int column, int tokenCount, List<Statement> body, Expression condition) {
+        super(line, column, tokenCount);
+        this.body = body;
+        this.condition = condition;
+    }
+
+    public List<Statement> getBody() {
+        return body;
+    }
+
+    public Expression getCondition() {
+        return condition;
+    }
+
+    @Override
+    public <R> R accept(StatementVisitor<R> visitor) {
+        return visitor.visitDoWhile(this);
+    }
+}
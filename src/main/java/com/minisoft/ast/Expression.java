@@ -0,0 +1,23 @@
+package com.minisoft.ast;
+
+/**
+ * An expression node. {@link AstBuilder} numbers the expressions of a program from 0 up to
+ * {@link Program#getExpressionCount()}, so that analyses can keep per-expression facts in plain arrays.
+ */
+public abstract class Expression extends Node {
+    private final int id;
+
+    protected Expression(int id, int line, int column) {
+        super(line, column);
+        this.id = id;
+    }
+
+    /**
+     * Returns the number of the expression within its program
+     */
+    public int getId() {
+        return id;
+    }
+
+    public abstract <R> R accept(ExpressionVisitor<R> visitor);
+}
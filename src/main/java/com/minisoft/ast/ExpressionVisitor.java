@@ -0,0 +1,22 @@
+package com.minisoft.ast;
+
+/**
+ * Visitor dispatching on the kind of an {@link Expression}
+ *
+ * @param <R> The type of the value computed for an expression
+ */
+public interface ExpressionVisitor<R> {
+    R visitLiteral(Literal literal);
+
+    R visitIdentifier(Identifier identifier);
+
+    R visitArrayElement(ArrayElement element);
+
+    R visitGroup(Group group);
+
+    R visitNot(Not not);
+
+    R visitLogical(Logical logical);
+
+    R visitBinary(Binary binary);
+}
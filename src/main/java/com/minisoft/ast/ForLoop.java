@@ -0,0 +1,49 @@
+package com.minisoft.ast;
+
+import java.util.List;
+
+/**
+ * A for loop {@code for variable from start to bound step step { body }} with an inclusive bound
+ */
+public final class ForLoop extends Statement {
+    private final String variable;
+    private final Expression from;
+    private final Expression to;
+    private final Expression step;
+    private final List<Statement> body;
+
+    ForLoop(int line, int column, int tokenCount, String variable, Expression from, Expression to, Expression step,
+            List<Statement> body) {
+        super(line, column, tokenCount);
+        this.variable = variable;
+        this.from = from;
+        this.to = to;
+        this.step = step;
+        this.body = body;
+    }
+
+    public String getVariable() {
+        return variable;
+    }
+
+    public Expression getFrom() {
+        return from;
+    }
+
+    public Expression getTo() {
+        return to;
+    }
+
+    public Expression getStep() {
+        return step;
+    }
+
+    public List<Statement> getBody() {
+        return body;
+    }
+
+    @Override
+    public <R> R accept(StatementVisitor<R> visitor) {
+        return visitor.visitFor(this);
+    }
+}
@@ -0,0 +1,23 @@
+package com.minisoft.ast;
+
+/**
+ * An expression in parentheses. It is kept as a node because diagnostics report the position of the
+ * opening parenthesis and semantic analysis only checks the types of unparenthesized operands.
+ */
+public final class Group extends Expression {
+    private final Expression expression;
+
+    Group(int id, int line, int column, Expression expression) {
+        super(id, line, column);
+        this.expression = expression;
+    }
+
+    public Expression getExpression() {
+        return expression;
+    }
+
+    @Override
+    public <R> R accept(ExpressionVisitor<R> visitor) {
+        return visitor.visitGroup(this);
+    }
+}
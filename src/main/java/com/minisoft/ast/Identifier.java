@@ -0,0 +1,22 @@
+package com.minisoft.ast;
+
+/**
+ * A reference to a variable or constant, or to a whole array in erroneous programs
+ */
+public final class Identifier extends Expression {
+    private final String name;
+
+    Identifier(int id, int line, int column, String name) {
+        super(id, line, column);
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public <R> R accept(ExpressionVisitor<R> visitor) {
+        return visitor.visitIdentifier(this);
+    }
+}
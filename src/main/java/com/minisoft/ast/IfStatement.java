@@ -0,0 +1,49 @@
+package com.minisoft.ast;
+
+import java.util.List;
+
+/**
+ * An if statement with an optional else branch
+ */
+public final class IfStatement extends Statement {
+    private final Expression condition;
+    private final List<Statement> thenBranch;
+    private final List<Statement> elseBranch;
+    private final int elseLine;
+
+    IfStatement(int line, int column, int tokenCount, Expression condition, List<Statement> thenBranch,
+                List<Statement> elseBranch, int elseLine) {
+        super(line, column, tokenCount);
+        this.condition = condition;
+        this.thenBranch = thenBranch;
+        this.elseBranch = elseBranch;
+        this.elseLine = elseLine;
+    }
+
+    public Expression getCondition() {
+        return condition;
+    }
+
+    public List<Statement> getThenBranch() {
+        return thenBranch;
+    }
+
+    /**
+     * Returns the instructions of the else branch, or null if there is none
+     */
+    public List<Statement> getElseBranch() {
+        return elseBranch;
+    }
+
+    /**
+     * Returns the line of the else keyword, or 0 if there is no else branch
+     */
+    public int getElseLine() {
+        return elseLine;
+    }
+
+    @Override
+    public <R> R accept(StatementVisitor<R> visitor) {
+        return visitor.visitIf(this);
+    }
+}
@@ -0,0 +1,22 @@
+package com.minisoft.ast;
+
+/**
+ * An input statement reading a value into a variable
+ */
+public final class InputStatement extends Statement {
+    private final String name;
+
+    InputStatement(int line, int column, int tokenCount, String name) {
+        super(line, column, tokenCount);
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public <R> R accept(StatementVisitor<R> visitor) {
+        return visitor.visitInput(this);
+    }
+}
@@ -0,0 +1,56 @@
+package com.minisoft.ast;
+
+/**
+ * A numeric literal, including a sign written as {@code (+v)} or {@code (-v)}
+ */
+public final class Literal extends Expression {
+    private final boolean isFloat;
+    private final boolean valid;
+    private final int intValue;
+    private final double floatValue;
+
+    Literal(int id, int line, int column, boolean isFloat, boolean valid, int intValue, double floatValue) {
+        super(id, line, column);
+        this.isFloat = isFloat;
+        this.valid = valid;
+        this.intValue = intValue;
+        this.floatValue = floatValue;
+    }
+
+    public boolean isFloat() {
+        return isFloat;
+    }
+
+    /**
+     * Returns false for an Int literal that does not fit in 32 bits; its value is then 0
+     */
+    public boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * Returns the value of an Int literal
+     */
+    public int getIntValue() {
+        return intValue;
+    }
+
+    /**
+     * Returns the value of the literal as a Float, widening an Int literal
+     */
+    public double getFloatValue() {
+        return isFloat ? floatValue : intValue;
+    }
+
+    /**
+     * Returns the value of the literal, an Integer or a Double
+     */
+    public Number getValue() {
+        return isFloat ? (Number) floatValue : (Number) intValue;
+    }
+
+    @Override
+    public <R> R accept(ExpressionVisitor<R> visitor) {
+        return visitor.visitLiteral(this);
+    }
+}
@@ -0,0 +1,31 @@
+package com.minisoft.ast;
+
+import java.util.List;
+
+/**
+ * A chain of two or more operands joined by the same logical operator, {@link Operator#OR} or
+ * {@link Operator#AND}, evaluated left to right until one operand decides the result
+ */
+public final class Logical extends Expression {
+    private final Operator operator;
+    private final List<Expression> operands;
+
+    Logical(int id, int line, int column, Operator operator, List<Expression> operands) {
+        super(id, line, column);
+        this.operator = operator;
+        this.operands = operands;
+    }
+
+    public Operator getOperator() {
+        return operator;
+    }
+
+    public List<Expression> getOperands() {
+        return operands;
+    }
+
+    @Override
+    public <R> R accept(ExpressionVisitor<R> visitor) {
+        return visitor.visitLogical(this);
+    }
+}
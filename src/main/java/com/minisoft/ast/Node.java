@@ -0,0 +1,29 @@
+package com.minisoft.ast;
+
+/**
+ * Base class of the nodes of the abstract syntax tree built by {@link AstBuilder}.
+ * A node only keeps the position of its first source token; the tokens themselves are not retained.
+ */
+public abstract class Node {
+    private final int line;
+    private final int column;
+
+    protected Node(int line, int column) {
+        this.line = line;
+        this.column = column;
+    }
+
+    /**
+     * Returns the line of the first token of the node, starting at 1
+     */
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * Returns the position of the first token of the node within its line, starting at 0
+     */
+    public int getColumn() {
+        return column;
+    }
+}
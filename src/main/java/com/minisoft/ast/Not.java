@@ -0,0 +1,22 @@
+package com.minisoft.ast;
+
+/**
+ * A logical negation {@code !operand}
+ */
+public final class Not extends Expression {
+    private final Expression operand;
+
+    Not(int id, int line, int column, Expression operand) {
+        super(id, line, column);
+        this.operand = operand;
+    }
+
+    public Expression getOperand() {
+        return operand;
+    }
+
+    @Override
+    public <R> R accept(ExpressionVisitor<R> visitor) {
+        return visitor.visitNot(this);
+    }
+}
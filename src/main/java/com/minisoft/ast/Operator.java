@@ -0,0 +1,59 @@
+package com.minisoft.ast;
+
+/**
+ * The binary and logical operators of MiniSoft
+ */
+public enum Operator {
+    OR("OR"),
+    AND("AND"),
+    GT(">"),
+    LT("<"),
+    GE(">="),
+    LE("<="),
+    EQ("=="),
+    NE("!="),
+    PLUS("+"),
+    MINUS("-"),
+    MUL("*"),
+    DIV("/");
+
+    private final String symbol;
+
+    Operator(String symbol) {
+        this.symbol = symbol;
+    }
+
+    /**
+     * Returns whether the operator compares two values, giving 1 or 0
+     */
+    public boolean isComparison() {
+        return ordinal() >= GT.ordinal() && ordinal() <= NE.ordinal();
+    }
+
+    /**
+     * Returns whether the operator is one of the arithmetic operators
+     */
+    public boolean isArithmetic() {
+        return ordinal() >= PLUS.ordinal();
+    }
+
+    /**
+     * Returns the comparison that holds exactly when this one fails for ordered (non-NaN) operands
+     */
+    public Operator inverse() {
+        switch (this) {
+            case GT: return LE;
+            case LT: return GE;
+            case GE: return LT;
+            case LE: return GT;
+            case EQ: return NE;
+            case NE: return EQ;
+            default: throw new IllegalStateException("Not a comparison: " + this);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return symbol;
+    }
+}
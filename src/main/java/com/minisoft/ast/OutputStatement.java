@@ -0,0 +1,24 @@
+package com.minisoft.ast;
+
+import java.util.List;
+
+/**
+ * An output statement printing its arguments on one line; every argument is a {@link Text} or an {@link Expression}
+ */
+public final class OutputStatement extends Statement {
+    private final List<Node> arguments;
+
+    OutputStatement(int line, int column, int tokenCount, List<Node> arguments) {
+        super(line, column, tokenCount);
+        this.arguments = arguments;
+    }
+
+    public List<Node> getArguments() {
+        return arguments;
+    }
+
+    @Override
+    public <R> R accept(StatementVisitor<R> visitor) {
+        return visitor.visitOutput(this);
+    }
+}
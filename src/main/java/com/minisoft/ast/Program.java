@@ -0,0 +1,44 @@
+package com.minisoft.ast;
+
+import java.util.List;
+
+/**
+ * The root of the abstract syntax tree of a program
+ */
+public final class Program extends Node {
+    private final String name;
+    private final List<Declaration> declarations;
+    private final List<Statement> instructions;
+    private final int expressionCount;
+
+    Program(int line, int column, String name, List<Declaration> declarations, List<Statement> instructions,
+            int expressionCount) {
+        super(line, column);
+        this.name = name;
+        this.declarations = declarations;
+        this.instructions = instructions;
+        this.expressionCount = expressionCount;
+    }
+
+    /**
+     * Returns the program name given in the MainPrgm header
+     */
+    public String getName() {
+        return name;
+    }
+
+    public List<Declaration> getDeclarations() {
+        return declarations;
+    }
+
+    public List<Statement> getInstructions() {
+        return instructions;
+    }
+
+    /**
+     * Returns the number of expressions in the program; every expression id is smaller
+     */
+    public int getExpressionCount() {
+        return expressionCount;
+    }
+}
@@ -0,0 +1,22 @@
+package com.minisoft.ast;
+
+/**
+ * An instruction of a program
+ */
+public abstract class Statement extends Node {
+    private final int tokenCount;
+
+    protected Statement(int line, int column, int tokenCount) {
+        super(line, column);
+        this.tokenCount = tokenCount;
+    }
+
+    /**
+     * Returns the number of source tokens the statement spans, a measure of the size of its code
+     */
+    public int getTokenCount() {
+        return tokenCount;
+    }
+
+    public abstract <R> R accept(StatementVisitor<R> visitor);
+}
@@ -0,0 +1,20 @@
+package com.minisoft.ast;
+
+/**
+ * Visitor dispatching on the kind of a {@link Statement}
+ *
+ * @param <R> The type of the value computed for a statement
+ */
+public interface StatementVisitor<R> {
+    R visitAssignment(Assignment assignment);
+
+    R visitIf(IfStatement statement);
+
+    R visitDoWhile(DoWhileLoop loop);
+
+    R visitFor(ForLoop loop);
+
+    R visitInput(InputStatement statement);
+
+    R visitOutput(OutputStatement statement);
+}
@@ -0,0 +1,20 @@
+package com.minisoft.ast;
+
+/**
+ * A string literal argument of an output statement
+ */
+public final class Text extends Node {
+    private final String value;
+
+    Text(int line, int column, String value) {
+        super(line, column);
+        this.value = value;
+    }
+
+    /**
+     * Returns the text without its quotes, with escaped quotes resolved
+     */
+    public String getValue() {
+        return value;
+    }
+}
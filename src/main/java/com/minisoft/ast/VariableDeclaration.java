@@ -0,0 +1,34 @@
+package com.minisoft.ast;
+
+import com.minisoft.symbol.DataType;
+
+import java.util.List;
+
+/**
+ * A declaration of one or more variables, or arrays of the same size, of one type
+ */
+public final class VariableDeclaration extends Declaration {
+    private final List<String> names;
+    private final String arraySize;
+
+    VariableDeclaration(int line, int column, DataType type, List<String> names, String arraySize) {
+        super(line, column, type);
+        this.names = names;
+        this.arraySize = arraySize;
+    }
+
+    public List<String> getNames() {
+        return names;
+    }
+
+    public boolean isArray() {
+        return arraySize != null;
+    }
+
+    /**
+     * Returns the array size as written in the source, or null for scalar variables
+     */
+    public String getArraySize() {
+        return arraySize;
+    }
+}
@@ -0,0 +1,350 @@
+package com.minisoft.daemon;
+
+import com.minisoft.CompilationResult;
+import com.minisoft.CompilerOptions;
+import com.minisoft.Main;
+import com.minisoft.MiniSoftCompiler;
+import com.minisoft.ParserFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Long-lived compile server, so that compiling a small file does not pay for starting a JVM, loading ANTLR and
+ * filling the parser cache every time. It listens on a localhost port and compiles the command lines sent by
+ * {@link DaemonClient} as {@link Main} would, for clients that present its {@link DaemonToken}, streaming the output back along with a structured
+ * {@link FileReport} per file. Requests are compiled concurrently, one thread each, with one shared and warmed
+ * {@link ParserFactory}; the files of one request are compiled in order, so --jobs is ignored.
+ * <p>
+ * Command lines that need the client's console (--run, which reads standard input, and --gui) are sent back to
+ * be compiled in the client's process. A connection that sends nothing for a while before its request is complete
+ * is closed, so that idle clients cannot hold every thread.
+ */
+public class CompileDaemon {
+    /** Milliseconds a connection may wait between bytes of its header, token and request */
+    public static final int DEFAULT_READ_TIMEOUT = 10_000;
+
+    private final ParserFactory parserFactory;
+    private final byte[] token;
+    private final int readTimeout;
+    private final ExecutorService executor;
+    private volatile ServerSocket serverSocket;
+
+    /**
+     * Creates a daemon compiling up to the given number of requests at the same time, for clients sending the
+     * given token
+     */
+    public CompileDaemon(ParserFactory parserFactory, int threads, byte[] token) {
+        this(parserFactory, threads, token, DEFAULT_READ_TIMEOUT);
+    }
+
+    /**
+     * Creates a daemon compiling up to the given number of requests at the same time, for clients sending the
+     * given token, closing connections that send nothing for {@code readTimeout} milliseconds before their request
+     * is read
+     */
+    public CompileDaemon(ParserFactory parserFactory, int threads, byte[] token, int readTimeout) {
+        this.parserFactory = parserFactory;
+        this.token = token.clone();
+        this.readTimeout = readTimeout;
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "minisoft-daemon");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Accepts and serves connections until {@link #stop()} is called or a client asks the daemon to stop
+     */
+    public void serve(ServerSocket serverSocket) throws IOException {
+        this.serverSocket = serverSocket;
+        try {
+            while (!serverSocket.isClosed()) {
+                Socket socket;
+                try {
+                    socket = serverSocket.accept();
+                } catch (SocketException e) {
+                    // Closed by stop()
+                    break;
+                }
+                executor.execute(() -> handle(socket));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Stops accepting connections; requests being compiled still complete
+     */
+    public void stop() {
+        ServerSocket socket = serverSocket;
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Nothing left to release
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (Socket connection = socket) {
+            connection.setSoTimeout(readTimeout);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+            if (!DaemonProtocol.readHeader(in)) {
+                DaemonProtocol.writeFrame(out, DaemonProtocol.ERR,
+                                          "Client and daemon versions differ\n".getBytes(StandardCharsets.UTF_8));
+                DaemonProtocol.writeFrame(out, DaemonProtocol.EXIT, DaemonProtocol.encodeInt(1));
+                out.flush();
+                return;
+            }
+            if (!DaemonToken.matches(token, DaemonProtocol.readToken(in))) {
+                DaemonProtocol.writeFrame(out, DaemonProtocol.ERR,
+                                          "Invalid daemon token\n".getBytes(StandardCharsets.UTF_8));
+                DaemonProtocol.writeFrame(out, DaemonProtocol.EXIT, DaemonProtocol.encodeInt(1));
+                out.flush();
+                return;
+            }
+
+            DaemonProtocol.Frame frame = DaemonProtocol.readFrame(in);
+            if (frame.type == DaemonProtocol.STOP) {
+                stop();
+                DaemonProtocol.writeFrame(out, DaemonProtocol.EXIT, DaemonProtocol.encodeInt(0));
+            } else if (frame.type == DaemonProtocol.REQUEST) {
+                compile(frame.payloadStream(), out);
+            } else {
+                throw new IOException("Unexpected frame type: " + (char) frame.type);
+            }
+            out.flush();
+        } catch (SocketTimeoutException e) {
+            // The client sent nothing for too long and its connection is closed to free the thread
+        } catch (IOException e) {
+            // The client went away; there is nobody left to report to
+        }
+    }
+
+    private void compile(DataInputStream request, DataOutputStream out) throws IOException {
+        Path workingDirectory = Paths.get(request.readUTF());
+        int argCount = request.readInt();
+        // The viewer is only opened when asked for, as the daemon has no console of its own
+        String[] args = new String[argCount + 1];
+        args[0] = "--headless";
+        for (int i = 1; i <= argCount; i++) {
+            args[i] = request.readUTF();
+        }
+
+        PrintStream stdout = new PrintStream(new DaemonProtocol.FrameOutputStream(out, DaemonProtocol.OUT));
+        PrintStream stderr = new PrintStream(new DaemonProtocol.FrameOutputStream(out, DaemonProtocol.ERR));
+        int status;
+        try {
+            status = compile(args, workingDirectory, stdout, stderr, out);
+        } catch (RuntimeException e) {
+            stderr.println("Internal compiler error: " + e);
+            status = 1;
+        }
+        stdout.flush();
+        stderr.flush();
+        if (status >= 0) {
+            DaemonProtocol.writeFrame(out, DaemonProtocol.EXIT, DaemonProtocol.encodeInt(status));
+        }
+    }
+
+    /**
+     * Compiles a command line, or asks the client to do it
+     *
+     * @return The exit status of the run, or -1 if the client compiles it itself
+     */
+    private int compile(String[] args, Path workingDirectory, PrintStream stdout, PrintStream stderr,
+                        DataOutputStream out) throws IOException {
+        CompilerOptions options;
+        try {
+            options = CompilerOptions.parse(args, workingDirectory);
+        } catch (IllegalArgumentException e) {
+            stderr.println(e.getMessage());
+            stderr.println(CompilerOptions.usage());
+            return 1;
+        }
+        if (options.isHelp()) {
+            stdout.println(CompilerOptions.usage());
+            return 0;
+        }
+        if (options.isRun() || options.isGui()) {
+            DaemonProtocol.writeFrame(out, DaemonProtocol.IN_PROCESS,
+                                      DaemonProtocol.encodeString("--run and --gui need the client's console"));
+            return -1;
+        }
+
+        MiniSoftCompiler compiler = new MiniSoftCompiler(options, parserFactory);
+        long startTime = System.nanoTime();
+        List<CompilationResult> results = new ArrayList<>(options.getSourceFiles().size());
+        for (Path sourceFile : options.getSourceFiles()) {
+            if (options.isBatch()) {
+                stdout.println("=== " + sourceFile + " ===");
+            }
+            // Diagnostics go to the client as they are printed and are kept for the file's report
+            ByteArrayOutputStream diagnostics = new ByteArrayOutputStream();
+            PrintStream fileStderr = new PrintStream(new Tee(stderr, diagnostics));
+            CompilationResult result = compiler.compile(sourceFile, stdout, fileStderr);
+            fileStderr.flush();
+            results.add(result);
+            DaemonProtocol.writeFrame(out, DaemonProtocol.RESULT,
+                                      DaemonProtocol.encodeReport(result, lines(diagnostics.toString())));
+        }
+        int status = Main.summarize(options, compiler, results, System.nanoTime() - startTime, stdout);
+        Main.writeProfile(options, results, stderr);
+        try {
+            compiler.trimResultCache();
+        } catch (IOException e) {
+            stderr.println("Cannot trim the result cache: " + e.getMessage());
+        }
+        return status;
+    }
+
+    private static List<String> lines(String text) {
+        List<String> lines = new ArrayList<>();
+        for (String line : text.split("\\R")) {
+            if (!line.isEmpty()) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Writes everything to two streams
+     */
+    private static final class Tee extends OutputStream {
+        private final OutputStream first;
+        private final OutputStream second;
+
+        Tee(OutputStream first, OutputStream second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            first.write(b);
+            second.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            first.write(b, off, len);
+            second.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            first.flush();
+            second.flush();
+        }
+    }
+
+    public static void main(String[] args) {
+        int port = DaemonProtocol.DEFAULT_PORT;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int maxDfaStates = Integer.MAX_VALUE;
+        int readTimeout = DEFAULT_READ_TIMEOUT;
+        Path tokenFile = null;
+        try {
+            for (String arg : args) {
+                int separator = arg.indexOf('=');
+                String name = separator > 0 ? arg.substring(0, separator) : arg;
+                String value = separator > 0 ? arg.substring(separator + 1) : "";
+                switch (name) {
+                    case "--port":
+                        port = Integer.parseInt(value);
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(value);
+                        break;
+                    case "--max-dfa-states":
+                        maxDfaStates = Integer.parseInt(value);
+                        break;
+                    case "--read-timeout":
+                        readTimeout = Integer.parseInt(value);
+                        break;
+                    case "--token-file":
+                        tokenFile = Paths.get(value);
+                        break;
+                    case "-h":
+                    case "--help":
+                        System.out.println(usage());
+                        return;
+                    default:
+                        throw new IllegalArgumentException("Unknown option: " + arg);
+                }
+            }
+            if (threads < 1 || maxDfaStates < 1 || readTimeout < 1) {
+                throw new IllegalArgumentException("--threads, --max-dfa-states and --read-timeout must be positive");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(usage());
+            System.exit(1);
+            return;
+        }
+
+        ParserFactory parserFactory = new ParserFactory(maxDfaStates);
+        parserFactory.warmUp();
+        try (ServerSocket serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            if (tokenFile == null) {
+                tokenFile = DaemonToken.defaultFile(serverSocket.getLocalPort());
+            }
+            CompileDaemon daemon;
+            try {
+                daemon = new CompileDaemon(parserFactory, threads, DaemonToken.create(tokenFile), readTimeout);
+            } catch (IOException e) {
+                System.err.println("Cannot write the daemon token to " + tokenFile + ": " + e.getMessage());
+                System.exit(1);
+                return;
+            }
+            System.out.println("MiniSoft daemon listening on " + serverSocket.getLocalSocketAddress()
+                               + ", token in " + tokenFile);
+            try {
+                daemon.serve(serverSocket);
+            } finally {
+                Files.deleteIfExists(tokenFile);
+            }
+        } catch (IOException e) {
+            System.err.println("Cannot listen on port " + port + ": " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static String usage() {
+        return "Usage: java -cp minisoft-compiler.jar com.minisoft.daemon.CompileDaemon [options]\n"
+                + "Options:\n"
+                + "  --port=<n>            Localhost port to listen on (default " + DaemonProtocol.DEFAULT_PORT + ")\n"
+                + "  --threads=<n>         Requests compiled at the same time (default one per processor)\n"
+                + "  --max-dfa-states=<n>  Empty the parser cache when it grows beyond <n> states (default unbounded)\n"
+                + "  --read-timeout=<ms>   Close connections that send nothing for <ms> milliseconds before their\n"
+                + "                        request is read (default " + DEFAULT_READ_TIMEOUT + ")\n"
+                + "  --token-file=<path>   File the client token is written to, readable only by this user\n"
+                + "                        (default ~/.minisoft/daemon-<port>.token)\n"
+                + "  -h, --help            Print this help and exit";
+    }
+}
@@ -0,0 +1,186 @@
+package com.minisoft.daemon;
+
+import com.minisoft.Main;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Thin client of {@link CompileDaemon}: forwards a compiler command line to the daemon and prints what it sends
+ * back, so that it behaves like {@link Main} without starting a compiler. It authenticates with the token the
+ * daemon wrote for its user. When no daemon is running, or the command line needs this process's console, the files
+ * are compiled in this process instead.
+ */
+public class DaemonClient {
+    /** Environment variable overriding the port of the daemon */
+    public static final String PORT_VARIABLE = "MINISOFT_DAEMON_PORT";
+    /** Environment variable overriding the file the token of the daemon is read from */
+    public static final String TOKEN_FILE_VARIABLE = "MINISOFT_DAEMON_TOKEN_FILE";
+
+    private final InetSocketAddress address;
+    private final Path tokenFile;
+
+    /**
+     * Creates a client of the daemon listening on the given localhost port, with the token in its default file
+     */
+    public DaemonClient(int port) {
+        this(port, DaemonToken.defaultFile(port));
+    }
+
+    /**
+     * Creates a client of the daemon listening on the given localhost port, with the token in the given file
+     */
+    public DaemonClient(int port, Path tokenFile) {
+        this.address = new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+        this.tokenFile = tokenFile;
+    }
+
+    /**
+     * Sends a command line to the daemon, copying the compiler output and diagnostics to the given streams
+     *
+     * @param workingDirectory The directory relative paths in the arguments are resolved against
+     * @return The exit status and file reports of the run
+     * @throws ConnectException if no daemon is listening
+     * @throws NoSuchFileException if no daemon wrote a token
+     */
+    public Response compile(List<String> args, Path workingDirectory, OutputStream out, OutputStream err)
+            throws IOException {
+        byte[] token = DaemonToken.read(tokenFile);
+        try (Socket socket = new Socket()) {
+            socket.connect(address);
+            DataOutputStream request = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            DaemonProtocol.writeHeader(request, token);
+            DaemonProtocol.writeFrame(request, DaemonProtocol.REQUEST,
+                                      DaemonProtocol.encodeRequest(workingDirectory, args));
+            request.flush();
+
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            List<FileReport> reports = new ArrayList<>();
+            while (true) {
+                DaemonProtocol.Frame frame = DaemonProtocol.readFrame(in);
+                switch (frame.type) {
+                    case DaemonProtocol.OUT:
+                        out.write(frame.payload);
+                        break;
+                    case DaemonProtocol.ERR:
+                        err.write(frame.payload);
+                        break;
+                    case DaemonProtocol.RESULT:
+                        reports.add(DaemonProtocol.decodeReport(frame.payloadStream()));
+                        break;
+                    case DaemonProtocol.EXIT:
+                        out.flush();
+                        err.flush();
+                        return new Response(frame.payloadStream().readInt(), false, reports);
+                    case DaemonProtocol.IN_PROCESS:
+                        return new Response(0, true, reports);
+                    default:
+                        throw new IOException("Unexpected frame type: " + (char) frame.type);
+                }
+            }
+        }
+    }
+
+    /**
+     * Asks the daemon to stop accepting requests
+     *
+     * @throws ConnectException if no daemon is listening
+     * @throws NoSuchFileException if no daemon wrote a token
+     */
+    public void stop() throws IOException {
+        byte[] token = DaemonToken.read(tokenFile);
+        try (Socket socket = new Socket()) {
+            socket.connect(address);
+            DataOutputStream request = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            DaemonProtocol.writeHeader(request, token);
+            DaemonProtocol.writeFrame(request, DaemonProtocol.STOP, new byte[0]);
+            request.flush();
+            DaemonProtocol.readFrame(new DataInputStream(socket.getInputStream()));
+        }
+    }
+
+    /**
+     * Outcome of a command line sent to the daemon
+     */
+    public static final class Response {
+        private final int exitStatus;
+        private final boolean inProcess;
+        private final List<FileReport> reports;
+
+        Response(int exitStatus, boolean inProcess, List<FileReport> reports) {
+            this.exitStatus = exitStatus;
+            this.inProcess = inProcess;
+            this.reports = Collections.unmodifiableList(reports);
+        }
+
+        /**
+         * Returns the exit status {@link Main} would have exited with
+         */
+        public int getExitStatus() {
+            return exitStatus;
+        }
+
+        /**
+         * Returns whether the daemon declined the command line because it needs the client's console
+         */
+        public boolean isInProcess() {
+            return inProcess;
+        }
+
+        /**
+         * Returns the report of every compiled file, in the order the files were given
+         */
+        public List<FileReport> getReports() {
+            return reports;
+        }
+    }
+
+    /**
+     * Compiles the command line through the daemon, or with {@link Main} if the daemon cannot. A lone
+     * --stop-daemon argument stops the daemon instead.
+     */
+    public static void main(String[] args) throws IOException {
+        String portVariable = System.getenv(PORT_VARIABLE);
+        String tokenFile = System.getenv(TOKEN_FILE_VARIABLE);
+        int port = portVariable == null ? DaemonProtocol.DEFAULT_PORT : Integer.parseInt(portVariable);
+        DaemonClient client = tokenFile == null ? new DaemonClient(port) : new DaemonClient(port, Paths.get(tokenFile));
+
+        if (args.length == 1 && "--stop-daemon".equals(args[0])) {
+            try {
+                client.stop();
+            } catch (ConnectException | NoSuchFileException e) {
+                System.err.println("No MiniSoft daemon is running");
+                System.exit(1);
+            }
+            return;
+        }
+
+        Response response;
+        try {
+            response = client.compile(Arrays.asList(args), Paths.get("").toAbsolutePath(), System.out, System.err);
+        } catch (ConnectException | NoSuchFileException e) {
+            Main.main(args);
+            return;
+        }
+        if (response.isInProcess()) {
+            Main.main(args);
+        } else if (response.getExitStatus() != 0) {
+            System.exit(response.getExitStatus());
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.minisoft.daemon;
+
+import com.minisoft.CompilationResult;
+import com.minisoft.symbol.SymbolTable;
+import org.antlr.v4.runtime.atn.PredictionMode;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Framed protocol spoken between {@link DaemonClient} and {@link CompileDaemon} over a localhost socket.
+ * All values are big-endian and strings are modified UTF-8 as written by {@link DataOutputStream#writeUTF}.
+ * A connection carries one exchange:
+ * <pre>
+ * client     magic, version, the 32 bytes of the {@link DaemonToken}, then a REQUEST or a STOP frame
+ * daemon     any number of OUT, ERR and RESULT frames, then an EXIT or an IN_PROCESS frame
+ * </pre>
+ * A client with another version or a wrong token gets an ERR and an EXIT frame, and none of its frames is read.
+ * Every frame is a type byte, an int payload length and the payload:
+ * <pre>
+ * REQUEST    working directory, int argument count, arguments
+ * STOP       empty, asks the daemon to shut down
+ * OUT, ERR   bytes the compiler printed to its output or error stream
+ * RESULT     file, status, parse mode or "", long elapsed nanos, int diagnostic count, diagnostics,
+ *            boolean has symbol table, symbol table as written by {@link SymbolTable#write}
+ * EXIT       int exit status of the run
+ * IN_PROCESS a reason; the arguments need the client's console (--run, --gui), so it compiles them itself
+ * </pre>
+ */
+public final class DaemonProtocol {
+    /** Port the daemon listens on unless told otherwise, "MS" in ASCII */
+    public static final int DEFAULT_PORT = 0x4D53;
+
+    // "MSD1"
+    static final int MAGIC = 0x4D534431;
+    static final int VERSION = 2;
+
+    static final byte REQUEST = 'Q';
+    static final byte STOP = 'S';
+    static final byte OUT = 'O';
+    static final byte ERR = 'E';
+    static final byte RESULT = 'R';
+    static final byte EXIT = 'X';
+    static final byte IN_PROCESS = 'P';
+
+    /** Larger frames are rejected rather than allocated, so a stray connection cannot exhaust the heap */
+    private static final int MAX_FRAME_LENGTH = 64 * 1024 * 1024;
+
+    private DaemonProtocol() {
+    }
+
+    /**
+     * A frame read from a connection
+     */
+    static final class Frame {
+        final byte type;
+        final byte[] payload;
+
+        Frame(byte type, byte[] payload) {
+            this.type = type;
+            this.payload = payload;
+        }
+
+        DataInputStream payloadStream() {
+            return new DataInputStream(new ByteArrayInputStream(payload));
+        }
+    }
+
+    static void writeHeader(DataOutputStream out, byte[] token) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.write(token);
+    }
+
+    /**
+     * Reads the header a client starts with and returns whether it speaks this version of the protocol
+     */
+    static boolean readHeader(DataInputStream in) throws IOException {
+        return in.readInt() == MAGIC && in.readInt() == VERSION;
+    }
+
+    /**
+     * Reads the token that follows the header
+     */
+    static byte[] readToken(DataInputStream in) throws IOException {
+        byte[] token = new byte[DaemonToken.LENGTH];
+        in.readFully(token);
+        return token;
+    }
+
+    static void writeFrame(DataOutputStream out, byte type, byte[] payload) throws IOException {
+        writeFrame(out, type, payload, 0, payload.length);
+    }
+
+    static void writeFrame(DataOutputStream out, byte type, byte[] payload, int offset, int length)
+            throws IOException {
+        out.writeByte(type);
+        out.writeInt(length);
+        out.write(payload, offset, length);
+    }
+
+    static Frame readFrame(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        int length = in.readInt();
+        if (length < 0 || length > MAX_FRAME_LENGTH) {
+            throw new IOException("Invalid frame length: " + length);
+        }
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        return new Frame(type, payload);
+    }
+
+    static byte[] encodeRequest(Path workingDirectory, List<String> args) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF(workingDirectory.toString());
+        out.writeInt(args.size());
+        for (String arg : args) {
+            out.writeUTF(arg);
+        }
+        return bytes.toByteArray();
+    }
+
+    static byte[] encodeInt(int value) {
+        return new byte[] {(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value};
+    }
+
+    static byte[] encodeString(String value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new DataOutputStream(bytes).writeUTF(value);
+        return bytes.toByteArray();
+    }
+
+    static byte[] encodeReport(CompilationResult result, List<String> diagnostics) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF(result.getSourceFile().toString());
+        out.writeUTF(result.getStatus().name());
+        out.writeUTF(result.getParseMode() == null ? "" : result.getParseMode().name());
+        out.writeLong(result.getElapsedNanos());
+        out.writeInt(diagnostics.size());
+        for (String diagnostic : diagnostics) {
+            out.writeUTF(diagnostic);
+        }
+        out.writeBoolean(result.getSymbolTable() != null);
+        if (result.getSymbolTable() != null) {
+            result.getSymbolTable().write(out);
+        }
+        return bytes.toByteArray();
+    }
+
+    static FileReport decodeReport(DataInputStream in) throws IOException {
+        Path sourceFile = Paths.get(in.readUTF());
+        CompilationResult.Status status = CompilationResult.Status.valueOf(in.readUTF());
+        String mode = in.readUTF();
+        PredictionMode parseMode = mode.isEmpty() ? null : PredictionMode.valueOf(mode);
+        long elapsedNanos = in.readLong();
+        int diagnosticCount = in.readInt();
+        List<String> diagnostics = new ArrayList<>(diagnosticCount);
+        for (int i = 0; i < diagnosticCount; i++) {
+            diagnostics.add(in.readUTF());
+        }
+        SymbolTable symbolTable = in.readBoolean() ? SymbolTable.read(in) : null;
+        return new FileReport(new CompilationResult(sourceFile, status, parseMode, symbolTable, elapsedNanos),
+                              diagnostics);
+    }
+
+    /**
+     * Sends everything written to it as frames of one type, one frame per write
+     */
+    static final class FrameOutputStream extends OutputStream {
+        private final DataOutputStream out;
+        private final byte type;
+
+        FrameOutputStream(DataOutputStream out, byte type) {
+            this.out = out;
+            this.type = type;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len > 0) {
+                writeFrame(out, type, b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.minisoft.daemon;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+
+/**
+ * The secret a client must send in its header before {@link CompileDaemon} reads any of its frames. The daemon
+ * compiles with the privileges of the user who started it, and can be made to write files and stop, so a random
+ * token is written to a file only that user can read, and any other local user or process connecting to the port
+ * is turned away.
+ */
+public final class DaemonToken {
+    /** Number of random bytes in a token */
+    static final int LENGTH = 32;
+
+    private DaemonToken() {
+    }
+
+    /**
+     * Returns the file the token of the daemon listening on a port is kept in, in the user's home directory
+     */
+    public static Path defaultFile(int port) {
+        return Paths.get(System.getProperty("user.home"), ".minisoft", "daemon-" + port + ".token");
+    }
+
+    /**
+     * Creates a new random token and writes it to a file readable only by the current user, replacing any token
+     * left there by an earlier daemon
+     */
+    public static byte[] create(Path file) throws IOException {
+        byte[] token = new byte[LENGTH];
+        new SecureRandom().nextBytes(token);
+
+        boolean posix = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+        Path directory = file.toAbsolutePath().getParent();
+        if (!Files.isDirectory(directory)) {
+            if (posix) {
+                Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(
+                        PosixFilePermissions.fromString("rwx------")));
+            } else {
+                Files.createDirectories(directory);
+            }
+        }
+
+        // Written to a file that is private from its creation, then moved in place, so the token is never readable
+        // by others, even for a moment
+        FileAttribute<?>[] attributes = posix
+                ? new FileAttribute<?>[] {PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------"))}
+                : new FileAttribute<?>[0];
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp", attributes);
+        try {
+            Files.write(temporary, encode(token).getBytes(StandardCharsets.US_ASCII));
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        return token;
+    }
+
+    /**
+     * Reads the token written by a daemon
+     *
+     * @throws java.nio.file.NoSuchFileException if no daemon wrote one
+     */
+    public static byte[] read(Path file) throws IOException {
+        String text = new String(Files.readAllBytes(file), StandardCharsets.US_ASCII).trim();
+        if (text.length() != 2 * LENGTH) {
+            throw new IOException("Invalid daemon token in " + file);
+        }
+        byte[] token = new byte[LENGTH];
+        for (int i = 0; i < LENGTH; i++) {
+            int high = Character.digit(text.charAt(2 * i), 16);
+            int low = Character.digit(text.charAt(2 * i + 1), 16);
+            if (high < 0 || low < 0) {
+                throw new IOException("Invalid daemon token in " + file);
+            }
+            token[i] = (byte) (high << 4 | low);
+        }
+        return token;
+    }
+
+    /**
+     * Returns whether a token sent by a client is the daemon's, taking the same time wherever they differ
+     */
+    static boolean matches(byte[] expected, byte[] actual) {
+        return MessageDigest.isEqual(expected, actual);
+    }
+
+    private static String encode(byte[] token) {
+        StringBuilder text = new StringBuilder(2 * token.length);
+        for (byte b : token) {
+            text.append(Character.forDigit(b >> 4 & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return text.toString();
+    }
+}
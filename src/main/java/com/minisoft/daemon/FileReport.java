@@ -0,0 +1,31 @@
+package com.minisoft.daemon;
+
+import com.minisoft.CompilationResult;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of one file compiled by the daemon, as received by a client: the compilation result, with the symbol
+ * table if one was built, and the diagnostics printed while compiling the file.
+ */
+public class FileReport {
+    private final CompilationResult result;
+    private final List<String> diagnostics;
+
+    public FileReport(CompilationResult result, List<String> diagnostics) {
+        this.result = result;
+        this.diagnostics = Collections.unmodifiableList(diagnostics);
+    }
+
+    public CompilationResult getResult() {
+        return result;
+    }
+
+    /**
+     * Returns the lines the compiler printed to its error stream for this file, in order
+     */
+    public List<String> getDiagnostics() {
+        return diagnostics;
+    }
+}
@@ -0,0 +1,92 @@
+package com.minisoft.diagnostics;
+
+import java.util.Arrays;
+
+/**
+ * An error reported at a position of a source file. The message is only formatted when it is printed, so
+ * diagnostics dropped as duplicates or beyond the limit of a {@link DiagnosticSink} cost no string building.
+ */
+public final class Diagnostic {
+    private final DiagnosticCode code;
+    private final int line;
+    private final int column;
+    private final Object[] arguments;
+
+    /**
+     * Creates a diagnostic
+     *
+     * @param column The column of the position, or -1 if only the line is known
+     * @param arguments The values the message pattern of the code refers to
+     */
+    public Diagnostic(DiagnosticCode code, int line, int column, Object... arguments) {
+        this.code = code;
+        this.line = line;
+        this.column = column;
+        this.arguments = arguments;
+    }
+
+    public DiagnosticCode getCode() {
+        return code;
+    }
+
+    public Phase getPhase() {
+        return code.getPhase();
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * Returns the column of the position, or -1 if only the line is known
+     */
+    public int getColumn() {
+        return column;
+    }
+
+    /**
+     * Formats the message of the diagnostic
+     */
+    public String getMessage() {
+        StringBuilder message = new StringBuilder();
+        code.format(arguments, message);
+        return message.toString();
+    }
+
+    /**
+     * Appends the diagnostic as the compiler prints it, e.g. {@code [Semantic Error] Line 3:4 - message}
+     */
+    void appendText(StringBuilder text) {
+        text.append('[').append(code.getPhase()).append(" Error] Line ").append(line);
+        if (column >= 0) {
+            text.append(':').append(column);
+        }
+        text.append(" - ");
+        code.format(arguments, text);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Diagnostic)) {
+            return false;
+        }
+        Diagnostic other = (Diagnostic) o;
+        return code == other.code && line == other.line && column == other.column
+                && Arrays.equals(arguments, other.arguments);
+    }
+
+    @Override
+    public int hashCode() {
+        return ((code.hashCode() * 31 + line) * 31 + column) * 31 + Arrays.hashCode(arguments);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        appendText(text);
+        return text.toString();
+    }
+}
@@ -0,0 +1,90 @@
+package com.minisoft.diagnostics;
+
+import java.util.Locale;
+
+/**
+ * Kinds of diagnostics the compiler reports, each with its phase and message pattern.
+ * A pattern refers to the arguments of a diagnostic as {@code {0}}, {@code {1}} and so on.
+ */
+public enum DiagnosticCode {
+    // Messages of the ANTLR lexer and parser, formatted by ANTLR
+    LEXICAL_ERROR(Phase.LEXICAL, "{0}"),
+    SYNTAX_ERROR(Phase.SYNTAX, "{0}"),
+    NESTING_TOO_DEEP(Phase.SYNTAX,
+                     "Nesting too deep: Blocks, parentheses, brackets and '!' may be nested at most {0} levels"),
+
+    // Declarations
+    DOUBLE_VARIABLE_DECLARATION(Phase.SEMANTIC, "Double declaration: Variable '{0}' is already declared"),
+    DOUBLE_CONSTANT_DECLARATION(Phase.SEMANTIC, "Double declaration: Constant '{0}' is already declared"),
+    NON_POSITIVE_ARRAY_SIZE(Phase.SEMANTIC, "Invalid array size: Size must be positive for array '{0}'"),
+    INVALID_ARRAY_SIZE(Phase.SEMANTIC, "Invalid array size: Not a valid integer for array '{0}'"),
+    INT_VALUE_FOR_NON_INT_CONSTANT(Phase.SEMANTIC,
+                                   "Type mismatch: Integer value assigned to non-integer constant '{0}'"),
+    FLOAT_VALUE_FOR_NON_FLOAT_CONSTANT(Phase.SEMANTIC,
+                                       "Type mismatch: Float value assigned to non-float constant '{0}'"),
+    INVALID_CONSTANT_VALUE(Phase.SEMANTIC, "Invalid number format for constant '{0}'"),
+
+    // Identifiers and statements
+    INT_LITERAL_OUT_OF_RANGE(Phase.SEMANTIC, "Invalid number format: Int literal out of range"),
+    UNDECLARED_IDENTIFIER(Phase.SEMANTIC, "Undeclared identifier: Variable '{0}' is not declared"),
+    UNDECLARED_LOOP_VARIABLE(Phase.SEMANTIC, "Undeclared identifier: For loop variable '{0}' is not declared"),
+    INDEXED_NON_ARRAY(Phase.SEMANTIC, "Cannot use array access on non-array variable '{0}'"),
+    CONSTANT_ASSIGNMENT(Phase.SEMANTIC, "Cannot modify the value of constant '{0}'"),
+    MISSING_ARRAY_INDEX(Phase.SEMANTIC, "Array '{0}' requires an index"),
+    NON_INT_LOOP_VARIABLE(Phase.SEMANTIC, "For loop variable must be of type Int, found {0}"),
+    CONSTANT_INPUT(Phase.SEMANTIC, "Cannot assign input to constant '{0}'"),
+    ARRAY_INPUT(Phase.SEMANTIC, "Cannot assign input to entire array '{0}', index required"),
+
+    // Types
+    TYPE_MISMATCH(Phase.SEMANTIC, "Type mismatch: Expected {0} but found {1}"),
+    NON_BOOLEAN_NOT(Phase.SEMANTIC, "Logical NOT (!) operator requires boolean operand, found {0}"),
+    NON_BOOLEAN_LOGICAL(Phase.SEMANTIC, "Logical {0} operator requires boolean operands, found {1}"),
+    COMPARISON_TYPE_MISMATCH(Phase.SEMANTIC, "Type mismatch in comparison: {0} and {1}"),
+    ASSIGNMENT_TYPE_MISMATCH(Phase.SEMANTIC, "Type mismatch in assignment: Cannot assign {0} to {1}"),
+    NON_BOOLEAN_CONDITION(Phase.SEMANTIC, "Condition must evaluate to a boolean, found {0}"),
+
+    // Runtime errors proven by constant propagation
+    NEGATIVE_INDEX(Phase.SEMANTIC, "Array index out of bounds: Negative index {0} for array '{1}'"),
+    INDEX_OUT_OF_BOUNDS(Phase.SEMANTIC, "Array index out of bounds: Index {0} exceeds array size {1} for array '{2}'"),
+    DIVISION_BY_ZERO(Phase.SEMANTIC, "Division by zero detected"),
+    ZERO_VARIABLE_DIVISOR(Phase.SEMANTIC, "Division by zero: '{0}' always has value 0 here"),
+    ZERO_DIVISOR(Phase.SEMANTIC, "Division by zero: Divisor always evaluates to 0"),
+
+    // Errors of a running program, formatted by the runtime
+    RUNTIME_ERROR(Phase.RUNTIME, "{0}");
+
+    private final Phase phase;
+    private final String pattern;
+
+    DiagnosticCode(Phase phase, String pattern) {
+        this.phase = phase;
+        this.pattern = pattern;
+    }
+
+    public Phase getPhase() {
+        return phase;
+    }
+
+    /**
+     * Returns the name of the code in JSON diagnostics, e.g. {@code undeclared-identifier}
+     */
+    public String getId() {
+        return name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
+    /**
+     * Appends the message of a diagnostic of this kind with the given arguments
+     */
+    void format(Object[] arguments, StringBuilder message) {
+        int length = pattern.length();
+        for (int i = 0; i < length; i++) {
+            char c = pattern.charAt(i);
+            if (c == '{' && i + 2 < length && pattern.charAt(i + 2) == '}') {
+                message.append(arguments[pattern.charAt(i + 1) - '0']);
+                i += 2;
+            } else {
+                message.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.minisoft.diagnostics;
+
+/**
+ * Writes the diagnostics passed on by a {@link DiagnosticSink} in some format
+ */
+public interface DiagnosticPrinter {
+    /**
+     * Writes a diagnostic, possibly only when the printer is next flushed
+     */
+    void print(Diagnostic diagnostic);
+
+    /**
+     * Writes that diagnostics beyond the given number are no longer printed
+     */
+    void limitReached(int limit);
+
+    /**
+     * Writes the diagnostics printed so far to the underlying stream
+     */
+    void flush();
+}
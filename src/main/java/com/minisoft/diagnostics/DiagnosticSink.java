@@ -0,0 +1,89 @@
+package com.minisoft.diagnostics;
+
+import java.io.PrintStream;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Collects the diagnostics of one compilation and passes them on to a {@link DiagnosticPrinter}.
+ * A diagnostic reported twice at the same position is printed once, and once a limit is reached the rest are
+ * only counted, so a file with a hundred thousand errors neither floods the output nor stalls the compiler on it.
+ * Diagnostics are counted per phase whether or not they are printed.
+ * <p>
+ * A sink is used by one thread at a time. Printers may buffer, so call {@link #flush()} before printing anything
+ * else to the same stream.
+ */
+public class DiagnosticSink {
+    /** Number of diagnostics printed per file unless told otherwise */
+    public static final int DEFAULT_LIMIT = 1000;
+
+    private final DiagnosticPrinter printer;
+    private final int limit;
+    private final Set<Diagnostic> printed = new HashSet<>();
+    private final int[] counts = new int[Phase.values().length];
+    private int suppressed;
+
+    /**
+     * Creates a sink printing up to the given number of diagnostics
+     */
+    public DiagnosticSink(DiagnosticPrinter printer, int limit) {
+        this.printer = printer;
+        this.limit = limit;
+    }
+
+    /**
+     * Returns a sink printing every diagnostic as text as soon as it is reported, for an analysis used on its own
+     */
+    public static DiagnosticSink printingTo(PrintStream out) {
+        return new DiagnosticSink(new TextDiagnosticPrinter(out, false), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Reports a diagnostic
+     *
+     * @param column The column of the position, or -1 if only the line is known
+     * @param arguments The values the message pattern of the code refers to
+     */
+    public void report(DiagnosticCode code, int line, int column, Object... arguments) {
+        report(new Diagnostic(code, line, column, arguments));
+    }
+
+    /**
+     * Reports a diagnostic
+     */
+    public void report(Diagnostic diagnostic) {
+        if (printed.contains(diagnostic)) {
+            return;
+        }
+        counts[diagnostic.getPhase().ordinal()]++;
+        if (printed.size() >= limit) {
+            if (suppressed++ == 0) {
+                printer.limitReached(limit);
+            }
+            return;
+        }
+        printed.add(diagnostic);
+        printer.print(diagnostic);
+    }
+
+    /**
+     * Returns the number of distinct diagnostics reported by a phase, printed or not
+     */
+    public int getCount(Phase phase) {
+        return counts[phase.ordinal()];
+    }
+
+    /**
+     * Returns the number of diagnostics that were not printed because the limit was reached
+     */
+    public int getSuppressedCount() {
+        return suppressed;
+    }
+
+    /**
+     * Writes the diagnostics printed so far to the underlying stream
+     */
+    public void flush() {
+        printer.flush();
+    }
+}
@@ -0,0 +1,103 @@
+package com.minisoft.diagnostics;
+
+import java.io.PrintStream;
+import java.util.Locale;
+
+/**
+ * Prints diagnostics as JSON lines, one object per diagnostic, for editors and build tools:
+ * <pre>
+ * {"file":"a.ms","phase":"semantic","code":"undeclared-identifier","line":3,"column":4,"message":"..."}
+ * </pre>
+ * The column is left out when only the line is known. When the limit of the sink is reached, one more object
+ * {@code {"file":"a.ms","code":"too-many-diagnostics","limit":1000}} is printed. Other lines the compiler
+ * prints to the same stream never start with a brace. Lines are buffered as by {@link TextDiagnosticPrinter}.
+ */
+public class JsonDiagnosticPrinter implements DiagnosticPrinter {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final PrintStream out;
+    private final String file;
+    private final StringBuilder buffer = new StringBuilder();
+
+    /**
+     * Creates a printer of the diagnostics of the given source file
+     */
+    public JsonDiagnosticPrinter(PrintStream out, String file) {
+        this.out = out;
+        this.file = file;
+    }
+
+    @Override
+    public void print(Diagnostic diagnostic) {
+        buffer.append("{\"file\":");
+        string(file);
+        buffer.append(",\"phase\":\"").append(diagnostic.getPhase().name().toLowerCase(Locale.ROOT))
+              .append("\",\"code\":\"").append(diagnostic.getCode().getId())
+              .append("\",\"line\":").append(diagnostic.getLine());
+        if (diagnostic.getColumn() >= 0) {
+            buffer.append(",\"column\":").append(diagnostic.getColumn());
+        }
+        buffer.append(",\"message\":");
+        string(diagnostic.getMessage());
+        buffer.append('}').append(System.lineSeparator());
+        if (buffer.length() > BUFFER_SIZE) {
+            flush();
+        }
+    }
+
+    @Override
+    public void limitReached(int limit) {
+        buffer.append("{\"file\":");
+        string(file);
+        buffer.append(",\"code\":\"too-many-diagnostics\",\"limit\":").append(limit).append('}')
+              .append(System.lineSeparator());
+        flush();
+    }
+
+    @Override
+    public void flush() {
+        if (buffer.length() > 0) {
+            out.append(buffer);
+            buffer.setLength(0);
+        }
+        out.flush();
+    }
+
+    private void string(String value) {
+        appendString(buffer, value);
+    }
+
+    /**
+     * Appends a JSON string literal
+     */
+    public static void appendString(StringBuilder buffer, String value) {
+        buffer.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    buffer.append("\\\"");
+                    break;
+                case '\\':
+                    buffer.append("\\\\");
+                    break;
+                case '\n':
+                    buffer.append("\\n");
+                    break;
+                case '\r':
+                    buffer.append("\\r");
+                    break;
+                case '\t':
+                    buffer.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        buffer.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        buffer.append(c);
+                    }
+            }
+        }
+        buffer.append('"');
+    }
+}
@@ -0,0 +1,25 @@
+package com.minisoft.diagnostics;
+
+/**
+ * Compiler phase a diagnostic is reported by
+ */
+public enum Phase {
+    LEXICAL("Lexical"),
+    SYNTAX("Syntax"),
+    SEMANTIC("Semantic"),
+    RUNTIME("Runtime");
+
+    private final String displayName;
+
+    Phase(String displayName) {
+        this.displayName = displayName;
+    }
+
+    /**
+     * Returns the name of the phase as printed in text diagnostics
+     */
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
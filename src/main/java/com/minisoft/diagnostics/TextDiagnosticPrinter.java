@@ -0,0 +1,58 @@
+package com.minisoft.diagnostics;
+
+import java.io.PrintStream;
+
+/**
+ * Prints diagnostics as lines of text, e.g. {@code [Semantic Error] Line 3:4 - message}.
+ * Lines are collected in a buffer and written to the stream in one call when the buffer fills up or the printer is
+ * flushed, rather than with one synchronized write per line.
+ */
+public class TextDiagnosticPrinter implements DiagnosticPrinter {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final PrintStream out;
+    private final int bufferSize;
+    private final StringBuilder buffer = new StringBuilder();
+
+    /**
+     * Creates a printer that buffers its output until it is flushed
+     */
+    public TextDiagnosticPrinter(PrintStream out) {
+        this(out, true);
+    }
+
+    /**
+     * Creates a printer
+     *
+     * @param buffered Whether lines are buffered until the printer is flushed, or printed one by one
+     */
+    public TextDiagnosticPrinter(PrintStream out, boolean buffered) {
+        this.out = out;
+        this.bufferSize = buffered ? BUFFER_SIZE : 0;
+    }
+
+    @Override
+    public void print(Diagnostic diagnostic) {
+        diagnostic.appendText(buffer);
+        buffer.append(System.lineSeparator());
+        if (buffer.length() > bufferSize) {
+            flush();
+        }
+    }
+
+    @Override
+    public void limitReached(int limit) {
+        buffer.append("Too many diagnostics: only the first ").append(limit).append(" are shown")
+              .append(System.lineSeparator());
+        flush();
+    }
+
+    @Override
+    public void flush() {
+        if (buffer.length() > 0) {
+            out.append(buffer);
+            buffer.setLength(0);
+        }
+        out.flush();
+    }
+}
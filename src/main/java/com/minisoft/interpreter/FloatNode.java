@@ -0,0 +1,9 @@
+package com.minisoft.interpreter;
+
+/**
+ * Executable form of an expression of type Float
+ */
+@FunctionalInterface
+interface FloatNode {
+    double evaluate(Frame frame);
+}
@@ -0,0 +1,39 @@
+package com.minisoft.interpreter;
+
+import com.minisoft.runtime.RuntimeIO;
+import com.minisoft.symbol.SlotLayout;
+
+/**
+ * Storage for the variables of a running MiniSoft program.
+ * Int and Float values live in primitive slots and arrays are backed by int[] and double[],
+ * so executing a program never boxes a value.
+ */
+final class Frame {
+    final int[] ints;
+    final double[] floats;
+    final int[][] intArrays;
+    final double[][] floatArrays;
+    final RuntimeIO io;
+
+    /**
+     * Allocates zero-initialized storage for every slot of the layout, followed by the slots holding the values
+     * computed before loops
+     *
+     * @param intCount The number of Int slots, at least that of the layout
+     * @param floatCount The number of Float slots, at least that of the layout
+     */
+    Frame(SlotLayout layout, int intCount, int floatCount, RuntimeIO io) {
+        this.ints = new int[intCount];
+        this.floats = new double[floatCount];
+        this.intArrays = new int[layout.getIntArrayCount()][];
+        this.floatArrays = new double[layout.getFloatArrayCount()][];
+        this.io = io;
+
+        for (int slot = 0; slot < intArrays.length; slot++) {
+            intArrays[slot] = new int[layout.getIntArraySize(slot)];
+        }
+        for (int slot = 0; slot < floatArrays.length; slot++) {
+            floatArrays[slot] = new double[layout.getFloatArraySize(slot)];
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.minisoft.interpreter;
+
+/**
+ * Executable form of an expression of type Int
+ */
+@FunctionalInterface
+interface IntNode {
+    int evaluate(Frame frame);
+}
@@ -0,0 +1,68 @@
+package com.minisoft.interpreter;
+
+import com.minisoft.ast.Program;
+import com.minisoft.optimizer.ConstantFacts;
+import com.minisoft.optimizer.LoopFacts;
+import com.minisoft.runtime.MiniSoftRuntimeException;
+import com.minisoft.runtime.RuntimeIO;
+import com.minisoft.symbol.SlotLayout;
+import com.minisoft.symbol.SymbolTable;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Tree-walking interpreter for MiniSoft programs.
+ * Executes a program that passed semantic analysis. The syntax tree is first lowered into typed
+ * executable nodes bound to primitive storage slots, which are then run against buffered standard I/O.
+ */
+public class Interpreter {
+    private final SymbolTable symbolTable;
+    private final SlotLayout layout;
+    private final ConstantFacts constants;
+    private final LoopFacts loops;
+
+    /**
+     * Creates an interpreter for programs described by the given symbol table
+     */
+    public Interpreter(SymbolTable symbolTable) {
+        this(symbolTable, ConstantFacts.NONE);
+    }
+
+    /**
+     * Creates an interpreter that replaces the expressions known to be constant by their values
+     */
+    public Interpreter(SymbolTable symbolTable, ConstantFacts constants) {
+        this(symbolTable, constants, LoopFacts.NONE);
+    }
+
+    /**
+     * Creates an interpreter that also computes the invariant expressions and induction variables of loops before
+     * running them
+     */
+    public Interpreter(SymbolTable symbolTable, ConstantFacts constants, LoopFacts loops) {
+        this.symbolTable = symbolTable;
+        this.layout = new SlotLayout(symbolTable);
+        this.constants = constants;
+        this.loops = loops;
+    }
+
+    /**
+     * Executes a program, reading input from and writing output to the given streams
+     *
+     * @param program The semantically checked syntax tree of the program
+     * @param in The stream input statements read from
+     * @param out The stream output statements write to
+     * @throws MiniSoftRuntimeException if the program fails at run time
+     */
+    public void run(Program program, InputStream in, OutputStream out) {
+        TreeCompiler compiler = new TreeCompiler(symbolTable, layout, constants, loops);
+        StatementNode body = compiler.compileProgram(program);
+        RuntimeIO io = new RuntimeIO(in, out);
+        try {
+            body.execute(new Frame(layout, compiler.getIntSlotCount(), compiler.getFloatSlotCount(), io));
+        } finally {
+            io.flush();
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.minisoft.interpreter;
+
+/**
+ * Executable form of an instruction
+ */
+@FunctionalInterface
+interface StatementNode {
+    void execute(Frame frame);
+}
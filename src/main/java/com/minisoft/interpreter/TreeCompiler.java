@@ -0,0 +1,591 @@
+package com.minisoft.interpreter;
+
+import com.minisoft.ast.ArrayElement;
+import com.minisoft.ast.Assignment;
+import com.minisoft.ast.Binary;
+import com.minisoft.ast.DoWhileLoop;
+import com.minisoft.ast.Expression;
+import com.minisoft.ast.ExpressionVisitor;
+import com.minisoft.ast.ForLoop;
+import com.minisoft.ast.Group;
+import com.minisoft.ast.Identifier;
+import com.minisoft.ast.IfStatement;
+import com.minisoft.ast.InputStatement;
+import com.minisoft.ast.Literal;
+import com.minisoft.ast.Logical;
+import com.minisoft.ast.Node;
+import com.minisoft.ast.Not;
+import com.minisoft.ast.Operator;
+import com.minisoft.ast.OutputStatement;
+import com.minisoft.ast.Program;
+import com.minisoft.ast.Statement;
+import com.minisoft.ast.StatementVisitor;
+import com.minisoft.ast.Text;
+import com.minisoft.optimizer.ConstantFacts;
+import com.minisoft.optimizer.LoopFacts;
+import com.minisoft.symbol.DataType;
+import com.minisoft.symbol.EntityKind;
+import com.minisoft.symbol.SlotLayout;
+import com.minisoft.symbol.SymbolEntity;
+import com.minisoft.symbol.SymbolTable;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.minisoft.runtime.RuntimeSupport.checkIndex;
+import static com.minisoft.runtime.RuntimeSupport.divide;
+
+/**
+ * Lowers a semantically checked syntax tree into a tree of executable nodes.
+ * Every expression is resolved once to a typed {@link IntNode} or {@link FloatNode}, with variables
+ * bound to their storage slot, so that executing the program does no symbol lookups, no string
+ * comparisons and no boxing. Expressions known to be constant become constant nodes, and branches whose
+ * condition is constant are dropped. The values loop optimization computes before a loop are kept in slots after
+ * those of the variables, allocated like a stack as loops nest.
+ */
+class TreeCompiler implements StatementVisitor<StatementNode> {
+    private final SymbolTable symbolTable;
+    private final SlotLayout layout;
+    private final ConstantFacts constants;
+    private final LoopFacts loops;
+    private final ExpressionCompiler expressions = new ExpressionCompiler();
+
+    // The slots holding the values of the expressions computed before the loop they are in
+    private final Map<Expression, Operand> precomputed = new IdentityHashMap<>();
+    private int nextIntSlot;
+    private int nextFloatSlot;
+    private int intSlotCount;
+    private int floatSlotCount;
+
+    /**
+     * Creates a compiler for programs using the given symbol table and slot layout
+     */
+    TreeCompiler(SymbolTable symbolTable, SlotLayout layout, ConstantFacts constants, LoopFacts loops) {
+        this.symbolTable = symbolTable;
+        this.layout = layout;
+        this.constants = constants;
+        this.loops = loops;
+        this.nextIntSlot = intSlotCount = layout.getIntCount();
+        this.nextFloatSlot = floatSlotCount = layout.getFloatCount();
+    }
+
+    /**
+     * Lowers the instructions of a program
+     */
+    StatementNode compileProgram(Program program) {
+        return compileStatements(program.getInstructions());
+    }
+
+    /**
+     * Returns the number of Int slots of the lowered program, those of the variables and those of loop optimization
+     */
+    int getIntSlotCount() {
+        return intSlotCount;
+    }
+
+    /**
+     * Returns the number of Float slots of the lowered program
+     */
+    int getFloatSlotCount() {
+        return floatSlotCount;
+    }
+
+    // Instructions
+
+    private StatementNode compileStatements(List<Statement> statements) {
+        StatementNode[] nodes = new StatementNode[statements.size()];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = statements.get(i).accept(this);
+        }
+
+        if (nodes.length == 1) {
+            return nodes[0];
+        }
+        return frame -> {
+            for (StatementNode statement : nodes) {
+                statement.execute(frame);
+            }
+        };
+    }
+
+    @Override
+    public StatementNode visitAssignment(Assignment assignment) {
+        SymbolEntity entity = symbolTable.lookupSymbol(assignment.getName());
+        int slot = layout.slotOf(entity.getName());
+        boolean isInt = entity.getDataType() == DataType.INT;
+
+        if (assignment.getIndex() != null) {
+            IntNode index = compileExpression(assignment.getIndex()).asInt();
+            Operand value = compileExpression(assignment.getValue());
+            int line = assignment.getLine();
+            String name = entity.getName();
+
+            if (isInt) {
+                IntNode intValue = value.asInt();
+                return frame -> {
+                    int[] array = frame.intArrays[slot];
+                    array[checkIndex(index.evaluate(frame), array.length, name, line)] = intValue.evaluate(frame);
+                };
+            }
+            FloatNode floatValue = value.asFloat();
+            return frame -> {
+                double[] array = frame.floatArrays[slot];
+                array[checkIndex(index.evaluate(frame), array.length, name, line)] = floatValue.evaluate(frame);
+            };
+        }
+
+        Operand value = compileExpression(assignment.getValue());
+        if (isInt) {
+            IntNode intValue = value.asInt();
+            return frame -> frame.ints[slot] = intValue.evaluate(frame);
+        }
+        FloatNode floatValue = value.asFloat();
+        return frame -> frame.floats[slot] = floatValue.evaluate(frame);
+    }
+
+    @Override
+    public StatementNode visitIf(IfStatement statement) {
+        if (constants.isAlwaysTrue(statement.getCondition())) {
+            return compileStatements(statement.getThenBranch());
+        }
+        if (constants.isAlwaysFalse(statement.getCondition())) {
+            return statement.getElseBranch() != null ? compileStatements(statement.getElseBranch()) : frame -> { };
+        }
+
+        IntNode condition = compileExpression(statement.getCondition()).asTruth();
+        StatementNode thenBranch = compileStatements(statement.getThenBranch());
+
+        if (statement.getElseBranch() == null) {
+            return frame -> {
+                if (condition.evaluate(frame) != 0) {
+                    thenBranch.execute(frame);
+                }
+            };
+        }
+
+        StatementNode elseBranch = compileStatements(statement.getElseBranch());
+        return frame -> {
+            if (condition.evaluate(frame) != 0) {
+                thenBranch.execute(frame);
+            } else {
+                elseBranch.execute(frame);
+            }
+        };
+    }
+
+    @Override
+    public StatementNode visitDoWhile(DoWhileLoop loop) {
+        int intMark = nextIntSlot;
+        int floatMark = nextFloatSlot;
+        StatementNode invariants = compileInvariants(loop);
+        StatementNode body = compileStatements(loop.getBody());
+        IntNode condition = constants.isAlwaysFalse(loop.getCondition()) ? null
+                : compileExpression(loop.getCondition()).asTruth();
+        nextIntSlot = intMark;
+        nextFloatSlot = floatMark;
+
+        StatementNode statement = condition == null ? body : frame -> {
+            do {
+                body.execute(frame);
+            } while (condition.evaluate(frame) != 0);
+        };
+        if (invariants == null) {
+            return statement;
+        }
+        return frame -> {
+            invariants.execute(frame);
+            statement.execute(frame);
+        };
+    }
+
+    /**
+     * Lowers a for loop. The loop variable starts at the "from" value and the body runs while it has not
+     * passed the inclusive "to" bound, moving by "step" after each iteration; a negative step counts down.
+     * The bound and step are evaluated again before every iteration, unless loop optimization found them invariant.
+     */
+    @Override
+    public StatementNode visitFor(ForLoop loop) {
+        int slot = layout.slotOf(loop.getVariable());
+        IntNode from = compileExpression(loop.getFrom()).asInt();
+        int intMark = nextIntSlot;
+        int floatMark = nextFloatSlot;
+        StatementNode invariants = compileInvariants(loop);
+        IntNode to = compileExpression(loop.getTo()).asInt();
+        IntNode step = compileExpression(loop.getStep()).asInt();
+
+        // Every induction variable has a slot for its value and one for what it grows by
+        List<Binary> inductions = loops.getInductions(loop);
+        IntNode[] factors = new IntNode[inductions.size()];
+        int[] inductionSlots = new int[inductions.size()];
+        for (int i = 0; i < factors.length; i++) {
+            factors[i] = compileExpression(LoopFacts.factorOf(loop, inductions.get(i))).asInt();
+            int inductionSlot = intSlot();
+            inductionSlots[i] = inductionSlot;
+            intSlot();
+            precomputed.put(inductions.get(i), Operand.ofInt(frame -> frame.ints[inductionSlot]));
+        }
+        StatementNode body = compileStatements(loop.getBody());
+        nextIntSlot = intMark;
+        nextFloatSlot = floatMark;
+
+        if (!loops.isStepInvariant(loop)) {
+            return frame -> {
+                int[] ints = frame.ints;
+                ints[slot] = from.evaluate(frame);
+                if (invariants != null) {
+                    invariants.execute(frame);
+                }
+                while (true) {
+                    int increment = step.evaluate(frame);
+                    int bound = to.evaluate(frame);
+                    if (increment >= 0 ? ints[slot] > bound : ints[slot] < bound) {
+                        break;
+                    }
+                    body.execute(frame);
+                    ints[slot] += step.evaluate(frame);
+                }
+            };
+        }
+
+        boolean boundInvariant = loops.isBoundInvariant(loop);
+        return frame -> {
+            int[] ints = frame.ints;
+            ints[slot] = from.evaluate(frame);
+            if (invariants != null) {
+                invariants.execute(frame);
+            }
+            int increment = step.evaluate(frame);
+            int bound = to.evaluate(frame);
+            for (int i = 0; i < factors.length; i++) {
+                int factor = factors[i].evaluate(frame);
+                ints[inductionSlots[i]] = ints[slot] * factor;
+                ints[inductionSlots[i] + 1] = increment * factor;
+            }
+            while (increment >= 0 ? ints[slot] <= bound : ints[slot] >= bound) {
+                body.execute(frame);
+                ints[slot] += increment;
+                for (int inductionSlot : inductionSlots) {
+                    ints[inductionSlot] += ints[inductionSlot + 1];
+                }
+                if (!boundInvariant) {
+                    bound = to.evaluate(frame);
+                }
+            }
+        };
+    }
+
+    /**
+     * Lowers the evaluation of the invariant expressions of a loop into slots, or returns null if it has none
+     */
+    private StatementNode compileInvariants(Statement loop) {
+        List<Expression> invariants = loops.getInvariants(loop);
+        if (invariants.isEmpty()) {
+            return null;
+        }
+        StatementNode[] stores = new StatementNode[invariants.size()];
+        for (int i = 0; i < stores.length; i++) {
+            Operand value = compileExpression(invariants.get(i));
+            if (value.isFloat()) {
+                FloatNode floatValue = value.floatNode;
+                int slot = floatSlot();
+                stores[i] = frame -> frame.floats[slot] = floatValue.evaluate(frame);
+                precomputed.put(invariants.get(i), Operand.ofFloat(frame -> frame.floats[slot]));
+            } else {
+                IntNode intValue = value.intNode;
+                int slot = intSlot();
+                stores[i] = frame -> frame.ints[slot] = intValue.evaluate(frame);
+                precomputed.put(invariants.get(i), Operand.ofInt(frame -> frame.ints[slot]));
+            }
+        }
+        return frame -> {
+            for (StatementNode store : stores) {
+                store.execute(frame);
+            }
+        };
+    }
+
+    private int intSlot() {
+        int slot = nextIntSlot++;
+        intSlotCount = Math.max(intSlotCount, nextIntSlot);
+        return slot;
+    }
+
+    private int floatSlot() {
+        int slot = nextFloatSlot++;
+        floatSlotCount = Math.max(floatSlotCount, nextFloatSlot);
+        return slot;
+    }
+
+    @Override
+    public StatementNode visitInput(InputStatement statement) {
+        SymbolEntity entity = symbolTable.lookupSymbol(statement.getName());
+        int slot = layout.slotOf(entity.getName());
+        int line = statement.getLine();
+
+        if (entity.getDataType() == DataType.INT) {
+            return frame -> frame.ints[slot] = frame.io.readInt(line);
+        }
+        return frame -> frame.floats[slot] = frame.io.readFloat(line);
+    }
+
+    @Override
+    public StatementNode visitOutput(OutputStatement statement) {
+        List<Node> args = statement.getArguments();
+        StatementNode[] printers = new StatementNode[args.size()];
+
+        for (int i = 0; i < printers.length; i++) {
+            Node arg = args.get(i);
+            if (arg instanceof Text) {
+                String text = ((Text) arg).getValue();
+                printers[i] = frame -> frame.io.printString(text);
+            } else {
+                Operand value = compileExpression((Expression) arg);
+                if (value.isFloat()) {
+                    FloatNode floatValue = value.floatNode;
+                    printers[i] = frame -> frame.io.printFloat(floatValue.evaluate(frame));
+                } else {
+                    IntNode intValue = value.intNode;
+                    printers[i] = frame -> frame.io.printInt(intValue.evaluate(frame));
+                }
+            }
+        }
+
+        return frame -> {
+            for (int i = 0; i < printers.length; i++) {
+                if (i > 0) {
+                    frame.io.printSeparator();
+                }
+                printers[i].execute(frame);
+            }
+            frame.io.println();
+        };
+    }
+
+    // Expressions
+
+    /**
+     * Lowers an expression, or returns its value if it is known to be constant, or the slot holding it if it was
+     * computed before its loop
+     */
+    private Operand compileExpression(Expression expression) {
+        Number constant = constants.valueOf(expression);
+        if (constant != null) {
+            return Operand.constant(constant);
+        }
+        if (loops.isPrecomputed(expression)) {
+            Operand slot = precomputed.get(expression);
+            if (slot != null) {
+                return slot;
+            }
+        }
+        return expression.accept(expressions);
+    }
+
+    /**
+     * Lowers the expressions that are not constant
+     */
+    private final class ExpressionCompiler implements ExpressionVisitor<Operand> {
+        @Override
+        public Operand visitLiteral(Literal literal) {
+            return literal.isFloat() ? Operand.floatConstant(literal.getFloatValue())
+                                     : Operand.intConstant(literal.getIntValue());
+        }
+
+        @Override
+        public Operand visitIdentifier(Identifier identifier) {
+            SymbolEntity entity = symbolTable.lookupSymbol(identifier.getName());
+            boolean isInt = entity.getDataType() == DataType.INT;
+
+            if (entity.getKind() == EntityKind.CONSTANT) {
+                return isInt ? Operand.intConstant(((Number) entity.getValue()).intValue())
+                             : Operand.floatConstant(Double.parseDouble(entity.getValue().toString()));
+            }
+            int slot = layout.slotOf(entity.getName());
+            return isInt ? Operand.ofInt(frame -> frame.ints[slot])
+                         : Operand.ofFloat(frame -> frame.floats[slot]);
+        }
+
+        @Override
+        public Operand visitArrayElement(ArrayElement element) {
+            SymbolEntity entity = symbolTable.lookupSymbol(element.getName());
+            int slot = layout.slotOf(entity.getName());
+            IntNode index = compileExpression(element.getIndex()).asInt();
+            String name = entity.getName();
+            int line = element.getLine();
+            if (entity.getDataType() == DataType.INT) {
+                return Operand.ofInt(frame -> {
+                    int[] array = frame.intArrays[slot];
+                    return array[checkIndex(index.evaluate(frame), array.length, name, line)];
+                });
+            }
+            return Operand.ofFloat(frame -> {
+                double[] array = frame.floatArrays[slot];
+                return array[checkIndex(index.evaluate(frame), array.length, name, line)];
+            });
+        }
+
+        @Override
+        public Operand visitGroup(Group group) {
+            return compileExpression(group.getExpression());
+        }
+
+        @Override
+        public Operand visitNot(Not not) {
+            IntNode operand = compileExpression(not.getOperand()).asTruth();
+            return Operand.ofInt(frame -> operand.evaluate(frame) == 0 ? 1 : 0);
+        }
+
+        @Override
+        public Operand visitLogical(Logical logical) {
+            boolean isOr = logical.getOperator() == Operator.OR;
+            List<Expression> operands = logical.getOperands();
+            Operand result = compileExpression(operands.get(0));
+            for (int i = 1; i < operands.size(); i++) {
+                IntNode left = result.asTruth();
+                IntNode right = compileExpression(operands.get(i)).asTruth();
+                result = isOr ? Operand.ofInt(frame -> left.evaluate(frame) != 0 || right.evaluate(frame) != 0 ? 1 : 0)
+                              : Operand.ofInt(frame -> left.evaluate(frame) != 0 && right.evaluate(frame) != 0 ? 1 : 0);
+            }
+            return result;
+        }
+
+        @Override
+        public Operand visitBinary(Binary binary) {
+            Operand left = compileExpression(binary.getLeft());
+            Operand right = compileExpression(binary.getRight());
+            if (binary.getOperator().isComparison()) {
+                return comparison(binary.getOperator(), left, right);
+            }
+            return arithmetic(binary.getOperator(), left, right, binary.getLine());
+        }
+    }
+
+    /**
+     * Compares two operands, as Float if either of them is Float
+     */
+    private static Operand comparison(Operator operator, Operand left, Operand right) {
+        if (!left.isFloat() && !right.isFloat()) {
+            IntNode l = left.intNode;
+            IntNode r = right.intNode;
+            switch (operator) {
+                case GT: return Operand.ofInt(frame -> l.evaluate(frame) > r.evaluate(frame) ? 1 : 0);
+                case LT: return Operand.ofInt(frame -> l.evaluate(frame) < r.evaluate(frame) ? 1 : 0);
+                case GE: return Operand.ofInt(frame -> l.evaluate(frame) >= r.evaluate(frame) ? 1 : 0);
+                case LE: return Operand.ofInt(frame -> l.evaluate(frame) <= r.evaluate(frame) ? 1 : 0);
+                case EQ: return Operand.ofInt(frame -> l.evaluate(frame) == r.evaluate(frame) ? 1 : 0);
+                default: return Operand.ofInt(frame -> l.evaluate(frame) != r.evaluate(frame) ? 1 : 0);
+            }
+        }
+
+        FloatNode l = left.asFloat();
+        FloatNode r = right.asFloat();
+        switch (operator) {
+            case GT: return Operand.ofInt(frame -> l.evaluate(frame) > r.evaluate(frame) ? 1 : 0);
+            case LT: return Operand.ofInt(frame -> l.evaluate(frame) < r.evaluate(frame) ? 1 : 0);
+            case GE: return Operand.ofInt(frame -> l.evaluate(frame) >= r.evaluate(frame) ? 1 : 0);
+            case LE: return Operand.ofInt(frame -> l.evaluate(frame) <= r.evaluate(frame) ? 1 : 0);
+            case EQ: return Operand.ofInt(frame -> l.evaluate(frame) == r.evaluate(frame) ? 1 : 0);
+            default: return Operand.ofInt(frame -> l.evaluate(frame) != r.evaluate(frame) ? 1 : 0);
+        }
+    }
+
+    /**
+     * Combines two operands with an arithmetic operator. The result is Int only if both operands are Int;
+     * otherwise both are converted to Float. Division by zero is a runtime error for both types.
+     */
+    private static Operand arithmetic(Operator operator, Operand left, Operand right, int line) {
+        if (!left.isFloat() && !right.isFloat()) {
+            IntNode l = left.intNode;
+            IntNode r = right.intNode;
+            switch (operator) {
+                case PLUS: return Operand.ofInt(frame -> l.evaluate(frame) + r.evaluate(frame));
+                case MINUS: return Operand.ofInt(frame -> l.evaluate(frame) - r.evaluate(frame));
+                case MUL: return Operand.ofInt(frame -> l.evaluate(frame) * r.evaluate(frame));
+                default: return Operand.ofInt(frame -> divide(l.evaluate(frame), r.evaluate(frame), line));
+            }
+        }
+
+        FloatNode l = left.asFloat();
+        FloatNode r = right.asFloat();
+        switch (operator) {
+            case PLUS: return Operand.ofFloat(frame -> l.evaluate(frame) + r.evaluate(frame));
+            case MINUS: return Operand.ofFloat(frame -> l.evaluate(frame) - r.evaluate(frame));
+            case MUL: return Operand.ofFloat(frame -> l.evaluate(frame) * r.evaluate(frame));
+            default: return Operand.ofFloat(frame -> divide(l.evaluate(frame), r.evaluate(frame), line));
+        }
+    }
+
+    /**
+     * A lowered expression together with its static type
+     */
+    private static final class Operand {
+        final IntNode intNode;
+        final FloatNode floatNode;
+
+        private Operand(IntNode intNode, FloatNode floatNode) {
+            this.intNode = intNode;
+            this.floatNode = floatNode;
+        }
+
+        static Operand ofInt(IntNode node) {
+            return new Operand(node, null);
+        }
+
+        static Operand ofFloat(FloatNode node) {
+            return new Operand(null, node);
+        }
+
+        static Operand intConstant(int value) {
+            return ofInt(frame -> value);
+        }
+
+        static Operand floatConstant(double value) {
+            return ofFloat(frame -> value);
+        }
+
+        /**
+         * Returns a constant operand for a folded value, an Integer or a Double
+         */
+        static Operand constant(Number value) {
+            return value instanceof Integer ? intConstant(value.intValue()) : floatConstant(value.doubleValue());
+        }
+
+        boolean isFloat() {
+            return floatNode != null;
+        }
+
+        /**
+         * Returns the expression as Int, truncating a Float value
+         */
+        IntNode asInt() {
+            if (intNode != null) {
+                return intNode;
+            }
+            FloatNode node = floatNode;
+            return frame -> (int) node.evaluate(frame);
+        }
+
+        /**
+         * Returns the expression as Float, widening an Int value
+         */
+        FloatNode asFloat() {
+            if (floatNode != null) {
+                return floatNode;
+            }
+            IntNode node = intNode;
+            return frame -> node.evaluate(frame);
+        }
+
+        /**
+         * Returns the expression as a truth value, where any non-zero value is true
+         */
+        IntNode asTruth() {
+            if (intNode != null) {
+                return intNode;
+            }
+            FloatNode node = floatNode;
+            return frame -> node.evaluate(frame) != 0.0 ? 1 : 0;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.minisoft.ir;
+
+import java.nio.IntBuffer;
+
+/**
+ * A program in quadruple form: the quadruples with their source lines, and the tables their operands index into.
+ * The quadruple and line sections are int buffers, so code read by {@link IrFile#map} stays in the mapped file
+ * and is only paged in as it is accessed; the tables are small and held in arrays.
+ */
+public class IntermediateCode {
+    private static final int QUAD_SIZE = 4;
+
+    private final String programName;
+    private final String[] symbolNames;
+    private final boolean[] floatSymbols;
+    private final int[] arraySizes;
+    private final boolean[] floatTemps;
+    private final int[] intConstants;
+    private final double[] floatConstants;
+    private final String[] strings;
+    private final IntBuffer quads;
+    private final IntBuffer lines;
+
+    /**
+     * Creates intermediate code from its sections
+     *
+     * @param arraySizes The size of each array symbol, 0 for scalar variables
+     * @param quads Four ints per quadruple: operator code, arg1, arg2 and result
+     * @param lines The source line of each quadruple
+     */
+    IntermediateCode(String programName, String[] symbolNames, boolean[] floatSymbols, int[] arraySizes,
+                     boolean[] floatTemps, int[] intConstants, double[] floatConstants, String[] strings,
+                     IntBuffer quads, IntBuffer lines) {
+        this.programName = programName;
+        this.symbolNames = symbolNames;
+        this.floatSymbols = floatSymbols;
+        this.arraySizes = arraySizes;
+        this.floatTemps = floatTemps;
+        this.intConstants = intConstants;
+        this.floatConstants = floatConstants;
+        this.strings = strings;
+        this.quads = quads;
+        this.lines = lines;
+    }
+
+    public String getProgramName() {
+        return programName;
+    }
+
+    public int getQuadCount() {
+        return lines.limit();
+    }
+
+    public Op getOp(int quad) {
+        return Op.fromCode(quads.get(quad * QUAD_SIZE));
+    }
+
+    public int getArg1(int quad) {
+        return quads.get(quad * QUAD_SIZE + 1);
+    }
+
+    public int getArg2(int quad) {
+        return quads.get(quad * QUAD_SIZE + 2);
+    }
+
+    public int getResult(int quad) {
+        return quads.get(quad * QUAD_SIZE + 3);
+    }
+
+    /**
+     * Returns the source line a quadruple was generated from, for runtime error reporting
+     */
+    public int getLine(int quad) {
+        return lines.get(quad);
+    }
+
+    /**
+     * Returns the number of variables and arrays; constants are not symbols but constant operands
+     */
+    public int getSymbolCount() {
+        return symbolNames.length;
+    }
+
+    public String getSymbolName(int symbol) {
+        return symbolNames[symbol];
+    }
+
+    public boolean isFloatSymbol(int symbol) {
+        return floatSymbols[symbol];
+    }
+
+    public boolean isArray(int symbol) {
+        return arraySizes[symbol] > 0;
+    }
+
+    /**
+     * Returns the declared size of an array symbol, or 0 for a scalar variable
+     */
+    public int getArraySize(int symbol) {
+        return arraySizes[symbol];
+    }
+
+    public int getTempCount() {
+        return floatTemps.length;
+    }
+
+    public boolean isFloatTemp(int temp) {
+        return floatTemps[temp];
+    }
+
+    public int getIntConstantCount() {
+        return intConstants.length;
+    }
+
+    public int getIntConstant(int index) {
+        return intConstants[index];
+    }
+
+    public int getFloatConstantCount() {
+        return floatConstants.length;
+    }
+
+    public double getFloatConstant(int index) {
+        return floatConstants[index];
+    }
+
+    public int getStringCount() {
+        return strings.length;
+    }
+
+    public String getString(int index) {
+        return strings[index];
+    }
+
+    /**
+     * Returns whether a value operand is of type Float; strings and labels are not
+     */
+    public boolean isFloat(int operand) {
+        int index = Operand.index(operand);
+        switch (Operand.kind(operand)) {
+            case Operand.KIND_VARIABLE:
+                return floatSymbols[index];
+            case Operand.KIND_TEMP:
+                return floatTemps[index];
+            case Operand.KIND_FLOAT_CONSTANT:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Returns the textual form of an operand as shown in quadruple listings
+     */
+    public String format(int operand) {
+        int index = Operand.index(operand);
+        switch (Operand.kind(operand)) {
+            case Operand.KIND_VARIABLE:
+                return symbolNames[index];
+            case Operand.KIND_TEMP:
+                return "t" + (index + 1);
+            case Operand.KIND_INT_CONSTANT:
+                return Integer.toString(intConstants[index]);
+            case Operand.KIND_FLOAT_CONSTANT:
+                return Double.toString(floatConstants[index]);
+            case Operand.KIND_STRING:
+                return "\"" + strings[index] + "\"";
+            case Operand.KIND_LABEL:
+                return Integer.toString(index);
+            default:
+                return "";
+        }
+    }
+
+    /**
+     * Returns the quadruple listing, one numbered {@code (op, arg1, arg2, result)} per line
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < getQuadCount(); i++) {
+            sb.append(i).append(": (").append(getOp(i).getSymbol())
+              .append(", ").append(format(getArg1(i)))
+              .append(", ").append(format(getArg2(i)))
+              .append(", ").append(format(getResult(i)))
+              .append(")\n");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,177 @@
+package com.minisoft.ir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary file format for {@link IntermediateCode}, designed to be memory-mapped.
+ * All values are big-endian. A fixed header of {@value #HEADER_INTS} ints (magic, version and the size of every
+ * section) is followed by the fixed-size sections, so that the quadruples start at a known, aligned offset and
+ * any quadruple can be read in place without decoding the ones before it:
+ * <pre>
+ * header     magic, version, quadCount, symbolCount, tempCount, intCount, floatCount, stringCount
+ * quads      quadCount x 4 ints: operator code, arg1, arg2, result
+ * lines      quadCount ints
+ * ints       intCount ints
+ * floats     floatCount doubles
+ * temps      tempCount bytes, 1 for Float
+ * symbols    symbolCount x (byte 1 for Float, int array size or 0, name)
+ * strings    stringCount strings
+ * program    the program name
+ * </pre>
+ * Strings are stored as an int byte length followed by UTF-8 bytes.
+ */
+public final class IrFile {
+    public static final String EXTENSION = ".msq";
+
+    // "MSQ1"
+    private static final int MAGIC = 0x4D535131;
+    private static final int VERSION = 1;
+    private static final int HEADER_INTS = 8;
+
+    private IrFile() {
+    }
+
+    /**
+     * Writes intermediate code to a file, replacing it if it exists
+     */
+    public static void write(IntermediateCode code, Path file) throws IOException {
+        int quadCount = code.getQuadCount();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(HEADER_INTS * 4 + quadCount * 20 + 256);
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(quadCount);
+        out.writeInt(code.getSymbolCount());
+        out.writeInt(code.getTempCount());
+        out.writeInt(code.getIntConstantCount());
+        out.writeInt(code.getFloatConstantCount());
+        out.writeInt(code.getStringCount());
+
+        for (int i = 0; i < quadCount; i++) {
+            out.writeInt(code.getOp(i).ordinal());
+            out.writeInt(code.getArg1(i));
+            out.writeInt(code.getArg2(i));
+            out.writeInt(code.getResult(i));
+        }
+        for (int i = 0; i < quadCount; i++) {
+            out.writeInt(code.getLine(i));
+        }
+        for (int i = 0; i < code.getIntConstantCount(); i++) {
+            out.writeInt(code.getIntConstant(i));
+        }
+        for (int i = 0; i < code.getFloatConstantCount(); i++) {
+            out.writeDouble(code.getFloatConstant(i));
+        }
+        for (int i = 0; i < code.getTempCount(); i++) {
+            out.writeByte(code.isFloatTemp(i) ? 1 : 0);
+        }
+        for (int i = 0; i < code.getSymbolCount(); i++) {
+            out.writeByte(code.isFloatSymbol(i) ? 1 : 0);
+            out.writeInt(code.getArraySize(i));
+            writeString(out, code.getSymbolName(i));
+        }
+        for (int i = 0; i < code.getStringCount(); i++) {
+            writeString(out, code.getString(i));
+        }
+        writeString(out, code.getProgramName());
+
+        out.flush();
+        Files.write(file, bytes.toByteArray());
+    }
+
+    /**
+     * Maps a file written by {@link #write} into memory. The quadruples and their lines are read from the
+     * mapping on access; the mapping stays valid after the file is closed.
+     *
+     * @throws IOException if the file cannot be read or is not a quadruple file of a supported version
+     */
+    public static IntermediateCode map(Path file) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException(file + " is not a MiniSoft quadruple file");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException(file + " has unsupported version " + version);
+            }
+            int quadCount = buffer.getInt();
+            int symbolCount = buffer.getInt();
+            int tempCount = buffer.getInt();
+            int intCount = buffer.getInt();
+            int floatCount = buffer.getInt();
+            int stringCount = buffer.getInt();
+
+            IntBuffer quads = slice(buffer, quadCount * 4 * 4).asIntBuffer();
+            IntBuffer lines = slice(buffer, quadCount * 4).asIntBuffer();
+
+            int[] intConstants = new int[intCount];
+            for (int i = 0; i < intCount; i++) {
+                intConstants[i] = buffer.getInt();
+            }
+            double[] floatConstants = new double[floatCount];
+            for (int i = 0; i < floatCount; i++) {
+                floatConstants[i] = buffer.getDouble();
+            }
+            boolean[] floatTemps = new boolean[tempCount];
+            for (int i = 0; i < tempCount; i++) {
+                floatTemps[i] = buffer.get() != 0;
+            }
+            String[] symbolNames = new String[symbolCount];
+            boolean[] floatSymbols = new boolean[symbolCount];
+            int[] arraySizes = new int[symbolCount];
+            for (int i = 0; i < symbolCount; i++) {
+                floatSymbols[i] = buffer.get() != 0;
+                arraySizes[i] = buffer.getInt();
+                symbolNames[i] = readString(buffer);
+            }
+            String[] strings = new String[stringCount];
+            for (int i = 0; i < stringCount; i++) {
+                strings[i] = readString(buffer);
+            }
+            String programName = readString(buffer);
+
+            return new IntermediateCode(programName, symbolNames, floatSymbols, arraySizes, floatTemps,
+                                        intConstants, floatConstants, strings, quads, lines);
+        } catch (RuntimeException e) {
+            // Truncated sections surface as BufferUnderflowException, bad counts as IllegalArgumentException
+            throw new IOException(file + " is truncated or corrupt", e);
+        }
+    }
+
+    /**
+     * Returns the next {@code length} bytes of the buffer as a separate buffer and skips past them
+     */
+    private static ByteBuffer slice(ByteBuffer buffer, int length) {
+        ByteBuffer section = buffer.slice();
+        section.limit(length);
+        buffer.position(buffer.position() + length);
+        return section;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] utf8 = new byte[buffer.getInt()];
+        buffer.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,576 @@
+package com.minisoft.ir;
+
+import com.minisoft.ast.ArrayElement;
+import com.minisoft.ast.Assignment;
+import com.minisoft.ast.Binary;
+import com.minisoft.ast.DoWhileLoop;
+import com.minisoft.ast.Expression;
+import com.minisoft.ast.ExpressionVisitor;
+import com.minisoft.ast.ForLoop;
+import com.minisoft.ast.Group;
+import com.minisoft.ast.Identifier;
+import com.minisoft.ast.IfStatement;
+import com.minisoft.ast.InputStatement;
+import com.minisoft.ast.Literal;
+import com.minisoft.ast.Logical;
+import com.minisoft.ast.Node;
+import com.minisoft.ast.Not;
+import com.minisoft.ast.Operator;
+import com.minisoft.ast.OutputStatement;
+import com.minisoft.ast.Program;
+import com.minisoft.ast.Statement;
+import com.minisoft.ast.StatementVisitor;
+import com.minisoft.ast.Text;
+import com.minisoft.optimizer.ConstantFacts;
+import com.minisoft.symbol.DataType;
+import com.minisoft.symbol.EntityKind;
+import com.minisoft.symbol.SymbolEntity;
+import com.minisoft.symbol.SymbolTable;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lowers a semantically checked syntax tree into quadruples.
+ * Every expression result gets a fresh temporary, conditions become branches (logical operators short-circuit),
+ * and conversions between Int and Float are explicit, so consumers of the quadruples need neither the syntax
+ * tree nor the typing rules. Expressions known to be constant become constant operands and branches whose
+ * condition is constant are dropped. Forward branches are backpatched once their target is known.
+ * An instance generates the code of one program.
+ */
+public class IrGenerator implements StatementVisitor<Void> {
+    private final SymbolTable symbolTable;
+    private final ConstantFacts constants;
+    private final ExpressionGenerator expressions = new ExpressionGenerator();
+
+    private int[] quads = new int[1024];
+    private int[] lines = new int[256];
+    private int quadCount;
+
+    private final Map<String, Integer> symbols = new LinkedHashMap<>();
+    private final List<Boolean> floatSymbols = new ArrayList<>();
+    private final List<Boolean> floatTemps = new ArrayList<>();
+    private final Map<Integer, Integer> intConstants = new LinkedHashMap<>();
+    private final List<Integer> intValues = new ArrayList<>();
+    private final Map<Double, Integer> floatConstants = new LinkedHashMap<>();
+    private final Map<String, Integer> strings = new LinkedHashMap<>();
+
+    private final List<Integer> labels = new ArrayList<>();
+    private final Map<Integer, Integer> fixups = new HashMap<>();
+
+    /**
+     * Creates a generator for the program described by the given symbol table
+     */
+    public IrGenerator(SymbolTable symbolTable) {
+        this(symbolTable, ConstantFacts.NONE);
+    }
+
+    /**
+     * Creates a generator that replaces the expressions known to be constant by their values
+     */
+    public IrGenerator(SymbolTable symbolTable, ConstantFacts constants) {
+        this.symbolTable = symbolTable;
+        this.constants = constants;
+        for (SymbolEntity entity : symbolTable.getSymbols().values()) {
+            if (entity.getKind() != EntityKind.CONSTANT) {
+                symbols.put(entity.getName(), symbols.size());
+                floatSymbols.add(entity.getDataType() == DataType.FLOAT);
+            }
+        }
+    }
+
+    /**
+     * Generates the quadruples of a program
+     *
+     * @param program The semantically checked syntax tree of the program
+     * @return The program in quadruple form
+     */
+    public IntermediateCode generate(Program program) {
+        generateStatements(program.getInstructions());
+
+        for (Map.Entry<Integer, Integer> fixup : fixups.entrySet()) {
+            quads[fixup.getKey()] = Operand.of(Operand.KIND_LABEL, labels.get(fixup.getValue()));
+        }
+
+        String[] symbolNames = new String[symbols.size()];
+        boolean[] symbolTypes = new boolean[symbolNames.length];
+        int[] arraySizes = new int[symbolNames.length];
+        for (Map.Entry<String, Integer> symbol : symbols.entrySet()) {
+            SymbolEntity entity = symbolTable.lookupSymbol(symbol.getKey());
+            int index = symbol.getValue();
+            symbolNames[index] = entity.getName();
+            symbolTypes[index] = floatSymbols.get(index);
+            arraySizes[index] = entity.getKind() == EntityKind.ARRAY ? entity.getArraySize() : 0;
+        }
+
+        boolean[] tempTypes = new boolean[floatTemps.size()];
+        for (int i = 0; i < tempTypes.length; i++) {
+            tempTypes[i] = floatTemps.get(i);
+        }
+        int[] intPool = intValues.stream().mapToInt(Integer::intValue).toArray();
+        double[] floatValues = floatConstants.keySet().stream().mapToDouble(Double::doubleValue).toArray();
+
+        return new IntermediateCode(program.getName(), symbolNames, symbolTypes, arraySizes, tempTypes,
+                                    intPool, floatValues, strings.keySet().toArray(new String[0]),
+                                    IntBuffer.wrap(Arrays.copyOf(quads, quadCount * 4)),
+                                    IntBuffer.wrap(Arrays.copyOf(lines, quadCount)));
+    }
+
+    // Statements
+
+    private void generateStatements(List<Statement> statements) {
+        for (Statement statement : statements) {
+            statement.accept(this);
+        }
+    }
+
+    @Override
+    public Void visitAssignment(Assignment assignment) {
+        SymbolEntity entity = symbolTable.lookupSymbol(assignment.getName());
+        boolean isFloat = entity.getDataType() == DataType.FLOAT;
+        int target = variable(entity.getName());
+        int line = assignment.getLine();
+
+        if (assignment.getIndex() != null) {
+            int index = toInt(generateExpression(assignment.getIndex()), line);
+            int value = convert(generateExpression(assignment.getValue()), isFloat, line);
+            emit(Op.STORE, value, index, target, line);
+            return null;
+        }
+
+        int value = convert(generateExpression(assignment.getValue()), isFloat, line);
+        emit(Op.ASSIGN, value, Operand.NONE, target, line);
+        return null;
+    }
+
+    @Override
+    public Void visitIf(IfStatement statement) {
+        if (constants.isAlwaysTrue(statement.getCondition())) {
+            generateStatements(statement.getThenBranch());
+            return null;
+        }
+        if (constants.isAlwaysFalse(statement.getCondition())) {
+            if (statement.getElseBranch() != null) {
+                generateStatements(statement.getElseBranch());
+            }
+            return null;
+        }
+
+        int elseLabel = newLabel();
+        branchIf(statement.getCondition(), false, elseLabel);
+        generateStatements(statement.getThenBranch());
+
+        if (statement.getElseBranch() == null) {
+            bind(elseLabel);
+            return null;
+        }
+
+        int endLabel = newLabel();
+        branch(Op.BR, Operand.NONE, Operand.NONE, endLabel, statement.getElseLine());
+        bind(elseLabel);
+        generateStatements(statement.getElseBranch());
+        bind(endLabel);
+        return null;
+    }
+
+    @Override
+    public Void visitDoWhile(DoWhileLoop loop) {
+        int bodyLabel = newLabel();
+        bind(bodyLabel);
+        generateStatements(loop.getBody());
+        branchIf(loop.getCondition(), true, bodyLabel);
+        return null;
+    }
+
+    /**
+     * Lowers a for loop: the body runs while the variable has not passed the inclusive bound in the direction
+     * of the step. The bound and step are evaluated before every iteration and the step again for the increment.
+     * The direction test is only emitted when the step is not a constant.
+     */
+    @Override
+    public Void visitFor(ForLoop loop) {
+        int variable = variable(loop.getVariable());
+        int line = loop.getLine();
+        emit(Op.ASSIGN, toInt(generateExpression(loop.getFrom()), line), Operand.NONE, variable, line);
+
+        int testLabel = newLabel();
+        int bodyLabel = newLabel();
+        int exitLabel = newLabel();
+        bind(testLabel);
+
+        int step = toInt(generateExpression(loop.getStep()), line);
+        int bound = toInt(generateExpression(loop.getTo()), line);
+        if (Operand.kind(step) == Operand.KIND_INT_CONSTANT) {
+            boolean up = intValueOf(step) >= 0;
+            branch(up ? Op.BG : Op.BL, variable, bound, exitLabel, line);
+        } else {
+            int downLabel = newLabel();
+            branch(Op.BL, step, intConstant(0), downLabel, line);
+            branch(Op.BG, variable, bound, exitLabel, line);
+            branch(Op.BR, Operand.NONE, Operand.NONE, bodyLabel, line);
+            bind(downLabel);
+            branch(Op.BL, variable, bound, exitLabel, line);
+        }
+
+        bind(bodyLabel);
+        generateStatements(loop.getBody());
+
+        int increment = toInt(generateExpression(loop.getStep()), line);
+        emit(Op.ADD, variable, increment, variable, line);
+        branch(Op.BR, Operand.NONE, Operand.NONE, testLabel, line);
+        bind(exitLabel);
+        return null;
+    }
+
+    @Override
+    public Void visitInput(InputStatement statement) {
+        emit(Op.IN, Operand.NONE, Operand.NONE, variable(statement.getName()), statement.getLine());
+        return null;
+    }
+
+    @Override
+    public Void visitOutput(OutputStatement statement) {
+        int line = statement.getLine();
+        List<Node> args = statement.getArguments();
+        for (int i = 0; i < args.size(); i++) {
+            if (i > 0) {
+                emit(Op.OUT_SEP, Operand.NONE, Operand.NONE, Operand.NONE, line);
+            }
+            Node arg = args.get(i);
+            int value = arg instanceof Text ? string(((Text) arg).getValue()) : generateExpression((Expression) arg);
+            emit(Op.OUT, value, Operand.NONE, Operand.NONE, line);
+        }
+        emit(Op.OUT_LN, Operand.NONE, Operand.NONE, Operand.NONE, line);
+        return null;
+    }
+
+    // Conditions
+
+    /**
+     * Emits branches to the label that are taken when the expression is true (or false, depending on
+     * {@code when}); execution falls through otherwise
+     */
+    private void branchIf(Expression expression, boolean when, int label) {
+        int line = expression.getLine();
+        Number constant = constants.valueOf(expression);
+        if (constant != null) {
+            if ((constant.doubleValue() != 0.0) == when) {
+                branch(Op.BR, Operand.NONE, Operand.NONE, label, line);
+            }
+            return;
+        }
+
+        if (expression instanceof Group) {
+            branchIf(((Group) expression).getExpression(), when, label);
+            return;
+        }
+        if (expression instanceof Not) {
+            branchIf(((Not) expression).getOperand(), !when, label);
+            return;
+        }
+        if (expression instanceof Logical) {
+            branchIf((Logical) expression, when, label);
+            return;
+        }
+        if (!(expression instanceof Binary) || !((Binary) expression).getOperator().isComparison()) {
+            int value = generateExpression(expression);
+            branch(when ? Op.BNZ : Op.BZ, value, Operand.NONE, label, line);
+            return;
+        }
+
+        Binary comparison = (Binary) expression;
+        int left = generateExpression(comparison.getLeft());
+        int right = generateExpression(comparison.getRight());
+        boolean isFloat = isFloat(left) || isFloat(right);
+        left = convert(left, isFloat, line);
+        right = convert(right, isFloat, line);
+        Operator operator = comparison.getOperator();
+
+        if (when || !isFloat) {
+            branch(compareBranch(when ? operator : operator.inverse()), left, right, label, line);
+            return;
+        }
+        // Float comparisons are not inverted, which would change their result for NaN
+        int skipLabel = newLabel();
+        branch(compareBranch(operator), left, right, skipLabel, line);
+        branch(Op.BR, Operand.NONE, Operand.NONE, label, line);
+        bind(skipLabel);
+    }
+
+    /**
+     * Emits the branches of a logical operator chain. An OR branches to the label as soon as one operand is
+     * true; it is false when all operands are, so its false branch is taken from the last operand after the
+     * others skipped past it. AND is the mirror image.
+     */
+    private void branchIf(Logical logical, boolean when, int label) {
+        boolean isOr = logical.getOperator() == Operator.OR;
+        List<Expression> operands = logical.getOperands();
+        int last = operands.size() - 1;
+        if (when == isOr) {
+            for (Expression operand : operands) {
+                branchIf(operand, when, label);
+            }
+            return;
+        }
+        int skipLabel = newLabel();
+        for (int i = 0; i < last; i++) {
+            branchIf(operands.get(i), !when, skipLabel);
+        }
+        branchIf(operands.get(last), when, label);
+        bind(skipLabel);
+    }
+
+    private static Op compareBranch(Operator operator) {
+        switch (operator) {
+            case GT: return Op.BG;
+            case LT: return Op.BL;
+            case GE: return Op.BGE;
+            case LE: return Op.BLE;
+            case EQ: return Op.BE;
+            default: return Op.BNE;
+        }
+    }
+
+    // Expressions
+
+    /**
+     * Lowers an expression and returns the operand holding its value
+     */
+    private int generateExpression(Expression expression) {
+        Number constant = constants.valueOf(expression);
+        if (constant != null) {
+            return constant(constant);
+        }
+        return expression.accept(expressions);
+    }
+
+    /**
+     * Lowers the expressions that are not constant
+     */
+    private final class ExpressionGenerator implements ExpressionVisitor<Integer> {
+        @Override
+        public Integer visitLiteral(Literal literal) {
+            return literal.isFloat() ? floatConstant(literal.getFloatValue()) : intConstant(literal.getIntValue());
+        }
+
+        @Override
+        public Integer visitIdentifier(Identifier identifier) {
+            SymbolEntity entity = symbolTable.lookupSymbol(identifier.getName());
+            if (entity.getKind() == EntityKind.CONSTANT) {
+                return entity.getDataType() == DataType.FLOAT
+                        ? floatConstant(Double.parseDouble(entity.getValue().toString()))
+                        : intConstant(((Number) entity.getValue()).intValue());
+            }
+            return variable(entity.getName());
+        }
+
+        @Override
+        public Integer visitArrayElement(ArrayElement element) {
+            SymbolEntity entity = symbolTable.lookupSymbol(element.getName());
+            int line = element.getLine();
+            int index = toInt(generateExpression(element.getIndex()), line);
+            int result = temp(entity.getDataType() == DataType.FLOAT);
+            emit(Op.LOAD, variable(entity.getName()), index, result, line);
+            return result;
+        }
+
+        @Override
+        public Integer visitGroup(Group group) {
+            return generateExpression(group.getExpression());
+        }
+
+        @Override
+        public Integer visitNot(Not not) {
+            int operand = generateExpression(not.getOperand());
+            int result = temp(false);
+            emit(Op.NOT, operand, Operand.NONE, result, not.getLine());
+            return result;
+        }
+
+        /**
+         * Evaluates operands into one truth temporary until one of them decides the result
+         */
+        @Override
+        public Integer visitLogical(Logical logical) {
+            Op exit = logical.getOperator() == Operator.OR ? Op.BNZ : Op.BZ;
+            List<Expression> operands = logical.getOperands();
+            int result = temp(false);
+            int endLabel = newLabel();
+            int line = logical.getLine();
+            for (int i = 0; i < operands.size(); i++) {
+                truth(generateExpression(operands.get(i)), result, line);
+                if (i < operands.size() - 1) {
+                    branch(exit, result, Operand.NONE, endLabel, line);
+                }
+            }
+            bind(endLabel);
+            return result;
+        }
+
+        @Override
+        public Integer visitBinary(Binary binary) {
+            int line = binary.getLine();
+            int left = generateExpression(binary.getLeft());
+            int right = generateExpression(binary.getRight());
+            if (!binary.getOperator().isComparison()) {
+                return arithmetic(operation(binary.getOperator()), left, right, line);
+            }
+
+            boolean isFloat = isFloat(left) || isFloat(right);
+            left = convert(left, isFloat, line);
+            right = convert(right, isFloat, line);
+            int result = temp(false);
+            emit(operation(binary.getOperator()), left, right, result, line);
+            return result;
+        }
+    }
+
+    private static Op operation(Operator operator) {
+        switch (operator) {
+            case GT: return Op.GT;
+            case LT: return Op.LT;
+            case GE: return Op.GE;
+            case LE: return Op.LE;
+            case EQ: return Op.EQ;
+            case NE: return Op.NE;
+            case PLUS: return Op.ADD;
+            case MINUS: return Op.SUB;
+            case MUL: return Op.MUL;
+            default: return Op.DIV;
+        }
+    }
+
+    /**
+     * Emits an arithmetic quadruple; the result is Int only if both operands are Int
+     */
+    private int arithmetic(Op op, int left, int right, int line) {
+        boolean isFloat = isFloat(left) || isFloat(right);
+        left = convert(left, isFloat, line);
+        right = convert(right, isFloat, line);
+        int result = temp(isFloat);
+        emit(op, left, right, result, line);
+        return result;
+    }
+
+    // Conversions
+
+    private int toInt(int operand, int line) {
+        return convert(operand, false, line);
+    }
+
+    /**
+     * Returns the operand converted to the given type; constants are converted at compile time
+     */
+    private int convert(int operand, boolean toFloat, int line) {
+        if (isFloat(operand) == toFloat) {
+            return operand;
+        }
+        if (toFloat && Operand.kind(operand) == Operand.KIND_INT_CONSTANT) {
+            return floatConstant(intValueOf(operand));
+        }
+        int result = temp(toFloat);
+        emit(toFloat ? Op.I2F : Op.F2I, operand, Operand.NONE, result, line);
+        return result;
+    }
+
+    /**
+     * Stores 1 in the result if the operand is non-zero and 0 otherwise
+     */
+    private void truth(int operand, int result, int line) {
+        int zero = isFloat(operand) ? floatConstant(0.0) : intConstant(0);
+        emit(Op.NE, operand, zero, result, line);
+    }
+
+    // Operands
+
+    private boolean isFloat(int operand) {
+        int index = Operand.index(operand);
+        switch (Operand.kind(operand)) {
+            case Operand.KIND_VARIABLE:
+                return floatSymbols.get(index);
+            case Operand.KIND_TEMP:
+                return floatTemps.get(index);
+            case Operand.KIND_FLOAT_CONSTANT:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private int variable(String name) {
+        return Operand.of(Operand.KIND_VARIABLE, symbols.get(name));
+    }
+
+    private int temp(boolean isFloat) {
+        floatTemps.add(isFloat);
+        return Operand.of(Operand.KIND_TEMP, floatTemps.size() - 1);
+    }
+
+    private int intConstant(int value) {
+        Integer index = intConstants.get(value);
+        if (index == null) {
+            index = intValues.size();
+            intConstants.put(value, index);
+            intValues.add(value);
+        }
+        return Operand.of(Operand.KIND_INT_CONSTANT, index);
+    }
+
+    /**
+     * Returns the constant operand for a folded value, an Integer or a Double
+     */
+    private int constant(Number value) {
+        return value instanceof Integer ? intConstant(value.intValue()) : floatConstant(value.doubleValue());
+    }
+
+    private int floatConstant(double value) {
+        return Operand.of(Operand.KIND_FLOAT_CONSTANT, floatConstants.computeIfAbsent(value, v -> floatConstants.size()));
+    }
+
+    private int string(String value) {
+        return Operand.of(Operand.KIND_STRING, strings.computeIfAbsent(value, v -> strings.size()));
+    }
+
+    private int intValueOf(int constant) {
+        return intValues.get(Operand.index(constant));
+    }
+
+    // Quadruples
+
+    private void emit(Op op, int arg1, int arg2, int result, int line) {
+        if ((quadCount + 1) * 4 > quads.length) {
+            quads = Arrays.copyOf(quads, quads.length * 2);
+        }
+        if (quadCount == lines.length) {
+            lines = Arrays.copyOf(lines, lines.length * 2);
+        }
+        int position = quadCount * 4;
+        quads[position] = op.ordinal();
+        quads[position + 1] = arg1;
+        quads[position + 2] = arg2;
+        quads[position + 3] = result;
+        lines[quadCount++] = line;
+    }
+
+    /**
+     * Emits a branch to a label whose position may not be known yet
+     */
+    private void branch(Op op, int arg1, int arg2, int label, int line) {
+        emit(op, arg1, arg2, Operand.NONE, line);
+        fixups.put(quadCount * 4 - 1, label);
+    }
+
+    private int newLabel() {
+        labels.add(-1);
+        return labels.size() - 1;
+    }
+
+    private void bind(int label) {
+        labels.set(label, quadCount);
+    }
+}
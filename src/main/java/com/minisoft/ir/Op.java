@@ -0,0 +1,101 @@
+package com.minisoft.ir;
+
+/**
+ * Operators of the quadruple intermediate representation.
+ * A quadruple is written {@code (op, arg1, arg2, result)}. Arithmetic and comparisons always have operands of
+ * one type, made explicit with {@link #I2F} and {@link #F2I}; comparisons produce 0 or 1 in an Int temporary.
+ * Branch targets are quadruple indexes held in the result field; a target equal to the number of quadruples
+ * ends the program.
+ */
+public enum Op {
+    /** result := arg1 */
+    ASSIGN(":="),
+    /** result := arg1 + arg2 */
+    ADD("+"),
+    /** result := arg1 - arg2 */
+    SUB("-"),
+    /** result := arg1 * arg2 */
+    MUL("*"),
+    /** result := arg1 / arg2, a runtime error if arg2 is zero */
+    DIV("/"),
+    /** result := arg1 == arg2 */
+    EQ("=="),
+    /** result := arg1 != arg2 */
+    NE("!="),
+    /** result := arg1 &lt; arg2 */
+    LT("<"),
+    /** result := arg1 &lt;= arg2 */
+    LE("<="),
+    /** result := arg1 &gt; arg2 */
+    GT(">"),
+    /** result := arg1 &gt;= arg2 */
+    GE(">="),
+    /** result := arg1 == 0 */
+    NOT("!"),
+    /** result := arg1 widened from Int to Float */
+    I2F("itof"),
+    /** result := arg1 truncated from Float to Int */
+    F2I("ftoi"),
+    /** result := arg1[arg2], where arg1 is an array */
+    LOAD("=[]"),
+    /** result[arg2] := arg1, where result is an array */
+    STORE("[]="),
+    /** goto result */
+    BR("BR"),
+    /** if arg1 == 0 goto result */
+    BZ("BZ"),
+    /** if arg1 != 0 goto result */
+    BNZ("BNZ"),
+    /** if arg1 == arg2 goto result */
+    BE("BE"),
+    /** if arg1 != arg2 goto result */
+    BNE("BNE"),
+    /** if arg1 &lt; arg2 goto result */
+    BL("BL"),
+    /** if arg1 &lt;= arg2 goto result */
+    BLE("BLE"),
+    /** if arg1 &gt; arg2 goto result */
+    BG("BG"),
+    /** if arg1 &gt;= arg2 goto result */
+    BGE("BGE"),
+    /** result := next input value */
+    IN("IN"),
+    /** print arg1, a value or string */
+    OUT("OUT"),
+    /** print the separator between two arguments of an output statement */
+    OUT_SEP("OUT_SEP"),
+    /** end the line of an output statement */
+    OUT_LN("OUT_LN");
+
+    private static final Op[] VALUES = values();
+
+    private final String symbol;
+
+    Op(String symbol) {
+        this.symbol = symbol;
+    }
+
+    /**
+     * Returns the symbol printed for the operator in quadruple listings
+     */
+    public String getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * Returns whether the operator is a branch, whose result field is a target
+     */
+    public boolean isBranch() {
+        return compareTo(BR) >= 0 && compareTo(BGE) <= 0;
+    }
+
+    /**
+     * Returns the operator with the given code, as stored in serialized quadruples
+     */
+    static Op fromCode(int code) {
+        if (code < 0 || code >= VALUES.length) {
+            throw new IllegalArgumentException("Invalid operator code " + code);
+        }
+        return VALUES[code];
+    }
+}
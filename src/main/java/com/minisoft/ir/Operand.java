@@ -0,0 +1,45 @@
+package com.minisoft.ir;
+
+/**
+ * Encoding of quadruple operands as single ints.
+ * The top three bits hold the operand kind and the remaining bits an index into the table of that kind
+ * in {@link IntermediateCode}; an operand field that is not used holds {@link #NONE}.
+ */
+public final class Operand {
+    public static final int KIND_NONE = 0;
+    public static final int KIND_VARIABLE = 1;
+    public static final int KIND_TEMP = 2;
+    public static final int KIND_INT_CONSTANT = 3;
+    public static final int KIND_FLOAT_CONSTANT = 4;
+    public static final int KIND_STRING = 5;
+    public static final int KIND_LABEL = 6;
+
+    public static final int NONE = 0;
+
+    private static final int KIND_SHIFT = 29;
+    private static final int INDEX_MASK = (1 << KIND_SHIFT) - 1;
+
+    private Operand() {
+    }
+
+    /**
+     * Encodes an operand
+     *
+     * @param kind One of the {@code KIND_} constants
+     * @param index The index within the table of that kind
+     */
+    public static int of(int kind, int index) {
+        if (index < 0 || index > INDEX_MASK) {
+            throw new IllegalArgumentException("Operand index out of range: " + index);
+        }
+        return kind << KIND_SHIFT | index;
+    }
+
+    public static int kind(int operand) {
+        return operand >>> KIND_SHIFT;
+    }
+
+    public static int index(int operand) {
+        return operand & INDEX_MASK;
+    }
+}
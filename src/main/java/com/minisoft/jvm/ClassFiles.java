@@ -0,0 +1,77 @@
+package com.minisoft.jvm;
+
+import com.minisoft.runtime.MiniSoftRuntimeException;
+import com.minisoft.runtime.RuntimeIO;
+import com.minisoft.runtime.RuntimeSupport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+/**
+ * Writes programs generated by {@link JvmCompiler} to disk, either as a class file
+ * or as an executable jar that also contains the MiniSoft runtime classes it needs.
+ */
+public final class ClassFiles {
+    private static final Class<?>[] RUNTIME_CLASSES = {
+            RuntimeIO.class, RuntimeSupport.class, MiniSoftRuntimeException.class
+    };
+
+    private ClassFiles() {
+    }
+
+    /**
+     * Writes a class file below the given output directory
+     *
+     * @return The path of the written file
+     */
+    public static Path writeClass(Path outputDirectory, String className, byte[] classFile) throws IOException {
+        Path target = outputDirectory.resolve(className + ".class");
+        if (target.getParent() != null) {
+            Files.createDirectories(target.getParent());
+        }
+        Files.write(target, classFile);
+        return target;
+    }
+
+    /**
+     * Writes an executable jar whose main class is the generated program.
+     * Run it with {@code java -jar}; the MiniSoft runtime is bundled, the compiler is not.
+     */
+    public static void writeJar(Path jarFile, String className, byte[] classFile) throws IOException {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(Attributes.Name.MAIN_CLASS, className.replace('/', '.'));
+
+        if (jarFile.getParent() != null) {
+            Files.createDirectories(jarFile.getParent());
+        }
+        try (JarOutputStream jar = new JarOutputStream(Files.newOutputStream(jarFile), manifest)) {
+            writeEntry(jar, className + ".class", classFile);
+            for (Class<?> runtimeClass : RUNTIME_CLASSES) {
+                String resource = runtimeClass.getName().replace('.', '/') + ".class";
+                writeEntry(jar, resource, readClassResource(resource));
+            }
+        }
+    }
+
+    private static void writeEntry(JarOutputStream jar, String name, byte[] content) throws IOException {
+        jar.putNextEntry(new JarEntry(name));
+        jar.write(content);
+        jar.closeEntry();
+    }
+
+    private static byte[] readClassResource(String resource) throws IOException {
+        try (InputStream in = ClassFiles.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IOException("Runtime class not found: " + resource);
+            }
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,671 @@
+package com.minisoft.jvm;
+
+import com.minisoft.ast.ArrayElement;
+import com.minisoft.ast.Assignment;
+import com.minisoft.ast.Binary;
+import com.minisoft.ast.DoWhileLoop;
+import com.minisoft.ast.Expression;
+import com.minisoft.ast.ExpressionVisitor;
+import com.minisoft.ast.ForLoop;
+import com.minisoft.ast.Group;
+import com.minisoft.ast.Identifier;
+import com.minisoft.ast.IfStatement;
+import com.minisoft.ast.InputStatement;
+import com.minisoft.ast.Literal;
+import com.minisoft.ast.Logical;
+import com.minisoft.ast.Node;
+import com.minisoft.ast.Not;
+import com.minisoft.ast.Operator;
+import com.minisoft.ast.OutputStatement;
+import com.minisoft.ast.Statement;
+import com.minisoft.ast.StatementVisitor;
+import com.minisoft.ast.Text;
+import com.minisoft.optimizer.ConstantFacts;
+import com.minisoft.optimizer.LoopFacts;
+import com.minisoft.symbol.DataType;
+import com.minisoft.symbol.EntityKind;
+import com.minisoft.symbol.SlotLayout;
+import com.minisoft.symbol.SymbolEntity;
+import com.minisoft.symbol.SymbolTable;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * Emits the bytecode of one chunk method of a compiled program.
+ * On entry the chunk copies every variable from its instance field into a local slot
+ * (int for Int, two slots of double for Float, int[]/double[] for arrays), runs its instructions
+ * on the locals, and writes the scalars back on exit. Hot loops therefore only touch locals,
+ * which HotSpot keeps in registers. The values loop optimization computes before a loop are kept in locals
+ * after those of the variables, allocated like a stack as loops nest.
+ */
+class CodeGenerator implements StatementVisitor<Void> {
+    private static final int THIS = 0;
+    private static final int IO = 1;
+    private static final int FIRST_VARIABLE = 2;
+
+    private final MethodVisitor mv;
+    private final String className;
+    private final SymbolTable symbolTable;
+    private final SlotLayout layout;
+    private final ExpressionTypes types;
+    private final ConstantFacts constants;
+    private final LoopFacts loops;
+    private final ExpressionGenerator expressions = new ExpressionGenerator();
+
+    private final int firstFloatLocal;
+    private final int firstIntArrayLocal;
+    private final int firstFloatArrayLocal;
+
+    // The locals holding the values of the expressions computed before the loop they are in
+    private final Map<Expression, Integer> precomputed = new IdentityHashMap<>();
+    private int nextLocal;
+
+    CodeGenerator(MethodVisitor mv, String className, SymbolTable symbolTable, SlotLayout layout, ExpressionTypes types,
+                  ConstantFacts constants, LoopFacts loops) {
+        this.mv = mv;
+        this.className = className;
+        this.symbolTable = symbolTable;
+        this.layout = layout;
+        this.types = types;
+        this.constants = constants;
+        this.loops = loops;
+        this.firstFloatLocal = FIRST_VARIABLE + layout.getIntCount();
+        this.firstIntArrayLocal = firstFloatLocal + 2 * layout.getFloatCount();
+        this.firstFloatArrayLocal = firstIntArrayLocal + layout.getIntArrayCount();
+        this.nextLocal = firstFloatArrayLocal + layout.getFloatArrayCount();
+    }
+
+    /**
+     * Emits a complete chunk method running the given top-level statements
+     */
+    void generateChunk(List<Statement> statements) {
+        mv.visitCode();
+
+        mv.visitVarInsn(ALOAD, THIS);
+        mv.visitFieldInsn(GETFIELD, className, JvmCompiler.IO_FIELD, JvmCompiler.RUNTIME_IO_DESC);
+        mv.visitVarInsn(ASTORE, IO);
+        for (SymbolEntity entity : symbolTable.getSymbols().values()) {
+            if (isStored(entity)) {
+                mv.visitVarInsn(ALOAD, THIS);
+                mv.visitFieldInsn(GETFIELD, className, JvmCompiler.fieldName(entity), JvmCompiler.fieldDescriptor(entity));
+                mv.visitVarInsn(loadStoreOpcode(entity, ISTORE, DSTORE, ASTORE), localOf(entity));
+            }
+        }
+
+        generateStatements(statements);
+
+        // Arrays are shared by reference, only scalars need to be written back
+        for (SymbolEntity entity : symbolTable.getSymbols().values()) {
+            if (isStored(entity) && entity.getKind() != EntityKind.ARRAY) {
+                mv.visitVarInsn(ALOAD, THIS);
+                mv.visitVarInsn(loadStoreOpcode(entity, ILOAD, DLOAD, ALOAD), localOf(entity));
+                mv.visitFieldInsn(PUTFIELD, className, JvmCompiler.fieldName(entity), JvmCompiler.fieldDescriptor(entity));
+            }
+        }
+
+        mv.visitInsn(RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    // Statements
+
+    private void generateStatements(List<Statement> statements) {
+        for (Statement statement : statements) {
+            Label start = new Label();
+            mv.visitLabel(start);
+            mv.visitLineNumber(statement.getLine(), start);
+            statement.accept(this);
+        }
+    }
+
+    @Override
+    public Void visitAssignment(Assignment assignment) {
+        SymbolEntity entity = symbolTable.lookupSymbol(assignment.getName());
+        boolean isFloat = entity.getDataType() == DataType.FLOAT;
+
+        if (assignment.getIndex() != null) {
+            mv.visitVarInsn(ALOAD, localOf(entity));
+            generateCheckedIndex(assignment.getIndex(), entity, assignment.getLine());
+            generateExpression(assignment.getValue(), isFloat);
+            mv.visitInsn(isFloat ? DASTORE : IASTORE);
+            return null;
+        }
+
+        generateExpression(assignment.getValue(), isFloat);
+        mv.visitVarInsn(isFloat ? DSTORE : ISTORE, localOf(entity));
+        return null;
+    }
+
+    @Override
+    public Void visitIf(IfStatement statement) {
+        if (constants.isAlwaysTrue(statement.getCondition())) {
+            generateStatements(statement.getThenBranch());
+            return null;
+        }
+        if (constants.isAlwaysFalse(statement.getCondition())) {
+            if (statement.getElseBranch() != null) {
+                generateStatements(statement.getElseBranch());
+            }
+            return null;
+        }
+
+        Label elseLabel = new Label();
+        Label end = new Label();
+
+        generateTruth(statement.getCondition());
+        mv.visitJumpInsn(IFEQ, elseLabel);
+        generateStatements(statement.getThenBranch());
+        if (statement.getElseBranch() != null) {
+            mv.visitJumpInsn(GOTO, end);
+            mv.visitLabel(elseLabel);
+            generateStatements(statement.getElseBranch());
+        } else {
+            mv.visitLabel(elseLabel);
+        }
+        mv.visitLabel(end);
+        return null;
+    }
+
+    @Override
+    public Void visitDoWhile(DoWhileLoop loop) {
+        int localMark = nextLocal;
+        generateInvariants(loop);
+        Label body = new Label();
+        mv.visitLabel(body);
+        generateStatements(loop.getBody());
+        if (!constants.isAlwaysFalse(loop.getCondition())) {
+            generateTruth(loop.getCondition());
+            mv.visitJumpInsn(IFNE, body);
+        }
+        nextLocal = localMark;
+        return null;
+    }
+
+    /**
+     * Emits a for loop with the same semantics as the interpreter: an inclusive bound and a step that are
+     * evaluated before every iteration, unless loop optimization found them invariant and they are kept in locals.
+     * A constant step fixes the direction of the bound test at compile time and becomes an IINC, which gives
+     * HotSpot a counted loop.
+     */
+    @Override
+    public Void visitFor(ForLoop loop) {
+        int counter = localOf(symbolTable.lookupSymbol(loop.getVariable()));
+        Integer constantStep = constantInt(loop.getStep());
+        Label check = new Label();
+        Label body = new Label();
+        Label end = new Label();
+
+        generateExpression(loop.getFrom(), false);
+        mv.visitVarInsn(ISTORE, counter);
+
+        int localMark = nextLocal;
+        generateInvariants(loop);
+
+        // An invariant step is evaluated once, and then an invariant bound too, in the order of the first test
+        int stepLocal = -1;
+        int boundLocal = -1;
+        if (loops.isStepInvariant(loop)) {
+            if (constantStep == null) {
+                stepLocal = newLocal(false);
+                generateExpression(loop.getStep(), false);
+                mv.visitVarInsn(ISTORE, stepLocal);
+            }
+            if (loops.isBoundInvariant(loop)) {
+                boundLocal = newLocal(false);
+                generateExpression(loop.getTo(), false);
+                mv.visitVarInsn(ISTORE, boundLocal);
+            }
+        }
+
+        // Every induction variable starts as the product and grows by the step times the factor
+        List<Binary> inductions = loops.getInductions(loop);
+        int[] inductionLocals = new int[inductions.size()];
+        int[] incrementLocals = new int[inductions.size()];
+        for (int i = 0; i < inductionLocals.length; i++) {
+            inductionLocals[i] = newLocal(false);
+            incrementLocals[i] = newLocal(false);
+            generateExpression(LoopFacts.factorOf(loop, inductions.get(i)), false);
+            mv.visitInsn(DUP);
+            mv.visitVarInsn(ILOAD, counter);
+            mv.visitInsn(IMUL);
+            mv.visitVarInsn(ISTORE, inductionLocals[i]);
+            generateStep(loop, constantStep, stepLocal);
+            mv.visitInsn(IMUL);
+            mv.visitVarInsn(ISTORE, incrementLocals[i]);
+            precomputed.put(inductions.get(i), inductionLocals[i]);
+        }
+
+        mv.visitLabel(check);
+        if (constantStep != null) {
+            mv.visitVarInsn(ILOAD, counter);
+            generateBound(loop, boundLocal);
+            mv.visitJumpInsn(constantStep >= 0 ? IF_ICMPGT : IF_ICMPLT, end);
+        } else {
+            Label countDown = new Label();
+            generateStep(loop, null, stepLocal);
+            mv.visitJumpInsn(IFLT, countDown);
+            mv.visitVarInsn(ILOAD, counter);
+            generateBound(loop, boundLocal);
+            mv.visitJumpInsn(IF_ICMPGT, end);
+            mv.visitJumpInsn(GOTO, body);
+            mv.visitLabel(countDown);
+            mv.visitVarInsn(ILOAD, counter);
+            generateBound(loop, boundLocal);
+            mv.visitJumpInsn(IF_ICMPLT, end);
+        }
+
+        mv.visitLabel(body);
+        generateStatements(loop.getBody());
+        for (int i = 0; i < inductionLocals.length; i++) {
+            mv.visitVarInsn(ILOAD, inductionLocals[i]);
+            mv.visitVarInsn(ILOAD, incrementLocals[i]);
+            mv.visitInsn(IADD);
+            mv.visitVarInsn(ISTORE, inductionLocals[i]);
+        }
+
+        if (constantStep != null && constantStep >= Short.MIN_VALUE && constantStep <= Short.MAX_VALUE) {
+            mv.visitIincInsn(counter, constantStep);
+        } else {
+            mv.visitVarInsn(ILOAD, counter);
+            generateStep(loop, constantStep, stepLocal);
+            mv.visitInsn(IADD);
+            mv.visitVarInsn(ISTORE, counter);
+        }
+        mv.visitJumpInsn(GOTO, check);
+        mv.visitLabel(end);
+        nextLocal = localMark;
+        return null;
+    }
+
+    /**
+     * Pushes the step of a for loop: its constant value, the local it was evaluated into, or its value now
+     */
+    private void generateStep(ForLoop loop, Integer constantStep, int stepLocal) {
+        if (constantStep != null) {
+            pushInt(constantStep);
+        } else if (stepLocal >= 0) {
+            mv.visitVarInsn(ILOAD, stepLocal);
+        } else {
+            generateExpression(loop.getStep(), false);
+        }
+    }
+
+    /**
+     * Pushes the bound of a for loop: the local it was evaluated into, or its value now
+     */
+    private void generateBound(ForLoop loop, int boundLocal) {
+        if (boundLocal >= 0) {
+            mv.visitVarInsn(ILOAD, boundLocal);
+        } else {
+            generateExpression(loop.getTo(), false);
+        }
+    }
+
+    /**
+     * Evaluates the invariant expressions of a loop into locals that last until the end of the loop
+     */
+    private void generateInvariants(Statement loop) {
+        for (Expression invariant : loops.getInvariants(loop)) {
+            boolean isFloat = types.isFloat(invariant);
+            int local = newLocal(isFloat);
+            generate(invariant);
+            mv.visitVarInsn(isFloat ? DSTORE : ISTORE, local);
+            precomputed.put(invariant, local);
+        }
+    }
+
+    private int newLocal(boolean isFloat) {
+        int local = nextLocal;
+        nextLocal += isFloat ? 2 : 1;
+        return local;
+    }
+
+    @Override
+    public Void visitInput(InputStatement statement) {
+        SymbolEntity entity = symbolTable.lookupSymbol(statement.getName());
+        boolean isFloat = entity.getDataType() == DataType.FLOAT;
+
+        mv.visitVarInsn(ALOAD, IO);
+        pushInt(statement.getLine());
+        mv.visitMethodInsn(INVOKEVIRTUAL, JvmCompiler.RUNTIME_IO, isFloat ? "readFloat" : "readInt",
+                           isFloat ? "(I)D" : "(I)I", false);
+        mv.visitVarInsn(isFloat ? DSTORE : ISTORE, localOf(entity));
+        return null;
+    }
+
+    @Override
+    public Void visitOutput(OutputStatement statement) {
+        List<Node> args = statement.getArguments();
+
+        for (int i = 0; i < args.size(); i++) {
+            Node arg = args.get(i);
+            if (i > 0) {
+                mv.visitVarInsn(ALOAD, IO);
+                mv.visitMethodInsn(INVOKEVIRTUAL, JvmCompiler.RUNTIME_IO, "printSeparator", "()V", false);
+            }
+
+            mv.visitVarInsn(ALOAD, IO);
+            if (arg instanceof Text) {
+                mv.visitLdcInsn(((Text) arg).getValue());
+                mv.visitMethodInsn(INVOKEVIRTUAL, JvmCompiler.RUNTIME_IO, "printString", "(Ljava/lang/String;)V", false);
+            } else if (types.isFloat((Expression) arg)) {
+                generateExpression((Expression) arg, true);
+                mv.visitMethodInsn(INVOKEVIRTUAL, JvmCompiler.RUNTIME_IO, "printFloat", "(D)V", false);
+            } else {
+                generateExpression((Expression) arg, false);
+                mv.visitMethodInsn(INVOKEVIRTUAL, JvmCompiler.RUNTIME_IO, "printInt", "(I)V", false);
+            }
+        }
+
+        mv.visitVarInsn(ALOAD, IO);
+        mv.visitMethodInsn(INVOKEVIRTUAL, JvmCompiler.RUNTIME_IO, "println", "()V", false);
+        return null;
+    }
+
+    // Expressions
+
+    /**
+     * Emits an expression and converts its value to the requested type
+     */
+    private void generateExpression(Expression expression, boolean asFloat) {
+        generate(expression);
+        convert(types.isFloat(expression), asFloat);
+    }
+
+    /**
+     * Emits an expression as an int that is non-zero when the expression is true
+     */
+    private void generateTruth(Expression expression) {
+        generate(expression);
+        toTruth(types.isFloat(expression));
+    }
+
+    /**
+     * Emits an expression in its own type, or pushes its value if it is known to be constant or was computed before
+     * its loop
+     */
+    private void generate(Expression expression) {
+        if (generateConstant(expression)) {
+            return;
+        }
+        if (loops.isPrecomputed(expression)) {
+            Integer local = precomputed.get(expression);
+            if (local != null) {
+                mv.visitVarInsn(types.isFloat(expression) ? DLOAD : ILOAD, local);
+                return;
+            }
+        }
+        expression.accept(expressions);
+    }
+
+    /**
+     * Emits the expressions that are not constant
+     */
+    private final class ExpressionGenerator implements ExpressionVisitor<Void> {
+        @Override
+        public Void visitLiteral(Literal literal) {
+            if (literal.isFloat()) {
+                pushDouble(literal.getFloatValue());
+            } else {
+                pushInt(literal.getIntValue());
+            }
+            return null;
+        }
+
+        @Override
+        public Void visitIdentifier(Identifier identifier) {
+            SymbolEntity entity = symbolTable.lookupSymbol(identifier.getName());
+            boolean isFloat = entity.getDataType() == DataType.FLOAT;
+
+            if (entity.getKind() == EntityKind.CONSTANT) {
+                if (isFloat) {
+                    pushDouble(Double.parseDouble(entity.getValue().toString()));
+                } else {
+                    pushInt(((Number) entity.getValue()).intValue());
+                }
+            } else {
+                mv.visitVarInsn(isFloat ? DLOAD : ILOAD, localOf(entity));
+            }
+            return null;
+        }
+
+        @Override
+        public Void visitArrayElement(ArrayElement element) {
+            SymbolEntity entity = symbolTable.lookupSymbol(element.getName());
+            mv.visitVarInsn(ALOAD, localOf(entity));
+            generateCheckedIndex(element.getIndex(), entity, element.getLine());
+            mv.visitInsn(entity.getDataType() == DataType.FLOAT ? DALOAD : IALOAD);
+            return null;
+        }
+
+        @Override
+        public Void visitGroup(Group group) {
+            generate(group.getExpression());
+            return null;
+        }
+
+        @Override
+        public Void visitNot(Not not) {
+            Label isTrue = new Label();
+            Label end = new Label();
+            generateTruth(not.getOperand());
+            mv.visitJumpInsn(IFNE, isTrue);
+            generateBoolean(isTrue, end, true);
+            return null;
+        }
+
+        @Override
+        public Void visitLogical(Logical logical) {
+            // OR jumps out on the first true operand, AND on the first false one
+            boolean isOr = logical.getOperator() == Operator.OR;
+            Label decided = new Label();
+            Label end = new Label();
+            for (Expression operand : logical.getOperands()) {
+                generateTruth(operand);
+                mv.visitJumpInsn(isOr ? IFNE : IFEQ, decided);
+            }
+            generateBoolean(decided, end, !isOr);
+            return null;
+        }
+
+        /**
+         * Emits one operation of an operator chain. The left operand is converted only when the right one is
+         * Float, so Int operations before the first Float operand keep Int semantics, e.g. {@code 7 / 2 * 2.0}
+         * is 6.0
+         */
+        @Override
+        public Void visitBinary(Binary binary) {
+            Expression left = binary.getLeft();
+            Expression right = binary.getRight();
+            boolean isFloat = types.isFloat(left) || types.isFloat(right);
+
+            generate(left);
+            convert(types.isFloat(left), isFloat);
+            generate(right);
+            convert(types.isFloat(right), isFloat);
+
+            Operator operator = binary.getOperator();
+            if (!operator.isComparison()) {
+                generateArithmetic(operator, isFloat, binary.getLine());
+                return null;
+            }
+
+            Label isTrue = new Label();
+            Label end = new Label();
+            if (isFloat) {
+                // DCMPG makes NaN compare greater, DCMPL makes it compare less, so both orderings fail on NaN
+                boolean lessThan = operator == Operator.LT || operator == Operator.LE;
+                mv.visitInsn(lessThan ? DCMPG : DCMPL);
+                mv.visitJumpInsn(floatComparisonJump(operator), isTrue);
+            } else {
+                mv.visitJumpInsn(intComparisonJump(operator), isTrue);
+            }
+            generateBoolean(isTrue, end, false);
+            return null;
+        }
+    }
+
+    private void generateArithmetic(Operator operator, boolean isFloat, int line) {
+        switch (operator) {
+            case PLUS:
+                mv.visitInsn(isFloat ? DADD : IADD);
+                break;
+            case MINUS:
+                mv.visitInsn(isFloat ? DSUB : ISUB);
+                break;
+            case MUL:
+                mv.visitInsn(isFloat ? DMUL : IMUL);
+                break;
+            default:
+                pushInt(line);
+                mv.visitMethodInsn(INVOKESTATIC, JvmCompiler.RUNTIME_SUPPORT, "divide",
+                                   isFloat ? "(DDI)D" : "(III)I", false);
+        }
+    }
+
+    /**
+     * Emits an index expression followed by a bounds check against the declared array size
+     */
+    private void generateCheckedIndex(Expression index, SymbolEntity array, int line) {
+        generateExpression(index, false);
+        pushInt(array.getArraySize());
+        mv.visitLdcInsn(array.getName());
+        pushInt(line);
+        mv.visitMethodInsn(INVOKESTATIC, JvmCompiler.RUNTIME_SUPPORT, "checkIndex",
+                           "(IILjava/lang/String;I)I", false);
+    }
+
+    // Helpers
+
+    /**
+     * Emits the tail of a boolean expression: falls through to push the default value,
+     * while jumps to the label push its opposite
+     */
+    private void generateBoolean(Label jumpTarget, Label end, boolean fallThroughValue) {
+        mv.visitInsn(fallThroughValue ? ICONST_1 : ICONST_0);
+        mv.visitJumpInsn(GOTO, end);
+        mv.visitLabel(jumpTarget);
+        mv.visitInsn(fallThroughValue ? ICONST_0 : ICONST_1);
+        mv.visitLabel(end);
+    }
+
+    private void toTruth(boolean isFloat) {
+        if (isFloat) {
+            mv.visitInsn(DCONST_0);
+            mv.visitInsn(DCMPL);
+        }
+    }
+
+    private void convert(boolean fromFloat, boolean toFloat) {
+        if (fromFloat && !toFloat) {
+            mv.visitInsn(D2I);
+        } else if (!fromFloat && toFloat) {
+            mv.visitInsn(I2D);
+        }
+    }
+
+    private static int intComparisonJump(Operator operator) {
+        switch (operator) {
+            case GT: return IF_ICMPGT;
+            case LT: return IF_ICMPLT;
+            case GE: return IF_ICMPGE;
+            case LE: return IF_ICMPLE;
+            case EQ: return IF_ICMPEQ;
+            default: return IF_ICMPNE;
+        }
+    }
+
+    private static int floatComparisonJump(Operator operator) {
+        switch (operator) {
+            case GT: return IFGT;
+            case LT: return IFLT;
+            case GE: return IFGE;
+            case LE: return IFLE;
+            case EQ: return IFEQ;
+            default: return IFNE;
+        }
+    }
+
+    /**
+     * Pushes the value of an expression known to be constant
+     *
+     * @return false if the value of the expression is not known
+     */
+    private boolean generateConstant(Expression expression) {
+        Number constant = constants.valueOf(expression);
+        if (constant == null) {
+            return false;
+        }
+        if (types.isFloat(expression)) {
+            pushDouble(constant.doubleValue());
+        } else {
+            pushInt(constant.intValue());
+        }
+        return true;
+    }
+
+    /**
+     * Returns the value of an Int expression that is a single literal or known to be constant, or null
+     */
+    private Integer constantInt(Expression expression) {
+        if (expression instanceof Literal) {
+            Literal literal = (Literal) expression;
+            return literal.isFloat() ? null : literal.getIntValue();
+        }
+        Number constant = constants.valueOf(expression);
+        return constant instanceof Integer ? (Integer) constant : null;
+    }
+
+    private void pushInt(int value) {
+        if (value >= -1 && value <= 5) {
+            mv.visitInsn(ICONST_0 + value);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            mv.visitIntInsn(BIPUSH, value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            mv.visitIntInsn(SIPUSH, value);
+        } else {
+            mv.visitLdcInsn(value);
+        }
+    }
+
+    private void pushDouble(double value) {
+        if (Double.doubleToRawLongBits(value) == 0L) {
+            mv.visitInsn(DCONST_0);
+        } else if (value == 1.0) {
+            mv.visitInsn(DCONST_1);
+        } else {
+            mv.visitLdcInsn(value);
+        }
+    }
+
+    private static boolean isStored(SymbolEntity entity) {
+        return entity.getKind() != EntityKind.CONSTANT;
+    }
+
+    private static int loadStoreOpcode(SymbolEntity entity, int intOpcode, int floatOpcode, int arrayOpcode) {
+        if (entity.getKind() == EntityKind.ARRAY) {
+            return arrayOpcode;
+        }
+        return entity.getDataType() == DataType.FLOAT ? floatOpcode : intOpcode;
+    }
+
+    /**
+     * Returns the local variable slot holding a variable or array inside a chunk method
+     */
+    private int localOf(SymbolEntity entity) {
+        int slot = layout.slotOf(entity.getName());
+        boolean isFloat = entity.getDataType() == DataType.FLOAT;
+
+        if (entity.getKind() == EntityKind.ARRAY) {
+            return (isFloat ? firstFloatArrayLocal : firstIntArrayLocal) + slot;
+        }
+        return isFloat ? firstFloatLocal + 2 * slot : FIRST_VARIABLE + slot;
+    }
+}
@@ -0,0 +1,90 @@
+package com.minisoft.jvm;
+
+import com.minisoft.ast.ArrayElement;
+import com.minisoft.ast.Binary;
+import com.minisoft.ast.Expression;
+import com.minisoft.ast.ExpressionVisitor;
+import com.minisoft.ast.Group;
+import com.minisoft.ast.Identifier;
+import com.minisoft.ast.Literal;
+import com.minisoft.ast.Logical;
+import com.minisoft.ast.Not;
+import com.minisoft.symbol.DataType;
+import com.minisoft.symbol.SymbolTable;
+
+import java.util.Arrays;
+
+/**
+ * Static types of expressions, needed before their code is emitted so that Int operands of
+ * mixed arithmetic can be widened in place. Logical operators and comparisons are Int;
+ * arithmetic is Float as soon as one operand is Float. Results are memoized per node.
+ */
+class ExpressionTypes implements ExpressionVisitor<Boolean> {
+    private static final byte UNKNOWN = 0;
+    private static final byte INT = 1;
+    private static final byte FLOAT = 2;
+
+    private final SymbolTable symbolTable;
+    // The type of every expression by id, UNKNOWN while it has not been computed
+    private byte[] types;
+
+    ExpressionTypes(SymbolTable symbolTable, int expressionCount) {
+        this.symbolTable = symbolTable;
+        this.types = new byte[expressionCount];
+    }
+
+    /**
+     * Returns whether the given expression is of type Float
+     */
+    boolean isFloat(Expression expression) {
+        int id = expression.getId();
+        if (id >= types.length) {
+            types = Arrays.copyOf(types, Math.max(id + 1, types.length * 2));
+        }
+        if (types[id] == UNKNOWN) {
+            types[id] = expression.accept(this) ? FLOAT : INT;
+        }
+        return types[id] == FLOAT;
+    }
+
+    @Override
+    public Boolean visitLiteral(Literal literal) {
+        return literal.isFloat();
+    }
+
+    @Override
+    public Boolean visitIdentifier(Identifier identifier) {
+        return symbolTable.lookupSymbol(identifier.getName()).getDataType() == DataType.FLOAT;
+    }
+
+    @Override
+    public Boolean visitArrayElement(ArrayElement element) {
+        return symbolTable.lookupSymbol(element.getName()).getDataType() == DataType.FLOAT;
+    }
+
+    @Override
+    public Boolean visitGroup(Group group) {
+        return isFloat(group.getExpression());
+    }
+
+    @Override
+    public Boolean visitNot(Not not) {
+        return false;
+    }
+
+    @Override
+    public Boolean visitLogical(Logical logical) {
+        return false;
+    }
+
+    @Override
+    public Boolean visitBinary(Binary binary) {
+        if (binary.getOperator().isComparison()) {
+            return false;
+        }
+        // Both operands are typed, so that their conversions are known when the chain is emitted
+        boolean left = isFloat(binary.getLeft());
+        boolean right = isFloat(binary.getRight());
+        return left || right;
+    }
+}
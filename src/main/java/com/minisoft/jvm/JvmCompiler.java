@@ -0,0 +1,210 @@
+package com.minisoft.jvm;
+
+import com.minisoft.ast.Program;
+import com.minisoft.ast.Statement;
+import com.minisoft.optimizer.ConstantFacts;
+import com.minisoft.optimizer.LoopFacts;
+import com.minisoft.runtime.RuntimeIO;
+import com.minisoft.runtime.RuntimeSupport;
+import com.minisoft.symbol.DataType;
+import com.minisoft.symbol.EntityKind;
+import com.minisoft.symbol.SlotLayout;
+import com.minisoft.symbol.SymbolEntity;
+import com.minisoft.symbol.SymbolTable;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * Compiles a semantically checked MiniSoft program into a JVM class.
+ * The generated class implements {@link Runnable}; it is constructed with the {@link RuntimeIO} used by
+ * input and output statements and also has a {@code main} method, so it can run standalone.
+ * Variables are instance fields that each chunk method copies into primitive locals; the program body is
+ * split into chunks of top-level instructions to stay below the JVM's 64 KB method size limit.
+ */
+public class JvmCompiler {
+    static final String RUNTIME_IO = Type.getInternalName(RuntimeIO.class);
+    static final String RUNTIME_IO_DESC = Type.getDescriptor(RuntimeIO.class);
+    static final String RUNTIME_SUPPORT = Type.getInternalName(RuntimeSupport.class);
+    static final String IO_FIELD = "io";
+
+    // Upper bound on source tokens per chunk method, leaving headroom below the 64 KB bytecode limit
+    private static final int MAX_CHUNK_TOKENS = 4000;
+
+    private final SymbolTable symbolTable;
+    private final SlotLayout layout;
+    private final ConstantFacts constants;
+    private final LoopFacts loops;
+
+    /**
+     * Creates a compiler for programs described by the given symbol table
+     */
+    public JvmCompiler(SymbolTable symbolTable) {
+        this(symbolTable, ConstantFacts.NONE);
+    }
+
+    /**
+     * Creates a compiler that replaces the expressions known to be constant by their values
+     */
+    public JvmCompiler(SymbolTable symbolTable, ConstantFacts constants) {
+        this(symbolTable, constants, LoopFacts.NONE);
+    }
+
+    /**
+     * Creates a compiler that also computes the invariant expressions and induction variables of loops before
+     * running them
+     */
+    public JvmCompiler(SymbolTable symbolTable, ConstantFacts constants, LoopFacts loops) {
+        this.symbolTable = symbolTable;
+        this.layout = new SlotLayout(symbolTable);
+        this.constants = constants;
+        this.loops = loops;
+    }
+
+    /**
+     * Generates the class file of a program
+     *
+     * @param program The semantically checked syntax tree of the program
+     * @param className The internal name of the class to generate, e.g. {@code L3_software}
+     * @param sourceFile The source file name recorded for stack traces, or null
+     * @return The class file bytes
+     */
+    public byte[] compile(Program program, String className, String sourceFile) {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES) {
+            @Override
+            protected String getCommonSuperClass(String type1, String type2) {
+                // Frames only ever merge identical types; avoid loading classes to compute supertypes
+                return "java/lang/Object";
+            }
+        };
+        cw.visit(V11, ACC_PUBLIC | ACC_FINAL | ACC_SUPER, className, null, "java/lang/Object",
+                 new String[] {"java/lang/Runnable"});
+        if (sourceFile != null) {
+            cw.visitSource(sourceFile, null);
+        }
+
+        cw.visitField(ACC_PRIVATE | ACC_FINAL, IO_FIELD, RUNTIME_IO_DESC, null, null).visitEnd();
+        for (SymbolEntity entity : symbolTable.getSymbols().values()) {
+            if (entity.getKind() != EntityKind.CONSTANT) {
+                cw.visitField(ACC_PRIVATE, fieldName(entity), fieldDescriptor(entity), null, null).visitEnd();
+            }
+        }
+
+        generateConstructor(cw, className);
+
+        ExpressionTypes types = new ExpressionTypes(symbolTable, program.getExpressionCount());
+        List<List<Statement>> chunks = split(program.getInstructions());
+        for (int i = 0; i < chunks.size(); i++) {
+            MethodVisitor mv = cw.visitMethod(ACC_PRIVATE, chunkName(i), "()V", null, null);
+            new CodeGenerator(mv, className, symbolTable, layout, types, constants, loops).generateChunk(chunks.get(i));
+        }
+
+        generateRun(cw, className, chunks.size());
+        generateMain(cw, className);
+
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    /**
+     * Returns the class name used for a program, derived from its name in the MainPrgm header
+     */
+    public static String classNameOf(Program program) {
+        return program.getName();
+    }
+
+    private void generateConstructor(ClassWriter cw, String className) {
+        MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "<init>", "(" + RUNTIME_IO_DESC + ")V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitMethodInsn(INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitVarInsn(ALOAD, 1);
+        mv.visitFieldInsn(PUTFIELD, className, IO_FIELD, RUNTIME_IO_DESC);
+
+        for (SymbolEntity entity : symbolTable.getSymbols().values()) {
+            if (entity.getKind() == EntityKind.ARRAY) {
+                mv.visitVarInsn(ALOAD, 0);
+                mv.visitLdcInsn(entity.getArraySize());
+                mv.visitIntInsn(NEWARRAY, entity.getDataType() == DataType.FLOAT ? T_DOUBLE : T_INT);
+                mv.visitFieldInsn(PUTFIELD, className, fieldName(entity), fieldDescriptor(entity));
+            }
+        }
+
+        mv.visitInsn(RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private static void generateRun(ClassWriter cw, String className, int chunkCount) {
+        MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "run", "()V", null, null);
+        mv.visitCode();
+        for (int i = 0; i < chunkCount; i++) {
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitMethodInsn(INVOKESPECIAL, className, chunkName(i), "()V", false);
+        }
+        mv.visitInsn(RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private static void generateMain(ClassWriter cw, String className) {
+        MethodVisitor mv = cw.visitMethod(ACC_PUBLIC | ACC_STATIC, "main", "([Ljava/lang/String;)V", null, null);
+        mv.visitCode();
+        mv.visitTypeInsn(NEW, RUNTIME_IO);
+        mv.visitInsn(DUP);
+        mv.visitFieldInsn(GETSTATIC, "java/lang/System", "in", "Ljava/io/InputStream;");
+        mv.visitFieldInsn(GETSTATIC, "java/lang/System", "out", "Ljava/io/PrintStream;");
+        mv.visitMethodInsn(INVOKESPECIAL, RUNTIME_IO, "<init>", "(Ljava/io/InputStream;Ljava/io/OutputStream;)V", false);
+        mv.visitVarInsn(ASTORE, 1);
+        mv.visitTypeInsn(NEW, className);
+        mv.visitInsn(DUP);
+        mv.visitVarInsn(ALOAD, 1);
+        mv.visitMethodInsn(INVOKESPECIAL, className, "<init>", "(" + RUNTIME_IO_DESC + ")V", false);
+        mv.visitVarInsn(ALOAD, 1);
+        mv.visitMethodInsn(INVOKESTATIC, RUNTIME_SUPPORT, "launch", "(Ljava/lang/Runnable;" + RUNTIME_IO_DESC + ")V", false);
+        mv.visitInsn(RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    /**
+     * Groups consecutive top-level statements into chunks of bounded source size
+     */
+    private static List<List<Statement>> split(List<Statement> statements) {
+        List<List<Statement>> chunks = new ArrayList<>();
+        List<Statement> current = new ArrayList<>();
+        int tokens = 0;
+
+        for (Statement instruction : statements) {
+            int size = instruction.getTokenCount();
+            if (!current.isEmpty() && tokens + size > MAX_CHUNK_TOKENS) {
+                chunks.add(current);
+                current = new ArrayList<>();
+                tokens = 0;
+            }
+            current.add(instruction);
+            tokens += size;
+        }
+        chunks.add(current);
+        return chunks;
+    }
+
+    private static String chunkName(int index) {
+        return "chunk" + index;
+    }
+
+    static String fieldName(SymbolEntity entity) {
+        return "v_" + entity.getName();
+    }
+
+    static String fieldDescriptor(SymbolEntity entity) {
+        String element = entity.getDataType() == DataType.FLOAT ? "D" : "I";
+        return entity.getKind() == EntityKind.ARRAY ? "[" + element : element;
+    }
+}
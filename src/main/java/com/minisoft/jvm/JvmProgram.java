@@ -0,0 +1,68 @@
+package com.minisoft.jvm;
+
+import com.minisoft.runtime.MiniSoftRuntimeException;
+import com.minisoft.runtime.RuntimeIO;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * A compiled program loaded into the running JVM.
+ * Each loaded program gets its own class loader, so it can be unloaded once no longer referenced.
+ */
+public class JvmProgram {
+    private final Constructor<? extends Runnable> constructor;
+
+    private JvmProgram(Constructor<? extends Runnable> constructor) {
+        this.constructor = constructor;
+    }
+
+    /**
+     * Defines the class generated by {@link JvmCompiler} in a fresh class loader
+     *
+     * @param className The internal name the class was generated with
+     * @param classFile The class file bytes
+     * @throws LinkageError if the class file is malformed or fails verification
+     */
+    public static JvmProgram load(String className, byte[] classFile) {
+        ProgramClassLoader loader = new ProgramClassLoader(JvmProgram.class.getClassLoader());
+        Class<? extends Runnable> programClass = loader.define(className.replace('/', '.'), classFile)
+                                                       .asSubclass(Runnable.class);
+        try {
+            return new JvmProgram(programClass.getConstructor(RuntimeIO.class));
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("Generated class has no RuntimeIO constructor", e);
+        }
+    }
+
+    /**
+     * Executes the program, reading input from and writing output to the given streams
+     *
+     * @throws MiniSoftRuntimeException if the program fails at run time
+     */
+    public void run(InputStream in, OutputStream out) {
+        RuntimeIO io = new RuntimeIO(in, out);
+        try {
+            constructor.newInstance(io).run();
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Cannot instantiate generated program", e);
+        } finally {
+            io.flush();
+        }
+    }
+
+    /**
+     * Class loader holding a single generated program class
+     */
+    private static final class ProgramClassLoader extends ClassLoader {
+        ProgramClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        Class<?> define(String name, byte[] classFile) {
+            return defineClass(name, classFile, 0, classFile.length);
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package com.minisoft.optimizer;
+
+import com.minisoft.ast.ArrayElement;
+import com.minisoft.ast.Binary;
+import com.minisoft.ast.Expression;
+import com.minisoft.ast.ExpressionVisitor;
+import com.minisoft.ast.Group;
+import com.minisoft.ast.Identifier;
+import com.minisoft.ast.Literal;
+import com.minisoft.ast.Logical;
+import com.minisoft.ast.Node;
+import com.minisoft.ast.Not;
+import com.minisoft.ast.Operator;
+import com.minisoft.diagnostics.Diagnostic;
+import com.minisoft.diagnostics.DiagnosticCode;
+import com.minisoft.symbol.DataType;
+import com.minisoft.symbol.EntityKind;
+import com.minisoft.symbol.SymbolEntity;
+import com.minisoft.symbol.SymbolTable;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Evaluates expressions over abstract variable values: an Integer or Double when the variable is known to hold
+ * that value, or {@link #VARYING} otherwise. Arithmetic follows the execution backends exactly (Int operations
+ * wrap, an operator chain is Int until its first Float operand, logical operators short-circuit), and a result
+ * is only constant when every operand evaluated for it is, so folding never removes a runtime error.
+ * <p>
+ * In recording mode the value of every expression node is merged into the facts, and divisions by zero and
+ * array accesses out of bounds that happen whenever the expression is evaluated are collected as errors.
+ * Undeclared or misused identifiers, already reported by semantic analysis, evaluate to {@link #VARYING}.
+ */
+final class ConstantEvaluator implements ExpressionVisitor<Object> {
+    /** The value of a variable or expression that is not constant */
+    static final Object VARYING = new Object() {
+        @Override
+        public String toString() {
+            return "varying";
+        }
+    };
+
+    private final SymbolTable symbolTable;
+    private final int[] variables;
+
+    // The value recorded for every expression by id, null where none was evaluated; null when only errors are kept
+    private final Object[] facts;
+    private int constantCount;
+    // Error messages mapped to the node they are reported at
+    private final Set<Diagnostic> errors = new LinkedHashSet<>();
+
+    private Object[] state;
+    private boolean recording;
+
+    /**
+     * Creates an evaluator for a program
+     *
+     * @param variables The index of every scalar variable in the value arrays by symbol id, -1 for other symbols
+     * @param expressionCount The number of expressions of the program
+     */
+    ConstantEvaluator(SymbolTable symbolTable, int[] variables, int expressionCount) {
+        this.symbolTable = symbolTable;
+        this.variables = variables;
+        this.facts = new Object[expressionCount];
+    }
+
+    /**
+     * Creates an evaluator that only collects errors, for statements checked on their own
+     */
+    ConstantEvaluator(SymbolTable symbolTable, int[] variables) {
+        this.symbolTable = symbolTable;
+        this.variables = variables;
+        this.facts = null;
+    }
+
+    /**
+     * Sets the variable values expressions are evaluated against
+     */
+    void setState(Object[] state) {
+        this.state = state;
+    }
+
+    void setRecording(boolean recording) {
+        this.recording = recording;
+    }
+
+    ConstantFacts getFacts() {
+        Number[] values = new Number[facts.length];
+        for (int id = 0; id < facts.length; id++) {
+            if (facts[id] instanceof Number) {
+                values[id] = (Number) facts[id];
+            }
+        }
+        return new ConstantFacts(values, constantCount);
+    }
+
+    Set<Diagnostic> getErrors() {
+        return errors;
+    }
+
+    // Expressions
+
+    /**
+     * Evaluates an expression, recording the value of it and of every subexpression evaluated for it
+     */
+    Object expression(Expression expression) {
+        return record(expression, expression.accept(this));
+    }
+
+    @Override
+    public Object visitLiteral(Literal literal) {
+        // An Int literal out of range was reported by semantic analysis
+        return literal.isValid() ? literal.getValue() : VARYING;
+    }
+
+    @Override
+    public Object visitIdentifier(Identifier identifier) {
+        SymbolEntity entity = symbolTable.lookupSymbol(identifier.getName());
+        if (entity == null) {
+            return VARYING;
+        }
+        if (entity.getKind() == EntityKind.CONSTANT) {
+            return constantValue(entity);
+        }
+        int variable = variables[entity.getId()];
+        return variable >= 0 ? state[variable] : VARYING;
+    }
+
+    @Override
+    public Object visitArrayElement(ArrayElement element) {
+        // Array elements are not tracked
+        index(element.getIndex(), symbolTable.lookupSymbol(element.getName()), element);
+        return VARYING;
+    }
+
+    @Override
+    public Object visitGroup(Group group) {
+        return expression(group.getExpression());
+    }
+
+    @Override
+    public Object visitNot(Not not) {
+        Object operand = truth(expression(not.getOperand()));
+        return operand == VARYING ? VARYING : (Integer) operand == 0 ? 1 : 0;
+    }
+
+    @Override
+    public Object visitLogical(Logical logical) {
+        // OR stops at the first true operand, AND at the first false one
+        boolean isOr = logical.getOperator() == Operator.OR;
+        List<Expression> operands = logical.getOperands();
+        Object result = expression(operands.get(0));
+        for (int i = 1; i < operands.size(); i++) {
+            Object left = truth(result);
+            if (isOr ? isTrue(left) : isFalse(left)) {
+                // The remaining operands are never evaluated
+                return isOr ? 1 : 0;
+            }
+            Object right = truth(expression(operands.get(i)));
+            result = left == VARYING ? VARYING : right;
+        }
+        return result;
+    }
+
+    @Override
+    public Object visitBinary(Binary binary) {
+        Object left = expression(binary.getLeft());
+        Object right = expression(binary.getRight());
+        Operator operator = binary.getOperator();
+        if (operator.isComparison()) {
+            return comparison(operator, left, right);
+        }
+        if (operator == Operator.DIV && right != VARYING && ((Number) right).doubleValue() == 0.0) {
+            reportDivisionByZero(binary.getRight());
+            return VARYING;
+        }
+        return arithmetic(operator, left, right);
+    }
+
+    private static Object comparison(Operator operator, Object left, Object right) {
+        if (left == VARYING || right == VARYING) {
+            return VARYING;
+        }
+
+        int order;
+        if (left instanceof Integer && right instanceof Integer) {
+            order = Integer.compare((Integer) left, (Integer) right);
+        } else {
+            double l = ((Number) left).doubleValue();
+            double r = ((Number) right).doubleValue();
+            if (Double.isNaN(l) || Double.isNaN(r)) {
+                return operator == Operator.NE ? 1 : 0;
+            }
+            order = l < r ? -1 : l > r ? 1 : 0;
+        }
+
+        boolean holds;
+        switch (operator) {
+            case GT: holds = order > 0; break;
+            case LT: holds = order < 0; break;
+            case GE: holds = order >= 0; break;
+            case LE: holds = order <= 0; break;
+            case EQ: holds = order == 0; break;
+            default: holds = order != 0; break;
+        }
+        return holds ? 1 : 0;
+    }
+
+    /**
+     * Applies an arithmetic operator to two values; the result is Int only if both operands are Int
+     */
+    private static Object arithmetic(Operator operator, Object left, Object right) {
+        if (left == VARYING || right == VARYING) {
+            return VARYING;
+        }
+        if (left instanceof Integer && right instanceof Integer) {
+            int l = (Integer) left;
+            int r = (Integer) right;
+            switch (operator) {
+                case PLUS: return l + r;
+                case MINUS: return l - r;
+                case MUL: return l * r;
+                default: return l / r;
+            }
+        }
+        double l = ((Number) left).doubleValue();
+        double r = ((Number) right).doubleValue();
+        switch (operator) {
+            case PLUS: return l + r;
+            case MINUS: return l - r;
+            case MUL: return l * r;
+            default: return l / r;
+        }
+    }
+
+    /**
+     * Evaluates an array index, reporting it if it is always out of bounds
+     *
+     * @param array The indexed symbol; the bounds are not checked if it is undeclared or not an array
+     * @param errorNode The node the error is reported at
+     */
+    void index(Expression index, SymbolEntity array, Node errorNode) {
+        Object value = toInt(expression(index));
+        if (value == VARYING || array == null || array.getKind() != EntityKind.ARRAY) {
+            return;
+        }
+        int position = (Integer) value;
+        if (position < 0) {
+            reportError(errorNode, DiagnosticCode.NEGATIVE_INDEX, position, array.getName());
+        } else if (position >= array.getArraySize()) {
+            reportError(errorNode, DiagnosticCode.INDEX_OUT_OF_BOUNDS, position, array.getArraySize(), array.getName());
+        }
+    }
+
+    // Values
+
+    /**
+     * Returns the value of a declared constant, an Integer or a Double
+     */
+    static Object constantValue(SymbolEntity entity) {
+        if (entity.getDataType() == DataType.INT) {
+            return ((Number) entity.getValue()).intValue();
+        }
+        return Double.parseDouble(entity.getValue().toString());
+    }
+
+    /**
+     * Converts a value to Int, truncating a Float
+     */
+    static Object toInt(Object value) {
+        return value instanceof Double ? (Object) (int) (double) (Double) value : value;
+    }
+
+    /**
+     * Converts a value to Float, widening an Int
+     */
+    static Object toFloat(Object value) {
+        return value instanceof Integer ? (Object) (double) (Integer) value : value;
+    }
+
+    /**
+     * Converts a value to a truth value: 1 if it is non-zero and 0 otherwise
+     */
+    static Object truth(Object value) {
+        if (value == VARYING) {
+            return VARYING;
+        }
+        return ((Number) value).doubleValue() != 0.0 ? 1 : 0;
+    }
+
+    static boolean isTrue(Object truth) {
+        return truth instanceof Integer && (Integer) truth != 0;
+    }
+
+    static boolean isFalse(Object truth) {
+        return truth instanceof Integer && (Integer) truth == 0;
+    }
+
+    // Recording
+
+    /**
+     * Merges the value of an expression into its recorded fact and returns the value. An expression evaluated with
+     * different values, for example a loop step evaluated both before and after the body, is not constant.
+     */
+    private Object record(Expression expression, Object value) {
+        if (!recording || facts == null) {
+            return value;
+        }
+        int id = expression.getId();
+        Object known = facts[id];
+        if (known == null) {
+            facts[id] = value;
+            if (value != VARYING) {
+                constantCount++;
+            }
+        } else if (known != VARYING && !known.equals(value)) {
+            facts[id] = VARYING;
+            constantCount--;
+        }
+        return value;
+    }
+
+    private void reportDivisionByZero(Expression divisor) {
+        if (divisor instanceof Literal) {
+            reportError(divisor, DiagnosticCode.DIVISION_BY_ZERO);
+        } else if (divisor instanceof Identifier) {
+            reportError(divisor, DiagnosticCode.ZERO_VARIABLE_DIVISOR, ((Identifier) divisor).getName());
+        } else {
+            reportError(divisor, DiagnosticCode.ZERO_DIVISOR);
+        }
+    }
+
+    private void reportError(Node node, DiagnosticCode code, Object... arguments) {
+        if (recording) {
+            errors.add(new Diagnostic(code, node.getLine(), node.getColumn(), arguments));
+        }
+    }
+}
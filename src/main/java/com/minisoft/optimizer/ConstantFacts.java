@@ -0,0 +1,54 @@
+package com.minisoft.optimizer;
+
+import com.minisoft.ast.Expression;
+
+/**
+ * The expressions of a program proven by {@link ConstantPropagation} to have the same value every time they
+ * are evaluated. Code generators replace such an expression by its value and drop branches whose condition
+ * is constant. A constant expression never fails at run time: all of its divisors are known and non-zero,
+ * and it reads no array elements. Values are kept in an array indexed by {@link Expression#getId() expression id}.
+ */
+public class ConstantFacts {
+    /** Facts for code that was not analyzed: no expression is known to be constant */
+    public static final ConstantFacts NONE = new ConstantFacts(new Number[0], 0);
+
+    private final Number[] values;
+    private final int constantCount;
+
+    ConstantFacts(Number[] values, int constantCount) {
+        this.values = values;
+        this.constantCount = constantCount;
+    }
+
+    /**
+     * Returns the value an expression always evaluates to, an Integer for Int and a Double for Float
+     * expressions, or null if it is not constant or was never reached
+     */
+    public Number valueOf(Expression expression) {
+        int id = expression.getId();
+        return id < values.length ? values[id] : null;
+    }
+
+    /**
+     * Returns whether a condition is known to hold every time it is evaluated
+     */
+    public boolean isAlwaysTrue(Expression condition) {
+        Number value = valueOf(condition);
+        return value != null && value.doubleValue() != 0.0;
+    }
+
+    /**
+     * Returns whether a condition is known to fail every time it is evaluated
+     */
+    public boolean isAlwaysFalse(Expression condition) {
+        Number value = valueOf(condition);
+        return value != null && value.doubleValue() == 0.0;
+    }
+
+    /**
+     * Returns the number of expressions with a known value
+     */
+    public int getConstantCount() {
+        return constantCount;
+    }
+}
@@ -0,0 +1,397 @@
+package com.minisoft.optimizer;
+
+import com.minisoft.ast.Assignment;
+import com.minisoft.ast.DoWhileLoop;
+import com.minisoft.ast.Expression;
+import com.minisoft.ast.ForLoop;
+import com.minisoft.ast.IfStatement;
+import com.minisoft.ast.InputStatement;
+import com.minisoft.ast.Node;
+import com.minisoft.ast.OutputStatement;
+import com.minisoft.ast.Program;
+import com.minisoft.ast.Statement;
+import com.minisoft.ast.StatementVisitor;
+import com.minisoft.diagnostics.Diagnostic;
+import com.minisoft.diagnostics.DiagnosticSink;
+import com.minisoft.symbol.DataType;
+import com.minisoft.symbol.EntityKind;
+import com.minisoft.symbol.SymbolEntity;
+import com.minisoft.symbol.SymbolTable;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Conditional constant propagation over the control flow graph of a program.
+ * Every scalar variable starts out as 0, as in all execution backends. The values reaching each statement are
+ * computed with a worklist until they no longer change: where paths with different values of a variable meet,
+ * the variable becomes varying, and a branch whose condition is constant only passes values to the side it takes,
+ * so code that is never reached does not weaken the facts about the code that is.
+ * <p>
+ * With the final values, every reachable expression is evaluated once more to record which expressions are
+ * constant, and divisions by zero and array indexes out of bounds that happen whenever their statement runs
+ * are reported as semantic errors.
+ * <p>
+ * The analysis only needs the symbol table, so it also runs on programs with declaration or type errors; statements
+ * writing undeclared or misused identifiers then leave every variable unchanged.
+ * <p>
+ * A statement can also be checked on its own with {@link #check}, starting with every variable varying. Only the
+ * errors of expressions made of literals and declared constants, and of variables the statement itself assigns,
+ * are then proven, which needs no knowledge of the statements before it.
+ */
+public class ConstantPropagation {
+    private final SymbolTable symbolTable;
+    // Index of every scalar variable in the value arrays by symbol id, or -1 for other symbols
+    private final int[] variables;
+    private final boolean[] floatVariables;
+    private final List<FlowNode> nodes = new ArrayList<>();
+    private ConstantEvaluator evaluator;
+    private boolean hasErrors;
+    private final DiagnosticSink diagnostics;
+
+    // Nodes whose entry values changed since they were last processed; none has an id below restart
+    private final BitSet pending = new BitSet();
+    private int restart;
+
+    /**
+     * Creates an analysis for the program described by the given symbol table
+     */
+    public ConstantPropagation(SymbolTable symbolTable) {
+        this(symbolTable, System.err);
+    }
+
+    /**
+     * Creates an analysis that reports the errors it proves to the given stream
+     */
+    public ConstantPropagation(SymbolTable symbolTable, PrintStream err) {
+        this(symbolTable, DiagnosticSink.printingTo(err));
+    }
+
+    /**
+     * Creates an analysis that reports the errors it proves to the given sink
+     */
+    public ConstantPropagation(SymbolTable symbolTable, DiagnosticSink diagnostics) {
+        this.symbolTable = symbolTable;
+        this.diagnostics = diagnostics;
+        this.variables = new int[symbolTable.size()];
+        int variableCount = 0;
+        for (int id = 0; id < variables.length; id++) {
+            variables[id] = symbolTable.getSymbol(id).getKind() == EntityKind.VARIABLE ? variableCount++ : -1;
+        }
+        this.floatVariables = new boolean[variableCount];
+        for (int id = 0; id < variables.length; id++) {
+            if (variables[id] >= 0) {
+                floatVariables[variables[id]] = symbolTable.getSymbol(id).getDataType() == DataType.FLOAT;
+            }
+        }
+    }
+
+    /**
+     * Analyzes a program, printing the runtime errors it proves
+     *
+     * @param program The syntax tree of the program
+     * @return The expressions found to be constant
+     */
+    public ConstantFacts analyze(Program program) {
+        evaluator = new ConstantEvaluator(symbolTable, variables, program.getExpressionCount());
+        FlowNode entry = node(FlowNode.Kind.JOIN, program, -1);
+        buildStatements(program.getInstructions(), entry);
+
+        Object[] initial = new Object[floatVariables.length];
+        for (int variable = 0; variable < initial.length; variable++) {
+            initial[variable] = floatVariables[variable] ? (Object) 0.0 : (Object) 0;
+        }
+        entry.in = initial;
+
+        solve();
+        record();
+        return evaluator.getFacts();
+    }
+
+    /**
+     * Checks one top-level statement on its own, with every variable varying on entry, printing the runtime errors
+     * it proves. No facts are recorded, and the memory used does not depend on what was checked before.
+     */
+    public void check(Statement statement) {
+        nodes.clear();
+        pending.clear();
+        restart = 0;
+        evaluator = new ConstantEvaluator(symbolTable, variables);
+        FlowNode entry = node(FlowNode.Kind.JOIN, statement, -1);
+        statement.accept(new GraphBuilder(entry));
+
+        Object[] initial = new Object[floatVariables.length];
+        Arrays.fill(initial, ConstantEvaluator.VARYING);
+        entry.in = initial;
+
+        solve();
+        record();
+    }
+
+    /**
+     * Returns whether the analysis proved a runtime error
+     */
+    public boolean hasErrors() {
+        return hasErrors;
+    }
+
+    // Control flow graph
+
+    /**
+     * Appends the nodes of a list of statements after the given node and returns the last one
+     */
+    private FlowNode buildStatements(List<Statement> statements, FlowNode current) {
+        for (Statement statement : statements) {
+            current = statement.accept(new GraphBuilder(current));
+        }
+        return current;
+    }
+
+    /**
+     * Appends the nodes of one statement after a given node and returns the last one
+     */
+    private final class GraphBuilder implements StatementVisitor<FlowNode> {
+        private final FlowNode current;
+
+        GraphBuilder(FlowNode current) {
+            this.current = current;
+        }
+
+        @Override
+        public FlowNode visitAssignment(Assignment assignment) {
+            int variable = assignment.getIndex() == null ? variableOf(assignment.getName(), false) : -1;
+            return link(current, node(FlowNode.Kind.ASSIGN, assignment, variable));
+        }
+
+        @Override
+        public FlowNode visitIf(IfStatement statement) {
+            FlowNode test = link(current, node(FlowNode.Kind.BRANCH, statement.getCondition(), -1));
+            FlowNode thenTail = buildStatements(statement.getThenBranch(), link(test, node(FlowNode.Kind.JOIN, statement, -1)));
+            FlowNode elseTail = link(test, node(FlowNode.Kind.JOIN, statement, -1));
+            if (statement.getElseBranch() != null) {
+                elseTail = buildStatements(statement.getElseBranch(), elseTail);
+            }
+            FlowNode end = link(thenTail, node(FlowNode.Kind.JOIN, statement, -1));
+            return link(elseTail, end);
+        }
+
+        @Override
+        public FlowNode visitDoWhile(DoWhileLoop loop) {
+            FlowNode body = link(current, node(FlowNode.Kind.JOIN, loop, -1));
+            FlowNode test = link(buildStatements(loop.getBody(), body), node(FlowNode.Kind.BRANCH, loop.getCondition(), -1));
+            link(test, body);
+            return link(test, node(FlowNode.Kind.JOIN, loop, -1));
+        }
+
+        @Override
+        public FlowNode visitFor(ForLoop loop) {
+            int variable = variableOf(loop.getVariable(), true);
+            FlowNode init = link(current, node(FlowNode.Kind.FOR_INIT, loop, variable));
+            FlowNode test = link(init, node(FlowNode.Kind.FOR_TEST, loop, variable));
+            FlowNode bodyTail = buildStatements(loop.getBody(), link(test, node(FlowNode.Kind.JOIN, loop, -1)));
+            FlowNode exit = link(test, node(FlowNode.Kind.JOIN, loop, -1));
+            link(link(bodyTail, node(FlowNode.Kind.FOR_NEXT, loop, variable)), test);
+            return exit;
+        }
+
+        @Override
+        public FlowNode visitInput(InputStatement statement) {
+            return link(current, node(FlowNode.Kind.INPUT, statement, variableOf(statement.getName(), false)));
+        }
+
+        @Override
+        public FlowNode visitOutput(OutputStatement statement) {
+            return link(current, node(FlowNode.Kind.OUTPUT, statement, -1));
+        }
+    }
+
+    private FlowNode node(FlowNode.Kind kind, Node source, int variable) {
+        FlowNode node = new FlowNode(nodes.size(), kind, source, variable);
+        nodes.add(node);
+        return node;
+    }
+
+    private static FlowNode link(FlowNode from, FlowNode to) {
+        from.successors.add(to);
+        return to;
+    }
+
+    /**
+     * Returns the index of a scalar variable, or -1 if the name is not one (of type Int, if requested)
+     */
+    private int variableOf(String name, boolean intOnly) {
+        SymbolEntity entity = symbolTable.lookupSymbol(name);
+        if (entity == null || variables[entity.getId()] < 0) {
+            return -1;
+        }
+        int variable = variables[entity.getId()];
+        return intOnly && floatVariables[variable] ? -1 : variable;
+    }
+
+    // Dataflow
+
+    /**
+     * Propagates values through the graph until they are stable. Pending nodes are processed in creation order,
+     * which visits the statements of a loop before the code after it.
+     */
+    private void solve() {
+        pending.set(0);
+        for (int id = pending.nextSetBit(restart); id >= 0; id = pending.nextSetBit(restart)) {
+            pending.clear(id);
+            restart = id + 1;
+            FlowNode node = nodes.get(id);
+            Object[] out = transfer(node);
+
+            if (!node.isConditional()) {
+                for (FlowNode successor : node.successors) {
+                    propagate(successor, out);
+                }
+                continue;
+            }
+            Object taken = outcome(node, out);
+            if (!ConstantEvaluator.isFalse(taken)) {
+                propagate(node.successors.get(0), out);
+            }
+            if (!ConstantEvaluator.isTrue(taken)) {
+                propagate(node.successors.get(1), out);
+            }
+        }
+    }
+
+    /**
+     * Evaluates the expressions of a node against its entry values and returns the values on exit
+     */
+    private Object[] transfer(FlowNode node) {
+        evaluator.setState(node.in);
+        switch (node.kind) {
+            case ASSIGN: {
+                Assignment assignment = (Assignment) node.source;
+                if (assignment.getIndex() != null) {
+                    evaluator.index(assignment.getIndex(), symbolTable.lookupSymbol(assignment.getName()), assignment);
+                    evaluator.expression(assignment.getValue());
+                    return node.in;
+                }
+                Object value = evaluator.expression(assignment.getValue());
+                if (node.variable < 0) {
+                    return node.in;
+                }
+                return assign(node.in, node.variable, floatVariables[node.variable] ? ConstantEvaluator.toFloat(value)
+                                                                                    : ConstantEvaluator.toInt(value));
+            }
+            case INPUT:
+                return assign(node.in, node.variable, ConstantEvaluator.VARYING);
+            case OUTPUT: {
+                for (Node argument : ((OutputStatement) node.source).getArguments()) {
+                    if (argument instanceof Expression) {
+                        evaluator.expression((Expression) argument);
+                    }
+                }
+                return node.in;
+            }
+            case FOR_INIT: {
+                ForLoop loop = (ForLoop) node.source;
+                return assign(node.in, node.variable, ConstantEvaluator.toInt(evaluator.expression(loop.getFrom())));
+            }
+            case FOR_NEXT: {
+                ForLoop loop = (ForLoop) node.source;
+                Object step = ConstantEvaluator.toInt(evaluator.expression(loop.getStep()));
+                Object counter = node.variable >= 0 ? node.in[node.variable] : ConstantEvaluator.VARYING;
+                boolean known = step != ConstantEvaluator.VARYING && counter != ConstantEvaluator.VARYING;
+                return assign(node.in, node.variable, known ? (Object) ((Integer) counter + (Integer) step) : ConstantEvaluator.VARYING);
+            }
+            default:
+                // Join points change nothing, and conditions are evaluated by outcome()
+                return node.in;
+        }
+    }
+
+    /**
+     * Returns 1 if a conditional node always passes control to its first successor, 0 if it always passes it to
+     * the second, or {@link ConstantEvaluator#VARYING}
+     */
+    private Object outcome(FlowNode node, Object[] state) {
+        if (node.kind == FlowNode.Kind.BRANCH) {
+            return ConstantEvaluator.truth(evaluator.expression((Expression) node.source));
+        }
+
+        // The for loop test evaluates the step before the bound
+        ForLoop loop = (ForLoop) node.source;
+        Object step = ConstantEvaluator.toInt(evaluator.expression(loop.getStep()));
+        Object bound = ConstantEvaluator.toInt(evaluator.expression(loop.getTo()));
+        Object counter = node.variable >= 0 ? state[node.variable] : ConstantEvaluator.VARYING;
+        if (step == ConstantEvaluator.VARYING || bound == ConstantEvaluator.VARYING || counter == ConstantEvaluator.VARYING) {
+            return ConstantEvaluator.VARYING;
+        }
+        int value = (Integer) counter;
+        boolean exits = (Integer) step >= 0 ? value > (Integer) bound : value < (Integer) bound;
+        return exits ? 0 : 1;
+    }
+
+    private static Object[] assign(Object[] state, int variable, Object value) {
+        if (variable < 0 || state[variable].equals(value)) {
+            return state;
+        }
+        Object[] copy = state.clone();
+        copy[variable] = value;
+        return copy;
+    }
+
+    /**
+     * Merges the values leaving a node into the entry values of a successor, marking it pending if they changed
+     */
+    private void propagate(FlowNode target, Object[] state) {
+        if (target.in == null) {
+            target.in = state;
+            schedule(target);
+            return;
+        }
+
+        Object[] merged = null;
+        for (int i = 0; i < state.length; i++) {
+            Object known = target.in[i];
+            if (known != ConstantEvaluator.VARYING && !known.equals(state[i])) {
+                if (merged == null) {
+                    merged = target.in.clone();
+                }
+                merged[i] = ConstantEvaluator.VARYING;
+            }
+        }
+        if (merged != null) {
+            target.in = merged;
+            schedule(target);
+        }
+    }
+
+    private void schedule(FlowNode node) {
+        pending.set(node.id);
+        restart = Math.min(restart, node.id);
+    }
+
+    // Results
+
+    /**
+     * Evaluates every reachable node once more with its final entry values, recording facts and errors
+     */
+    private void record() {
+        evaluator.setRecording(true);
+        for (FlowNode node : nodes) {
+            if (node.in != null) {
+                Object[] out = transfer(node);
+                if (node.isConditional()) {
+                    outcome(node, out);
+                }
+            }
+        }
+
+        List<Diagnostic> errors = new ArrayList<>(evaluator.getErrors());
+        errors.sort(Comparator.comparingInt(Diagnostic::getLine).thenComparingInt(Diagnostic::getColumn));
+        for (Diagnostic error : errors) {
+            diagnostics.report(error);
+            hasErrors = true;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.minisoft.optimizer;
+
+import com.minisoft.ast.Node;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A node of the control flow graph built by {@link ConstantPropagation}: one simple statement, one test of a
+ * condition, one step of a for loop, or a join point. Conditional nodes have two successors, the one taken when
+ * the test passes (or the loop body is entered) first.
+ */
+final class FlowNode {
+    enum Kind {
+        JOIN,
+        ASSIGN,
+        INPUT,
+        OUTPUT,
+        BRANCH,
+        FOR_INIT,
+        FOR_TEST,
+        FOR_NEXT
+    }
+
+    final int id;
+    final Kind kind;
+    // The statement, loop or condition the node was built for
+    final Node source;
+    // Index of the scalar variable the node writes, or -1
+    final int variable;
+    final List<FlowNode> successors = new ArrayList<>(2);
+
+    // Values of the variables on entry, or null while the node has not been reached
+    Object[] in;
+
+    FlowNode(int id, Kind kind, Node source, int variable) {
+        this.id = id;
+        this.kind = kind;
+        this.source = source;
+        this.variable = variable;
+    }
+
+    boolean isConditional() {
+        return kind == Kind.BRANCH || kind == Kind.FOR_TEST;
+    }
+}
@@ -0,0 +1,125 @@
+package com.minisoft.optimizer;
+
+import com.minisoft.ast.Binary;
+import com.minisoft.ast.Expression;
+import com.minisoft.ast.ForLoop;
+import com.minisoft.ast.Group;
+import com.minisoft.ast.Identifier;
+import com.minisoft.ast.Statement;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The loop optimizations {@link LoopOptimizer} found in a program. Code generators evaluate the invariant
+ * expressions of a loop once before it and keep their values, evaluate an invariant bound or step of a for loop once
+ * instead of before every iteration, and keep every product of a for loop variable by an invariant factor in an
+ * induction variable that grows by the step times the factor after each iteration, instead of multiplying.
+ * Wherever such an expression occurs in the loop, its value is then read instead of computed.
+ */
+public class LoopFacts {
+    /** Facts for code that was not optimized: no loop has anything to move or reduce */
+    public static final LoopFacts NONE = new LoopFacts(new byte[0], Collections.emptyMap(), 0, 0);
+
+    static final byte HOISTED = 1;
+    static final byte REDUCED = 2;
+
+    // What became of every expression by id: 0, HOISTED or REDUCED
+    private final byte[] roles;
+    private final Map<Statement, Loop> loops;
+    private final int hoistedCount;
+    private final int reducedCount;
+
+    LoopFacts(byte[] roles, Map<Statement, Loop> loops, int hoistedCount, int reducedCount) {
+        this.roles = roles;
+        this.loops = loops;
+        this.hoistedCount = hoistedCount;
+        this.reducedCount = reducedCount;
+    }
+
+    /**
+     * Returns whether the value of an expression is computed before its loop, as an invariant expression or an
+     * induction variable, and only read where the expression occurs
+     */
+    public boolean isPrecomputed(Expression expression) {
+        int id = expression.getId();
+        return id < roles.length && roles[id] != 0;
+    }
+
+    /**
+     * Returns the invariant expressions to evaluate before a for or do-while loop, in source order.
+     * None of them can fail, so they can be evaluated even when the loop would not have evaluated them.
+     */
+    public List<Expression> getInvariants(Statement loop) {
+        Loop facts = loops.get(loop);
+        return facts != null ? facts.invariants : Collections.emptyList();
+    }
+
+    /**
+     * Returns the Int products of the variable of a for loop by an invariant factor, in source order
+     */
+    public List<Binary> getInductions(ForLoop loop) {
+        Loop facts = loops.get(loop);
+        return facts != null ? facts.inductions : Collections.emptyList();
+    }
+
+    /**
+     * Returns whether the bound of a for loop has the same value before every iteration
+     */
+    public boolean isBoundInvariant(ForLoop loop) {
+        Loop facts = loops.get(loop);
+        return facts != null && facts.boundInvariant;
+    }
+
+    /**
+     * Returns whether the step of a for loop has the same value before and after every iteration
+     */
+    public boolean isStepInvariant(ForLoop loop) {
+        Loop facts = loops.get(loop);
+        return facts != null && facts.stepInvariant;
+    }
+
+    /**
+     * Returns the operand of an induction product of a for loop that is not the loop variable
+     */
+    public static Expression factorOf(ForLoop loop, Binary product) {
+        Expression left = product.getLeft();
+        while (left instanceof Group) {
+            left = ((Group) left).getExpression();
+        }
+        boolean leftIsVariable = left instanceof Identifier && ((Identifier) left).getName().equals(loop.getVariable());
+        return leftIsVariable ? product.getRight() : product.getLeft();
+    }
+
+    /**
+     * Returns the number of invariant expressions moved out of loops
+     */
+    public int getHoistedCount() {
+        return hoistedCount;
+    }
+
+    /**
+     * Returns the number of products replaced by induction variables
+     */
+    public int getReducedCount() {
+        return reducedCount;
+    }
+
+    /**
+     * What is done to one loop
+     */
+    static final class Loop {
+        final List<Expression> invariants;
+        final List<Binary> inductions;
+        final boolean boundInvariant;
+        final boolean stepInvariant;
+
+        Loop(List<Expression> invariants, List<Binary> inductions, boolean boundInvariant, boolean stepInvariant) {
+            this.invariants = invariants;
+            this.inductions = inductions;
+            this.boundInvariant = boundInvariant;
+            this.stepInvariant = stepInvariant;
+        }
+    }
+}
@@ -0,0 +1,442 @@
+package com.minisoft.optimizer;
+
+import com.minisoft.ast.ArrayElement;
+import com.minisoft.ast.Assignment;
+import com.minisoft.ast.AstBaseListener;
+import com.minisoft.ast.AstWalker;
+import com.minisoft.ast.Binary;
+import com.minisoft.ast.DoWhileLoop;
+import com.minisoft.ast.Expression;
+import com.minisoft.ast.ForLoop;
+import com.minisoft.ast.Group;
+import com.minisoft.ast.Identifier;
+import com.minisoft.ast.InputStatement;
+import com.minisoft.ast.Literal;
+import com.minisoft.ast.Logical;
+import com.minisoft.ast.Node;
+import com.minisoft.ast.Not;
+import com.minisoft.ast.Operator;
+import com.minisoft.ast.Program;
+import com.minisoft.ast.Statement;
+import com.minisoft.symbol.DataType;
+import com.minisoft.symbol.EntityKind;
+import com.minisoft.symbol.SymbolEntity;
+import com.minisoft.symbol.SymbolTable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the loop optimizations of a checked program, described by {@link LoopFacts}. It walks the program three
+ * times: to collect the variables and arrays every loop writes, then bottom-up to find how many of the enclosing
+ * loops each expression is invariant in, and top-down to choose which expressions to move out of which loop.
+ * <p>
+ * An expression is invariant in a loop when the loop writes none of the variables and arrays it reads. Only
+ * arithmetic that cannot fail is moved: it reads no array element, which could be out of bounds, and divides only by
+ * constants other than zero, so that evaluating it before a loop never raises an error the loop would not have.
+ * Every such expression is moved out of as many loops as it is invariant in, unless it is part of a larger
+ * expression moved to the same place; an expression moved to an inner loop may then read one moved further out.
+ * <p>
+ * The Int product of the variable of a for loop by an invariant factor becomes an induction variable when the body of
+ * the loop never writes the variable and the step is invariant: it is {@code variable * factor} after the variable is
+ * initialized, and grows by {@code step * factor} whenever the variable grows by the step. Int arithmetic wraps, so
+ * the sums are exactly the products.
+ * <p>
+ * The bound and step of a for loop are evaluated before every iteration, as the body may change them. When it
+ * does not, they are evaluated once, before the first test: in the same order and with the same errors.
+ */
+public class LoopOptimizer {
+    private final SymbolTable symbolTable;
+    private final ConstantFacts constants;
+
+    // The loops of the program in the order they start
+    private final List<LoopInfo> loops = new ArrayList<>();
+
+    // For every expression by id: the index of the outermost enclosing loop it is invariant in, counted from the
+    // outermost loop, or the number of enclosing loops if it varies in the innermost one
+    private short[] levels;
+    private byte[] flags;
+    private byte[] roles;
+    private int hoistedCount;
+    private int reducedCount;
+
+    // Flags of an expression
+    private static final byte FLOAT = 1;
+    // Evaluating the expression cannot fail
+    private static final byte SAFE = 2;
+    // The expression is worth keeping the value of if it is invariant
+    private static final byte MOVABLE = 4;
+    // The value of the expression is known, so its operands are never evaluated
+    private static final byte FOLDED = 8;
+
+    /**
+     * Creates an optimizer for the program described by the given symbol table
+     *
+     * @param constants The constant expressions of the program, which code generators fold
+     */
+    public LoopOptimizer(SymbolTable symbolTable, ConstantFacts constants) {
+        this.symbolTable = symbolTable;
+        this.constants = constants;
+    }
+
+    /**
+     * Finds the optimizations of every loop of a program
+     */
+    public LoopFacts optimize(Program program) {
+        levels = new short[program.getExpressionCount()];
+        flags = new byte[program.getExpressionCount()];
+        roles = new byte[program.getExpressionCount()];
+
+        AstWalker.DEFAULT.walk(new WriteCollector(), program);
+        AstWalker.DEFAULT.walk(new InvarianceFinder(), program);
+        AstWalker.DEFAULT.walk(new MotionPlanner(), program);
+
+        Map<Statement, LoopFacts.Loop> facts = new IdentityHashMap<>();
+        for (LoopInfo loop : loops) {
+            if (!loop.invariants.isEmpty() || !loop.inductions.isEmpty() || loop.boundInvariant || loop.stepInvariant) {
+                facts.put(loop.statement, new LoopFacts.Loop(loop.invariants, loop.inductions, loop.boundInvariant,
+                                                             loop.stepInvariant));
+            }
+        }
+        return new LoopFacts(roles, facts, hoistedCount, reducedCount);
+    }
+
+    /**
+     * What is known about one loop while the program is walked
+     */
+    private static final class LoopInfo {
+        final Statement statement;
+        // The variable of a for loop, or null for a do-while loop
+        final String variable;
+        // The symbol ids of the variables and arrays the loop writes, including its own variable
+        final BitSet written = new BitSet();
+        // Whether the body also writes the variable of a for loop
+        boolean variableWritten;
+        boolean boundInvariant;
+        boolean stepInvariant;
+        // Whether the walk is past the bound and step of a for loop
+        boolean inBody;
+        final List<Expression> invariants = new ArrayList<>();
+        final List<Binary> inductions = new ArrayList<>();
+
+        LoopInfo(Statement statement, String variable) {
+            this.statement = statement;
+            this.variable = variable;
+        }
+    }
+
+    /**
+     * Tracks the loops enclosing the nodes of a walk. The start value of a for loop is evaluated once before the
+     * loop, so the loop only encloses what comes after it.
+     */
+    private abstract class LoopTracker extends AstBaseListener {
+        final List<LoopInfo> open = new ArrayList<>();
+        private int started;
+        private ForLoop starting;
+
+        @Override
+        public void enterForLoop(ForLoop loop) {
+            starting = loop;
+        }
+
+        @Override
+        public void enterDoWhileLoop(DoWhileLoop loop) {
+            open.add(loops.get(started++));
+        }
+
+        @Override
+        public void exitForLoop(ForLoop loop) {
+            open.remove(open.size() - 1);
+        }
+
+        @Override
+        public void exitDoWhileLoop(DoWhileLoop loop) {
+            open.remove(open.size() - 1);
+        }
+
+        @Override
+        public void exitEveryNode(Node node) {
+            if (starting != null && node == starting.getFrom()) {
+                starting = null;
+                open.add(loops.get(started++));
+            }
+        }
+
+        /**
+         * Returns the innermost open loop, or null
+         */
+        LoopInfo innermost() {
+            return open.isEmpty() ? null : open.get(open.size() - 1);
+        }
+    }
+
+    /**
+     * Collects the variables and arrays written by every loop
+     */
+    private final class WriteCollector extends AstBaseListener {
+        private final List<LoopInfo> open = new ArrayList<>();
+
+        @Override
+        public void enterForLoop(ForLoop loop) {
+            LoopInfo info = new LoopInfo(loop, loop.getVariable());
+            loops.add(info);
+            open.add(info);
+            write(loop.getVariable(), info);
+        }
+
+        @Override
+        public void enterDoWhileLoop(DoWhileLoop loop) {
+            LoopInfo info = new LoopInfo(loop, null);
+            loops.add(info);
+            open.add(info);
+        }
+
+        @Override
+        public void exitForLoop(ForLoop loop) {
+            open.remove(open.size() - 1);
+        }
+
+        @Override
+        public void exitDoWhileLoop(DoWhileLoop loop) {
+            open.remove(open.size() - 1);
+        }
+
+        @Override
+        public void enterAssignment(Assignment assignment) {
+            write(assignment.getName(), null);
+        }
+
+        @Override
+        public void enterInputStatement(InputStatement statement) {
+            write(statement.getName(), null);
+        }
+
+        /**
+         * Records a write to a variable or array in every open loop
+         *
+         * @param writer The for loop writing its own variable, or null
+         */
+        private void write(String name, LoopInfo writer) {
+            SymbolEntity entity = symbolTable.lookupSymbol(name);
+            if (entity == null) {
+                return;
+            }
+            for (LoopInfo loop : open) {
+                loop.written.set(entity.getId());
+                if (loop != writer && name.equals(loop.variable)) {
+                    loop.variableWritten = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the invariance level, type and safety of every expression from those of its operands, and finds the
+     * induction products and the invariant bounds and steps
+     */
+    private final class InvarianceFinder extends LoopTracker {
+        @Override
+        public void exitEveryNode(Node node) {
+            super.exitEveryNode(node);
+            if (!(node instanceof Expression)) {
+                return;
+            }
+            Expression expression = (Expression) node;
+            int id = expression.getId();
+            if (constants.valueOf(expression) != null) {
+                levels[id] = 0;
+                flags[id] = (byte) (FOLDED | SAFE | (constants.valueOf(expression) instanceof Double ? FLOAT : 0));
+            }
+
+            LoopInfo loop = innermost();
+            if (loop != null && loop.statement instanceof ForLoop) {
+                ForLoop forLoop = (ForLoop) loop.statement;
+                int invariantLevel = open.size() - 1;
+                if (expression == forLoop.getTo()) {
+                    loop.boundInvariant = levels[id] <= invariantLevel;
+                } else if (expression == forLoop.getStep()) {
+                    loop.stepInvariant = levels[id] <= invariantLevel;
+                    loop.inBody = true;
+                }
+            }
+        }
+
+        @Override
+        public void exitLiteral(Literal literal) {
+            set(literal, 0, SAFE | (literal.isFloat() ? FLOAT : 0));
+        }
+
+        @Override
+        public void exitIdentifier(Identifier identifier) {
+            SymbolEntity entity = symbolTable.lookupSymbol(identifier.getName());
+            int type = entity.getDataType() == DataType.FLOAT ? FLOAT : 0;
+            int level = entity.getKind() == EntityKind.CONSTANT ? 0 : writerLevel(entity);
+            set(identifier, level, SAFE | type);
+        }
+
+        @Override
+        public void exitArrayElement(ArrayElement element) {
+            SymbolEntity entity = symbolTable.lookupSymbol(element.getName());
+            int type = entity.getDataType() == DataType.FLOAT ? FLOAT : 0;
+            set(element, Math.max(levels[element.getIndex().getId()], writerLevel(entity)), type);
+        }
+
+        @Override
+        public void exitGroup(Group group) {
+            Expression operand = group.getExpression();
+            set(group, levels[operand.getId()], flags[operand.getId()] & (FLOAT | SAFE));
+        }
+
+        @Override
+        public void exitNot(Not not) {
+            Expression operand = not.getOperand();
+            set(not, levels[operand.getId()], flags[operand.getId()] & SAFE);
+        }
+
+        @Override
+        public void exitLogical(Logical logical) {
+            int level = 0;
+            int safe = SAFE;
+            for (Expression operand : logical.getOperands()) {
+                level = Math.max(level, levels[operand.getId()]);
+                safe &= flags[operand.getId()];
+            }
+            set(logical, level, safe);
+        }
+
+        @Override
+        public void exitBinary(Binary binary) {
+            int left = binary.getLeft().getId();
+            int right = binary.getRight().getId();
+            int level = Math.max(levels[left], levels[right]);
+            int safe = flags[left] & flags[right] & SAFE;
+            if (binary.getOperator().isComparison()) {
+                set(binary, level, safe);
+                return;
+            }
+
+            if (binary.getOperator() == Operator.DIV) {
+                Number divisor = constants.valueOf(binary.getRight());
+                if (divisor == null || divisor.doubleValue() == 0.0) {
+                    safe = 0;
+                }
+            }
+            int type = (flags[left] | flags[right]) & FLOAT;
+            set(binary, level, safe | type | (safe != 0 ? MOVABLE : 0));
+
+            if (binary.getOperator() == Operator.MUL && type == 0 && constants.valueOf(binary) == null) {
+                findInduction(binary, binary.getLeft(), binary.getRight());
+                findInduction(binary, binary.getRight(), binary.getLeft());
+            }
+        }
+
+        /**
+         * Makes a product an induction variable of a for loop if one operand is the loop variable and the other an
+         * invariant that cannot fail
+         */
+        private void findInduction(Binary product, Expression variable, Expression factor) {
+            while (variable instanceof Group) {
+                variable = ((Group) variable).getExpression();
+            }
+            if (!(variable instanceof Identifier) || roles[product.getId()] == LoopFacts.REDUCED) {
+                return;
+            }
+            int level = levels[variable.getId()] - 1;
+            if (level < 0) {
+                return;
+            }
+            LoopInfo loop = open.get(level);
+            if (((Identifier) variable).getName().equals(loop.variable) && !loop.variableWritten && loop.inBody
+                    && loop.stepInvariant && levels[factor.getId()] <= level && (flags[factor.getId()] & SAFE) != 0) {
+                roles[product.getId()] = LoopFacts.REDUCED;
+                flags[product.getId()] &= ~MOVABLE;
+                loop.inductions.add(product);
+                reducedCount++;
+            }
+        }
+
+        private void set(Expression expression, int level, int flagBits) {
+            int id = expression.getId();
+            // A folded expression keeps the facts set when it is left
+            if (constants.valueOf(expression) == null) {
+                levels[id] = (short) level;
+                flags[id] = (byte) flagBits;
+            }
+        }
+
+        /**
+         * Returns one more than the index of the innermost open loop writing a variable or array, or 0 if none does
+         */
+        private int writerLevel(SymbolEntity entity) {
+            for (int index = open.size() - 1; index >= 0; index--) {
+                if (open.get(index).written.get(entity.getId())) {
+                    return index + 1;
+                }
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * Chooses the loop every movable expression is evaluated before, from the outside in: an expression is moved if
+     * it is invariant in more loops than the code evaluating it is in
+     */
+    private final class MotionPlanner extends LoopTracker {
+        // For every open expression, the number of loops the code evaluating its operands is in
+        private short[] depths = new short[16];
+        private int size;
+
+        @Override
+        public void enterEveryNode(Node node) {
+            if (!(node instanceof Expression)) {
+                return;
+            }
+            int id = ((Expression) node).getId();
+            int depth = size > 0 ? depths[size - 1] : statementDepth(node);
+            if ((flags[id] & FOLDED) != 0) {
+                // The operands of a folded expression are never evaluated
+                depth = -1;
+            } else if (roles[id] == LoopFacts.REDUCED) {
+                // The factor of an induction variable is evaluated before its loop
+                depth = levels[id] - 1;
+            } else if ((flags[id] & MOVABLE) != 0 && levels[id] < depth) {
+                roles[id] = LoopFacts.HOISTED;
+                open.get(levels[id]).invariants.add((Expression) node);
+                hoistedCount++;
+                depth = levels[id];
+            }
+            if (size == depths.length) {
+                depths = Arrays.copyOf(depths, size * 2);
+            }
+            depths[size++] = (short) depth;
+        }
+
+        @Override
+        public void exitEveryNode(Node node) {
+            super.exitEveryNode(node);
+            if (node instanceof Expression) {
+                size--;
+            }
+        }
+
+        /**
+         * Returns the number of loops the code evaluating an expression of a statement is in. An invariant bound or
+         * step of a for loop is evaluated before the loop.
+         */
+        private int statementDepth(Node expression) {
+            LoopInfo loop = innermost();
+            if (loop != null && loop.statement instanceof ForLoop) {
+                ForLoop forLoop = (ForLoop) loop.statement;
+                if ((expression == forLoop.getTo() && loop.boundInvariant)
+                        || (expression == forLoop.getStep() && loop.stepInvariant)) {
+                    return open.size() - 1;
+                }
+            }
+            return open.size();
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.minisoft.profile;
+
+import com.minisoft.diagnostics.JsonDiagnosticPrinter;
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.atn.DecisionInfo;
+import org.antlr.v4.runtime.atn.ParseInfo;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Measurements of the compilation of one source file, taken with --profile: the wall time, CPU time and bytes
+ * allocated by every phase, the size of what the phases produced, and the parser decisions that took the most
+ * prediction time. CPU time and allocation are those of the compiling thread, read from the {@link ThreadMXBean};
+ * they are -1 where the JVM does not measure them. A profile is filled by a single thread.
+ */
+public class CompilationProfile {
+    /** The number of parser decisions kept, costliest first */
+    public static final int DECISION_LIMIT = 10;
+
+    /** A profile that measures nothing, for compilations that are not profiled */
+    public static final CompilationProfile DISABLED = new CompilationProfile(false);
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final boolean enabled;
+    private final List<Phase> phases = new ArrayList<>();
+    private final List<Decision> decisions = new ArrayList<>();
+    private long tokenCount = -1;
+    private long parseTreeNodeCount = -1;
+    private long syntaxTreeNodeCount = -1;
+    private long symbolCount = -1;
+
+    // The phase being measured
+    private String phaseName;
+    private long phaseWallStart;
+    private long phaseCpuStart;
+    private long phaseAllocatedStart;
+
+    /**
+     * Creates an empty profile
+     */
+    public CompilationProfile() {
+        this(true);
+    }
+
+    private CompilationProfile(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Returns whether this profile measures anything
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts measuring a phase, ending the previous one if it was not ended
+     */
+    public void startPhase(String name) {
+        if (!enabled) {
+            return;
+        }
+        endPhase();
+        phaseName = name;
+        phaseAllocatedStart = allocatedBytes();
+        phaseCpuStart = cpuTime();
+        phaseWallStart = System.nanoTime();
+    }
+
+    /**
+     * Ends the phase being measured, if any
+     */
+    public void endPhase() {
+        if (phaseName == null) {
+            return;
+        }
+        long wall = System.nanoTime() - phaseWallStart;
+        long cpu = cpuTime();
+        long allocated = allocatedBytes();
+        phases.add(new Phase(phaseName, wall, phaseCpuStart < 0 ? -1 : cpu - phaseCpuStart,
+                             phaseAllocatedStart < 0 ? -1 : allocated - phaseAllocatedStart));
+        phaseName = null;
+    }
+
+    private static long cpuTime() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : -1;
+    }
+
+    private static long allocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Keeps the {@value #DECISION_LIMIT} decisions a parser spent the most time predicting, from the statistics
+     * it gathered with {@link Parser#setProfile(boolean)}
+     */
+    public void recordDecisions(Parser parser) {
+        ParseInfo parseInfo = enabled ? parser.getParseInfo() : null;
+        if (parseInfo == null) {
+            return;
+        }
+        List<DecisionInfo> made = new ArrayList<>();
+        for (DecisionInfo info : parseInfo.getDecisionInfo()) {
+            if (info.invocations > 0) {
+                made.add(info);
+            }
+        }
+        made.sort(Comparator.comparingLong((DecisionInfo info) -> info.timeInPrediction).reversed());
+
+        decisions.clear();
+        String[] ruleNames = parser.getRuleNames();
+        for (DecisionInfo info : made.subList(0, Math.min(DECISION_LIMIT, made.size()))) {
+            int rule = parser.getATN().decisionToState.get(info.decision).ruleIndex;
+            decisions.add(new Decision(info.decision, ruleNames[rule], info));
+        }
+    }
+
+    public void setTokenCount(long tokenCount) {
+        if (enabled) {
+            this.tokenCount = tokenCount;
+        }
+    }
+
+    public void setParseTreeNodeCount(long parseTreeNodeCount) {
+        if (enabled) {
+            this.parseTreeNodeCount = parseTreeNodeCount;
+        }
+    }
+
+    public void setSyntaxTreeNodeCount(long syntaxTreeNodeCount) {
+        if (enabled) {
+            this.syntaxTreeNodeCount = syntaxTreeNodeCount;
+        }
+    }
+
+    public void setSymbolCount(long symbolCount) {
+        if (enabled) {
+            this.symbolCount = symbolCount;
+        }
+    }
+
+    /**
+     * Returns the measured phases, in the order they ran
+     */
+    public List<Phase> getPhases() {
+        return Collections.unmodifiableList(phases);
+    }
+
+    /**
+     * Returns the costliest parser decisions, costliest first
+     */
+    public List<Decision> getDecisions() {
+        return Collections.unmodifiableList(decisions);
+    }
+
+    /**
+     * Returns the number of tokens, including hidden ones and the end of file, or -1 if the file was not lexed
+     */
+    public long getTokenCount() {
+        return tokenCount;
+    }
+
+    /**
+     * Returns the number of parse tree nodes, or -1 if the file was not parsed
+     */
+    public long getParseTreeNodeCount() {
+        return parseTreeNodeCount;
+    }
+
+    /**
+     * Returns the number of syntax tree nodes, or -1 if the parse tree was not lowered
+     */
+    public long getSyntaxTreeNodeCount() {
+        return syntaxTreeNodeCount;
+    }
+
+    /**
+     * Returns the number of symbols, or -1 if the symbol table was not built
+     */
+    public long getSymbolCount() {
+        return symbolCount;
+    }
+
+    /**
+     * Appends the counts, phases and decisions as the members of a JSON object, without the braces
+     */
+    void appendJson(StringBuilder json) {
+        json.append("\"counts\":{\"tokens\":").append(tokenCount)
+            .append(",\"parseTreeNodes\":").append(parseTreeNodeCount)
+            .append(",\"syntaxTreeNodes\":").append(syntaxTreeNodeCount)
+            .append(",\"symbols\":").append(symbolCount).append('}');
+
+        json.append(",\"phases\":[");
+        for (int i = 0; i < phases.size(); i++) {
+            Phase phase = phases.get(i);
+            json.append(i > 0 ? "," : "").append("{\"name\":");
+            JsonDiagnosticPrinter.appendString(json, phase.name);
+            json.append(",\"wallNanos\":").append(phase.wallNanos)
+                .append(",\"cpuNanos\":").append(phase.cpuNanos)
+                .append(",\"allocatedBytes\":").append(phase.allocatedBytes).append('}');
+        }
+        json.append(']');
+
+        json.append(",\"decisions\":[");
+        for (int i = 0; i < decisions.size(); i++) {
+            Decision decision = decisions.get(i);
+            json.append(i > 0 ? "," : "").append("{\"decision\":").append(decision.decision).append(",\"rule\":");
+            JsonDiagnosticPrinter.appendString(json, decision.rule);
+            json.append(",\"invocations\":").append(decision.invocations)
+                .append(",\"timeNanos\":").append(decision.timeNanos)
+                .append(",\"sllLookahead\":").append(decision.sllLookahead)
+                .append(",\"llLookahead\":").append(decision.llLookahead)
+                .append(",\"llFallbacks\":").append(decision.llFallbacks)
+                .append(",\"ambiguities\":").append(decision.ambiguities)
+                .append(",\"errors\":").append(decision.errors).append('}');
+        }
+        json.append(']');
+    }
+
+    /**
+     * The cost of one phase of a compilation
+     */
+    public static final class Phase {
+        private final String name;
+        private final long wallNanos;
+        private final long cpuNanos;
+        private final long allocatedBytes;
+
+        Phase(String name, long wallNanos, long cpuNanos, long allocatedBytes) {
+            this.name = name;
+            this.wallNanos = wallNanos;
+            this.cpuNanos = cpuNanos;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getWallNanos() {
+            return wallNanos;
+        }
+
+        /**
+         * Returns the CPU time of the compiling thread, or -1 if it is not measured
+         */
+        public long getCpuNanos() {
+            return cpuNanos;
+        }
+
+        /**
+         * Returns the bytes allocated by the compiling thread, or -1 if they are not measured
+         */
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+    }
+
+    /**
+     * The prediction statistics of one parser decision: how often it was made, the time spent predicting it, the
+     * tokens looked ahead with SLL and full LL prediction, how often SLL fell back to LL, and the ambiguities and
+     * syntax errors found while predicting it
+     */
+    public static final class Decision {
+        private final int decision;
+        private final String rule;
+        private final long invocations;
+        private final long timeNanos;
+        private final long sllLookahead;
+        private final long llLookahead;
+        private final long llFallbacks;
+        private final int ambiguities;
+        private final int errors;
+
+        Decision(int decision, String rule, DecisionInfo info) {
+            this.decision = decision;
+            this.rule = rule;
+            this.invocations = info.invocations;
+            this.timeNanos = info.timeInPrediction;
+            this.sllLookahead = info.SLL_TotalLook;
+            this.llLookahead = info.LL_TotalLook;
+            this.llFallbacks = info.LL_Fallback;
+            this.ambiguities = info.ambiguities.size();
+            this.errors = info.errors.size();
+        }
+
+        public int getDecision() {
+            return decision;
+        }
+
+        /**
+         * Returns the name of the grammar rule the decision is made in
+         */
+        public String getRule() {
+            return rule;
+        }
+
+        public long getInvocations() {
+            return invocations;
+        }
+
+        public long getTimeNanos() {
+            return timeNanos;
+        }
+
+        public long getSllLookahead() {
+            return sllLookahead;
+        }
+
+        public long getLlLookahead() {
+            return llLookahead;
+        }
+
+        public long getLlFallbacks() {
+            return llFallbacks;
+        }
+
+        public int getAmbiguities() {
+            return ambiguities;
+        }
+
+        public int getErrors() {
+            return errors;
+        }
+    }
+}
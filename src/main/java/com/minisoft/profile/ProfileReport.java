@@ -0,0 +1,61 @@
+package com.minisoft.profile;
+
+import com.minisoft.diagnostics.JsonDiagnosticPrinter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The JSON report written with --profile, one object per compiled file in the order the files were given:
+ * <pre>
+ * {"files":[{"file":"a.ms","status":"SUCCESS","parseMode":"SLL","elapsedNanos":...,
+ *   "counts":{"tokens":...,"parseTreeNodes":...,"syntaxTreeNodes":...,"symbols":...},
+ *   "phases":[{"name":"lexing","wallNanos":...,"cpuNanos":...,"allocatedBytes":...},...],
+ *   "decisions":[{"decision":3,"rule":"expression","invocations":...,"timeNanos":...,"sllLookahead":...,
+ *                 "llLookahead":...,"llFallbacks":...,"ambiguities":...,"errors":...},...]}]}
+ * </pre>
+ * Counts that were not measured, because the compilation stopped before, are -1, and the parse mode of a file
+ * that was not parsed is null.
+ */
+public class ProfileReport {
+    private final StringBuilder files = new StringBuilder();
+
+    /**
+     * Adds the profile of a compiled file
+     *
+     * @param parseMode The prediction mode the file was parsed with, or null
+     */
+    public void add(String file, String status, String parseMode, long elapsedNanos, CompilationProfile profile) {
+        files.append(files.length() > 0 ? ",\n" : "\n").append("{\"file\":");
+        JsonDiagnosticPrinter.appendString(files, file);
+        files.append(",\"status\":");
+        JsonDiagnosticPrinter.appendString(files, status);
+        files.append(",\"parseMode\":");
+        if (parseMode == null) {
+            files.append("null");
+        } else {
+            JsonDiagnosticPrinter.appendString(files, parseMode);
+        }
+        files.append(",\"elapsedNanos\":").append(elapsedNanos).append(',');
+        profile.appendJson(files);
+        files.append('}');
+    }
+
+    /**
+     * Writes the report, replacing the file if it exists
+     */
+    public void write(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        Files.write(file, toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public String toString() {
+        return "{\"files\":[" + files + "\n]}\n";
+    }
+}
@@ -0,0 +1,26 @@
+package com.minisoft.runtime;
+
+/**
+ * Error raised while executing a MiniSoft program, such as a division by zero,
+ * an array index out of bounds or invalid input.
+ */
+public class MiniSoftRuntimeException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final int line;
+
+    /**
+     * Creates a runtime error for the given source line
+     */
+    public MiniSoftRuntimeException(int line, String message) {
+        super(message);
+        this.line = line;
+    }
+
+    /**
+     * Returns the source line of the instruction that failed
+     */
+    public int getLine() {
+        return line;
+    }
+}
@@ -0,0 +1,130 @@
+package com.minisoft.runtime;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Buffered standard input and output for executing MiniSoft programs.
+ * Output is only flushed when input is requested and when the program ends, so that
+ * output statements inside tight loops do not pay for a system call each.
+ * Input values are whitespace-separated tokens.
+ */
+public class RuntimeIO {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Reader in;
+    private final Writer out;
+    private final StringBuilder token;
+
+    /**
+     * Creates buffered I/O over the given streams
+     */
+    public RuntimeIO(InputStream in, OutputStream out) {
+        this.in = new InputStreamReader(in, StandardCharsets.UTF_8);
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        this.token = new StringBuilder();
+    }
+
+    /**
+     * Reads the next input token as an Int
+     *
+     * @param line The source line of the input statement, for error reporting
+     */
+    public int readInt(int line) {
+        String text = readToken(line);
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new MiniSoftRuntimeException(line, "Invalid Int input '" + text + "'");
+        }
+    }
+
+    /**
+     * Reads the next input token as a Float
+     *
+     * @param line The source line of the input statement, for error reporting
+     */
+    public double readFloat(int line) {
+        String text = readToken(line);
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            throw new MiniSoftRuntimeException(line, "Invalid Float input '" + text + "'");
+        }
+    }
+
+    public void printString(String value) {
+        write(value);
+    }
+
+    public void printInt(int value) {
+        write(Integer.toString(value));
+    }
+
+    public void printFloat(double value) {
+        write(Double.toString(value));
+    }
+
+    /**
+     * Writes the separator between two arguments of an output statement
+     */
+    public void printSeparator() {
+        write(" ");
+    }
+
+    /**
+     * Ends the line written by an output statement
+     */
+    public void println() {
+        write("\n");
+    }
+
+    /**
+     * Writes all buffered output to the underlying stream
+     */
+    public void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void write(String text) {
+        try {
+            out.write(text);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String readToken(int line) {
+        // Make pending prompts visible before blocking on input
+        flush();
+        token.setLength(0);
+        try {
+            int c = in.read();
+            while (c != -1 && Character.isWhitespace(c)) {
+                c = in.read();
+            }
+            while (c != -1 && !Character.isWhitespace(c)) {
+                token.append((char) c);
+                c = in.read();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (token.length() == 0) {
+            throw new MiniSoftRuntimeException(line, "Unexpected end of input");
+        }
+        return token.toString();
+    }
+}
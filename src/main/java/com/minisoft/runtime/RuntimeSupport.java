@@ -0,0 +1,56 @@
+package com.minisoft.runtime;
+
+/**
+ * Checks and entry points shared by all MiniSoft execution backends.
+ * The helpers are small static methods so that generated code can call them and the JIT can inline them.
+ */
+public final class RuntimeSupport {
+    private RuntimeSupport() {
+    }
+
+    /**
+     * Divides two Int values, failing on a zero divisor
+     */
+    public static int divide(int dividend, int divisor, int line) {
+        if (divisor == 0) {
+            throw new MiniSoftRuntimeException(line, "Division by zero");
+        }
+        return dividend / divisor;
+    }
+
+    /**
+     * Divides two Float values, failing on a zero divisor
+     */
+    public static double divide(double dividend, double divisor, int line) {
+        if (divisor == 0.0) {
+            throw new MiniSoftRuntimeException(line, "Division by zero");
+        }
+        return dividend / divisor;
+    }
+
+    /**
+     * Returns the index if it lies within an array of the given length, failing otherwise
+     */
+    public static int checkIndex(int index, int length, String arrayName, int line) {
+        if (index < 0 || index >= length) {
+            throw new MiniSoftRuntimeException(line, "Array index out of bounds: Index " + index +
+                                               " for array '" + arrayName + "' of size " + length);
+        }
+        return index;
+    }
+
+    /**
+     * Runs a compiled program as a standalone application, reporting a runtime error and exiting
+     * with status 1 if it fails
+     */
+    public static void launch(Runnable program, RuntimeIO io) {
+        try {
+            program.run();
+        } catch (MiniSoftRuntimeException e) {
+            io.flush();
+            System.err.println("[Runtime Error] Line " + e.getLine() + " - " + e.getMessage());
+            System.exit(1);
+        }
+        io.flush();
+    }
+}
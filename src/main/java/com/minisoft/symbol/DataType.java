@@ -0,0 +1,42 @@
+package com.minisoft.symbol;
+
+/**
+ * Data types of MiniSoft symbols and expressions
+ */
+public enum DataType {
+    INT("Int"),
+    FLOAT("Float"),
+    /** Type of an expression that refers to an undeclared identifier */
+    UNKNOWN("unknown");
+
+    private static final DataType[] VALUES = values();
+
+    private final String displayName;
+
+    DataType(String displayName) {
+        this.displayName = displayName;
+    }
+
+    /**
+     * Returns the type with the given code, as returned by {@link #code()}
+     */
+    public static DataType ofCode(int code) {
+        return VALUES[code - 1];
+    }
+
+    /**
+     * Returns a small non-zero number identifying the type, so that per-node types fit in a byte array
+     * where 0 means "no type recorded"
+     */
+    public byte code() {
+        return (byte) (ordinal() + 1);
+    }
+
+    /**
+     * Returns the name of the type as written in MiniSoft source
+     */
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
@@ -0,0 +1,21 @@
+package com.minisoft.symbol;
+
+/**
+ * Kinds of declared identifiers
+ */
+public enum EntityKind {
+    VARIABLE("variable"),
+    CONSTANT("constant"),
+    ARRAY("array");
+
+    private final String displayName;
+
+    EntityKind(String displayName) {
+        this.displayName = displayName;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
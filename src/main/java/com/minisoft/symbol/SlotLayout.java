@@ -0,0 +1,79 @@
+package com.minisoft.symbol;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns every variable and array of a symbol table a storage slot for execution.
+ * Slots are numbered separately per storage kind (Int scalars, Float scalars, Int arrays, Float arrays)
+ * so that backends can keep values in primitive arrays or locals instead of boxed objects.
+ * Constants get no slot; their value is taken from the symbol table.
+ */
+public class SlotLayout {
+    private final Map<String, Integer> slots;
+    private int intCount;
+    private int floatCount;
+    private final List<Integer> intArraySizes;
+    private final List<Integer> floatArraySizes;
+
+    /**
+     * Creates the layout for all variables and arrays of the given symbol table
+     */
+    public SlotLayout(SymbolTable symbolTable) {
+        this.slots = new HashMap<>();
+        this.intArraySizes = new ArrayList<>();
+        this.floatArraySizes = new ArrayList<>();
+
+        for (SymbolEntity entity : symbolTable.getSymbols().values()) {
+            boolean isInt = entity.getDataType() == DataType.INT;
+
+            if (entity.getKind() == EntityKind.ARRAY) {
+                List<Integer> sizes = isInt ? intArraySizes : floatArraySizes;
+                slots.put(entity.getName(), sizes.size());
+                sizes.add(entity.getArraySize());
+            } else if (entity.getKind() == EntityKind.VARIABLE) {
+                slots.put(entity.getName(), isInt ? intCount++ : floatCount++);
+            }
+        }
+    }
+
+    /**
+     * Returns the slot of a variable or array within its storage kind, or -1 for constants and unknown names
+     */
+    public int slotOf(String name) {
+        Integer slot = slots.get(name);
+        return slot != null ? slot : -1;
+    }
+
+    public int getIntCount() {
+        return intCount;
+    }
+
+    public int getFloatCount() {
+        return floatCount;
+    }
+
+    public int getIntArrayCount() {
+        return intArraySizes.size();
+    }
+
+    public int getFloatArrayCount() {
+        return floatArraySizes.size();
+    }
+
+    /**
+     * Returns the declared size of the Int array stored in the given slot
+     */
+    public int getIntArraySize(int slot) {
+        return intArraySizes.get(slot);
+    }
+
+    /**
+     * Returns the declared size of the Float array stored in the given slot
+     */
+    public int getFloatArraySize(int slot) {
+        return floatArraySizes.get(slot);
+    }
+}
@@ -2,17 +2,18 @@ package com.minisoft.symbol;
 
 public class SymbolEntity {
     private String name;
-    private String dataType;
-    private String entityType; // "variable", "constant", "array"
+    private DataType dataType;
+    private EntityKind kind;
+    private int id = -1; // Assigned by the symbol table
     private int line;
     private int column;
     private Object value;
     private int arraySize;
     
-    public SymbolEntity(String name, String dataType, String entityType, int line, int column) {
+    public SymbolEntity(String name, DataType dataType, EntityKind kind, int line, int column) {
         this.name = name;
         this.dataType = dataType;
-        this.entityType = entityType;
+        this.kind = kind;
         this.line = line;
         this.column = column;
     }
@@ -21,12 +22,23 @@ public class SymbolEntity {
         return name;
     }
     
-    public String getDataType() {
+    /**
+     * Returns the number of the symbol within its table, from 0 in declaration order, or -1 before it is added
+     */
+    public int getId() {
+        return id;
+    }
+    
+    void setId(int id) {
+        this.id = id;
+    }
+    
+    public DataType getDataType() {
         return dataType;
     }
     
-    public String getEntityType() {
-        return entityType;
+    public EntityKind getKind() {
+        return kind;
     }
     
     public int getLine() {
@@ -57,9 +69,9 @@ public class SymbolEntity {
     public String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append(name).append(" : ")
-          .append(dataType).append(" (").append(entityType).append(") ");
+          .append(dataType).append(" (").append(kind).append(") ");
         
-        if (entityType.equals("array")) {
+        if (kind == EntityKind.ARRAY) {
             sb.append("[size=").append(arraySize).append("]");
         } else if (value != null) {
             sb.append("= ").append(value);
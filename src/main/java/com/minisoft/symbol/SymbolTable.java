@@ -1,16 +1,34 @@
 package com.minisoft.symbol;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class SymbolTable {
+    private static final byte VALUE_NONE = 0;
+    private static final byte VALUE_INT = 1;
+    private static final byte VALUE_FLOAT = 2;
+
     private Map<String, SymbolEntity> symbols;
+    private List<SymbolEntity> symbolsById;
 
     public SymbolTable() {
         this.symbols = new HashMap<>();
+        this.symbolsById = new ArrayList<>();
     }
 
+    /**
+     * Adds a symbol whose name is not declared yet and numbers it, so that analyses can keep per-symbol
+     * data in arrays indexed by {@link SymbolEntity#getId()}
+     */
     public void addSymbol(SymbolEntity entity) {
+        entity.setId(symbolsById.size());
+        symbolsById.add(entity);
         symbols.put(entity.getName(), entity);
     }
 
@@ -22,6 +40,13 @@ public class SymbolTable {
         return symbols.get(name);
     }
 
+    /**
+     * Returns the symbol with the given id
+     */
+    public SymbolEntity getSymbol(int id) {
+        return symbolsById.get(id);
+    }
+
     public void printSymbolTable() {
         System.out.println("\n=== Symbol Table ===");
         System.out.println("Name\tType\tEntity Type\tLine:Col\tValue/Size");
@@ -31,10 +56,10 @@ public class SymbolTable {
             StringBuilder sb = new StringBuilder();
             sb.append(entity.getName()).append("\t")
                     .append(entity.getDataType()).append("\t")
-                    .append(entity.getEntityType()).append("\t\t")
+                    .append(entity.getKind()).append("\t\t")
                     .append(entity.getLine()).append(":").append(entity.getColumn()).append("\t");
 
-            if (entity.getEntityType().equals("array")) {
+            if (entity.getKind() == EntityKind.ARRAY) {
                 sb.append("size=").append(entity.getArraySize());
             } else if (entity.getValue() != null) {
                 sb.append(entity.getValue());
@@ -55,13 +80,68 @@ public class SymbolTable {
     }
 
     public void displaySymbolTable() {
-        System.out.println("Symbol Table:");
+        displaySymbolTable(System.out);
+    }
+
+    /**
+     * Prints every symbol with its type, kind and declaration position to the given stream
+     */
+    public void displaySymbolTable(PrintStream out) {
+        out.println("Symbol Table:");
         for (Map.Entry<String, SymbolEntity> entry : symbols.entrySet()) {
             String name = entry.getKey();
             SymbolEntity entity = entry.getValue();
-            System.out.println("Name: " + name + ", Type: " + entity.getDataType() +
-                    ", Entity Type: " + entity.getEntityType() +
+            out.println("Name: " + name + ", Type: " + entity.getDataType() +
+                    ", Entity Type: " + entity.getKind() +
                     ", Line: " + entity.getLine() + ", Column: " + entity.getColumn());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Writes every symbol in id order, so that {@link #read(DataInput)} rebuilds an equal table with the same ids
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(symbolsById.size());
+        for (SymbolEntity entity : symbolsById) {
+            out.writeUTF(entity.getName());
+            out.writeByte(entity.getDataType().code());
+            out.writeByte(entity.getKind().ordinal());
+            out.writeInt(entity.getLine());
+            out.writeInt(entity.getColumn());
+            out.writeInt(entity.getArraySize());
+            Object value = entity.getValue();
+            if (value instanceof Integer) {
+                out.writeByte(VALUE_INT);
+                out.writeInt((Integer) value);
+            } else if (value instanceof Float) {
+                out.writeByte(VALUE_FLOAT);
+                out.writeFloat((Float) value);
+            } else {
+                out.writeByte(VALUE_NONE);
+            }
+        }
+    }
+
+    /**
+     * Reads a table written by {@link #write(DataOutput)}
+     */
+    public static SymbolTable read(DataInput in) throws IOException {
+        SymbolTable table = new SymbolTable();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            String name = in.readUTF();
+            DataType dataType = DataType.ofCode(in.readByte());
+            EntityKind kind = EntityKind.values()[in.readByte()];
+            SymbolEntity entity = new SymbolEntity(name, dataType, kind, in.readInt(), in.readInt());
+            entity.setArraySize(in.readInt());
+            byte valueType = in.readByte();
+            if (valueType == VALUE_INT) {
+                entity.setValue(in.readInt());
+            } else if (valueType == VALUE_FLOAT) {
+                entity.setValue(in.readFloat());
+            }
+            table.addSymbol(entity);
+        }
+        return table;
+    }
+}
@@ -0,0 +1,778 @@
+package com.minisoft.vm;
+
+import com.minisoft.ast.ArrayElement;
+import com.minisoft.ast.Assignment;
+import com.minisoft.ast.AstBaseListener;
+import com.minisoft.ast.AstWalker;
+import com.minisoft.ast.Binary;
+import com.minisoft.ast.DoWhileLoop;
+import com.minisoft.ast.Expression;
+import com.minisoft.ast.ExpressionVisitor;
+import com.minisoft.ast.ForLoop;
+import com.minisoft.ast.Group;
+import com.minisoft.ast.Identifier;
+import com.minisoft.ast.IfStatement;
+import com.minisoft.ast.InputStatement;
+import com.minisoft.ast.Literal;
+import com.minisoft.ast.Logical;
+import com.minisoft.ast.Node;
+import com.minisoft.ast.Not;
+import com.minisoft.ast.Operator;
+import com.minisoft.ast.OutputStatement;
+import com.minisoft.ast.Program;
+import com.minisoft.ast.Statement;
+import com.minisoft.ast.StatementVisitor;
+import com.minisoft.ast.Text;
+import com.minisoft.optimizer.ConstantFacts;
+import com.minisoft.optimizer.LoopFacts;
+import com.minisoft.symbol.DataType;
+import com.minisoft.symbol.EntityKind;
+import com.minisoft.symbol.SlotLayout;
+import com.minisoft.symbol.SymbolEntity;
+import com.minisoft.symbol.SymbolTable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.minisoft.vm.Opcode.*;
+
+/**
+ * Lowers the instructions of one program into VM code.
+ * Each register file is laid out as the variables (numbered as in the {@link SlotLayout}), then one read-only
+ * register per distinct constant, then temporaries. Temporaries are allocated like a stack and released after
+ * every instruction, so their number stays close to the deepest expression of the program. The values loop
+ * optimization computes before a loop are temporaries of the loop statement, so they last until it ends.
+ */
+class CodeGenerator implements StatementVisitor<Void> {
+    private final SymbolTable symbolTable;
+    private final SlotLayout layout;
+    private final ConstantFacts constants;
+    private final LoopFacts loops;
+    private final ExpressionCompiler expressions = new ExpressionCompiler();
+    // The registers holding the values of the expressions computed before the loop they are in
+    private final Map<Expression, Operand> precomputed = new IdentityHashMap<>();
+
+    private int[] code = new int[256];
+    private int size;
+    // Position of the destination operand of the last emitted instruction, or -1 if it may not be retargeted
+    private int lastDestination = -1;
+
+    private final List<Integer> labels = new ArrayList<>();
+    private final List<int[]> fixups = new ArrayList<>();
+
+    private final Map<Integer, Integer> intConstants = new LinkedHashMap<>();
+    private final Map<Double, Integer> floatConstants = new LinkedHashMap<>();
+    private final Map<String, Integer> strings = new LinkedHashMap<>();
+
+    private final int firstIntTemp;
+    private final int firstFloatTemp;
+    private int nextIntTemp;
+    private int nextFloatTemp;
+    private int intRegisterCount;
+    private int floatRegisterCount;
+
+    /**
+     * Creates a generator for the given program, assigning registers to all constants it uses
+     */
+    CodeGenerator(SymbolTable symbolTable, SlotLayout layout, ConstantFacts constants, LoopFacts loops,
+                  Program program) {
+        this.symbolTable = symbolTable;
+        this.layout = layout;
+        this.constants = constants;
+        this.loops = loops;
+
+        for (SymbolEntity entity : symbolTable.getSymbols().values()) {
+            if (entity.getKind() == EntityKind.CONSTANT) {
+                if (entity.getDataType() == DataType.INT) {
+                    addIntConstant(((Number) entity.getValue()).intValue());
+                } else {
+                    addFloatConstant(Double.parseDouble(entity.getValue().toString()));
+                }
+            }
+        }
+        for (Statement statement : program.getInstructions()) {
+            AstWalker.DEFAULT.walk(new ConstantCollector(), statement);
+        }
+
+        this.firstIntTemp = layout.getIntCount() + intConstants.size();
+        this.firstFloatTemp = layout.getFloatCount() + floatConstants.size();
+        this.nextIntTemp = firstIntTemp;
+        this.nextFloatTemp = firstFloatTemp;
+        this.intRegisterCount = firstIntTemp;
+        this.floatRegisterCount = firstFloatTemp;
+    }
+
+    /**
+     * Lowers the program and returns it in executable form
+     */
+    VmProgram generate(Program program) {
+        compileStatements(program.getInstructions());
+        emit(HALT);
+
+        for (int[] fixup : fixups) {
+            code[fixup[0]] = labels.get(fixup[1]);
+        }
+
+        int[] intRegisters = new int[intRegisterCount];
+        for (Map.Entry<Integer, Integer> constant : intConstants.entrySet()) {
+            intRegisters[constant.getValue()] = constant.getKey();
+        }
+        double[] floatRegisters = new double[floatRegisterCount];
+        for (Map.Entry<Double, Integer> constant : floatConstants.entrySet()) {
+            floatRegisters[constant.getValue()] = constant.getKey();
+        }
+
+        int[] intArraySizes = new int[layout.getIntArrayCount()];
+        String[] intArrayNames = new String[intArraySizes.length];
+        int[] floatArraySizes = new int[layout.getFloatArrayCount()];
+        String[] floatArrayNames = new String[floatArraySizes.length];
+        for (SymbolEntity entity : symbolTable.getSymbols().values()) {
+            if (entity.getKind() == EntityKind.ARRAY) {
+                int slot = layout.slotOf(entity.getName());
+                if (entity.getDataType() == DataType.INT) {
+                    intArraySizes[slot] = entity.getArraySize();
+                    intArrayNames[slot] = entity.getName();
+                } else {
+                    floatArraySizes[slot] = entity.getArraySize();
+                    floatArrayNames[slot] = entity.getName();
+                }
+            }
+        }
+
+        return new VmProgram(Arrays.copyOf(code, size), intRegisters, floatRegisters,
+                             intArraySizes, floatArraySizes, intArrayNames, floatArrayNames,
+                             strings.keySet().toArray(new String[0]));
+    }
+
+    // Instructions
+
+    private void compileStatements(List<Statement> statements) {
+        for (Statement statement : statements) {
+            int intMark = nextIntTemp;
+            int floatMark = nextFloatTemp;
+            statement.accept(this);
+            nextIntTemp = intMark;
+            nextFloatTemp = floatMark;
+        }
+    }
+
+    @Override
+    public Void visitAssignment(Assignment assignment) {
+        SymbolEntity entity = symbolTable.lookupSymbol(assignment.getName());
+        int slot = layout.slotOf(entity.getName());
+        boolean isInt = entity.getDataType() == DataType.INT;
+
+        if (assignment.getIndex() != null) {
+            int index = asInt(compileExpression(assignment.getIndex()));
+            Operand value = compileExpression(assignment.getValue());
+            int line = assignment.getLine();
+            if (isInt) {
+                emit(ISTORE_ARR, slot, index, asInt(value), line);
+            } else {
+                emit(FSTORE_ARR, slot, index, asFloat(value), line);
+            }
+            return null;
+        }
+
+        moveInto(compileExpression(assignment.getValue()), isInt, slot);
+        return null;
+    }
+
+    @Override
+    public Void visitIf(IfStatement statement) {
+        if (constants.isAlwaysTrue(statement.getCondition())) {
+            compileStatements(statement.getThenBranch());
+            return null;
+        }
+        if (constants.isAlwaysFalse(statement.getCondition())) {
+            if (statement.getElseBranch() != null) {
+                compileStatements(statement.getElseBranch());
+            }
+            return null;
+        }
+
+        int elseLabel = newLabel();
+        jumpIf(statement.getCondition(), false, elseLabel);
+        compileStatements(statement.getThenBranch());
+
+        if (statement.getElseBranch() == null) {
+            bind(elseLabel);
+            return null;
+        }
+
+        int endLabel = newLabel();
+        jump(JMP, endLabel);
+        bind(elseLabel);
+        compileStatements(statement.getElseBranch());
+        bind(endLabel);
+        return null;
+    }
+
+    @Override
+    public Void visitDoWhile(DoWhileLoop loop) {
+        compileInvariants(loop);
+        int bodyLabel = newLabel();
+        bind(bodyLabel);
+        compileStatements(loop.getBody());
+        jumpIf(loop.getCondition(), true, bodyLabel);
+        return null;
+    }
+
+    /**
+     * Lowers a for loop with the same semantics as the interpreter: the bound and step are evaluated
+     * again before every iteration, and the step once more for the increment, unless loop optimization found them
+     * invariant. When both are plain registers nothing needs to be re-evaluated, and the increment, test and jump
+     * back become one {@code FOR_NEXT}.
+     */
+    @Override
+    public Void visitFor(ForLoop loop) {
+        int variable = layout.slotOf(loop.getVariable());
+        moveInto(compileExpression(loop.getFrom()), true, variable);
+        compileInvariants(loop);
+
+        // An invariant step is evaluated once, and then an invariant bound too, in the order of the first test
+        int invariantStep = loops.isStepInvariant(loop) ? compileInvariantInt(loop.getStep()) : -1;
+        int invariantBound = invariantStep >= 0 && loops.isBoundInvariant(loop) ? compileInvariantInt(loop.getTo()) : -1;
+
+        // Every induction variable starts as the product and grows by the step times the factor
+        List<Binary> inductions = loops.getInductions(loop);
+        int[] inductionRegisters = new int[inductions.size()];
+        int[] incrementRegisters = new int[inductions.size()];
+        for (int i = 0; i < inductionRegisters.length; i++) {
+            inductionRegisters[i] = intTemp();
+            incrementRegisters[i] = intTemp();
+            int intMark = nextIntTemp;
+            int floatMark = nextFloatTemp;
+            int factor = asInt(compileExpression(LoopFacts.factorOf(loop, inductions.get(i))));
+            emit(IMUL, inductionRegisters[i], variable, factor);
+            emit(IMUL, incrementRegisters[i], invariantStep, factor);
+            nextIntTemp = intMark;
+            nextFloatTemp = floatMark;
+            precomputed.put(inductions.get(i), Operand.ofInt(inductionRegisters[i]));
+        }
+
+        int testLabel = newLabel();
+        int bodyLabel = newLabel();
+        int exitLabel = newLabel();
+        bind(testLabel);
+
+        int intMark = nextIntTemp;
+        int floatMark = nextFloatTemp;
+        int testStart = size;
+        int step = invariantStep >= 0 ? invariantStep : asInt(compileExpression(loop.getStep()));
+        int bound = invariantBound >= 0 ? invariantBound : asInt(compileExpression(loop.getTo()));
+        boolean registersOnly = size == testStart;
+        emit(FOR_EXIT, variable, step, bound, -1);
+        addFixup(size - 1, exitLabel);
+        nextIntTemp = intMark;
+        nextFloatTemp = floatMark;
+
+        bind(bodyLabel);
+        compileStatements(loop.getBody());
+        for (int i = 0; i < inductionRegisters.length; i++) {
+            emit(IADD, inductionRegisters[i], inductionRegisters[i], incrementRegisters[i]);
+        }
+
+        if (registersOnly) {
+            emit(FOR_NEXT, variable, step, bound, -1);
+            addFixup(size - 1, bodyLabel);
+        } else {
+            int increment = invariantStep >= 0 ? invariantStep : asInt(compileExpression(loop.getStep()));
+            emit(IADD, variable, variable, increment);
+            jump(JMP, testLabel);
+        }
+        bind(exitLabel);
+        return null;
+    }
+
+    /**
+     * Evaluates the invariant expressions of a loop into temporaries that last until the end of the loop
+     */
+    private void compileInvariants(Statement loop) {
+        for (Expression invariant : loops.getInvariants(loop)) {
+            int intMark = nextIntTemp;
+            int floatMark = nextFloatTemp;
+            Operand value = compileExpression(invariant);
+            nextIntTemp = intMark;
+            nextFloatTemp = floatMark;
+            Operand kept = value.isFloat ? Operand.ofFloat(floatTemp()) : Operand.ofInt(intTemp());
+            moveInto(value, !value.isFloat, kept.register);
+            precomputed.put(invariant, kept);
+        }
+    }
+
+    /**
+     * Evaluates an invariant Int expression once and returns the register holding its value until the end of the
+     * loop, which is the register of the variable or constant itself if it is one
+     */
+    private int compileInvariantInt(Expression expression) {
+        int intMark = nextIntTemp;
+        int floatMark = nextFloatTemp;
+        int value = asInt(compileExpression(expression));
+        nextIntTemp = intMark;
+        nextFloatTemp = floatMark;
+        if (value < firstIntTemp) {
+            return value;
+        }
+        int register = intTemp();
+        moveInto(Operand.ofInt(value), true, register);
+        return register;
+    }
+
+    @Override
+    public Void visitInput(InputStatement statement) {
+        SymbolEntity entity = symbolTable.lookupSymbol(statement.getName());
+        int slot = layout.slotOf(entity.getName());
+        emit(entity.getDataType() == DataType.INT ? IREAD : FREAD, slot, statement.getLine());
+        return null;
+    }
+
+    @Override
+    public Void visitOutput(OutputStatement statement) {
+        List<Node> args = statement.getArguments();
+        for (int i = 0; i < args.size(); i++) {
+            if (i > 0) {
+                emit(PRINT_SEP);
+            }
+            Node arg = args.get(i);
+            if (arg instanceof Text) {
+                String text = ((Text) arg).getValue();
+                Integer index = strings.get(text);
+                if (index == null) {
+                    index = strings.size();
+                    strings.put(text, index);
+                }
+                emit(PRINT_STR, index);
+            } else {
+                Operand value = compileExpression((Expression) arg);
+                emit(value.isFloat ? PRINT_FLOAT : PRINT_INT, value.register);
+            }
+        }
+        emit(PRINT_LN);
+        return null;
+    }
+
+    // Conditions
+
+    /**
+     * Emits a jump to the label that is taken when the expression is true (or false, depending on
+     * {@code when}). Logical operators short-circuit through jumps instead of materializing truth values,
+     * and Int comparisons become a single compare-and-jump instruction.
+     */
+    private void jumpIf(Expression expression, boolean when, int label) {
+        Number constant = constants.valueOf(expression);
+        if (constant != null) {
+            if ((constant.doubleValue() != 0.0) == when) {
+                jump(JMP, label);
+            }
+            return;
+        }
+
+        if (expression instanceof Group) {
+            jumpIf(((Group) expression).getExpression(), when, label);
+        } else if (expression instanceof Not) {
+            jumpIf(((Not) expression).getOperand(), !when, label);
+        } else if (expression instanceof Logical) {
+            jumpIf((Logical) expression, when, label);
+        } else if (expression instanceof Binary && ((Binary) expression).getOperator().isComparison()) {
+            Binary comparison = (Binary) expression;
+            Operand left = compileExpression(comparison.getLeft());
+            Operand right = compileExpression(comparison.getRight());
+            if (!left.isFloat && !right.isFloat) {
+                Operator operator = comparison.getOperator();
+                emit(compareJump(when ? operator : operator.inverse()), left.register, right.register, -1);
+                addFixup(size - 1, label);
+                return;
+            }
+            // Float comparisons are not inverted, which would change their result for NaN
+            Operand truth = compare(comparison.getOperator(), left, right);
+            emit(when ? JNZ : JZ, truth.register, -1);
+            addFixup(size - 1, label);
+        } else {
+            emit(when ? JNZ : JZ, truth(compileExpression(expression)), -1);
+            addFixup(size - 1, label);
+        }
+    }
+
+    /**
+     * Emits the jumps of a logical operator chain. An OR jumps to the label as soon as one operand is true; it
+     * is false when all operands are, so its jump when false is taken from the last operand after the others
+     * skipped past it. AND is the mirror image.
+     */
+    private void jumpIf(Logical logical, boolean when, int label) {
+        boolean isOr = logical.getOperator() == Operator.OR;
+        List<Expression> operands = logical.getOperands();
+        int last = operands.size() - 1;
+        if (when == isOr) {
+            for (Expression operand : operands) {
+                jumpIf(operand, when, label);
+            }
+            return;
+        }
+        int skipLabel = newLabel();
+        for (int i = 0; i < last; i++) {
+            jumpIf(operands.get(i), !when, skipLabel);
+        }
+        jumpIf(operands.get(last), when, label);
+        bind(skipLabel);
+    }
+
+    private static int compareJump(Operator operator) {
+        switch (operator) {
+            case GT: return JIGT;
+            case LT: return JILT;
+            case GE: return JIGE;
+            case LE: return JILE;
+            case EQ: return JIEQ;
+            default: return JINE;
+        }
+    }
+
+    // Expressions
+
+    /**
+     * Lowers an expression, or returns the register of its value if it is known to be constant or was computed
+     * before its loop
+     */
+    private Operand compileExpression(Expression expression) {
+        Number constant = constants.valueOf(expression);
+        if (constant != null) {
+            return constantOperand(constant);
+        }
+        if (loops.isPrecomputed(expression)) {
+            Operand register = precomputed.get(expression);
+            if (register != null) {
+                return register;
+            }
+        }
+        return expression.accept(expressions);
+    }
+
+    /**
+     * Lowers the expressions that are not constant
+     */
+    private final class ExpressionCompiler implements ExpressionVisitor<Operand> {
+        @Override
+        public Operand visitLiteral(Literal literal) {
+            return literal.isFloat() ? Operand.ofFloat(floatConstants.get(literal.getFloatValue()))
+                                     : Operand.ofInt(intConstants.get(literal.getIntValue()));
+        }
+
+        @Override
+        public Operand visitIdentifier(Identifier identifier) {
+            SymbolEntity entity = symbolTable.lookupSymbol(identifier.getName());
+            boolean isInt = entity.getDataType() == DataType.INT;
+
+            if (entity.getKind() == EntityKind.CONSTANT) {
+                return isInt ? Operand.ofInt(intConstants.get(((Number) entity.getValue()).intValue()))
+                             : Operand.ofFloat(floatConstants.get(Double.parseDouble(entity.getValue().toString())));
+            }
+            int slot = layout.slotOf(entity.getName());
+            return isInt ? Operand.ofInt(slot) : Operand.ofFloat(slot);
+        }
+
+        @Override
+        public Operand visitArrayElement(ArrayElement element) {
+            SymbolEntity entity = symbolTable.lookupSymbol(element.getName());
+            int slot = layout.slotOf(entity.getName());
+            int index = asInt(compileExpression(element.getIndex()));
+            int line = element.getLine();
+            return entity.getDataType() == DataType.INT ? Operand.ofInt(emitResult(ILOAD_ARR, intTemp(), slot, index, line))
+                                                        : Operand.ofFloat(emitResult(FLOAD_ARR, floatTemp(), slot, index, line));
+        }
+
+        @Override
+        public Operand visitGroup(Group group) {
+            return compileExpression(group.getExpression());
+        }
+
+        @Override
+        public Operand visitNot(Not not) {
+            int operand = truth(compileExpression(not.getOperand()));
+            return Operand.ofInt(emitResult(INOT, intTemp(), operand));
+        }
+
+        /**
+         * Evaluates operands into one truth register until one of them decides the result
+         */
+        @Override
+        public Operand visitLogical(Logical logical) {
+            int exitJump = logical.getOperator() == Operator.OR ? JNZ : JZ;
+            List<Expression> operands = logical.getOperands();
+            int result = intTemp();
+            int endLabel = newLabel();
+            for (int i = 0; i < operands.size(); i++) {
+                Operand operand = compileExpression(operands.get(i));
+                emit(operand.isFloat ? FTRUTH : ITRUTH, result, operand.register);
+                if (i < operands.size() - 1) {
+                    emit(exitJump, result, -1);
+                    addFixup(size - 1, endLabel);
+                }
+            }
+            bind(endLabel);
+            return Operand.ofInt(result);
+        }
+
+        @Override
+        public Operand visitBinary(Binary binary) {
+            Operand left = compileExpression(binary.getLeft());
+            Operand right = compileExpression(binary.getRight());
+            if (binary.getOperator().isComparison()) {
+                return compare(binary.getOperator(), left, right);
+            }
+            return arithmetic(binary.getOperator(), left, right, binary.getLine());
+        }
+    }
+
+    private Operand compare(Operator operator, Operand left, Operand right) {
+        boolean isFloat = left.isFloat || right.isFloat;
+        int l = isFloat ? asFloat(left) : left.register;
+        int r = isFloat ? asFloat(right) : right.register;
+
+        int opcode;
+        switch (operator) {
+            case GT: opcode = isFloat ? FGT : IGT; break;
+            case LT: opcode = isFloat ? FLT : ILT; break;
+            case GE: opcode = isFloat ? FGE : IGE; break;
+            case LE: opcode = isFloat ? FLE : ILE; break;
+            case EQ: opcode = isFloat ? FEQ : IEQ; break;
+            default: opcode = isFloat ? FNE : INE; break;
+        }
+        return Operand.ofInt(emitResult(opcode, intTemp(), l, r));
+    }
+
+    /**
+     * Combines two operands with an arithmetic operator; the result is Int only if both operands are Int
+     */
+    private Operand arithmetic(Operator operator, Operand left, Operand right, int line) {
+        if (!left.isFloat && !right.isFloat) {
+            switch (operator) {
+                case PLUS: return Operand.ofInt(emitResult(IADD, intTemp(), left.register, right.register));
+                case MINUS: return Operand.ofInt(emitResult(ISUB, intTemp(), left.register, right.register));
+                case MUL: return Operand.ofInt(emitResult(IMUL, intTemp(), left.register, right.register));
+                default: return Operand.ofInt(emitResult(IDIV, intTemp(), left.register, right.register, line));
+            }
+        }
+
+        int l = asFloat(left);
+        int r = asFloat(right);
+        switch (operator) {
+            case PLUS: return Operand.ofFloat(emitResult(FADD, floatTemp(), l, r));
+            case MINUS: return Operand.ofFloat(emitResult(FSUB, floatTemp(), l, r));
+            case MUL: return Operand.ofFloat(emitResult(FMUL, floatTemp(), l, r));
+            default: return Operand.ofFloat(emitResult(FDIV, floatTemp(), l, r, line));
+        }
+    }
+
+    // Conversions
+
+    /**
+     * Returns a register holding the operand as Int, truncating a Float value
+     */
+    private int asInt(Operand operand) {
+        if (!operand.isFloat) {
+            return operand.register;
+        }
+        return emitResult(F2I, intTemp(), operand.register);
+    }
+
+    /**
+     * Returns a register holding the operand as Float, widening an Int value
+     */
+    private int asFloat(Operand operand) {
+        if (operand.isFloat) {
+            return operand.register;
+        }
+        if (isIntConstant(operand.register)) {
+            // Every Int constant also has a Float register, so widening it costs nothing at run time
+            return floatConstants.get((double) intConstantValue(operand.register));
+        }
+        return emitResult(I2F, floatTemp(), operand.register);
+    }
+
+    /**
+     * Returns an Int register holding 1 if the operand is non-zero and 0 otherwise, or the operand itself
+     * if it is an Int and only compared against zero
+     */
+    private int truth(Operand operand) {
+        if (!operand.isFloat) {
+            return operand.register;
+        }
+        return emitResult(FTRUTH, intTemp(), operand.register);
+    }
+
+    /**
+     * Stores an operand in a variable register, converting it to the variable's type. When the operand is
+     * the temporary written by the last instruction, that instruction is retargeted instead of adding a move.
+     */
+    private void moveInto(Operand value, boolean isInt, int destination) {
+        if (isInt == !value.isFloat) {
+            if (value.register == destination) {
+                return;
+            }
+            boolean isTemp = value.register >= (isInt ? firstIntTemp : firstFloatTemp);
+            if (isTemp && lastDestination >= 0 && code[lastDestination] == value.register) {
+                code[lastDestination] = destination;
+                return;
+            }
+            emit(isInt ? IMOV : FMOV, destination, value.register);
+        } else if (isInt) {
+            emit(F2I, destination, value.register);
+        } else if (isIntConstant(value.register)) {
+            emit(FMOV, destination, asFloat(value));
+        } else {
+            emit(I2F, destination, value.register);
+        }
+    }
+
+    // Constants
+
+    /**
+     * Adds a register for every literal and every value known to be constant
+     */
+    private final class ConstantCollector extends AstBaseListener {
+        @Override
+        public void enterEveryNode(Node node) {
+            if (!(node instanceof Expression)) {
+                return;
+            }
+            Number constant = constants.valueOf((Expression) node);
+            if (constant instanceof Integer) {
+                addIntConstant(constant.intValue());
+            } else if (constant != null) {
+                addFloatConstant(constant.doubleValue());
+            }
+        }
+
+        @Override
+        public void enterLiteral(Literal literal) {
+            if (literal.isFloat()) {
+                addFloatConstant(literal.getFloatValue());
+            } else {
+                addIntConstant(literal.getIntValue());
+            }
+        }
+    }
+
+    private void addIntConstant(int value) {
+        if (!intConstants.containsKey(value)) {
+            intConstants.put(value, layout.getIntCount() + intConstants.size());
+        }
+        addFloatConstant(value);
+    }
+
+    private void addFloatConstant(double value) {
+        if (!floatConstants.containsKey(value)) {
+            floatConstants.put(value, layout.getFloatCount() + floatConstants.size());
+        }
+    }
+
+    /**
+     * Returns the constant register holding a folded value, an Integer or a Double
+     */
+    private Operand constantOperand(Number value) {
+        return value instanceof Integer ? Operand.ofInt(intConstants.get(value.intValue()))
+                                        : Operand.ofFloat(floatConstants.get(value.doubleValue()));
+    }
+
+    private boolean isIntConstant(int register) {
+        return register >= layout.getIntCount() && register < firstIntTemp;
+    }
+
+    private int intConstantValue(int register) {
+        for (Map.Entry<Integer, Integer> constant : intConstants.entrySet()) {
+            if (constant.getValue() == register) {
+                return constant.getKey();
+            }
+        }
+        throw new IllegalArgumentException("Not a constant register: " + register);
+    }
+
+    // Registers and code
+
+    private int intTemp() {
+        int register = nextIntTemp++;
+        intRegisterCount = Math.max(intRegisterCount, nextIntTemp);
+        return register;
+    }
+
+    private int floatTemp() {
+        int register = nextFloatTemp++;
+        floatRegisterCount = Math.max(floatRegisterCount, nextFloatTemp);
+        return register;
+    }
+
+    private void emit(int opcode, int... operands) {
+        ensureCapacity(1 + operands.length);
+        code[size++] = opcode;
+        for (int operand : operands) {
+            code[size++] = operand;
+        }
+        lastDestination = -1;
+    }
+
+    /**
+     * Emits an instruction whose first operand is its destination register and returns that register
+     */
+    private int emitResult(int opcode, int destination, int... operands) {
+        ensureCapacity(2 + operands.length);
+        code[size++] = opcode;
+        lastDestination = size;
+        code[size++] = destination;
+        for (int operand : operands) {
+            code[size++] = operand;
+        }
+        return destination;
+    }
+
+    private void ensureCapacity(int words) {
+        if (size + words > code.length) {
+            code = Arrays.copyOf(code, Math.max(code.length * 2, size + words));
+        }
+    }
+
+    private int newLabel() {
+        labels.add(-1);
+        return labels.size() - 1;
+    }
+
+    private void bind(int label) {
+        labels.set(label, size);
+        // Code after a label can be reached from several places, so its result is not just the last write
+        lastDestination = -1;
+    }
+
+    private void jump(int opcode, int label) {
+        emit(opcode, -1);
+        addFixup(size - 1, label);
+    }
+
+    private void addFixup(int position, int label) {
+        fixups.add(new int[] {position, label});
+    }
+
+    /**
+     * A register holding the value of a lowered expression, together with its static type
+     */
+    private static final class Operand {
+        final boolean isFloat;
+        final int register;
+
+        private Operand(boolean isFloat, int register) {
+            this.isFloat = isFloat;
+            this.register = register;
+        }
+
+        static Operand ofInt(int register) {
+            return new Operand(false, register);
+        }
+
+        static Operand ofFloat(int register) {
+            return new Operand(true, register);
+        }
+    }
+}
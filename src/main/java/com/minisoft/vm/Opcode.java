@@ -0,0 +1,74 @@
+package com.minisoft.vm;
+
+/**
+ * Instruction set of the register VM.
+ * Every instruction is one opcode word followed by a fixed number of operand words, listed next to each
+ * opcode. {@code d}, {@code a}, {@code b} and {@code s} are register numbers in the Int or Float register
+ * file named by the opcode prefix; {@code arr} is an array slot, {@code target} an absolute code position and
+ * {@code line} the source line reported by runtime errors. Comparisons always write 0 or 1 to an Int register.
+ */
+final class Opcode {
+    static final int HALT = 0;          // -
+
+    static final int IMOV = 1;          // d s
+    static final int FMOV = 2;          // d s
+    static final int I2F = 3;           // d s
+    static final int F2I = 4;           // d s
+
+    static final int IADD = 5;          // d a b
+    static final int ISUB = 6;          // d a b
+    static final int IMUL = 7;          // d a b
+    static final int IDIV = 8;          // d a b line
+    static final int FADD = 9;          // d a b
+    static final int FSUB = 10;         // d a b
+    static final int FMUL = 11;         // d a b
+    static final int FDIV = 12;         // d a b line
+
+    static final int ILOAD_ARR = 13;    // d arr index line
+    static final int FLOAD_ARR = 14;    // d arr index line
+    static final int ISTORE_ARR = 15;   // arr index s line
+    static final int FSTORE_ARR = 16;   // arr index s line
+
+    static final int IEQ = 17;          // d a b
+    static final int INE = 18;          // d a b
+    static final int ILT = 19;          // d a b
+    static final int ILE = 20;          // d a b
+    static final int IGT = 21;          // d a b
+    static final int IGE = 22;          // d a b
+    static final int FEQ = 23;          // d a b
+    static final int FNE = 24;          // d a b
+    static final int FLT = 25;          // d a b
+    static final int FLE = 26;          // d a b
+    static final int FGT = 27;          // d a b
+    static final int FGE = 28;          // d a b
+
+    static final int ITRUTH = 29;       // d s      d = s != 0
+    static final int FTRUTH = 30;       // d s      d = s != 0.0
+    static final int INOT = 31;         // d s      d = s == 0
+
+    static final int JMP = 32;          // target
+    static final int JZ = 33;           // s target
+    static final int JNZ = 34;          // s target
+    static final int JIEQ = 35;         // a b target
+    static final int JINE = 36;         // a b target
+    static final int JILT = 37;         // a b target
+    static final int JILE = 38;         // a b target
+    static final int JIGT = 39;         // a b target
+    static final int JIGE = 40;         // a b target
+
+    // Leaves a for loop: jumps when the variable has passed the inclusive bound in the direction of the step
+    static final int FOR_EXIT = 41;     // var step bound target
+    // Closes a for loop whose step and bound are plain registers: adds the step and jumps back unless passed
+    static final int FOR_NEXT = 42;     // var step bound target
+
+    static final int IREAD = 43;        // d line
+    static final int FREAD = 44;        // d line
+    static final int PRINT_STR = 45;    // string
+    static final int PRINT_INT = 46;    // s
+    static final int PRINT_FLOAT = 47;  // s
+    static final int PRINT_SEP = 48;    // -
+    static final int PRINT_LN = 49;     // -
+
+    private Opcode() {
+    }
+}
@@ -0,0 +1,258 @@
+package com.minisoft.vm;
+
+import com.minisoft.runtime.RuntimeIO;
+
+import static com.minisoft.runtime.RuntimeSupport.checkIndex;
+import static com.minisoft.runtime.RuntimeSupport.divide;
+import static com.minisoft.vm.Opcode.*;
+
+/**
+ * The dispatch loop of the register VM.
+ * Registers and arrays are allocated once per run; executing an instruction reads its operands straight from
+ * the code array and allocates nothing, so a program runs without garbage apart from what I/O produces.
+ */
+final class VirtualMachine {
+    private VirtualMachine() {
+    }
+
+    /**
+     * Runs a program until it halts
+     */
+    static void execute(VmProgram program, RuntimeIO io) {
+        final int[] code = program.code;
+        final int[] ir = program.intRegisters.clone();
+        final double[] fr = program.floatRegisters.clone();
+        final int[][] ia = new int[program.intArraySizes.length][];
+        for (int i = 0; i < ia.length; i++) {
+            ia[i] = new int[program.intArraySizes[i]];
+        }
+        final double[][] fa = new double[program.floatArraySizes.length][];
+        for (int i = 0; i < fa.length; i++) {
+            fa[i] = new double[program.floatArraySizes[i]];
+        }
+
+        int pc = 0;
+        while (true) {
+            switch (code[pc]) {
+                case HALT:
+                    return;
+
+                case IMOV:
+                    ir[code[pc + 1]] = ir[code[pc + 2]];
+                    pc += 3;
+                    break;
+                case FMOV:
+                    fr[code[pc + 1]] = fr[code[pc + 2]];
+                    pc += 3;
+                    break;
+                case I2F:
+                    fr[code[pc + 1]] = ir[code[pc + 2]];
+                    pc += 3;
+                    break;
+                case F2I:
+                    ir[code[pc + 1]] = (int) fr[code[pc + 2]];
+                    pc += 3;
+                    break;
+
+                case IADD:
+                    ir[code[pc + 1]] = ir[code[pc + 2]] + ir[code[pc + 3]];
+                    pc += 4;
+                    break;
+                case ISUB:
+                    ir[code[pc + 1]] = ir[code[pc + 2]] - ir[code[pc + 3]];
+                    pc += 4;
+                    break;
+                case IMUL:
+                    ir[code[pc + 1]] = ir[code[pc + 2]] * ir[code[pc + 3]];
+                    pc += 4;
+                    break;
+                case IDIV:
+                    ir[code[pc + 1]] = divide(ir[code[pc + 2]], ir[code[pc + 3]], code[pc + 4]);
+                    pc += 5;
+                    break;
+                case FADD:
+                    fr[code[pc + 1]] = fr[code[pc + 2]] + fr[code[pc + 3]];
+                    pc += 4;
+                    break;
+                case FSUB:
+                    fr[code[pc + 1]] = fr[code[pc + 2]] - fr[code[pc + 3]];
+                    pc += 4;
+                    break;
+                case FMUL:
+                    fr[code[pc + 1]] = fr[code[pc + 2]] * fr[code[pc + 3]];
+                    pc += 4;
+                    break;
+                case FDIV:
+                    fr[code[pc + 1]] = divide(fr[code[pc + 2]], fr[code[pc + 3]], code[pc + 4]);
+                    pc += 5;
+                    break;
+
+                case ILOAD_ARR: {
+                    int[] array = ia[code[pc + 2]];
+                    int index = checkIndex(ir[code[pc + 3]], array.length, program.intArrayNames[code[pc + 2]], code[pc + 4]);
+                    ir[code[pc + 1]] = array[index];
+                    pc += 5;
+                    break;
+                }
+                case FLOAD_ARR: {
+                    double[] array = fa[code[pc + 2]];
+                    int index = checkIndex(ir[code[pc + 3]], array.length, program.floatArrayNames[code[pc + 2]], code[pc + 4]);
+                    fr[code[pc + 1]] = array[index];
+                    pc += 5;
+                    break;
+                }
+                case ISTORE_ARR: {
+                    int[] array = ia[code[pc + 1]];
+                    int index = checkIndex(ir[code[pc + 2]], array.length, program.intArrayNames[code[pc + 1]], code[pc + 4]);
+                    array[index] = ir[code[pc + 3]];
+                    pc += 5;
+                    break;
+                }
+                case FSTORE_ARR: {
+                    double[] array = fa[code[pc + 1]];
+                    int index = checkIndex(ir[code[pc + 2]], array.length, program.floatArrayNames[code[pc + 1]], code[pc + 4]);
+                    array[index] = fr[code[pc + 3]];
+                    pc += 5;
+                    break;
+                }
+
+                case IEQ:
+                    ir[code[pc + 1]] = ir[code[pc + 2]] == ir[code[pc + 3]] ? 1 : 0;
+                    pc += 4;
+                    break;
+                case INE:
+                    ir[code[pc + 1]] = ir[code[pc + 2]] != ir[code[pc + 3]] ? 1 : 0;
+                    pc += 4;
+                    break;
+                case ILT:
+                    ir[code[pc + 1]] = ir[code[pc + 2]] < ir[code[pc + 3]] ? 1 : 0;
+                    pc += 4;
+                    break;
+                case ILE:
+                    ir[code[pc + 1]] = ir[code[pc + 2]] <= ir[code[pc + 3]] ? 1 : 0;
+                    pc += 4;
+                    break;
+                case IGT:
+                    ir[code[pc + 1]] = ir[code[pc + 2]] > ir[code[pc + 3]] ? 1 : 0;
+                    pc += 4;
+                    break;
+                case IGE:
+                    ir[code[pc + 1]] = ir[code[pc + 2]] >= ir[code[pc + 3]] ? 1 : 0;
+                    pc += 4;
+                    break;
+                case FEQ:
+                    ir[code[pc + 1]] = fr[code[pc + 2]] == fr[code[pc + 3]] ? 1 : 0;
+                    pc += 4;
+                    break;
+                case FNE:
+                    ir[code[pc + 1]] = fr[code[pc + 2]] != fr[code[pc + 3]] ? 1 : 0;
+                    pc += 4;
+                    break;
+                case FLT:
+                    ir[code[pc + 1]] = fr[code[pc + 2]] < fr[code[pc + 3]] ? 1 : 0;
+                    pc += 4;
+                    break;
+                case FLE:
+                    ir[code[pc + 1]] = fr[code[pc + 2]] <= fr[code[pc + 3]] ? 1 : 0;
+                    pc += 4;
+                    break;
+                case FGT:
+                    ir[code[pc + 1]] = fr[code[pc + 2]] > fr[code[pc + 3]] ? 1 : 0;
+                    pc += 4;
+                    break;
+                case FGE:
+                    ir[code[pc + 1]] = fr[code[pc + 2]] >= fr[code[pc + 3]] ? 1 : 0;
+                    pc += 4;
+                    break;
+
+                case ITRUTH:
+                    ir[code[pc + 1]] = ir[code[pc + 2]] != 0 ? 1 : 0;
+                    pc += 3;
+                    break;
+                case FTRUTH:
+                    ir[code[pc + 1]] = fr[code[pc + 2]] != 0.0 ? 1 : 0;
+                    pc += 3;
+                    break;
+                case INOT:
+                    ir[code[pc + 1]] = ir[code[pc + 2]] == 0 ? 1 : 0;
+                    pc += 3;
+                    break;
+
+                case JMP:
+                    pc = code[pc + 1];
+                    break;
+                case JZ:
+                    pc = ir[code[pc + 1]] == 0 ? code[pc + 2] : pc + 3;
+                    break;
+                case JNZ:
+                    pc = ir[code[pc + 1]] != 0 ? code[pc + 2] : pc + 3;
+                    break;
+                case JIEQ:
+                    pc = ir[code[pc + 1]] == ir[code[pc + 2]] ? code[pc + 3] : pc + 4;
+                    break;
+                case JINE:
+                    pc = ir[code[pc + 1]] != ir[code[pc + 2]] ? code[pc + 3] : pc + 4;
+                    break;
+                case JILT:
+                    pc = ir[code[pc + 1]] < ir[code[pc + 2]] ? code[pc + 3] : pc + 4;
+                    break;
+                case JILE:
+                    pc = ir[code[pc + 1]] <= ir[code[pc + 2]] ? code[pc + 3] : pc + 4;
+                    break;
+                case JIGT:
+                    pc = ir[code[pc + 1]] > ir[code[pc + 2]] ? code[pc + 3] : pc + 4;
+                    break;
+                case JIGE:
+                    pc = ir[code[pc + 1]] >= ir[code[pc + 2]] ? code[pc + 3] : pc + 4;
+                    break;
+                case FOR_EXIT: {
+                    int value = ir[code[pc + 1]];
+                    int bound = ir[code[pc + 3]];
+                    boolean passed = ir[code[pc + 2]] >= 0 ? value > bound : value < bound;
+                    pc = passed ? code[pc + 4] : pc + 5;
+                    break;
+                }
+                case FOR_NEXT: {
+                    int step = ir[code[pc + 2]];
+                    int value = ir[code[pc + 1]] += step;
+                    int bound = ir[code[pc + 3]];
+                    boolean passed = step >= 0 ? value > bound : value < bound;
+                    pc = passed ? pc + 5 : code[pc + 4];
+                    break;
+                }
+
+                case IREAD:
+                    ir[code[pc + 1]] = io.readInt(code[pc + 2]);
+                    pc += 3;
+                    break;
+                case FREAD:
+                    fr[code[pc + 1]] = io.readFloat(code[pc + 2]);
+                    pc += 3;
+                    break;
+                case PRINT_STR:
+                    io.printString(program.strings[code[pc + 1]]);
+                    pc += 2;
+                    break;
+                case PRINT_INT:
+                    io.printInt(ir[code[pc + 1]]);
+                    pc += 2;
+                    break;
+                case PRINT_FLOAT:
+                    io.printFloat(fr[code[pc + 1]]);
+                    pc += 2;
+                    break;
+                case PRINT_SEP:
+                    io.printSeparator();
+                    pc += 1;
+                    break;
+                case PRINT_LN:
+                    io.println();
+                    pc += 1;
+                    break;
+
+                default:
+                    throw new IllegalStateException("Invalid opcode " + code[pc] + " at " + pc);
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.minisoft.vm;
+
+import com.minisoft.ast.Program;
+import com.minisoft.optimizer.ConstantFacts;
+import com.minisoft.optimizer.LoopFacts;
+import com.minisoft.symbol.SlotLayout;
+import com.minisoft.symbol.SymbolTable;
+
+/**
+ * Compiles a semantically checked MiniSoft program into code for the register VM.
+ * The result is a dense {@code int[]} instruction stream with typed opcodes over primitive register files,
+ * so a compiled program starts without generating or loading classes and runs in environments that forbid it.
+ */
+public class VmCompiler {
+    private final SymbolTable symbolTable;
+    private final SlotLayout layout;
+    private final ConstantFacts constants;
+    private final LoopFacts loops;
+
+    /**
+     * Creates a compiler for programs described by the given symbol table
+     */
+    public VmCompiler(SymbolTable symbolTable) {
+        this(symbolTable, ConstantFacts.NONE);
+    }
+
+    /**
+     * Creates a compiler that replaces the expressions known to be constant by their values
+     */
+    public VmCompiler(SymbolTable symbolTable, ConstantFacts constants) {
+        this(symbolTable, constants, LoopFacts.NONE);
+    }
+
+    /**
+     * Creates a compiler that also computes the invariant expressions and induction variables of loops before
+     * running them
+     */
+    public VmCompiler(SymbolTable symbolTable, ConstantFacts constants, LoopFacts loops) {
+        this.symbolTable = symbolTable;
+        this.layout = new SlotLayout(symbolTable);
+        this.constants = constants;
+        this.loops = loops;
+    }
+
+    /**
+     * Compiles a program
+     *
+     * @param program The semantically checked syntax tree of the program
+     * @return The executable program
+     */
+    public VmProgram compile(Program program) {
+        return new CodeGenerator(symbolTable, layout, constants, loops, program).generate(program);
+    }
+}
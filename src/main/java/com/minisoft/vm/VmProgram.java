@@ -0,0 +1,56 @@
+package com.minisoft.vm;
+
+import com.minisoft.runtime.MiniSoftRuntimeException;
+import com.minisoft.runtime.RuntimeIO;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A program compiled by {@link VmCompiler}: the instruction stream plus everything needed to set up its registers.
+ * Instances are immutable and can be run any number of times.
+ */
+public class VmProgram {
+    final int[] code;
+    final int[] intRegisters;
+    final double[] floatRegisters;
+    final int[] intArraySizes;
+    final int[] floatArraySizes;
+    final String[] intArrayNames;
+    final String[] floatArrayNames;
+    final String[] strings;
+
+    /**
+     * Creates a program
+     *
+     * @param code The instruction stream, ending with {@link Opcode#HALT}
+     * @param intRegisters The initial Int register file, holding constants after the variables
+     * @param floatRegisters The initial Float register file, holding constants after the variables
+     */
+    VmProgram(int[] code, int[] intRegisters, double[] floatRegisters,
+              int[] intArraySizes, int[] floatArraySizes, String[] intArrayNames, String[] floatArrayNames,
+              String[] strings) {
+        this.code = code;
+        this.intRegisters = intRegisters;
+        this.floatRegisters = floatRegisters;
+        this.intArraySizes = intArraySizes;
+        this.floatArraySizes = floatArraySizes;
+        this.intArrayNames = intArrayNames;
+        this.floatArrayNames = floatArrayNames;
+        this.strings = strings;
+    }
+
+    /**
+     * Executes the program, reading input from and writing output to the given streams
+     *
+     * @throws MiniSoftRuntimeException if the program fails at run time
+     */
+    public void run(InputStream in, OutputStream out) {
+        RuntimeIO io = new RuntimeIO(in, out);
+        try {
+            VirtualMachine.execute(this, io);
+        } finally {
+            io.flush();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.minisoft;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the samples on every backend at every optimization level, with the same input, and checks that each run
+ * prints the same output and diagnostics and ends with the same status as the interpreter without optimizations.
+ */
+class BackendEquivalenceTest {
+    private static final Path SAMPLES = Paths.get("src", "main", "resources", "samples");
+    private static final String[] BACKENDS = {"interpreter", "vm", "jvm"};
+    private static final String[] LEVELS = {"-O0", "-O1", "-O2"};
+    private static final String INPUT = "3 4 5 6 7 8 9\n";
+
+    @Test
+    void runsTheSamplesWithTheirInput() {
+        assertTrue(run(SAMPLES.resolve("valid_test.ms"), "interpreter", "-O0").contains("You entered: 3"));
+    }
+
+    @Test
+    void runsTheSamplesAlikeOnEveryBackendAndLevel() throws IOException {
+        for (Path sample : samples()) {
+            String expected = run(sample, "interpreter", "-O0");
+            for (String backend : BACKENDS) {
+                for (String level : LEVELS) {
+                    assertEquals(expected, run(sample, backend, level), sample + " " + backend + " " + level);
+                }
+            }
+        }
+    }
+
+    private static List<Path> samples() throws IOException {
+        try (Stream<Path> files = Files.list(SAMPLES)) {
+            return files.filter(file -> file.toString().endsWith(".ms")).sorted().collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Compiles and runs a sample, returning its status followed by what it printed
+     */
+    private static String run(Path sample, String backend, String level) {
+        String[] args = {"--headless", "--run", "--backend=" + backend, level, sample.toString()};
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        InputStream in = System.in;
+        System.setIn(new ByteArrayInputStream(INPUT.getBytes(StandardCharsets.UTF_8)));
+        try {
+            CompilationResult result = new MiniSoftCompiler(CompilerOptions.parse(args))
+                    .compile(sample, new PrintStream(out, true, StandardCharsets.UTF_8),
+                             new PrintStream(err, true, StandardCharsets.UTF_8));
+            return result.getStatus() + "\n" + out.toString(StandardCharsets.UTF_8) + "\n"
+                   + err.toString(StandardCharsets.UTF_8);
+        } finally {
+            System.setIn(in);
+        }
+    }
+}
@@ -0,0 +1,389 @@
+package com.minisoft;
+
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Lexer;
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Checks that the left-factored language grammar accepts the same programs as the grammar it replaced, kept in
+ * {@code src/test/antlr4} as {@code MiniSoftReference}, and builds the same trees for them.
+ * <p>
+ * The factoring moved a parenthesized condition from comparisonExpression to primaryExpression, so trees are
+ * compared in a form where every chain of rules with a single child is replaced by the last rule of the chain, and
+ * the parenthesized alternative of the old comparisonExpression is named primaryExpression. The nodes that group
+ * tokens, and the tokens they group, must be the same.
+ */
+class GrammarEquivalenceTest {
+    private static final Path SAMPLES = Paths.get("src", "main", "resources", "samples");
+    private static final int PROGRAMS = 300;
+    private static final int MUTATIONS = 2;
+
+    @Test
+    void buildsTheSameTreesForTheSamples() throws IOException {
+        List<Path> samples;
+        try (Stream<Path> files = Files.list(SAMPLES)) {
+            samples = files.filter(file -> file.toString().endsWith(".ms")).sorted().collect(Collectors.toList());
+        }
+        for (Path sample : samples) {
+            String source = new String(Files.readAllBytes(sample), StandardCharsets.UTF_8);
+            assertEquals(referenceTree(source), tree(source), sample.toString());
+        }
+    }
+
+    @Test
+    void buildsTheSameTreesForRandomPrograms() {
+        Random random = new Random(20);
+        for (int i = 0; i < PROGRAMS; i++) {
+            List<String> tokens = new ProgramGenerator(random).program();
+            String source = String.join(" ", tokens);
+            String tree = tree(source);
+            assertNotNull(tree, source);
+            assertEquals(referenceTree(source), tree, source);
+        }
+    }
+
+    @Test
+    void acceptsAndRejectsTheSameMutatedPrograms() {
+        Random random = new Random(21);
+        for (int i = 0; i < PROGRAMS; i++) {
+            List<String> tokens = new ProgramGenerator(random).program();
+            for (int j = 0; j < MUTATIONS; j++) {
+                String source = String.join(" ", mutate(tokens, random));
+                assertEquals(referenceTree(source), tree(source), source);
+            }
+        }
+    }
+
+    /**
+     * Returns a copy of a program with one token removed, repeated or replaced by another
+     */
+    private static List<String> mutate(List<String> tokens, Random random) {
+        List<String> mutated = new ArrayList<>(tokens);
+        int position = random.nextInt(mutated.size());
+        switch (random.nextInt(3)) {
+            case 0:
+                mutated.remove(position);
+                break;
+            case 1:
+                mutated.add(position, mutated.get(position));
+                break;
+            default:
+                mutated.set(position, ProgramGenerator.TOKENS[random.nextInt(ProgramGenerator.TOKENS.length)]);
+                break;
+        }
+        return mutated;
+    }
+
+    /**
+     * Returns the compared form of the tree the language grammar builds for a program, or null if it is rejected
+     */
+    private static String tree(String source) {
+        MiniSoftLexer lexer = new MiniSoftLexer(CharStreams.fromString(source));
+        MiniSoftParser parser = new MiniSoftParser(new CommonTokenStream(lexer));
+        return parse(lexer, parser, parser::program);
+    }
+
+    /**
+     * Returns the compared form of the tree the replaced grammar builds for a program, or null if it is rejected
+     */
+    private static String referenceTree(String source) {
+        MiniSoftReferenceLexer lexer = new MiniSoftReferenceLexer(CharStreams.fromString(source));
+        MiniSoftReferenceParser parser = new MiniSoftReferenceParser(new CommonTokenStream(lexer));
+        return parse(lexer, parser, parser::program);
+    }
+
+    private static String parse(Lexer lexer, Parser parser, Supplier<ParserRuleContext> rule) {
+        boolean[] rejected = new boolean[1];
+        BaseErrorListener errors = new BaseErrorListener() {
+            @Override
+            public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                    int charPositionInLine, String msg, RecognitionException e) {
+                rejected[0] = true;
+            }
+        };
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(errors);
+        parser.removeErrorListeners();
+        parser.addErrorListener(errors);
+        ParserRuleContext tree = rule.get();
+        if (rejected[0]) {
+            return null;
+        }
+        StringBuilder out = new StringBuilder();
+        print(tree, parser.getRuleNames(), out);
+        return out.toString();
+    }
+
+    private static void print(ParseTree node, String[] ruleNames, StringBuilder out) {
+        while (node.getChildCount() == 1 && node.getChild(0) instanceof ParserRuleContext) {
+            node = node.getChild(0);
+        }
+        if (node instanceof TerminalNode) {
+            out.append(' ').append(node.getText());
+            return;
+        }
+        ParserRuleContext context = (ParserRuleContext) node;
+        String rule = ruleNames[context.getRuleIndex()];
+        if (rule.equals("comparisonExpression") && context.getChild(0) instanceof TerminalNode) {
+            rule = "primaryExpression";
+        }
+        out.append(" (").append(rule);
+        for (int i = 0; i < context.getChildCount(); i++) {
+            print(context.getChild(i), ruleNames, out);
+        }
+        out.append(')');
+    }
+
+    /**
+     * Generates random valid programs as lists of tokens, with every declaration form and conditions and
+     * expressions nested in parentheses at every level of precedence
+     */
+    private static final class ProgramGenerator {
+        static final String[] TOKENS = {
+                "let", "@define", "Const", "Int", "Float", "if", "then", "else", "do", "while", "for", "from", "to",
+                "step", "input", "output", "OR", "AND", ";", ":", "[", "]", "=", ",", "(", ")", "+", "-", "!", "*",
+                "/", ">", "<", ">=", "<=", "==", "!=", ":=", "{", "}", "x", "A", "1", "2.5", "\"s\""
+        };
+        private static final String[] COMPARISONS = {">", "<", ">=", "<=", "==", "!="};
+        private static final String[] VARIABLES = {"x", "y", "i"};
+        private static final String[] ARRAYS = {"A", "B"};
+
+        private final Random random;
+        private final List<String> tokens = new ArrayList<>();
+
+        ProgramGenerator(Random random) {
+            this.random = random;
+        }
+
+        List<String> program() {
+            add("MainPrgm", "P", ";", "Var");
+            int declarations = random.nextInt(4);
+            for (int i = 0; i < declarations; i++) {
+                declaration();
+            }
+            add("BeginPg", "{");
+            instructions(2);
+            add("}", "EndPg", ";");
+            return tokens;
+        }
+
+        private void declaration() {
+            switch (random.nextInt(3)) {
+                case 0:
+                    add("let");
+                    idList();
+                    add(":", type(), ";");
+                    break;
+                case 1:
+                    add("let");
+                    idList();
+                    add(":", "[", type(), ";", Integer.toString(1 + random.nextInt(20)), "]", ";");
+                    break;
+                default:
+                    add("@define", "Const", "C" + random.nextInt(3), ":", type(), "=");
+                    constValue();
+                    add(";");
+                    break;
+            }
+        }
+
+        private void idList() {
+            add(pick(VARIABLES));
+            while (random.nextInt(3) == 0) {
+                add(",", pick(VARIABLES));
+            }
+        }
+
+        private String type() {
+            return random.nextBoolean() ? "Int" : "Float";
+        }
+
+        private void instructions(int depth) {
+            int count = random.nextInt(4);
+            for (int i = 0; i < count; i++) {
+                instruction(depth);
+            }
+        }
+
+        private void instruction(int depth) {
+            switch (random.nextInt(depth > 0 ? 7 : 4)) {
+                case 0:
+                    add(pick(VARIABLES), ":=");
+                    expression(2);
+                    add(";");
+                    break;
+                case 1:
+                    add(pick(ARRAYS), "[");
+                    expression(2);
+                    add("]", ":=");
+                    expression(2);
+                    add(";");
+                    break;
+                case 2:
+                    add("input", "(", pick(VARIABLES), ")", ";");
+                    break;
+                case 3:
+                    add("output", "(");
+                    outputArg();
+                    while (random.nextInt(3) == 0) {
+                        add(",");
+                        outputArg();
+                    }
+                    add(")", ";");
+                    break;
+                case 4:
+                    add("if", "(");
+                    expression(2);
+                    add(")", "then", "{");
+                    instructions(depth - 1);
+                    add("}");
+                    if (random.nextBoolean()) {
+                        add("else", "{");
+                        instructions(depth - 1);
+                        add("}");
+                    }
+                    break;
+                case 5:
+                    add("do", "{");
+                    instructions(depth - 1);
+                    add("}", "while", "(");
+                    expression(2);
+                    add(")", ";");
+                    break;
+                default:
+                    add("for", pick(VARIABLES), "from");
+                    expression(1);
+                    add("to");
+                    expression(1);
+                    add("step");
+                    expression(1);
+                    add("{");
+                    instructions(depth - 1);
+                    add("}");
+                    break;
+            }
+        }
+
+        private void outputArg() {
+            if (random.nextInt(3) == 0) {
+                add("\"s\"");
+            } else {
+                expression(2);
+            }
+        }
+
+        /**
+         * Adds a logicalOrExpression, the form of both expressions and conditions
+         */
+        private void expression(int depth) {
+            and(depth);
+            while (random.nextInt(5) == 0) {
+                add("OR");
+                and(depth);
+            }
+        }
+
+        private void and(int depth) {
+            negation(depth);
+            while (random.nextInt(5) == 0) {
+                add("AND");
+                negation(depth);
+            }
+        }
+
+        private void negation(int depth) {
+            while (random.nextInt(5) == 0) {
+                add("!");
+            }
+            additive(depth);
+            if (random.nextInt(3) == 0) {
+                add(pick(COMPARISONS));
+                additive(depth);
+            }
+        }
+
+        private void additive(int depth) {
+            multiplicative(depth);
+            while (random.nextInt(3) == 0) {
+                add(random.nextBoolean() ? "+" : "-");
+                multiplicative(depth);
+            }
+        }
+
+        private void multiplicative(int depth) {
+            primary(depth);
+            while (random.nextInt(4) == 0) {
+                add(random.nextBoolean() ? "*" : "/");
+                primary(depth);
+            }
+        }
+
+        private void primary(int depth) {
+            switch (random.nextInt(depth > 0 ? 5 : 3)) {
+                case 0:
+                    constValue();
+                    break;
+                case 1:
+                    add(pick(VARIABLES));
+                    break;
+                case 2:
+                    add(pick(ARRAYS), "[");
+                    if (depth > 0) {
+                        expression(depth - 1);
+                    } else {
+                        add(Integer.toString(random.nextInt(5)));
+                    }
+                    add("]");
+                    break;
+                default:
+                    add("(");
+                    expression(depth - 1);
+                    add(")");
+                    break;
+            }
+        }
+
+        private void constValue() {
+            String number = random.nextBoolean()
+                    ? Integer.toString(random.nextInt(100))
+                    : random.nextInt(100) + "." + random.nextInt(100);
+            if (random.nextInt(3) == 0) {
+                add("(", random.nextBoolean() ? "+" : "-", number, ")");
+            } else {
+                add(number);
+            }
+        }
+
+        private String pick(String[] choices) {
+            return choices[random.nextInt(choices.length)];
+        }
+
+        private void add(String... added) {
+            tokens.addAll(Arrays.asList(added));
+        }
+    }
+}
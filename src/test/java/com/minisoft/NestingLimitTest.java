@@ -0,0 +1,159 @@
+package com.minisoft;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compiles and runs programs nested exactly as deep as the nesting limit allows, on the default stack of the test
+ * thread and on the threads of a parallel batch, and checks that one level more is reported as a syntax error.
+ */
+class NestingLimitTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void runsIfStatementsNestedToTheDefaultLimit() throws IOException {
+        for (String backend : new String[] {"interpreter", "vm", "jvm"}) {
+            Output output = run(ifNest(NestingLimit.DEFAULT_MAX_DEPTH), "--run", "--backend=" + backend);
+            assertEquals(CompilationResult.Status.SUCCESS, output.result.getStatus(), output.err);
+            assertTrue(output.out.contains("x 1"), output.out);
+        }
+    }
+
+    @Test
+    void runsParenthesesNestedToTheDefaultLimit() throws IOException {
+        for (String backend : new String[] {"interpreter", "vm", "jvm"}) {
+            Output output = run(parenthesisNest(NestingLimit.DEFAULT_MAX_DEPTH), "--run", "--backend=" + backend);
+            assertEquals(CompilationResult.Status.SUCCESS, output.result.getStatus(), output.err);
+            assertTrue(output.out.contains("x " + (NestingLimit.DEFAULT_MAX_DEPTH - 1)), output.out);
+        }
+    }
+
+    @Test
+    void checksProgramsNestedToTheDefaultLimitWhileStreaming() throws IOException {
+        Output output = run(ifNest(NestingLimit.DEFAULT_MAX_DEPTH), "--stream");
+        assertEquals(CompilationResult.Status.SUCCESS, output.result.getStatus(), output.err);
+    }
+
+    @Test
+    void reportsOneLevelMoreAsASyntaxError() throws IOException {
+        for (String source : new String[] {ifNest(NestingLimit.DEFAULT_MAX_DEPTH + 1),
+                                           parenthesisNest(NestingLimit.DEFAULT_MAX_DEPTH + 1)}) {
+            Output output = run(source);
+            assertEquals(CompilationResult.Status.SYNTAX_ERROR, output.result.getStatus());
+            assertTrue(output.err.contains("nested at most " + NestingLimit.DEFAULT_MAX_DEPTH + " levels"), output.err);
+        }
+    }
+
+    @Test
+    void takesTheLimitFromTheOptions() throws IOException {
+        Output output = run(ifNest(20001), "--max-nesting=20000");
+        assertEquals(CompilationResult.Status.SYNTAX_ERROR, output.result.getStatus());
+        assertTrue(output.err.contains("nested at most 20000 levels"), output.err);
+
+        output = run(ifNest(20000), "--max-nesting=20000", "--run");
+        assertEquals(CompilationResult.Status.SUCCESS, output.result.getStatus(), output.err);
+    }
+
+    @Test
+    void compilesProgramsNestedToTheDefaultLimitInParallel() throws IOException {
+        Path ifFile = directory.resolve("if.ms");
+        Path parenthesisFile = directory.resolve("parenthesis.ms");
+        Files.write(ifFile, ifNest(NestingLimit.DEFAULT_MAX_DEPTH).getBytes(StandardCharsets.UTF_8));
+        Files.write(parenthesisFile, parenthesisNest(NestingLimit.DEFAULT_MAX_DEPTH).getBytes(StandardCharsets.UTF_8));
+
+        MiniSoftCompiler compiler = new MiniSoftCompiler(CompilerOptions.parse(
+                new String[] {"--headless", ifFile.toString(), parenthesisFile.toString()}));
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        List<CompilationResult> results = new BatchCompiler(compiler, 2).compile(
+                Arrays.asList(ifFile, parenthesisFile), new PrintStream(OutputStream.nullOutputStream()),
+                new PrintStream(err, true, StandardCharsets.UTF_8));
+        for (CompilationResult result : results) {
+            assertEquals(CompilationResult.Status.SUCCESS, result.getStatus(), err.toString(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Returns a program whose innermost assignment is in if statements nesting the given number of blocks,
+     * counting the block of the program
+     */
+    private static String ifNest(int depth) {
+        StringBuilder body = new StringBuilder();
+        for (int i = 1; i < depth; i++) {
+            body.append("if (x < ").append(i).append(") then {\n");
+        }
+        body.append("x := x + 1;\n");
+        for (int i = 1; i < depth; i++) {
+            body.append("}\n");
+        }
+        return program(body.toString());
+    }
+
+    /**
+     * Returns a program assigning a sum nested in parentheses up to the given depth, counting the block of the program
+     */
+    private static String parenthesisNest(int depth) {
+        StringBuilder body = new StringBuilder("x := ");
+        for (int i = 1; i < depth; i++) {
+            body.append("(1 + ");
+        }
+        body.append('0');
+        for (int i = 1; i < depth; i++) {
+            body.append(')');
+        }
+        return program(body.append(";\n").toString());
+    }
+
+    private static String program(String body) {
+        return "MainPrgm Deep;\n" +
+               "Var\n" +
+               "    let x: Int;\n" +
+               "BeginPg\n" +
+               "{\n" +
+               body +
+               "    output(\"x\", x);\n" +
+               "}\n" +
+               "EndPg;\n";
+    }
+
+    private Output run(String source, String... options) throws IOException {
+        Path sourceFile = directory.resolve("deep.ms");
+        Files.write(sourceFile, source.getBytes(StandardCharsets.UTF_8));
+        String[] args = new String[options.length + 2];
+        System.arraycopy(options, 0, args, 0, options.length);
+        args[options.length] = "--headless";
+        args[options.length + 1] = sourceFile.toString();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        MiniSoftCompiler compiler = new MiniSoftCompiler(CompilerOptions.parse(args));
+        CompilationResult result = compiler.compile(sourceFile, new PrintStream(out, true, StandardCharsets.UTF_8),
+                                                    new PrintStream(err, true, StandardCharsets.UTF_8));
+        return new Output(result, out.toString(StandardCharsets.UTF_8), err.toString(StandardCharsets.UTF_8));
+    }
+
+    private static final class Output {
+        final CompilationResult result;
+        final String out;
+        final String err;
+
+        Output(CompilationResult result, String out, String err) {
+            this.result = result;
+            this.out = out;
+            this.err = err;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.minisoft;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that {@code --cache} reuses the result of a single file compiled without {@code --headless}, which would
+ * otherwise open the parse tree viewer, that an explicit {@code --gui} still opens it, and that a nesting limit or
+ * lexer other than the one a result was cached with compiles the file again
+ */
+class ResultCacheTest {
+    private static final Path EXAMPLE = Paths.get("src", "main", "resources", "samples", "example.ms");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void reusesTheResultOfASingleFile() {
+        CompilerOptions options = CompilerOptions.parse(new String[] {cacheOption(), EXAMPLE.toString()});
+        assertFalse(options.isGui());
+
+        MiniSoftCompiler first = new MiniSoftCompiler(options);
+        compile(first, new ByteArrayOutputStream());
+        assertEquals(0, first.getResultCache().getHits());
+        assertEquals(1, first.getResultCache().getMisses());
+
+        MiniSoftCompiler second = new MiniSoftCompiler(options);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue(compile(second, out).isSuccess());
+        assertEquals(1, second.getResultCache().getHits());
+        assertTrue(out.toString(StandardCharsets.UTF_8).contains("Compilation successful!"));
+    }
+
+    @Test
+    void compilesAgainWithAnotherNestingLimitOrLexer() {
+        compile(new MiniSoftCompiler(CompilerOptions.parse(new String[] {cacheOption(), EXAMPLE.toString()})),
+                new ByteArrayOutputStream());
+
+        for (String option : new String[] {"--max-nesting=100", "--lexer=table"}) {
+            MiniSoftCompiler other = new MiniSoftCompiler(
+                    CompilerOptions.parse(new String[] {cacheOption(), option, EXAMPLE.toString()}));
+            assertTrue(compile(other, new ByteArrayOutputStream()).isSuccess());
+            assertEquals(0, other.getResultCache().getHits(), option);
+        }
+    }
+
+    @Test
+    void opensTheViewerWhenItIsAskedFor() {
+        assertTrue(CompilerOptions.parse(new String[] {cacheOption(), "--gui", EXAMPLE.toString()}).isGui());
+    }
+
+    private String cacheOption() {
+        return "--cache=" + directory.resolve("cache");
+    }
+
+    private static CompilationResult compile(MiniSoftCompiler compiler, ByteArrayOutputStream out) {
+        return compiler.compile(EXAMPLE, new PrintStream(out, true, StandardCharsets.UTF_8),
+                                new PrintStream(OutputStream.nullOutputStream()));
+    }
+}
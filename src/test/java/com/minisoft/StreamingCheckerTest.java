@@ -0,0 +1,115 @@
+package com.minisoft;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that {@code --stream} reports the same errors as a normal compilation where they do not depend on the
+ * values of variables. Streaming reports them in the order the statements are read, so they are compared sorted.
+ */
+class StreamingCheckerTest {
+    private static final Path SAMPLES = Paths.get("src", "main", "resources", "samples");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void reportsTheErrorsOfTheSemanticErrorsSample() {
+        Path sample = SAMPLES.resolve("semantic_errors.ms");
+        List<String> normal = errors(sample);
+        List<String> streamed = errors(sample, "--stream");
+        assertTrue(normal.contains("[Semantic Error] Line 28:4 - Array index out of bounds: Index 5 exceeds array size 5 for array 'arr'"));
+        assertTrue(normal.contains("[Semantic Error] Line 41:14 - Division by zero detected"));
+        assertEquals(normal, streamed);
+    }
+
+    @Test
+    void rejectsDivisionsByZeroAndIndexesOutOfBounds() throws IOException {
+        Path source = directory.resolve("errors.ms");
+        Files.write(source, ("MainPrgm Errors;\n" +
+                "Var\n" +
+                "    let x: Int;\n" +
+                "    let A: [Int; 5];\n" +
+                "BeginPg\n" +
+                "{\n" +
+                "    x := 10 / 0;\n" +
+                "    A[5] := 1;\n" +
+                "}\n" +
+                "EndPg;\n").getBytes(StandardCharsets.UTF_8));
+
+        CompilationResult result = compile(source, new PrintStream(OutputStream.nullOutputStream()), "--stream");
+        assertEquals(CompilationResult.Status.SEMANTIC_ERROR, result.getStatus());
+        assertEquals(errors(source), errors(source, "--stream"));
+        assertEquals(2, errors(source, "--stream").size());
+    }
+
+    @Test
+    void rejectsArraysWithoutAnIndexAndFloatIndexes() throws IOException {
+        Path source = directory.resolve("arrays.ms");
+        Files.write(source, ("MainPrgm Arrays;\n" +
+                "Var\n" +
+                "    let x: Int;\n" +
+                "    let A: [Int; 5];\n" +
+                "BeginPg\n" +
+                "{\n" +
+                "    x := A;\n" +
+                "    x := A + 1;\n" +
+                "    x := A[1.5];\n" +
+                "    A[2.5] := 1;\n" +
+                "}\n" +
+                "EndPg;\n").getBytes(StandardCharsets.UTF_8));
+
+        List<String> normal = errors(source);
+        assertEquals(List.of("[Semantic Error] Line 10:4 - Type mismatch: Expected Int but found Float",
+                             "[Semantic Error] Line 7:9 - Array 'A' requires an index",
+                             "[Semantic Error] Line 8:9 - Array 'A' requires an index",
+                             "[Semantic Error] Line 9:9 - Type mismatch: Expected Int but found Float"), normal);
+        assertEquals(normal, errors(source, "--stream"));
+
+        Files.write(source, ("MainPrgm Arrays;\n" +
+                "Var\n" +
+                "    let x: Int;\n" +
+                "    let A: [Int; 5];\n" +
+                "BeginPg\n" +
+                "{\n" +
+                "    x := A[x * 0.5];\n" +
+                "}\n" +
+                "EndPg;\n").getBytes(StandardCharsets.UTF_8));
+        assertEquals(List.of("[Semantic Error] Line 7:9 - Type mismatch: Expected Int but found Float"), errors(source));
+    }
+
+    /**
+     * Returns the diagnostics printed when compiling a file, sorted
+     */
+    private static List<String> errors(Path source, String... options) {
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        compile(source, new PrintStream(err, true, StandardCharsets.UTF_8), options);
+        return Arrays.stream(err.toString(StandardCharsets.UTF_8).split("\\R"))
+                .filter(line -> line.startsWith("["))
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    private static CompilationResult compile(Path source, PrintStream err, String... options) {
+        String[] args = Arrays.copyOf(options, options.length + 2);
+        args[options.length] = "--headless";
+        args[options.length + 1] = source.toString();
+        MiniSoftCompiler compiler = new MiniSoftCompiler(CompilerOptions.parse(args));
+        return compiler.compile(source, new PrintStream(OutputStream.nullOutputStream()), err);
+    }
+}
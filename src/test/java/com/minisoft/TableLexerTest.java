@@ -0,0 +1,191 @@
+package com.minisoft;
+
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenSource;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that {@link TableLexer} reads every input exactly as the generated {@link MiniSoftLexer} does: the same
+ * tokens with the same text, indexes and positions, and the same lexical errors at the same positions. The inputs
+ * are the samples, the samples repeated over several windows of the table lexer, and random programs assembled from
+ * fragments chosen to reach every rule, its prefixes and the ways it can fail: unclosed comments and strings,
+ * escaped quotes, partial keywords, non-ASCII and invalid UTF-8, also placed across the edge of a window. Spellings
+ * whose hashes collide are checked on their own, as random programs almost never contain any.
+ */
+class TableLexerTest {
+    private static final Path SAMPLES = Paths.get("src", "main", "resources", "samples");
+
+    private static final String[] FRAGMENTS = {
+            "MainPrgm", "Var", "BeginPg", "EndPg", "let", "@define", "Const", "Int", "Float", "if", "then", "else",
+            "do", "while", "for", "from", "to", "step", "input", "output", "OR", "AND", "Main", "Ints", "iff", "t",
+            "x", "x_1", "_x", "Z9", "@", "@def", "@definex", "0", "42", "3.14", "7.", ".5", "1.2.3", ";", ":", ":=",
+            "[", "]", "=", "==", ",", "(", ")", "+", "-", "*", "/", "!", "!=", ">", ">=", "<", "<=", "{", "}",
+            "<!", "<! ", "<! -", "<! - text - !>", "<! -- !>", "- !>", "{--", "{-- text --}", "{----}", "--}",
+            "\"", "\"text\"", "\"a\\\"b\"", "\"a\\\"", "\"\\\\\"", "\"\"", "\" é \"", " ", "  ", "\t", "\n", "\r\n",
+            "\r", "é", "€", "😀", "#", "$", "%", "&", "?", "^", "~", "`", "'", "|", "\\", "\u0000", "\f"
+    };
+
+    /** Bytes that are not valid UTF-8 on their own */
+    private static final byte[][] INVALID = {
+            {(byte) 0x80}, {(byte) 0xC3}, {(byte) 0xE2, (byte) 0x82}, {(byte) 0xF0, (byte) 0x9F}, {(byte) 0xFF},
+            {(byte) 0xED, (byte) 0xA0, (byte) 0x80}, {(byte) 0xC0, (byte) 0xAF}
+    };
+
+    /** Size of the window of input the table lexer scans at a time */
+    private static final int WINDOW_SIZE = 1 << 16;
+
+    private static final int RANDOM_PROGRAMS = 20000;
+    private static final int WINDOW_EDGE_PROGRAMS = 200;
+
+    @Test
+    void readsTheSamplesAsTheGeneratedLexer() throws IOException {
+        for (Path sample : samples()) {
+            assertSameTokens(sample.toString(), Files.readAllBytes(sample));
+        }
+    }
+
+    @Test
+    void readsProgramsLongerThanAWindowAsTheGeneratedLexer() throws IOException {
+        ByteArrayOutputStream program = new ByteArrayOutputStream();
+        while (program.size() < 4 * WINDOW_SIZE) {
+            for (Path sample : samples()) {
+                program.writeBytes(Files.readAllBytes(sample));
+            }
+        }
+        assertSameTokens("repeated samples", program.toByteArray());
+    }
+
+    @Test
+    void readsRandomProgramsAsTheGeneratedLexer() {
+        Random random = new Random(42);
+        for (int i = 0; i < RANDOM_PROGRAMS; i++) {
+            assertSameTokens("random program " + i, randomProgram(random, new ByteArrayOutputStream()));
+        }
+    }
+
+    @Test
+    void readsTokensAcrossTheEdgeOfAWindowAsTheGeneratedLexer() {
+        Random random = new Random(7);
+        for (int i = 0; i < WINDOW_EDGE_PROGRAMS; i++) {
+            // Padding of spaces, sometimes inside a comment and ending with one- and two-byte characters, up to
+            // just before or after the edge of the first or second window
+            ByteArrayOutputStream program = new ByteArrayOutputStream();
+            int padding = WINDOW_SIZE - 40 + random.nextInt(80) + (random.nextBoolean() ? WINDOW_SIZE : 0);
+            int spaces = random.nextBoolean() ? padding : padding - 16;
+            if (random.nextInt(3) == 0) {
+                program.writeBytes("{-- ".getBytes(StandardCharsets.UTF_8));
+            }
+            while (program.size() < spaces) {
+                program.write(' ');
+            }
+            while (program.size() < padding) {
+                program.writeBytes((random.nextBoolean() ? "é" : "a").getBytes(StandardCharsets.UTF_8));
+            }
+            assertSameTokens("window edge program " + i, randomProgram(random, program));
+        }
+    }
+
+    @Test
+    void readsSpellingsWithTheSameHashAsTheGeneratedLexer() {
+        // Each pair has the same hash, and the first spelling is a prefix of the second
+        String[][] collisions = {{"G2kIa6n", "G2kIa6naA"}, {"826763", "826763.8307"}};
+        for (String[] pair : collisions) {
+            assertEquals(pair[0].hashCode(), pair[1].hashCode());
+            for (String source : new String[] {pair[0] + " " + pair[1] + " " + pair[0],
+                                               pair[1] + " " + pair[0] + " " + pair[1]}) {
+                assertSameTokens(source, source.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    private static List<Path> samples() throws IOException {
+        try (Stream<Path> files = Files.list(SAMPLES)) {
+            return files.filter(file -> file.toString().endsWith(".ms")).sorted().collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Appends up to 40 random fragments and invalid bytes to a program and returns it
+     */
+    private static byte[] randomProgram(Random random, ByteArrayOutputStream program) {
+        StringBuilder text = new StringBuilder();
+        int fragments = 1 + random.nextInt(40);
+        for (int i = 0; i < fragments; i++) {
+            if (random.nextInt(30) == 0) {
+                program.writeBytes(text.toString().getBytes(StandardCharsets.UTF_8));
+                text.setLength(0);
+                program.writeBytes(INVALID[random.nextInt(INVALID.length)]);
+            } else {
+                text.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+                if (random.nextBoolean()) {
+                    text.append(' ');
+                }
+            }
+        }
+        program.writeBytes(text.toString().getBytes(StandardCharsets.UTF_8));
+        return program.toByteArray();
+    }
+
+    private static void assertSameTokens(String name, byte[] content) {
+        List<String> expected = lex(name, content, false);
+        List<String> actual = lex(name, content, true);
+        for (int i = 0; i < Math.max(expected.size(), actual.size()); i++) {
+            String generated = i < expected.size() ? expected.get(i) : "nothing";
+            String table = i < actual.size() ? actual.get(i) : "nothing";
+            assertEquals(generated, table, name);
+        }
+    }
+
+    /**
+     * Describes the tokens and errors a lexer reads, in the order it reads them
+     */
+    private static List<String> lex(String name, byte[] content, boolean table) {
+        List<String> read = new ArrayList<>();
+        BaseErrorListener errors = new BaseErrorListener() {
+            @Override
+            public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                    int charPositionInLine, String msg, RecognitionException e) {
+                read.add("error " + line + ":" + charPositionInLine + " " + msg);
+            }
+        };
+        MappedCharStream input = new MappedCharStream(ByteBuffer.wrap(content), name);
+        TokenSource lexer;
+        if (table) {
+            TableLexer tableLexer = new TableLexer(input);
+            tableLexer.setErrorListener(errors);
+            lexer = tableLexer;
+        } else {
+            MiniSoftLexer generated = new MiniSoftLexer(input);
+            generated.removeErrorListeners();
+            generated.addErrorListener(errors);
+            lexer = generated;
+        }
+        Token token;
+        do {
+            token = lexer.nextToken();
+            read.add("token " + token.getType() + " '" + token.getText() + "' " + token.getStartIndex() + ".." +
+                     token.getStopIndex() + " at " + token.getLine() + ":" + token.getCharPositionInLine() +
+                     " channel " + token.getChannel());
+        } while (token.getType() != Token.EOF);
+        read.add("end at " + lexer.getLine() + ":" + lexer.getCharPositionInLine());
+        return read;
+    }
+}
@@ -0,0 +1,132 @@
+package com.minisoft.daemon;
+
+import com.minisoft.ParserFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the daemon only serves clients presenting its token, and does not wait forever for idle ones
+ */
+class CompileDaemonTest {
+    private static final Path EXAMPLE = Paths.get("src", "main", "resources", "samples", "example.ms").toAbsolutePath();
+    private static final int READ_TIMEOUT = 500;
+
+    @TempDir
+    Path directory;
+
+    private Path tokenFile;
+    private ServerSocket serverSocket;
+    private CompileDaemon daemon;
+    private Thread server;
+
+    @BeforeEach
+    void startDaemon() throws IOException {
+        tokenFile = directory.resolve("daemon.token");
+        daemon = new CompileDaemon(new ParserFactory(), 1, DaemonToken.create(tokenFile), READ_TIMEOUT);
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        server = new Thread(() -> {
+            try {
+                daemon.serve(serverSocket);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopDaemon() throws IOException, InterruptedException {
+        // Closed here rather than with stop(), which does nothing if the daemon has not started serving yet
+        serverSocket.close();
+        server.join();
+    }
+
+    @Test
+    void writesTheTokenForTheUserOnly() throws IOException {
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(tokenFile)));
+        }
+    }
+
+    @Test
+    void compilesForAClientWithTheToken() throws IOException {
+        DaemonClient client = new DaemonClient(serverSocket.getLocalPort(), tokenFile);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DaemonClient.Response response = client.compile(Collections.singletonList(EXAMPLE.toString()), directory,
+                                                        out, OutputStream.nullOutputStream());
+        assertEquals(0, response.getExitStatus());
+        assertTrue(out.toString(StandardCharsets.UTF_8).contains("Compilation successful!"));
+    }
+
+    @Test
+    void rejectsAClientWithAnotherToken() throws IOException {
+        Path otherTokenFile = directory.resolve("other.token");
+        DaemonToken.create(otherTokenFile);
+        DaemonClient client = new DaemonClient(serverSocket.getLocalPort(), otherTokenFile);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        DaemonClient.Response response = client.compile(Collections.singletonList(EXAMPLE.toString()), directory,
+                                                        out, err);
+        assertEquals(1, response.getExitStatus());
+        assertEquals("", out.toString(StandardCharsets.UTF_8));
+        assertTrue(err.toString(StandardCharsets.UTF_8).contains("Invalid daemon token"));
+
+        // A stop request with the wrong token is not read either
+        client.stop();
+        assertFalse(serverSocket.isClosed());
+    }
+
+    @Test
+    void readsNoFrameBeforeTheToken() throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort())) {
+            DataOutputStream request = new DataOutputStream(socket.getOutputStream());
+            DaemonProtocol.writeHeader(request, new byte[DaemonToken.LENGTH]);
+            DaemonProtocol.writeFrame(request, DaemonProtocol.STOP, new byte[0]);
+            request.flush();
+
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            assertEquals(DaemonProtocol.ERR, DaemonProtocol.readFrame(in).type);
+            DaemonProtocol.Frame exit = DaemonProtocol.readFrame(in);
+            assertEquals(DaemonProtocol.EXIT, exit.type);
+            assertEquals(1, exit.payloadStream().readInt());
+        }
+        assertFalse(serverSocket.isClosed());
+    }
+
+    @Test
+    void closesAConnectionThatSendsNothing() throws IOException {
+        try (Socket idle = new Socket(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort())) {
+            idle.setSoTimeout(10 * READ_TIMEOUT);
+            assertEquals(-1, idle.getInputStream().read());
+
+            // The only thread of the daemon is free again
+            DaemonClient client = new DaemonClient(serverSocket.getLocalPort(), tokenFile);
+            DaemonClient.Response response = client.compile(Collections.singletonList(EXAMPLE.toString()), directory,
+                                                            OutputStream.nullOutputStream(),
+                                                            OutputStream.nullOutputStream());
+            assertEquals(0, response.getExitStatus());
+        }
+    }
+}